@@ -6,7 +6,8 @@ public enum AlgoritmoRecomendacion {
 
     COLABORATIVO("Basado en usuarios similares"),
     CONTENIDO("Basado en características del contenido"),
-    HIBRIDO("Combinación de ambos");
+    HIBRIDO("Combinación de ambos"),
+    FACTORIZACION("Basado en factores latentes de escuchas y likes");
 
     //Atributos:
     private String descripcion;
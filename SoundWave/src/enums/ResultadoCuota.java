@@ -0,0 +1,24 @@
+package enums;
+
+public enum ResultadoCuota {
+    PERMITIDO("La reproducción está permitida"),
+    LIMITE_DIARIO("Se alcanzó el límite diario de reproducciones"),
+    ANUNCIO_REQUERIDO("Hay que escuchar un anuncio antes de continuar");
+
+    //Atributos:
+    private String descripcion;
+
+    //Constructor:
+    ResultadoCuota(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    //GetterSetter:
+    public String getDescripcion(){return this.descripcion;}
+
+    //Metodo toString
+    @Override
+    public String toString(){
+        return this.name() + " (" + this.descripcion + ")";
+    }
+}
@@ -0,0 +1,29 @@
+package enums;
+
+public enum TipoCambioContenido {
+    REPRODUCCION("Cambió el número de reproducciones"),
+    LIKE("Cambió el número de likes"),
+    TAG("Se agregó un tag"),
+    DISPONIBILIDAD("Cambió la disponibilidad"),
+    GENERO("Cambió el género"),
+    EXPLICITO("Cambió la marca de contenido explícito"),
+    TEXTO("Cambió la letra o la transcripción"),
+    TITULO("Cambió el título o el nombre del autor");
+
+    //Atributos:
+    private String descripcion;
+
+    //Constructor:
+    TipoCambioContenido(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    //GetterSetter:
+    public String getDescripcion(){return this.descripcion;}
+
+    //Metodo toString
+    @Override
+    public String toString(){
+        return this.name() + " (" + this.descripcion + ")";
+    }
+}
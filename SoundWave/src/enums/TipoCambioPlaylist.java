@@ -0,0 +1,23 @@
+package enums;
+
+public enum TipoCambioPlaylist {
+    SEGUIDORES("Cambió el número de seguidores"),
+    VISIBILIDAD("Cambió entre pública y privada");
+
+    //Atributos:
+    private String descripcion;
+
+    //Constructor:
+    TipoCambioPlaylist(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    //GetterSetter:
+    public String getDescripcion(){return this.descripcion;}
+
+    //Metodo toString
+    @Override
+    public String toString(){
+        return this.name() + " (" + this.descripcion + ")";
+    }
+}
@@ -0,0 +1,9 @@
+package excepciones.plataforma;
+
+public class FeedInvalidoException extends Exception {
+
+    public FeedInvalidoException(){}
+    public FeedInvalidoException(String message) {
+        super(message);
+    }
+}
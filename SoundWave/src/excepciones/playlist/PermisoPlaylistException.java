@@ -0,0 +1,9 @@
+package excepciones.playlist;
+
+public class PermisoPlaylistException extends Exception {
+
+    public PermisoPlaylistException(){}
+    public PermisoPlaylistException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,24 @@
+package interfaces;
+
+import enums.CriterioOrden;
+import modelo.contenido.Contenido;
+import modelo.usuarios.Usuario;
+
+import java.util.ArrayList;
+
+public interface ListaContenidos {
+
+    String getId();
+    String getNombre();
+    Usuario getCreador();
+    ArrayList<Contenido> getContenidos();
+    ArrayList<Contenido> getContenidosOrdenados(CriterioOrden criterio);
+    Contenido getContenido(int posicion);
+    int getPosicion(String idContenido);
+    boolean contieneContenido(String idContenido);
+    int getNumContenidos();
+    boolean estaVacia();
+    int getDuracionTotal();
+    String getDuracionTotalFormateada();
+    ArrayList<Contenido> buscarContenido(String termino);
+}
@@ -0,0 +1,17 @@
+package interfaces;
+
+import enums.TipoCambioContenido;
+import modelo.contenido.Contenido;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+public interface ObservadorContenido {
+
+    void contenidoActualizado(Contenido contenido, TipoCambioContenido cambio);
+
+    // Tipos de cambio que le interesan: el contenido solo le avisa de esos
+    default Set<TipoCambioContenido> getCambiosObservados() {
+        return EnumSet.allOf(TipoCambioContenido.class);
+    }
+}
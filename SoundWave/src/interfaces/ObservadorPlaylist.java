@@ -0,0 +1,10 @@
+package interfaces;
+
+import enums.TipoCambioPlaylist;
+import modelo.plataforma.Playlist;
+
+public interface ObservadorPlaylist {
+
+    // 'diferencia' es +1/-1 al seguir/dejar de seguir (0 si no aplica)
+    void playlistActualizada(Playlist playlist, TipoCambioPlaylist cambio, int diferencia);
+}
@@ -0,0 +1,9 @@
+package interfaces;
+
+import java.time.ZoneId;
+
+public interface Reloj {
+    long ahoraMillis();
+    long diaEpoch();
+    ZoneId getZona();
+}
@@ -5,9 +5,11 @@ import excepciones.artista.AlbumCompletoException;
 import excepciones.contenido.DuracionInvalidaException;
 import excepciones.playlist.CancionNoEncontradaException;
 import modelo.contenido.Cancion;
+import utilidades.ResumenContenidos;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.UUID;
 
 public class Album {
@@ -21,6 +23,7 @@ public class Album {
     private String portadaURL;
     private String discografica;
     private String tipoAlbum;
+    private ResumenContenidos resumen; // Duración, explícitos y géneros al día
 
     // Constructores
     public Album(String titulo, Artista artista, Date fechaLanzamiento) {
@@ -32,6 +35,7 @@ public class Album {
         this.portadaURL = "";
         this.discografica = "";
         this.tipoAlbum = "Estudio";
+        this.resumen = new ResumenContenidos();
     }
 
     public Album(String titulo, Artista artista, Date fechaLanzamiento, String discografica, String tipoAlbum) {
@@ -52,8 +56,9 @@ public class Album {
         Cancion cancion = new Cancion(titulo, duracionSegundos, artista, genero);
         // Le asigno este álbum a la canción
         cancion.setAlbum(this);
-        // La agrego a la lista de canciones del álbum
+        // La agrego a la lista de canciones del álbum y a los totales
         canciones.add(cancion);
+        resumen.agregar(cancion);
 
         // También la agrego a la discografía del artista (MUY IMPORTANTE)
         // Así el artista sabe todas las canciones que tiene
@@ -74,6 +79,7 @@ public class Album {
         Cancion cancion = new Cancion(titulo, duracionSegundos, artista, genero, letra, explicit);
         cancion.setAlbum(this);
         canciones.add(cancion);
+        resumen.agregar(cancion);
 
         // Igual agrego a la discografía del artista
         artista.publicarCancion(cancion);
@@ -86,34 +92,35 @@ public class Album {
         if (posicion < 1 || posicion > canciones.size()) {
             throw new CancionNoEncontradaException("Posición inválida: " + posicion);
         }
-        canciones.remove(posicion - 1);
+        resumen.quitar(canciones.remove(posicion - 1));
     }
 
     public void eliminarCancion(Cancion cancion) throws CancionNoEncontradaException {
         if (!canciones.remove(cancion)) {
             throw new CancionNoEncontradaException("La canción no pertenece a este álbum");
         }
+        resumen.quitar(cancion);
     }
 
     public int getDuracionTotal() {
-        int duracionTotal = 0;
-        for (Cancion cancion : canciones) {
-            duracionTotal += cancion.getDuracionSegundos();
-        }
-        return duracionTotal;
+        // El total se mantiene al crear y eliminar canciones, no hace falta recorrer
+        return resumen.getDuracionTotal();
     }
 
     public String getDuracionTotalFormateada() {
-        int duracionTotal = getDuracionTotal();
-        int horas = duracionTotal / 3600;
-        int minutos = (duracionTotal % 3600) / 60;
-        int segundos = duracionTotal % 60;
-
-        if (horas > 0) {
-            return String.format("%d:%02d:%02d", horas, minutos, segundos);
-        } else {
-            return String.format("%d:%02d", minutos, segundos);
-        }
+        return resumen.getDuracionTotalFormateada();
+    }
+
+    public int getNumExplicitas() {
+        return resumen.getExplicitos();
+    }
+
+    public int getNumPorGenero(GeneroMusical genero) {
+        return resumen.getCantidadPorGenero(genero);
+    }
+
+    public EnumMap<GeneroMusical, Integer> getConteoPorGenero() {
+        return resumen.getConteoPorGenero();
     }
 
     public int getNumCanciones() {
@@ -1,21 +1,52 @@
 package modelo.artistas;
 
+import enums.TipoCambioContenido;
 import excepciones.artista.AlbumYaExisteException;
 import excepciones.artista.ArtistaNoVerificadoException;
+import interfaces.ObservadorContenido;
+import interfaces.Reloj;
 import modelo.contenido.Cancion;
+import modelo.contenido.Contenido;
+import utilidades.HyperLogLog;
+import utilidades.OyentesUnicos;
+import utilidades.RelojSistema;
+import utilidades.SerieReproducciones;
 
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 
-public class Artista {
+/**
+ * Artista con su discografía indexada por id. Observa sus canciones para
+ * mantener el orden por reproducciones y el total de reproducciones al día,
+ * así que el top-k cuesta O(k) y el total O(1).
+ */
+public class Artista implements ObservadorContenido {
+    // Solo sigue las reproducciones de sus canciones (para el top)
+    private static final Set<TipoCambioContenido> CAMBIOS_OBSERVADOS =
+            Collections.unmodifiableSet(EnumSet.of(TipoCambioContenido.REPRODUCCION));
+
     private String id;
     private String nombreArtistico;
     private String nombreReal;
     private String paisOrigen;
-    private ArrayList<Cancion> discografia;
+    private LinkedHashMap<String, Cancion> discografia; // Por id, en orden de publicación
+    private HashMap<String, Pista> pistas;              // Reproducciones con las que está ordenada cada canción
+    private TreeSet<Pista> porReproducciones;
+    private int totalReproducciones;
+    private long publicadas;
     private ArrayList<Album> albumes;
-    private int oyentesMensuales;
+    private int oyentesMensuales;                       // Cifra fijada a mano (se usa si aún no hay escuchas)
+    private OyentesUnicos oyentes;                      // Oyentes distintos por día y por mes
+    private Reloj reloj;                                // Marca el "hoy" de la ventana de oyentes mensuales
     private boolean verificado;
     private String biografia;
 
@@ -25,9 +56,19 @@ public class Artista {
         this.nombreArtistico = nombreArtistico;
         this.nombreReal = nombreReal;
         this.paisOrigen = paisOrigen;
-        this.discografia = new ArrayList<>();
+        this.discografia = new LinkedHashMap<>();
+        this.pistas = new HashMap<>();
+        // Más reproducciones primero; a igualdad, la publicada antes
+        this.porReproducciones = new TreeSet<>((a, b) -> {
+            int comparacion = Integer.compare(b.reproducciones, a.reproducciones);
+            return comparacion != 0 ? comparacion : Long.compare(a.orden, b.orden);
+        });
+        this.totalReproducciones = 0;
+        this.publicadas = 0;
         this.albumes = new ArrayList<>();
         this.oyentesMensuales = 0;
+        this.oyentes = new OyentesUnicos();
+        this.reloj = RelojSistema.getPorDefecto();
         this.verificado = false;
         this.biografia = "";
     }
@@ -39,10 +80,46 @@ public class Artista {
     }
 
     // Métodos
-    public void publicarCancion(Cancion cancion) {
-        if (cancion != null && !discografia.contains(cancion)) {
-            discografia.add(cancion);
+    public synchronized void publicarCancion(Cancion cancion) {
+        if (cancion == null || discografia.containsKey(cancion.getId())) {
+            return;
+        }
+        discografia.put(cancion.getId(), cancion);
+        Pista pista = new Pista(cancion, cancion.getReproducciones(), publicadas++);
+        pistas.put(cancion.getId(), pista);
+        porReproducciones.add(pista);
+        totalReproducciones += pista.reproducciones;
+        cancion.agregarObservador(this);
+    }
+
+    @Override
+    public Set<TipoCambioContenido> getCambiosObservados() {
+        return CAMBIOS_OBSERVADOS;
+    }
+
+    @Override
+    public synchronized void contenidoActualizado(Contenido contenido, TipoCambioContenido cambio) {
+        if (cambio != TipoCambioContenido.REPRODUCCION) {
+            return;
+        }
+        Pista actual = pistas.get(contenido.getId());
+        if (actual == null || actual.reproducciones == contenido.getReproducciones()) {
+            return;
         }
+        // La saco con la clave vieja y la vuelvo a meter con la nueva
+        porReproducciones.remove(actual);
+        Pista movida = new Pista(actual.cancion, contenido.getReproducciones(), actual.orden);
+        pistas.put(contenido.getId(), movida);
+        porReproducciones.add(movida);
+        totalReproducciones += movida.reproducciones - actual.reproducciones;
+    }
+
+    public synchronized boolean tieneCancion(String idCancion) {
+        return discografia.containsKey(idCancion);
+    }
+
+    public synchronized Cancion getCancion(String idCancion) {
+        return discografia.get(idCancion);
     }
 
     public Album crearAlbum(String titulo, Date fecha) throws ArtistaNoVerificadoException, AlbumYaExisteException {
@@ -72,17 +149,17 @@ public class Artista {
         return albumes.removeIf(album -> album.getId().equals(idAlbum));
     }
 
-    public ArrayList<Cancion> obtenerTopCanciones(int cantidad) {
-        ArrayList<Cancion> topCanciones = new ArrayList<>(discografia);
-        topCanciones.sort((c1, c2) -> Integer.compare(c2.getReproducciones(), c1.getReproducciones()));
-
-        if (cantidad < topCanciones.size()) {
-            return new ArrayList<>(topCanciones.subList(0, cantidad));
+    public synchronized ArrayList<Cancion> obtenerTopCanciones(int cantidad) {
+        // Ya están ordenadas: solo recorro las primeras
+        ArrayList<Cancion> topCanciones = new ArrayList<>(Math.max(0, Math.min(cantidad, porReproducciones.size())));
+        Iterator<Pista> iterador = porReproducciones.iterator();
+        while (iterador.hasNext() && topCanciones.size() < cantidad) {
+            topCanciones.add(iterador.next().cancion);
         }
         return topCanciones;
     }
 
-    public double calcularPromedioReproducciones() {
+    public synchronized double calcularPromedioReproducciones() {
         if (discografia.isEmpty()) {
             return 0.0;
         }
@@ -95,12 +172,8 @@ public class Artista {
         return verificado;
     }
 
-    public int getTotalReproducciones() {
-        int total = 0;
-        for (Cancion cancion : discografia) {
-            total += cancion.getReproducciones();
-        }
-        return total;
+    public synchronized int getTotalReproducciones() {
+        return totalReproducciones;
     }
 
     public void verificar() {
@@ -111,6 +184,36 @@ public class Artista {
         this.oyentesMensuales++;
     }
 
+    // Lo llama el camino de reproducción: cuenta al usuario una sola vez por día y por mes
+    public void registrarOyente(String idUsuario, long diaEpoch) {
+        oyentes.registrar(idUsuario, diaEpoch);
+    }
+
+    public long getOyentesUnicos(YearMonth mes) {
+        return oyentes.estimarMes(mes);
+    }
+
+    public long getOyentesUnicosUltimosDias(long hoy, int dias) {
+        return oyentes.estimarUltimosDias(hoy, dias);
+    }
+
+    // Reproducciones diarias de toda la discografía (el día más antiguo primero)
+    public synchronized int[] getReproduccionesPorDia(long hoy, int dias) {
+        int[] total = new int[Math.max(dias, 0)];
+        for (Cancion cancion : discografia.values()) {
+            SerieReproducciones.acumular(total, cancion.getReproduccionesPorDia(hoy, dias));
+        }
+        return total;
+    }
+
+    public HyperLogLog getSketchOyentes(YearMonth mes) {
+        return oyentes.sketchMes(mes);
+    }
+
+    public HyperLogLog getSketchOyentesUltimosDias(long hoy, int dias) {
+        return oyentes.sketchUltimosDias(hoy, dias);
+    }
+
     // Getters y Setters
     public String getId() {
         return id;
@@ -122,6 +225,9 @@ public class Artista {
 
     public void setNombreArtistico(String nombreArtistico) {
         this.nombreArtistico = nombreArtistico;
+        for (Cancion cancion : getDiscografia()) {
+            cancion.autorRenombrado();
+        }
     }
 
     public String getNombreReal() {
@@ -140,8 +246,12 @@ public class Artista {
         this.paisOrigen = paisOrigen;
     }
 
-    public ArrayList<Cancion> getDiscografia() {
-        return new ArrayList<>(discografia); // Copia defensiva
+    public synchronized ArrayList<Cancion> getDiscografia() {
+        return new ArrayList<>(discografia.values()); // Copia defensiva
+    }
+
+    public synchronized int getNumCanciones() {
+        return discografia.size();
     }
 
     public ArrayList<Album> getAlbumes() {
@@ -149,13 +259,31 @@ public class Artista {
     }
 
     public int getOyentesMensuales() {
-        return oyentesMensuales;
+        // Oyentes distintos de los últimos 28 días; sin escuchas, la cifra fijada a mano
+        if (oyentes.estaVacio()) {
+            return oyentesMensuales;
+        }
+        return (int) oyentes.estimarVentana(reloj.diaEpoch());
     }
 
     public void setOyentesMensuales(int oyentesMensuales) {
         this.oyentesMensuales = oyentesMensuales;
     }
 
+    public long getTamanoOyentesBytes() {
+        return oyentes.getTamanoBytes();
+    }
+
+    public Reloj getReloj() {
+        return reloj;
+    }
+
+    public void setReloj(Reloj reloj) {
+        if (reloj != null) {
+            this.reloj = reloj;
+        }
+    }
+
     public boolean isVerificado() {
         return verificado;
     }
@@ -182,7 +310,7 @@ public class Artista {
                 paisOrigen,
                 discografia.size(),
                 albumes.size(),
-                oyentesMensuales,
+                getOyentesMensuales(),
                 verificado ? "Sí" : "No");
     }
 
@@ -202,5 +330,18 @@ public class Artista {
     public int hashCode() {
         return this.id.hashCode();
     }
+
+    // Canción con las reproducciones con las que está guardada en el orden
+    private static class Pista {
+        private final Cancion cancion;
+        private final int reproducciones;
+        private final long orden;
+
+        private Pista(Cancion cancion, int reproducciones, long orden) {
+            this.cancion = cancion;
+            this.reproducciones = reproducciones;
+            this.orden = orden;
+        }
+    }
 }
 
@@ -4,34 +4,55 @@ import enums.CategoriaPodcast;
 import excepciones.artista.LimiteEpisodiosException;
 import excepciones.contenido.EpisodioNoEncontradoException;
 import modelo.contenido.Podcast;
+import modelo.plataforma.Plataforma;
 import utilidades.EstadisticasCreador;
+import utilidades.SerieReproducciones;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 
+/**
+ * Creador de podcasts. Sus episodios están indexados por id (en orden de
+ * publicación) y por (temporada, número de episodio) en un árbol ordenado,
+ * así que buscar un episodio, el siguiente o una temporada cuesta O(log n).
+ */
 public class Creador {
     private static final int MAX_EPISODIOS = 500;
 
     private String id;
     private String nombreCanal;
     private String nombre;
-    private ArrayList<Podcast> episodios;
+    private LinkedHashMap<String, Podcast> episodios;          // Por id, en orden de publicación
+    private TreeMap<ClaveEpisodio, Podcast> porTemporada;       // Por (temporada, número)
+    private HashMap<String, ClaveEpisodio> claves;              // Clave con la que está guardado cada episodio
+    private long publicados;
+    private int ultimaTemporada;
     private int suscriptores;
     private String descripcion;
     private HashMap<String, String> redesSociales;
     private ArrayList<CategoriaPodcast> categoriasPrincipales;
+    private EstadisticasVivas estadisticas;   // Agregado vivo: se actualiza con cada cambio
+    private Plataforma plataforma;            // Donde está registrado; indexa los creadores por canal
 
     // Constructores
     public Creador(String nombreCanal, String nombre) {
         this.id = UUID.randomUUID().toString();
         this.nombreCanal = nombreCanal;
         this.nombre = nombre;
-        this.episodios = new ArrayList<>();
+        this.episodios = new LinkedHashMap<>();
+        this.porTemporada = new TreeMap<>();
+        this.claves = new HashMap<>();
+        this.publicados = 0;
+        this.ultimaTemporada = 0;
         this.suscriptores = 0;
         this.descripcion = "";
         this.redesSociales = new HashMap<>();
         this.categoriasPrincipales = new ArrayList<>();
+        this.estadisticas = new EstadisticasVivas(this);
     }
 
     public Creador(String nombreCanal, String nombre, String descripcion) {
@@ -44,15 +65,89 @@ public class Creador {
         if (episodios.size() >= MAX_EPISODIOS) {
             throw new LimiteEpisodiosException("Se alcanzó el límite máximo de " + MAX_EPISODIOS + " episodios");
         }
-        episodios.add(episodio);
+        if (episodios.containsKey(episodio.getId())) {
+            return;
+        }
+        episodios.put(episodio.getId(), episodio);
+        indexar(episodio, publicados++);
+        estadisticas.agregarEpisodio(episodio);
+    }
+
+    // Lo llama Podcast si le cambian la temporada o el número después de publicarlo
+    public void episodioRenumerado(Podcast episodio, int temporadaAnterior) {
+        ClaveEpisodio anterior = claves.get(episodio.getId());
+        if (anterior == null) {
+            return;
+        }
+        porTemporada.remove(anterior);
+        indexar(episodio, anterior.orden);
+        actualizarUltimaTemporada();
+        if (temporadaAnterior != episodio.getTemporada()) {
+            estadisticas.temporadaCambiada(temporadaAnterior, episodio.getTemporada());
+        }
+    }
+
+    // ========== NAVEGACIÓN ==========
+
+    public Podcast getEpisodio(String idEpisodio) {
+        return episodios.get(idEpisodio);
+    }
+
+    public Podcast buscarEpisodio(int temporada, int numeroEpisodio) {
+        // El primero publicado con esa temporada y número
+        Map.Entry<ClaveEpisodio, Podcast> entrada = porTemporada.ceilingEntry(new ClaveEpisodio(temporada, numeroEpisodio, Long.MIN_VALUE));
+        if (entrada == null || entrada.getKey().temporada != temporada || entrada.getKey().numero != numeroEpisodio) {
+            return null;
+        }
+        return entrada.getValue();
+    }
+
+    public Podcast getSiguienteEpisodio(Podcast episodio) {
+        ClaveEpisodio clave = claves.get(episodio.getId());
+        Map.Entry<ClaveEpisodio, Podcast> siguiente = clave != null ? porTemporada.higherEntry(clave) : null;
+        return siguiente != null ? siguiente.getValue() : null;
+    }
+
+    public Podcast getEpisodioAnterior(Podcast episodio) {
+        ClaveEpisodio clave = claves.get(episodio.getId());
+        Map.Entry<ClaveEpisodio, Podcast> anterior = clave != null ? porTemporada.lowerEntry(clave) : null;
+        return anterior != null ? anterior.getValue() : null;
+    }
+
+    public ArrayList<Podcast> getEpisodiosTemporada(int temporada) {
+        // Rango [inicio de la temporada, inicio de la siguiente), ya ordenado por número
+        return new ArrayList<>(porTemporada.subMap(
+                new ClaveEpisodio(temporada, Integer.MIN_VALUE, Long.MIN_VALUE), true,
+                new ClaveEpisodio(temporada, Integer.MAX_VALUE, Long.MAX_VALUE), true).values());
+    }
+
+    // Mayor número de episodio publicado en la temporada (0 si no tiene ninguno)
+    public int getUltimoNumero(int temporada) {
+        ClaveEpisodio ultima = porTemporada.floorKey(new ClaveEpisodio(temporada, Integer.MAX_VALUE, Long.MAX_VALUE));
+        return ultima != null && ultima.temporada == temporada ? Math.max(ultima.numero, 0) : 0;
+    }
+
+    // Reproducciones diarias de todos los episodios (el día más antiguo primero)
+    public int[] getReproduccionesPorDia(long hoy, int dias) {
+        int[] total = new int[Math.max(dias, 0)];
+        for (Podcast episodio : episodios.values()) {
+            SerieReproducciones.acumular(total, episodio.getReproduccionesPorDia(hoy, dias));
+        }
+        return total;
+    }
+
+    public ArrayList<Podcast> getEpisodiosOrdenados() {
+        return new ArrayList<>(porTemporada.values());
     }
 
     public EstadisticasCreador obtenerEstadisticas() {
-        return new EstadisticasCreador(this);
+        // Copia fija del agregado, sin recorrer los episodios
+        return estadisticas.instantanea();
     }
 
     public void incrementarSuscriptores() {
         this.suscriptores++;
+        estadisticas.setTotalSuscriptores(this.suscriptores);
     }
 
     public void agregarRedSocial(String plataforma, String url) {
@@ -71,13 +166,8 @@ public class Creador {
     }
 
     public int getUltimaTemporada() {
-        int maxTemporada = 0;
-        for (Podcast episodio : episodios) {
-            if (episodio.getTemporada() > maxTemporada) {
-                maxTemporada = episodio.getTemporada();
-            }
-        }
-        return maxTemporada;
+        // Se mantiene al publicar, eliminar o renumerar: O(1)
+        return ultimaTemporada;
     }
 
     // Getters y Setters
@@ -90,7 +180,19 @@ public class Creador {
     }
 
     public void setNombreCanal(String nombreCanal) {
+        String anterior = this.nombreCanal;
         this.nombreCanal = nombreCanal;
+        if (plataforma != null) {
+            plataforma.canalRenombrado(this, anterior);
+        }
+        for (Podcast episodio : getEpisodios()) {
+            episodio.autorRenombrado();
+        }
+    }
+
+    // Lo llama Plataforma al registrarlo
+    public void setPlataforma(Plataforma plataforma) {
+        this.plataforma = plataforma;
     }
 
     public String getNombre() {
@@ -102,7 +204,7 @@ public class Creador {
     }
 
     public ArrayList<Podcast> getEpisodios() {
-        return new ArrayList<>(episodios); // Copia defensiva
+        return new ArrayList<>(episodios.values()); // Copia defensiva
     }
 
     public int getSuscriptores() {
@@ -111,6 +213,7 @@ public class Creador {
 
     public void setSuscriptores(int suscriptores) {
         this.suscriptores = suscriptores;
+        estadisticas.setTotalSuscriptores(suscriptores);
     }
 
     public String getDescripcion() {
@@ -145,38 +248,65 @@ public class Creador {
     }
 
     public void eliminarEpisodio(String idEliminar) throws EpisodioNoEncontradoException {
-        // Intento eliminar el episodio que tenga ese ID
-        boolean eliminado = episodios.removeIf(episodio -> episodio.getId().equals(idEliminar));
-        // Si no se pudo eliminar es porque no existía
-        if (!eliminado) {
+        // Lo quito del índice por id; si no estaba es porque no existía
+        Podcast eliminado = episodios.remove(idEliminar);
+        if (eliminado == null) {
             throw new EpisodioNoEncontradoException("No se encontró el episodio con ID: " + idEliminar);
         }
+        porTemporada.remove(claves.remove(idEliminar));
+        actualizarUltimaTemporada();
+        estadisticas.quitarEpisodio(eliminado);
     }
 
     public double calcularPromedioReproducciones() {
-        if (episodios.isEmpty()) {
-            return 0.0;
-        }
-        int total = getTotalReproducciones();
-        return (double) total / episodios.size();
+        return estadisticas.getPromedioReproducciones();
     }
 
     public int getTotalReproducciones() {
-        int total = 0;
-        for (Podcast episodio : episodios) {
-            total += episodio.getReproducciones();
-        }
-        return total;
+        return estadisticas.getTotalReproducciones();
     }
 
     public ArrayList<Podcast> obtenerTopEpisodios(int cantidad) {
-        ArrayList<Podcast> topEpisodios = new ArrayList<>(episodios);
-        topEpisodios.sort((e1, e2) -> Integer.compare(e2.getReproducciones(), e1.getReproducciones()));
+        // El agregado ya los tiene ordenados por reproducciones
+        return estadisticas.getTopEpisodios(cantidad);
+    }
+
+    // ========== AUXILIARES ==========
+
+    private void indexar(Podcast episodio, long orden) {
+        ClaveEpisodio clave = new ClaveEpisodio(episodio.getTemporada(), episodio.getNumeroEpisodio(), orden);
+        claves.put(episodio.getId(), clave);
+        porTemporada.put(clave, episodio);
+        if (episodio.getTemporada() > ultimaTemporada) {
+            ultimaTemporada = episodio.getTemporada();
+        }
+    }
 
-        if (cantidad < topEpisodios.size()) {
-            return new ArrayList<>(topEpisodios.subList(0, cantidad));
+    private void actualizarUltimaTemporada() {
+        // La última clave del árbol es la de la temporada más alta
+        ultimaTemporada = porTemporada.isEmpty() ? 0 : Math.max(porTemporada.lastKey().temporada, 0);
+    }
+
+    // Temporada y número; el orden de publicación desempata episodios repetidos
+    private static class ClaveEpisodio implements Comparable<ClaveEpisodio> {
+        private final int temporada;
+        private final int numero;
+        private final long orden;
+
+        private ClaveEpisodio(int temporada, int numero, long orden) {
+            this.temporada = temporada;
+            this.numero = numero;
+            this.orden = orden;
+        }
+
+        @Override
+        public int compareTo(ClaveEpisodio otra) {
+            int comparacion = Integer.compare(temporada, otra.temporada);
+            if (comparacion == 0) {
+                comparacion = Integer.compare(numero, otra.numero);
+            }
+            return comparacion != 0 ? comparacion : Long.compare(orden, otra.orden);
         }
-        return topEpisodios;
     }
 }
 
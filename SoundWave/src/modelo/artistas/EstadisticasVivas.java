@@ -0,0 +1,159 @@
+package modelo.artistas;
+
+import enums.TipoCambioContenido;
+import interfaces.ObservadorContenido;
+import modelo.contenido.Contenido;
+import modelo.contenido.Podcast;
+import utilidades.EstadisticasCreador;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Agregado vivo de las estadísticas de un creador; solo lo crea y lo usa Creador.
+ * El creador avisa al publicar y eliminar episodios o al cambiar de suscriptores,
+ * y cada episodio avisa de sus reproducciones y likes, así que nunca se recorren
+ * todos los episodios. Hacia fuera solo salen instantáneas (EstadisticasCreador).
+ */
+class EstadisticasVivas implements ObservadorContenido {
+
+    private static final Set<TipoCambioContenido> CAMBIOS_OBSERVADOS =
+            Collections.unmodifiableSet(EnumSet.of(TipoCambioContenido.REPRODUCCION, TipoCambioContenido.LIKE));
+
+    //Atributos:
+    private final Creador creador;
+    private int totalEpisodios;
+    private int totalReproducciones;
+    private int totalSuscriptores;
+    private int totalLikes;
+    private int duracionTotalSegundos;
+    private final HashMap<Integer, Integer> episodiosPorTemporada;
+    private final HashMap<String, Episodio> contados;   // Con qué valores conté cada episodio
+    private final TreeSet<Episodio> porReproducciones;  // Más reproducidos primero
+    private long publicados;
+
+    //Constructor
+    EstadisticasVivas(Creador creador) {
+        this.creador = creador;
+        this.episodiosPorTemporada = new HashMap<>();
+        this.contados = new HashMap<>();
+        // A igualdad de reproducciones gana el publicado antes
+        this.porReproducciones = new TreeSet<>((a, b) -> {
+            int comparacion = Integer.compare(b.reproducciones, a.reproducciones);
+            return comparacion != 0 ? comparacion : Long.compare(a.orden, b.orden);
+        });
+        this.totalSuscriptores = creador.getSuscriptores();
+    }
+
+    // ========== MANTENIMIENTO ==========
+
+    synchronized void agregarEpisodio(Podcast episodio) {
+        if (contados.containsKey(episodio.getId())) {
+            return;
+        }
+        Episodio contado = new Episodio(episodio, episodio.getReproducciones(), episodio.getLikes(), publicados++);
+        contados.put(episodio.getId(), contado);
+        porReproducciones.add(contado);
+        totalEpisodios++;
+        totalReproducciones += contado.reproducciones;
+        totalLikes += contado.likes;
+        duracionTotalSegundos += episodio.getDuracionSegundos();
+        episodiosPorTemporada.merge(episodio.getTemporada(), 1, Integer::sum);
+        episodio.agregarObservador(this);
+    }
+
+    synchronized void quitarEpisodio(Podcast episodio) {
+        Episodio contado = contados.remove(episodio.getId());
+        if (contado == null) {
+            return;
+        }
+        episodio.quitarObservador(this);
+        porReproducciones.remove(contado);
+        totalEpisodios--;
+        totalReproducciones -= contado.reproducciones;
+        totalLikes -= contado.likes;
+        duracionTotalSegundos -= episodio.getDuracionSegundos();
+        // Si la temporada se queda sin episodios desaparece del conteo
+        episodiosPorTemporada.computeIfPresent(episodio.getTemporada(), (temporada, cantidad) -> cantidad > 1 ? cantidad - 1 : null);
+    }
+
+    synchronized void temporadaCambiada(int anterior, int nueva) {
+        episodiosPorTemporada.computeIfPresent(anterior, (temporada, cantidad) -> cantidad > 1 ? cantidad - 1 : null);
+        episodiosPorTemporada.merge(nueva, 1, Integer::sum);
+    }
+
+    synchronized void setTotalSuscriptores(int totalSuscriptores) {
+        this.totalSuscriptores = totalSuscriptores;
+    }
+
+    @Override
+    public Set<TipoCambioContenido> getCambiosObservados() {
+        return CAMBIOS_OBSERVADOS;
+    }
+
+    @Override
+    public synchronized void contenidoActualizado(Contenido contenido, TipoCambioContenido cambio) {
+        if (cambio != TipoCambioContenido.REPRODUCCION && cambio != TipoCambioContenido.LIKE) {
+            return;
+        }
+        Episodio actual = contados.get(contenido.getId());
+        if (actual == null) {
+            return;
+        }
+        // Resto lo que había contado de este episodio y sumo sus valores nuevos
+        Episodio nuevo = new Episodio(actual.episodio, contenido.getReproducciones(), contenido.getLikes(), actual.orden);
+        totalReproducciones += nuevo.reproducciones - actual.reproducciones;
+        totalLikes += nuevo.likes - actual.likes;
+        contados.put(contenido.getId(), nuevo);
+        if (nuevo.reproducciones != actual.reproducciones) {
+            // Solo se mueve en el orden si cambian sus reproducciones
+            porReproducciones.remove(actual);
+            porReproducciones.add(nuevo);
+        }
+    }
+
+    // ========== CONSULTAS ==========
+
+    // Copia fija para quien la pida: lleva también el orden por reproducciones
+    synchronized EstadisticasCreador instantanea() {
+        return new EstadisticasCreador(creador, totalEpisodios, totalReproducciones, totalLikes,
+                duracionTotalSegundos, totalSuscriptores, getTopEpisodios(totalEpisodios), episodiosPorTemporada);
+    }
+
+    synchronized ArrayList<Podcast> getTopEpisodios(int cantidad) {
+        ArrayList<Podcast> top = new ArrayList<>();
+        Iterator<Episodio> iterador = porReproducciones.iterator();
+        while (iterador.hasNext() && top.size() < cantidad) {
+            top.add(iterador.next().episodio);
+        }
+        return top;
+    }
+
+    synchronized int getTotalReproducciones() {
+        return totalReproducciones;
+    }
+
+    synchronized double getPromedioReproducciones() {
+        return totalEpisodios > 0 ? (double) totalReproducciones / totalEpisodios : 0.0;
+    }
+
+    // Episodio con los valores con los que está contado
+    private static class Episodio {
+        private final Podcast episodio;
+        private final int reproducciones;
+        private final int likes;
+        private final long orden;
+
+        private Episodio(Podcast episodio, int reproducciones, int likes, long orden) {
+            this.episodio = episodio;
+            this.reproducciones = reproducciones;
+            this.likes = likes;
+            this.orden = orden;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package modelo.contenido;
 
 import enums.GeneroMusical;
+import enums.TipoCambioContenido;
 import excepciones.contenido.*;
 import excepciones.descarga.*;
 import interfaces.Descargable;
@@ -158,6 +159,7 @@ public class Cancion extends Contenido implements Reproducible, Descargable {
     public void cambiarGenero(GeneroMusical nuevoGenero) {
         if (nuevoGenero != null) {
             this.genero = nuevoGenero;
+            notificarCambio(TipoCambioContenido.GENERO);
             System.out.println("Género actualizado: " + getTitulo() + " -> " + nuevoGenero.getNombre());
         }
     }
@@ -213,6 +215,7 @@ public class Cancion extends Contenido implements Reproducible, Descargable {
 
     public void setLetra(String letra) {
         this.letra = letra;
+        notificarCambio(TipoCambioContenido.TEXTO); // El índice de textos la vuelve a indexar
     }
 
     public void setArtista(Artista artista) {
@@ -225,6 +228,7 @@ public class Cancion extends Contenido implements Reproducible, Descargable {
 
     public void setGenero(GeneroMusical genero) {
         this.genero = genero;
+        notificarCambio(TipoCambioContenido.GENERO);
     }
 
     public void setAudioURL(String audioURL) {
@@ -233,6 +237,7 @@ public class Cancion extends Contenido implements Reproducible, Descargable {
 
     public void setExplicit(boolean explicit) {
         this.explicit = explicit;
+        notificarCambio(TipoCambioContenido.EXPLICITO);
     }
 
     public void setDescargado(boolean descargado) {
@@ -1,15 +1,31 @@
 package modelo.contenido;
 
+import enums.TipoCambioContenido;
 import excepciones.contenido.ContenidoNoDisponibleException;
 import excepciones.contenido.DuracionInvalidaException;
-
+import interfaces.ObservadorContenido;
+import modelo.plataforma.Playlist;
+import modelo.plataforma.PlaylistColaborativa;
+import modelo.usuarios.Usuario;
+import modelo.usuarios.UsuarioPremium;
+import utilidades.SerieReproducciones;
+
+import java.time.YearMonth;
 import java.util.UUID;
 import java.util.Date;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 
 public abstract class Contenido {
 
+    // Versión global de cada clave por la que se ordenan las playlists (por ordinal del cambio)
+    private static final AtomicLongArray VERSIONES_ORDEN = new AtomicLongArray(TipoCambioContenido.values().length);
+
     protected String id;
     protected String titulo;
     protected int reproducciones;
@@ -18,6 +34,13 @@ public abstract class Contenido {
     protected ArrayList<String> tags;
     protected boolean disponible;
     protected Date fechaPublicacion;
+    protected HashSet<Usuario> usuariosLike;
+    protected HashSet<Playlist> playlists;             // Índice inverso: playlists que lo contienen
+    protected HashSet<PlaylistColaborativa> playlistsColaborativas; // Ídem, réplicas colaborativas donde está vivo
+    protected HashSet<UsuarioPremium> usuariosDescarga; // Índice inverso: quién lo tiene descargado
+    protected LinkedHashMap<ObservadorContenido, Set<TipoCambioContenido>> observadores; // Cada uno con lo que observa
+    protected volatile ObservadorContenido[][] observadoresPorCambio; // Por ordinal del cambio; null tras suscribir o quitar
+    protected volatile SerieReproducciones serie; // Se crea con la primera reproducción registrada
 
 
     public Contenido(String titulo, int duracionSegundos) throws DuracionInvalidaException {
@@ -37,6 +60,11 @@ public abstract class Contenido {
         this.tags = new ArrayList<>();
         this.disponible = true;
         this.fechaPublicacion = new Date();
+        this.usuariosLike = new HashSet<>();
+        this.playlists = new HashSet<>();
+        this.playlistsColaborativas = new HashSet<>();
+        this.usuariosDescarga = new HashSet<>();
+        this.observadores = new LinkedHashMap<>();
     }
 
     public void reproducir() throws ContenidoNoDisponibleException {
@@ -45,10 +73,93 @@ public abstract class Contenido {
 
     public void aumentarReproducciones(){
         this.reproducciones++;
+        notificarCambio(TipoCambioContenido.REPRODUCCION);
+    }
+
+    // Lo llama el camino de reproducción de Usuario con la hora de su reloj
+    public void registrarEnSerie(long millis, long diaEpoch) {
+        SerieReproducciones actual = this.serie;
+        if (actual == null) {
+            synchronized (this) {
+                if (this.serie == null) {
+                    this.serie = new SerieReproducciones();
+                }
+                actual = this.serie;
+            }
+        }
+        actual.registrar(millis, diaEpoch);
+    }
+
+    public int[] getReproduccionesPorHora(long ahoraMillis, int horas) {
+        SerieReproducciones actual = this.serie;
+        return actual != null ? actual.getPorHora(ahoraMillis, horas) : new int[Math.max(horas, 0)];
+    }
+
+    public int[] getReproduccionesPorDia(long hoy, int dias) {
+        SerieReproducciones actual = this.serie;
+        return actual != null ? actual.getPorDia(hoy, dias) : new int[Math.max(dias, 0)];
+    }
+
+    public int[] getReproduccionesPorMes(YearMonth hasta, int meses) {
+        SerieReproducciones actual = this.serie;
+        return actual != null ? actual.getPorMes(hasta, meses) : new int[Math.max(meses, 0)];
+    }
+
+    public boolean registrarLike(Usuario usuario) {
+        // Índice inverso: guardo quién dio el like y subo el contador a la vez
+        synchronized (this) {
+            if (usuario == null || !this.usuariosLike.add(usuario)) {
+                return false;
+            }
+            this.likes++;
+        }
+        // Aviso fuera del bloqueo para que los observadores no se crucen con él
+        notificarCambio(TipoCambioContenido.LIKE);
+        return true;
     }
 
-    public void agregarLike(){
-        this.likes++;
+    public boolean quitarLike(Usuario usuario) {
+        // Solo resto si ese usuario de verdad tenía like
+        synchronized (this) {
+            if (usuario == null || !this.usuariosLike.remove(usuario)) {
+                return false;
+            }
+            if (this.likes > 0) {
+                this.likes--;
+            }
+        }
+        notificarCambio(TipoCambioContenido.LIKE);
+        return true;
+    }
+
+    public synchronized boolean tieneLikeDe(Usuario usuario) {
+        return this.usuariosLike.contains(usuario);
+    }
+
+    // Los mantienen Playlist y UsuarioPremium al agregar/eliminar y descargar/borrar
+    public synchronized boolean registrarEnPlaylist(Playlist playlist) {
+        return playlist != null && this.playlists.add(playlist);
+    }
+
+    public synchronized boolean quitarDePlaylist(Playlist playlist) {
+        return this.playlists.remove(playlist);
+    }
+
+    // Lo mantiene PlaylistColaborativa cuando el contenido entra o deja de estar vivo en ella
+    public synchronized boolean registrarEnColaborativa(PlaylistColaborativa playlist) {
+        return playlist != null && this.playlistsColaborativas.add(playlist);
+    }
+
+    public synchronized boolean quitarDeColaborativa(PlaylistColaborativa playlist) {
+        return this.playlistsColaborativas.remove(playlist);
+    }
+
+    public synchronized boolean registrarDescarga(UsuarioPremium usuario) {
+        return usuario != null && this.usuariosDescarga.add(usuario);
+    }
+
+    public synchronized boolean quitarDescarga(UsuarioPremium usuario) {
+        return this.usuariosDescarga.remove(usuario);
     }
 
     public boolean esPopular(){
@@ -67,6 +178,7 @@ public abstract class Contenido {
             // Evitar duplicados
             if (!this.tags.contains(tag.trim())) {
                 this.tags.add(tag.trim());
+                notificarCambio(TipoCambioContenido.TAG);
             }
         }
     }
@@ -78,12 +190,69 @@ public abstract class Contenido {
         return this.tags.contains(tag.trim());
     }
 
+    // ========== OBSERVADORES ==========
+
+    public void agregarObservador(ObservadorContenido observador) {
+        // Playlists, álbumes e índices se suscriben para mantener sus totales al día,
+        // cada uno solo a los tipos de cambio que le afectan
+        if (observador == null) {
+            return;
+        }
+        synchronized (this.observadores) {
+            if (this.observadores.putIfAbsent(observador, observador.getCambiosObservados()) == null) {
+                this.observadoresPorCambio = null;
+            }
+        }
+    }
+
+    public void quitarObservador(ObservadorContenido observador) {
+        synchronized (this.observadores) {
+            if (this.observadores.remove(observador) != null) {
+                this.observadoresPorCambio = null;
+            }
+        }
+    }
+
+    // Los que atienden ese cambio; las listas se rehacen solo después de suscribir o quitar
+    private ObservadorContenido[] observadoresDe(TipoCambioContenido cambio) {
+        ObservadorContenido[][] porCambio = this.observadoresPorCambio;
+        if (porCambio == null) {
+            synchronized (this.observadores) {
+                TipoCambioContenido[] tipos = TipoCambioContenido.values();
+                porCambio = new ObservadorContenido[tipos.length][];
+                for (TipoCambioContenido tipo : tipos) {
+                    ArrayList<ObservadorContenido> lista = new ArrayList<>();
+                    for (Map.Entry<ObservadorContenido, Set<TipoCambioContenido>> entrada : this.observadores.entrySet()) {
+                        if (entrada.getValue().contains(tipo)) {
+                            lista.add(entrada.getKey());
+                        }
+                    }
+                    porCambio[tipo.ordinal()] = lista.toArray(new ObservadorContenido[0]);
+                }
+                this.observadoresPorCambio = porCambio;
+            }
+        }
+        return porCambio[cambio.ordinal()];
+    }
+
+    protected void notificarCambio(TipoCambioContenido cambio) {
+        // Las vistas ordenadas comparan esta versión al leerse; aquí solo se incrementa
+        if (cambio == TipoCambioContenido.REPRODUCCION || cambio == TipoCambioContenido.TITULO) {
+            VERSIONES_ORDEN.incrementAndGet(cambio.ordinal());
+        }
+        for (ObservadorContenido observador : observadoresDe(cambio)) {
+            observador.contenidoActualizado(this, cambio);
+        }
+    }
+
     public void marcarNoDisponible() {
         this.disponible = false;
+        notificarCambio(TipoCambioContenido.DISPONIBILIDAD);
     }
 
     public void marcarDisponible() {
         this.disponible = true;
+        notificarCambio(TipoCambioContenido.DISPONIBILIDAD);
     }
 
     public String getDuracionFormateada() {
@@ -94,6 +263,11 @@ public abstract class Contenido {
 
     //Getter and Setter:
 
+    // Cambia cada vez que algún contenido cambia de reproducciones (REPRODUCCION) o de título/autor (TITULO)
+    public static long getVersionOrden(TipoCambioContenido cambio) {
+        return VERSIONES_ORDEN.get(cambio.ordinal());
+    }
+
     public String getId() {
         return this.id;
     }
@@ -104,6 +278,12 @@ public abstract class Contenido {
 
     public void setTitulo(String titulo) {
         this.titulo = titulo;
+        notificarCambio(TipoCambioContenido.TITULO);
+    }
+
+    // Lo llaman Artista y Creador al cambiar de nombre: las vistas por autor dependen de él
+    public void autorRenombrado() {
+        notificarCambio(TipoCambioContenido.TITULO);
     }
 
     public int getReproducciones() {
@@ -112,12 +292,29 @@ public abstract class Contenido {
 
     public void setReproducciones(int reproducciones) {
         this.reproducciones = reproducciones;
+        notificarCambio(TipoCambioContenido.REPRODUCCION);
     }
 
-    public int getLikes() {
+    public synchronized int getLikes() {
         return this.likes;
     }
 
+    public synchronized ArrayList<Usuario> getUsuariosLike() {
+        return new ArrayList<>(this.usuariosLike);
+    }
+
+    public synchronized ArrayList<Playlist> getPlaylists() {
+        return new ArrayList<>(this.playlists);
+    }
+
+    public synchronized ArrayList<PlaylistColaborativa> getPlaylistsColaborativas() {
+        return new ArrayList<>(this.playlistsColaborativas);
+    }
+
+    public synchronized ArrayList<UsuarioPremium> getUsuariosDescarga() {
+        return new ArrayList<>(this.usuariosDescarga);
+    }
+
     public int getDuracionSegundos() {
         return this.duracionSegundos;
     }
@@ -1,6 +1,7 @@
 package modelo.contenido;
 
 import enums.CategoriaPodcast;
+import enums.TipoCambioContenido;
 import excepciones.contenido.ContenidoNoDisponibleException;
 import excepciones.contenido.DuracionInvalidaException;
 import excepciones.contenido.EpisodioNoEncontradoException;
@@ -69,6 +70,20 @@ public class Podcast extends Contenido implements Reproducible, Descargable {
         }
     }
 
+    // Reanuda desde 'segundo' (la posición guardada del usuario) en lugar de empezar de cero
+    public void playDesde(int segundo) {
+        if (segundo <= 0) {
+            play();
+            return;
+        }
+        if (!reproduciendo) {
+            reproduciendo = true;
+            pausado = false;
+            System.out.println("▶️ Reanudando podcast: " + getTitulo());
+            System.out.println("   Desde " + String.format("%d:%02d", segundo / 60, segundo % 60) + " de " + getDuracionFormateada());
+        }
+    }
+
     @Override
     public void pause() {
         if (reproduciendo && !pausado) {
@@ -219,10 +234,18 @@ public class Podcast extends Contenido implements Reproducible, Descargable {
 
     public void setNumeroEpisodio(int numeroEpisodio) {
         this.numeroEpisodio = numeroEpisodio;
+        // El creador indexa sus episodios por (temporada, número)
+        if (creador != null) {
+            creador.episodioRenumerado(this, this.temporada);
+        }
     }
 
     public void setTemporada(int temporada) {
+        int anterior = this.temporada;
         this.temporada = temporada;
+        if (creador != null && anterior != temporada) {
+            creador.episodioRenumerado(this, anterior);
+        }
     }
 
     public void setDescripcion(String descripcion) {
@@ -235,6 +258,7 @@ public class Podcast extends Contenido implements Reproducible, Descargable {
 
     public void setTranscripcion(String transcripcion) {
         this.transcripcion = transcripcion;
+        notificarCambio(TipoCambioContenido.TEXTO); // El índice de textos la vuelve a indexar
     }
 
     public void setDescargado(boolean descargado) {
@@ -0,0 +1,129 @@
+package modelo.plataforma;
+
+import java.util.Arrays;
+
+/**
+ * Posición fraccionaria de un elemento en una playlist colaborativa.
+ * Es una lista de niveles (dígito, sitio, contador) que se compara nivel a nivel;
+ * entre dos claves cualesquiera siempre cabe otra, así que insertar nunca
+ * obliga a renumerar a los demás. El sitio y el contador hacen que dos
+ * escritores que insertan a la vez en el mismo hueco obtengan claves distintas
+ * y ordenadas igual en todas las réplicas.
+ */
+final class ClavePosicion implements Comparable<ClavePosicion> {
+
+    static final int BASE = Integer.MAX_VALUE;
+    private static final int PASO = 1 << 16; // Margen que dejo al añadir al final
+
+    private final int[] digitos;
+    private final String[] sitios;
+    private final long[] contadores;
+
+    private ClavePosicion(int[] digitos, String[] sitios, long[] contadores) {
+        this.digitos = digitos;
+        this.sitios = sitios;
+        this.contadores = contadores;
+    }
+
+    // Genera una clave estrictamente entre 'anterior' y 'siguiente' (null = sin límite)
+    static ClavePosicion entre(ClavePosicion anterior, ClavePosicion siguiente, String sitio, long contador) {
+        int maximo = Math.max(largo(anterior), largo(siguiente)) + 1;
+        int[] digitos = new int[maximo];
+        String[] sitios = new String[maximo];
+        long[] contadores = new long[maximo];
+
+        ClavePosicion limite = siguiente;
+        for (int i = 0; ; i++) {
+            boolean hayAnterior = anterior != null && i < anterior.digitos.length;
+            boolean hayLimite = limite != null && i < limite.digitos.length;
+            int bajo = hayAnterior ? anterior.digitos[i] : 0;
+            int alto = hayLimite ? limite.digitos[i] : BASE;
+
+            if (alto - bajo > 1) {
+                // Hay sitio en este nivel: termino aquí
+                digitos[i] = bajo + Math.min(PASO, (alto - bajo) / 2);
+                sitios[i] = sitio;
+                contadores[i] = contador;
+                return new ClavePosicion(Arrays.copyOf(digitos, i + 1), Arrays.copyOf(sitios, i + 1),
+                        Arrays.copyOf(contadores, i + 1));
+            }
+
+            // No hay sitio: copio un nivel y bajo al siguiente
+            if (hayAnterior) {
+                copiarNivel(anterior, i, digitos, sitios, contadores);
+                if (!hayLimite || compararNivel(anterior, i, limite, i) < 0) {
+                    limite = null; // Ya quedé por debajo del límite superior
+                }
+            } else if (hayLimite && alto == 0) {
+                // Solo puedo quedar debajo del siguiente siguiendo su mismo camino
+                copiarNivel(limite, i, digitos, sitios, contadores);
+            } else {
+                digitos[i] = 0;
+                sitios[i] = sitio;
+                contadores[i] = contador;
+                limite = null;
+            }
+        }
+    }
+
+    private static int largo(ClavePosicion clave) {
+        return clave != null ? clave.digitos.length : 0;
+    }
+
+    private static void copiarNivel(ClavePosicion origen, int i, int[] digitos, String[] sitios, long[] contadores) {
+        digitos[i] = origen.digitos[i];
+        sitios[i] = origen.sitios[i];
+        contadores[i] = origen.contadores[i];
+    }
+
+    private static int compararNivel(ClavePosicion a, int i, ClavePosicion b, int j) {
+        int comparacion = Integer.compare(a.digitos[i], b.digitos[j]);
+        if (comparacion != 0) {
+            return comparacion;
+        }
+        comparacion = a.sitios[i].compareTo(b.sitios[j]);
+        if (comparacion != 0) {
+            return comparacion;
+        }
+        return Long.compare(a.contadores[i], b.contadores[j]);
+    }
+
+    int getProfundidad() {
+        return digitos.length;
+    }
+
+    @Override
+    public int compareTo(ClavePosicion otra) {
+        int comunes = Math.min(digitos.length, otra.digitos.length);
+        for (int i = 0; i < comunes; i++) {
+            int comparacion = compararNivel(this, i, otra, i);
+            if (comparacion != 0) {
+                return comparacion;
+            }
+        }
+        // Si una es prefijo de la otra, la más corta va antes
+        return Integer.compare(digitos.length, otra.digitos.length);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof ClavePosicion)) return false;
+        return compareTo((ClavePosicion) obj) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(digitos) + Arrays.hashCode(contadores);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < digitos.length; i++) {
+            if (i > 0) sb.append('.');
+            sb.append(digitos[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,188 @@
+package modelo.plataforma;
+
+import modelo.contenido.Contenido;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Recorrido aleatorio perezoso de una playlist.
+ * Hace Fisher-Yates sobre los huecos de la secuencia sin copiarla: solo guarda
+ * los intercambios hechos en un mapa disperso, así que empezar es O(1) y cada
+ * contenido cuesta O(1). En modo inteligente mira unos pocos contenidos por
+ * delante y evita que suenen seguidas dos pistas del mismo artista.
+ * No modifica la playlist; si la playlist cambia mientras se recorre, los
+ * contenidos nuevos entran en lo que queda por sortear y los eliminados se saltan.
+ * Con la misma semilla y la misma playlist el recorrido es siempre el mismo, así
+ * que basta guardar semilla y posición para retomarlo (ver avanzar).
+ */
+public class CursorAleatorio implements Iterator<Contenido> {
+
+    private static final int VENTANA_INTELIGENTE = 8;
+
+    private final SecuenciaContenidos secuencia;
+    private final boolean inteligente;
+    private final long semilla;
+    private final Random aleatorio;
+
+    private HashMap<Integer, Integer> intercambios; // Huecos ya intercambiados (el resto están en su sitio)
+    private int sorteados;                          // Huecos [0, sorteados) ya salieron
+    private long generacion;
+
+    private final ArrayList<Contenido> porDelante;  // Sorteados pero todavía no entregados
+    private final ArrayList<Contenido> entregados;
+    private final HashMap<String, Integer> indiceEntregados; // Id -> posición en entregados
+    private String ultimoAutor;
+
+    // Constructor
+    CursorAleatorio(SecuenciaContenidos secuencia, boolean inteligente, long semilla) {
+        this.secuencia = secuencia;
+        this.inteligente = inteligente;
+        this.semilla = semilla;
+        this.aleatorio = new Random(semilla);
+        this.intercambios = new HashMap<>();
+        this.sorteados = 0;
+        this.generacion = secuencia.getGeneracion();
+        this.porDelante = new ArrayList<>();
+        this.entregados = new ArrayList<>();
+        this.indiceEntregados = new HashMap<>();
+    }
+
+    // ========== RECORRIDO ==========
+
+    @Override
+    public boolean hasNext() {
+        llenar(1);
+        return !porDelante.isEmpty();
+    }
+
+    @Override
+    public Contenido next() {
+        llenar(inteligente ? VENTANA_INTELIGENTE : 1);
+        if (porDelante.isEmpty()) {
+            throw new NoSuchElementException("No quedan contenidos por reproducir");
+        }
+
+        // En modo inteligente tomo el primero de la ventana que no repita artista
+        int elegido = 0;
+        if (inteligente && ultimoAutor != null) {
+            for (int i = 0; i < porDelante.size(); i++) {
+                if (!Objects.equals(ultimoAutor, VistasOrdenadas.nombreAutor(porDelante.get(i)))) {
+                    elegido = i;
+                    break;
+                }
+            }
+        }
+
+        Contenido contenido = porDelante.remove(elegido);
+        indiceEntregados.put(contenido.getId(), entregados.size());
+        entregados.add(contenido);
+        ultimoAutor = VistasOrdenadas.nombreAutor(contenido);
+        return contenido;
+    }
+
+    // Sortea hasta tener 'cantidad' contenidos por delante o agotar la playlist
+    private void llenar(int cantidad) {
+        if (generacion != secuencia.getGeneracion()) {
+            // La secuencia se compactó y los huecos se movieron: vuelvo a sortear lo
+            // que falta; los ya entregados se reconocen por id y se saltan
+            intercambios = new HashMap<>();
+            sorteados = 0;
+            generacion = secuencia.getGeneracion();
+            porDelante.clear();
+        }
+        // Descarto lo que ya sorteé pero se eliminó de la playlist mientras tanto
+        porDelante.removeIf(contenido -> !secuencia.contiene(contenido.getId()));
+
+        while (porDelante.size() < cantidad && sorteados < secuencia.getHuecosUsados()) {
+            // Paso de Fisher-Yates: elijo un hueco entre los que faltan y lo cambio con el actual
+            int total = secuencia.getHuecosUsados();
+            int elegido = sorteados + aleatorio.nextInt(total - sorteados);
+            int hueco = intercambios.getOrDefault(elegido, elegido);
+            intercambios.put(elegido, intercambios.getOrDefault(sorteados, sorteados));
+            intercambios.remove(sorteados);
+            sorteados++;
+
+            Contenido contenido = secuencia.enHueco(hueco);
+            if (contenido != null && !indiceEntregados.containsKey(contenido.getId()) && !porDelante.contains(contenido)) {
+                porDelante.add(contenido);
+            }
+        }
+    }
+
+    // ========== ACCESO POR POSICIÓN ==========
+
+    // Devuelve el contenido en la posición 'indice' del orden aleatorio, sorteando solo lo necesario
+    Contenido obtener(int indice) {
+        while (entregados.size() <= indice && hasNext()) {
+            next();
+        }
+        return indice >= 0 && indice < entregados.size() ? entregados.get(indice) : null;
+    }
+
+    // Vuelve a entregar los primeros 'posicion' contenidos: con la misma semilla deja el cursor donde estaba
+    void avanzar(int posicion) {
+        obtener(posicion - 1);
+    }
+
+    // Posición del contenido en el orden aleatorio: sortea hasta entregarlo y la lee del índice
+    int posicionDe(Contenido contenido) {
+        Integer posicion = indiceEntregados.get(contenido.getId());
+        while (posicion == null && hasNext()) {
+            next();
+            posicion = indiceEntregados.get(contenido.getId());
+        }
+        return posicion != null ? posicion : -1;
+    }
+
+    ArrayList<Contenido> obtenerTodos() {
+        while (hasNext()) {
+            next();
+        }
+        return new ArrayList<>(entregados);
+    }
+
+    void eliminado(Contenido contenido) {
+        porDelante.remove(contenido);
+        Integer indice = indiceEntregados.remove(contenido.getId());
+        if (indice != null) {
+            // Lo ya escuchado conserva su orden: desplazo los siguientes y corrijo sus posiciones
+            entregados.remove((int) indice);
+            for (int i = indice; i < entregados.size(); i++) {
+                indiceEntregados.put(entregados.get(i).getId(), i);
+            }
+        }
+    }
+
+    // ========== GETTERS ==========
+
+    public int getPosicion() {
+        // Cuántos contenidos se han entregado ya
+        return entregados.size();
+    }
+
+    public ArrayList<Contenido> getEntregados() {
+        return new ArrayList<>(entregados);
+    }
+
+    public boolean isInteligente() {
+        return inteligente;
+    }
+
+    public long getSemilla() {
+        return semilla;
+    }
+
+    @Override
+    public String toString() {
+        return "CursorAleatorio{" +
+                "inteligente=" + inteligente +
+                ", posicion=" + entregados.size() +
+                ", sorteados=" + sorteados +
+                '}';
+    }
+}
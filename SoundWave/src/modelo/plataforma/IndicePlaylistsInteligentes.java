@@ -0,0 +1,89 @@
+package modelo.plataforma;
+
+import enums.GeneroMusical;
+import enums.TipoCambioContenido;
+import modelo.contenido.Cancion;
+import modelo.contenido.Contenido;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Reparto de avisos entre las playlists inteligentes de la plataforma.
+ * Cada playlist se guarda en la lista de cada tipo de cambio al que es sensible
+ * y, dentro de ella, en la columna del género que exige su regla (o en la de
+ * "cualquier género"). Así un contenido nuevo o un cambio solo llega a las
+ * playlists que dependen de ese cambio y que podrían contener ese contenido.
+ * Los cambios de género van a todas las que dependen del género, porque el
+ * contenido puede estar saliendo de una columna para entrar en otra.
+ */
+class IndicePlaylistsInteligentes {
+
+    private static final int SIN_GENERO = 0;
+
+    //Atributos:
+    private final ArrayList<ArrayList<List<PlaylistInteligente>>> porCambio; // [cambio][columna de género]
+    private final ArrayList<List<PlaylistInteligente>> altas;                // [columna de género], para contenido nuevo
+
+    //Constructor
+    IndicePlaylistsInteligentes() {
+        this.porCambio = new ArrayList<>();
+        for (int cambio = 0; cambio < TipoCambioContenido.values().length; cambio++) {
+            porCambio.add(nuevasColumnas());
+        }
+        this.altas = nuevasColumnas();
+    }
+
+    private static ArrayList<List<PlaylistInteligente>> nuevasColumnas() {
+        int columnas = GeneroMusical.values().length + 1;
+        ArrayList<List<PlaylistInteligente>> fila = new ArrayList<>(columnas);
+        for (int columna = 0; columna < columnas; columna++) {
+            fila.add(new CopyOnWriteArrayList<>());
+        }
+        return fila;
+    }
+
+    void registrar(PlaylistInteligente playlist) {
+        int columna = columna(playlist.getGenero());
+        altas.get(columna).add(playlist);
+        for (TipoCambioContenido cambio : TipoCambioContenido.values()) {
+            if (playlist.esSensibleA(cambio)) {
+                // El cambio de género puede sacar el contenido de esta columna: va a la común
+                porCambio.get(cambio.ordinal()).get(cambio == TipoCambioContenido.GENERO ? SIN_GENERO : columna).add(playlist);
+            }
+        }
+    }
+
+    // Playlists en las que podría entrar un contenido nuevo
+    List<PlaylistInteligente> candidatas(Contenido contenido) {
+        return unir(altas, contenido);
+    }
+
+    // Playlists que deben volver a evaluar el contenido tras ese cambio
+    List<PlaylistInteligente> afectadas(Contenido contenido, TipoCambioContenido cambio) {
+        return unir(porCambio.get(cambio.ordinal()), contenido);
+    }
+
+    private List<PlaylistInteligente> unir(ArrayList<List<PlaylistInteligente>> columnas, Contenido contenido) {
+        List<PlaylistInteligente> comunes = columnas.get(SIN_GENERO);
+        if (!(contenido instanceof Cancion)) {
+            return comunes;
+        }
+        List<PlaylistInteligente> delGenero = columnas.get(columna(((Cancion) contenido).getGenero()));
+        if (delGenero.isEmpty()) {
+            return comunes;
+        }
+        if (comunes.isEmpty()) {
+            return delGenero;
+        }
+        ArrayList<PlaylistInteligente> todas = new ArrayList<>(comunes.size() + delGenero.size());
+        todas.addAll(comunes);
+        todas.addAll(delGenero);
+        return todas;
+    }
+
+    private static int columna(GeneroMusical genero) {
+        return genero == null ? SIN_GENERO : genero.ordinal() + 1;
+    }
+}
@@ -0,0 +1,63 @@
+package modelo.plataforma;
+
+import modelo.contenido.Contenido;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Foto inmutable de una playlist colaborativa en una versión concreta.
+ * Mientras se lee, los demás pueden seguir editando sin afectarla.
+ */
+public class InstantaneaPlaylist {
+
+    //Atributos:
+    private final long version;
+    private final List<Contenido> contenidos;
+    private final int duracionTotal;
+
+    //Constructor
+    InstantaneaPlaylist(long version, ArrayList<Contenido> contenidos) {
+        this.version = version;
+        this.contenidos = Collections.unmodifiableList(contenidos);
+        int duracion = 0;
+        for (Contenido contenido : contenidos) {
+            duracion += contenido.getDuracionSegundos();
+        }
+        this.duracionTotal = duracion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Contenido> getContenidos() {
+        return contenidos;
+    }
+
+    public Contenido getContenido(int posicion) {
+        return posicion >= 0 && posicion < contenidos.size() ? contenidos.get(posicion) : null;
+    }
+
+    public int getNumContenidos() {
+        return contenidos.size();
+    }
+
+    public boolean estaVacia() {
+        return contenidos.isEmpty();
+    }
+
+    public int getDuracionTotal() {
+        return duracionTotal;
+    }
+
+    @Override
+    public String toString() {
+        return "InstantaneaPlaylist{" +
+                "version=" + version +
+                ", contenidos=" + contenidos.size() +
+                ", duracionTotal=" + duracionTotal +
+                '}';
+    }
+}
@@ -3,17 +3,21 @@ package modelo.plataforma;
 import enums.CategoriaPodcast;
 import enums.GeneroMusical;
 import enums.TipoAnuncio;
+import enums.TipoCambioContenido;
 import enums.TipoSuscripcion;
 import excepciones.artista.AlbumCompletoException;
 import excepciones.artista.AlbumYaExisteException;
 import excepciones.artista.ArtistaNoVerificadoException;
 import excepciones.artista.LimiteEpisodiosException;
+import excepciones.contenido.ContenidoNoDisponibleException;
 import excepciones.contenido.DuracionInvalidaException;
 import excepciones.plataforma.ArtistaNoEncontradoException;
 import excepciones.plataforma.ContenidoNoEncontradoException;
 import excepciones.plataforma.UsuarioYaExisteException;
 import excepciones.usuario.EmailInvalidoException;
 import excepciones.usuario.PasswordDebilException;
+import interfaces.ObservadorContenido;
+import interfaces.Reloj;
 import modelo.artistas.Album;
 import modelo.artistas.Artista;
 import modelo.artistas.Creador;
@@ -23,29 +27,57 @@ import modelo.contenido.Podcast;
 import modelo.usuarios.Usuario;
 import modelo.usuarios.UsuarioGratuito;
 import modelo.usuarios.UsuarioPremium;
+import utilidades.HyperLogLog;
+import utilidades.IndiceTexto;
+import utilidades.OyentesUnicos;
+import utilidades.PosicionesReproduccion;
+import utilidades.RankingPlaylists;
 import utilidades.RecomendadorIA;
-
+import utilidades.RegistroEscuchas;
+import utilidades.ResultadoTexto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
-public class Plataforma {
+public class Plataforma implements ObservadorContenido {
     // Singleton
     private static Plataforma instancia;
+    private static boolean cierreRegistrado;
 
     // Atributos
     private String nombre;
     private HashMap<String, Usuario> usuarios;
     private HashMap<String, Usuario> usuariosPorEmail;
     private ArrayList<Contenido> catalogo;
+    private HashMap<String, Integer> posicionesCatalogo; // Id -> índice en catalogo, para quitar en O(1)
+    private HashMap<String, Contenido> catalogoPorId;
     private ArrayList<Playlist> playlistsPublicas;
+    private ArrayList<PlaylistColaborativa> playlistsColaborativas;
+    private CopyOnWriteArrayList<PlaylistInteligente> playlistsInteligentes;
+    private IndicePlaylistsInteligentes indiceInteligentes;
+    private RankingPlaylists rankingPlaylists;
+    private IndiceTexto indiceTexto;
     private HashMap<String, Artista> artistas;
     private HashMap<String, Creador> creadores;
+    private HashMap<String, Creador> creadoresPorCanal; // Canal en minúsculas -> primer creador registrado con él
     private ArrayList<Album> albumes;
     private ArrayList<Anuncio> anuncios;
     private RecomendadorIA recomendador;
+    private RegistroEscuchas registroEscuchas;
+    private PosicionesReproduccion posiciones;
+    private ServicioCuotas cuotas;
+    private Path archivoCuotas;
     private int totalAnunciosReproducidos;
 
     // Constructor privado
@@ -54,13 +86,23 @@ public class Plataforma {
         this.usuarios = new HashMap<>();
         this.usuariosPorEmail = new HashMap<>();
         this.catalogo = new ArrayList<>();
+        this.posicionesCatalogo = new HashMap<>();
+        this.catalogoPorId = new HashMap<>();
         this.playlistsPublicas = new ArrayList<>();
+        this.playlistsColaborativas = new ArrayList<>();
+        this.playlistsInteligentes = new CopyOnWriteArrayList<>();
+        this.indiceInteligentes = new IndicePlaylistsInteligentes();
+        this.rankingPlaylists = new RankingPlaylists();
+        this.indiceTexto = new IndiceTexto();
+        this.posiciones = new PosicionesReproduccion();
         this.artistas = new HashMap<>();
         this.creadores = new HashMap<>();
+        this.creadoresPorCanal = new HashMap<>();
         this.albumes = new ArrayList<>();
         this.anuncios = new ArrayList<>();
         this.totalAnunciosReproducidos = 0;
         this.recomendador = new RecomendadorIA();
+        this.cuotas = ServicioCuotas.getInstancia();
         inicializarAnuncios();
     }
 
@@ -68,6 +110,7 @@ public class Plataforma {
     public static synchronized Plataforma getInstancia(String nombre) {
         if (instancia == null) {
             instancia = new Plataforma(nombre);
+            registrarCierreAlApagar();
         }
         return instancia;
     }
@@ -77,7 +120,39 @@ public class Plataforma {
     }
 
     public static synchronized void reiniciarInstancia() {
-        instancia = null;
+        // Antes de soltar la instancia bajo a disco lo que tenga pendiente
+        if (instancia != null) {
+            try {
+                instancia.cerrar();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo cerrar la plataforma", e);
+            } finally {
+                instancia = null;
+                ServicioCuotas.reiniciarInstancia();
+            }
+        }
+    }
+
+    // Al apagar la JVM se cierra la instancia que quede viva
+    private static void registrarCierreAlApagar() {
+        if (!cierreRegistrado) {
+            cierreRegistrado = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(Plataforma::reiniciarInstancia, "cierre-plataforma"));
+        }
+    }
+
+    // Termina las escuchas en curso y baja a disco todo lo pendiente
+    public synchronized void cerrar() throws IOException {
+        for (Usuario usuario : usuarios.values()) {
+            usuario.detenerReproduccion();
+        }
+        if (registroEscuchas != null) {
+            registroEscuchas.vaciar();
+        }
+        posiciones.vaciar();
+        if (archivoCuotas != null) {
+            cuotas.guardar(archivoCuotas);
+        }
     }
 
     // Inicialización de anuncios
@@ -95,6 +170,8 @@ public class Plataforma {
             throw new UsuarioYaExisteException("Ya existe un usuario con el email: " + email);
         }
         UsuarioPremium usuario = new UsuarioPremium(nombre, email, password, tipo);
+        usuario.setRegistroEscuchas(registroEscuchas);
+        usuario.setRankingPlaylists(rankingPlaylists);
         usuarios.put(usuario.getId(), usuario);
         usuariosPorEmail.put(email, usuario);
         return usuario;
@@ -110,7 +187,9 @@ public class Plataforma {
         if (usuariosPorEmail.containsKey(email)) {
             throw new UsuarioYaExisteException("Ya existe un usuario con el email: " + email);
         }
-        UsuarioGratuito usuario = new UsuarioGratuito(nombre, email, password);
+        UsuarioGratuito usuario = new UsuarioGratuito(nombre, email, password, cuotas);
+        usuario.setRegistroEscuchas(registroEscuchas);
+        usuario.setRankingPlaylists(rankingPlaylists);
         usuarios.put(usuario.getId(), usuario);
         usuariosPorEmail.put(email, usuario);
         return usuario;
@@ -138,6 +217,87 @@ public class Plataforma {
         return usuariosPorEmail.get(email);
     }
 
+    // ==================== REGISTRO DE ESCUCHAS ====================
+
+    public RegistroEscuchas activarRegistroEscuchas(Path directorio) throws IOException {
+        // Creo el registro en disco y se lo asigno a todos los usuarios (actuales y futuros);
+        // lo que quedara en el anterior se baja antes a su carpeta
+        for (Usuario usuario : usuarios.values()) {
+            usuario.detenerReproduccion();
+        }
+        if (registroEscuchas != null) {
+            registroEscuchas.vaciar();
+        }
+        registroEscuchas = new RegistroEscuchas(directorio);
+        for (Usuario usuario : usuarios.values()) {
+            usuario.setRegistroEscuchas(registroEscuchas);
+        }
+        return registroEscuchas;
+    }
+
+    // ==================== CUOTAS ====================
+
+    public ServicioCuotas activarCuotas(Path archivo) throws IOException {
+        // Recupero los contadores del último cierre; cerrar() los vuelve a guardar aquí
+        if (Files.exists(archivo)) {
+            cuotas.cargar(archivo);
+        }
+        archivoCuotas = archivo;
+        return cuotas;
+    }
+
+    // ==================== POSICIONES DE ESCUCHA ====================
+
+    public PosicionesReproduccion activarPosiciones(Path archivo, Reloj reloj, long intervaloMillis) throws IOException {
+        // Lo pendiente del almacén anterior se baja a su archivo antes de cambiar
+        posiciones.vaciar();
+        // Cargo lo guardado en el archivo; a partir de aquí los cambios se vuelcan cada 'intervaloMillis'
+        posiciones = new PosicionesReproduccion(archivo, reloj, intervaloMillis);
+        return posiciones;
+    }
+
+    // Latido del cliente: el usuario va por 'segundo' del episodio. Si falla el volcado la
+    // posición sigue en memoria y se reintenta en el siguiente, pero el llamador se entera
+    public void registrarPosicion(Usuario usuario, Podcast episodio, int segundo) throws IOException {
+        posiciones.registrar(usuario.getId(), episodio.getId(), segundo, episodio.getDuracionSegundos(),
+                usuario.getReloj().ahoraMillis());
+    }
+
+    public void marcarEpisodioEscuchado(Usuario usuario, Podcast episodio) throws IOException {
+        posiciones.marcarCompletado(usuario.getId(), episodio.getId(), usuario.getReloj().ahoraMillis());
+    }
+
+    // Empieza el episodio donde lo dejó el usuario y devuelve ese segundo
+    public int reanudarEpisodio(Usuario usuario, Podcast episodio) throws ContenidoNoDisponibleException {
+        if (!episodio.isDisponible()) {
+            throw new ContenidoNoDisponibleException("El podcast '" + episodio.getTitulo() + "' no está disponible actualmente");
+        }
+        int segundo = posiciones.getPosicion(usuario.getId(), episodio.getId());
+        episodio.playDesde(segundo);
+        return segundo;
+    }
+
+    public int getPosicionEpisodio(Usuario usuario, Podcast episodio) {
+        return posiciones.getPosicion(usuario.getId(), episodio.getId());
+    }
+
+    public boolean isEpisodioEscuchado(Usuario usuario, Podcast episodio) {
+        return posiciones.isCompletado(usuario.getId(), episodio.getId());
+    }
+
+    // "Seguir escuchando": episodios a medias del usuario, el más reciente primero
+    public ArrayList<Podcast> getSeguirEscuchando(Usuario usuario, int k) {
+        ArrayList<Podcast> resultado = new ArrayList<>();
+        for (String idEpisodio : posiciones.getContinuarEscuchando(usuario.getId(), k)) {
+            // Los retirados del catálogo se saltan
+            Contenido contenido = catalogoPorId.get(idEpisodio);
+            if (contenido instanceof Podcast && contenido.isDisponible()) {
+                resultado.add((Podcast) contenido);
+            }
+        }
+        return resultado;
+    }
+
     // ==================== GESTIÓN DE ARTISTAS ====================
 
     public Artista registrarArtista(String nombreArtistico, String nombreReal, String paisOrigen, boolean verificado) {
@@ -190,7 +350,7 @@ public class Plataforma {
     public Cancion crearCancion(String titulo, int duracion, Artista artista, GeneroMusical genero)
             throws DuracionInvalidaException {
         Cancion cancion = new Cancion(titulo, duracion, artista, genero);
-        catalogo.add(cancion);
+        incorporarAlCatalogo(cancion);
         artista.publicarCancion(cancion);
         return cancion;
     }
@@ -198,13 +358,97 @@ public class Plataforma {
     public Cancion crearCancionEnAlbum(String titulo, int duracion, Artista artista, GeneroMusical genero, Album album)
             throws DuracionInvalidaException, AlbumCompletoException {
         Cancion cancion = album.crearCancion(titulo, duracion, genero);
-        catalogo.add(cancion);
+        incorporarAlCatalogo(cancion);
         return cancion;
     }
 
     public void agregarContenidoCatalogo(Contenido contenido) {
-        if (!catalogo.contains(contenido)) {
-            catalogo.add(contenido);
+        if (!catalogoPorId.containsKey(contenido.getId())) {
+            incorporarAlCatalogo(contenido);
+        }
+    }
+
+    private void incorporarAlCatalogo(Contenido contenido) {
+        posicionesCatalogo.put(contenido.getId(), catalogo.size());
+        catalogo.add(contenido);
+        catalogoPorId.put(contenido.getId(), contenido);
+        indiceTexto.indexar(contenido);
+        recomendador.contenidoPublicado(contenido);
+        // Me suscribo a sus cambios y lo ofrezco a las playlists inteligentes en las que podría entrar
+        contenido.agregarObservador(this);
+        for (PlaylistInteligente playlist : indiceInteligentes.candidatas(contenido)) {
+            playlist.evaluar(contenido);
+        }
+    }
+
+    public Contenido buscarContenidoPorId(String idContenido) throws ContenidoNoEncontradoException {
+        Contenido contenido = catalogoPorId.get(idContenido);
+        if (contenido == null) {
+            throw new ContenidoNoEncontradoException("No existe contenido con id: " + idContenido);
+        }
+        return contenido;
+    }
+
+    public int retirarContenido(String idContenido) throws ContenidoNoEncontradoException {
+        return retirarContenido(buscarContenidoPorId(idContenido));
+    }
+
+    // Retira un contenido del catálogo y de todo lo que lo referencia.
+    // Usa los índices inversos del contenido, así que solo toca a los afectados.
+    // Devuelve cuántas referencias se quitaron (playlists, descargas y likes)
+    public int retirarContenido(Contenido contenido) {
+        // Primero deja de estar disponible: las playlists inteligentes lo sacan al enterarse
+        contenido.marcarNoDisponible();
+        contenido.quitarObservador(this);
+
+        int afectados = 0;
+        for (Playlist playlist : contenido.getPlaylists()) {
+            if (playlist.eliminarContenido(contenido)) {
+                afectados++;
+            }
+        }
+        for (PlaylistColaborativa playlist : contenido.getPlaylistsColaborativas()) {
+            if (playlist.retirarContenido(contenido.getId())) {
+                afectados++;
+            }
+        }
+        for (UsuarioPremium usuario : contenido.getUsuariosDescarga()) {
+            if (usuario.eliminarDescarga(contenido)) {
+                afectados++;
+            }
+        }
+        for (Usuario usuario : contenido.getUsuariosLike()) {
+            usuario.quitarLike(contenido);
+            afectados++;
+        }
+
+        if (catalogoPorId.remove(contenido.getId()) != null) {
+            quitarDelCatalogo(contenido);
+        }
+        indiceTexto.quitar(contenido);
+        return afectados;
+    }
+
+    // El último del catálogo ocupa el hueco del retirado (el catálogo no tiene un orden que conservar)
+    private void quitarDelCatalogo(Contenido contenido) {
+        int posicion = posicionesCatalogo.remove(contenido.getId());
+        Contenido ultimo = catalogo.remove(catalogo.size() - 1);
+        if (posicion < catalogo.size()) {
+            catalogo.set(posicion, ultimo);
+            posicionesCatalogo.put(ultimo.getId(), posicion);
+        }
+    }
+
+    @Override
+    public void contenidoActualizado(Contenido contenido, TipoCambioContenido cambio) {
+        if (cambio == TipoCambioContenido.TEXTO) {
+            // Solo se reindexa el texto de ese contenido
+            indiceTexto.indexar(contenido);
+        }
+        // Solo reevalúo ese contenido y solo en las playlists cuyas reglas dependen del cambio
+        // y que admiten su género
+        for (PlaylistInteligente playlist : indiceInteligentes.afectadas(contenido, cambio)) {
+            playlist.evaluar(contenido);
         }
     }
 
@@ -219,12 +463,40 @@ public class Plataforma {
 
     public Creador registrarCreador(String nombreCanal, String nombre, String descripcion) {
         Creador creador = new Creador(nombreCanal, nombre, descripcion);
-        creadores.put(creador.getId(), creador);
+        registrarCreador(creador);
         return creador;
     }
 
-    public void registrarCreador(Creador creador) {
+    public synchronized void registrarCreador(Creador creador) {
         creadores.put(creador.getId(), creador);
+        creadoresPorCanal.putIfAbsent(claveCanal(creador.getNombreCanal()), creador);
+        creador.setPlataforma(this);
+    }
+
+    // Devuelve el creador con ese canal o lo registra; sincronizado para los importadores en paralelo
+    public synchronized Creador buscarOCrearCreador(String nombreCanal, String nombre, String descripcion) {
+        Creador creador = creadoresPorCanal.get(claveCanal(nombreCanal));
+        return creador != null ? creador : registrarCreador(nombreCanal, nombre, descripcion);
+    }
+
+    // Lo llama Creador.setNombreCanal para que el índice por canal siga al nombre nuevo
+    public synchronized void canalRenombrado(Creador creador, String anterior) {
+        String clave = claveCanal(anterior);
+        if (creadoresPorCanal.get(clave) == creador) {
+            creadoresPorCanal.remove(clave);
+            // Si otro creador comparte el nombre viejo pasa a ser él el que se encuentra
+            for (Creador otro : creadores.values()) {
+                if (otro != creador && clave.equals(claveCanal(otro.getNombreCanal()))) {
+                    creadoresPorCanal.put(clave, otro);
+                    break;
+                }
+            }
+        }
+        creadoresPorCanal.putIfAbsent(claveCanal(creador.getNombreCanal()), creador);
+    }
+
+    private static String claveCanal(String nombreCanal) {
+        return nombreCanal == null ? "" : nombreCanal.toLowerCase(Locale.ROOT);
     }
 
     public Podcast crearPodcast(String titulo, int duracion, Creador creador, int numEpisodio, int temporada,
@@ -232,10 +504,26 @@ public class Plataforma {
             throws DuracionInvalidaException, LimiteEpisodiosException {
         Podcast podcast = new Podcast(titulo, duracion, creador, numEpisodio, temporada, categoria);
         creador.publicarPodcast(podcast);
-        catalogo.add(podcast);
+        incorporarAlCatalogo(podcast);
         return podcast;
     }
 
+    // Publica un lote de episodios ya construidos de una vez. Los que tienen temporada y
+    // número y coinciden con uno ya publicado se saltan, así que reimportar no duplica
+    public synchronized int publicarPodcasts(Creador creador, List<Podcast> episodios) throws LimiteEpisodiosException {
+        int publicados = 0;
+        for (Podcast episodio : episodios) {
+            if (episodio.getNumeroEpisodio() > 0
+                    && creador.buscarEpisodio(episodio.getTemporada(), episodio.getNumeroEpisodio()) != null) {
+                continue;
+            }
+            creador.publicarPodcast(episodio);
+            incorporarAlCatalogo(episodio);
+            publicados++;
+        }
+        return publicados;
+    }
+
     public ArrayList<Podcast> getPodcasts() {
         return catalogo.stream()
                 .filter(c -> c instanceof Podcast)
@@ -252,13 +540,62 @@ public class Plataforma {
     public Playlist crearPlaylistPublica(String nombre, Usuario creador) {
         Playlist playlist = new Playlist(nombre, creador, true, "");
         playlistsPublicas.add(playlist);
+        rankingPlaylists.registrar(playlist);
         return playlist;
     }
 
+    // Para que una playlist de usuario aparezca en los rankings cuando sea pública
+    public void registrarPlaylist(Playlist playlist) {
+        rankingPlaylists.registrar(playlist);
+    }
+
     public ArrayList<Playlist> getPlaylistsPublicas() {
         return new ArrayList<>(playlistsPublicas);
     }
 
+    public ArrayList<Playlist> getPlaylistsMasSeguidas(int k) {
+        return rankingPlaylists.getMasSeguidas(k);
+    }
+
+    public ArrayList<Playlist> getPlaylistsEnTendencia(int k) {
+        return rankingPlaylists.getEnTendencia(k);
+    }
+
+    public ArrayList<Playlist> getPlaylistsRecientes(int k) {
+        return rankingPlaylists.getRecientes(k);
+    }
+
+    public IndiceTexto getIndiceTexto() {
+        return indiceTexto;
+    }
+
+    public RankingPlaylists getRankingPlaylists() {
+        return rankingPlaylists;
+    }
+
+    public PlaylistColaborativa crearPlaylistColaborativa(String nombre, Usuario creador) {
+        PlaylistColaborativa playlist = new PlaylistColaborativa(nombre, creador);
+        playlistsColaborativas.add(playlist);
+        return playlist;
+    }
+
+    public ArrayList<PlaylistColaborativa> getPlaylistsColaborativas() {
+        return new ArrayList<>(playlistsColaborativas);
+    }
+
+    public PlaylistInteligente crearPlaylistInteligente(String nombre, Usuario creador, int limite, ReglaPlaylist... reglas) {
+        PlaylistInteligente playlist = new PlaylistInteligente(nombre, creador, List.of(reglas), limite);
+        // Se llena una vez con el catálogo actual; después se mantiene con los avisos
+        playlist.cargar(catalogo);
+        playlistsInteligentes.add(playlist);
+        indiceInteligentes.registrar(playlist);
+        return playlist;
+    }
+
+    public ArrayList<PlaylistInteligente> getPlaylistsInteligentes() {
+        return new ArrayList<>(playlistsInteligentes);
+    }
+
     // ==================== BÚSQUEDAS ====================
 
     public ArrayList<Contenido> buscarContenido(String termino) throws ContenidoNoEncontradoException {
@@ -272,6 +609,11 @@ public class Plataforma {
         return resultados;
     }
 
+    // Busca en letras y transcripciones; admite frases entre comillas
+    public ArrayList<ResultadoTexto> buscarEnTextos(String consulta, int limite) {
+        return indiceTexto.buscar(consulta, limite);
+    }
+
     public ArrayList<Cancion> buscarPorGenero(GeneroMusical genero) throws ContenidoNoEncontradoException {
         ArrayList<Cancion> resultados = catalogo.stream()
                 .filter(c -> c instanceof Cancion)
@@ -307,6 +649,28 @@ public class Plataforma {
 
     // ==================== ANUNCIOS ====================
 
+    // Oyentes distintos de toda la plataforma: fusiono los sketches de cada artista,
+    // así un usuario que escucha a varios artistas cuenta una sola vez
+    public long estimarOyentesUnicos(YearMonth mes) {
+        HyperLogLog total = new HyperLogLog();
+        for (Artista artista : artistas.values()) {
+            total.fusionar(artista.getSketchOyentes(mes));
+        }
+        return total.estimar();
+    }
+
+    public long estimarOyentesUnicosUltimosDias(long hoy, int dias) {
+        // Cada artista comprueba el periodo; sin artistas lo compruebo aquí para dar el mismo error
+        if (dias < 1 || dias > OyentesUnicos.DIAS_VENTANA) {
+            throw new IllegalArgumentException("El periodo debe estar entre 1 y " + OyentesUnicos.DIAS_VENTANA + " días");
+        }
+        HyperLogLog total = new HyperLogLog();
+        for (Artista artista : artistas.values()) {
+            total.fusionar(artista.getSketchOyentesUltimosDias(hoy, dias));
+        }
+        return total.estimar();
+    }
+
     public Anuncio obtenerAnuncioAleatorio() {
         ArrayList<Anuncio> anunciosActivos = anuncios.stream()
                 .filter(Anuncio::puedeMostrarse)
@@ -376,6 +740,18 @@ public class Plataforma {
         return recomendador;
     }
 
+    public RegistroEscuchas getRegistroEscuchas() {
+        return registroEscuchas;
+    }
+
+    public PosicionesReproduccion getPosiciones() {
+        return posiciones;
+    }
+
+    public ServicioCuotas getCuotas() {
+        return cuotas;
+    }
+
     public int getTotalUsuarios() {
         return usuarios.size();
     }
@@ -1,136 +1,277 @@
 package modelo.plataforma;
 
 import enums.CriterioOrden;
+import enums.GeneroMusical;
+import enums.TipoCambioPlaylist;
 import excepciones.playlist.ContenidoDuplicadoException;
 import excepciones.playlist.PlaylistLlenaException;
 import excepciones.playlist.PlaylistVaciaException;
+import interfaces.ListaContenidos;
+import interfaces.ObservadorPlaylist;
 import modelo.contenido.Contenido;
 import modelo.usuarios.Usuario;
-
+import utilidades.ResumenContenidos;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-public class Playlist {
+public class Playlist implements ListaContenidos {
     private static final int MAX_CONTENIDOS_DEFAULT = 500;
+    private static final int MAXIMO_CURSORES = 64;  // Cursores vivos por playlist; el resto se guarda compacto
+    private static final int FORMATO_CURSORES = 1;
 
     private String id;
     private String nombre;
     private Usuario creador;
-    private ArrayList<Contenido> contenidos;
+    private SecuenciaContenidos contenidos; // Orden del usuario + índice por id
     private boolean esPublica;
     private int seguidores;
     private String descripcion;
     private String portadaURL;
     private Date fechaCreacion;
     private int maxContenidos;
+    private HashMap<String, Date> fechasAgregado;
+    private VistasOrdenadas vistas;      // Vistas ordenadas en caché (no alteran el orden original)
+    private CriterioOrden criterioActivo;
+    private ResumenContenidos resumen;  // Duración, explícitos y géneros al día
+    private LinkedHashMap<String, CursorAleatorio> cursoresPorOyente; // Del menos al más usado
+    private HashMap<String, EstadoCursor> cursoresGuardados;         // Desalojados o cargados de archivo
+    private CopyOnWriteArrayList<ObservadorPlaylist> observadores; // Rankings de descubrimiento
 
     // Constructores
     public Playlist(String nombre, Usuario creador){
         this.id = UUID.randomUUID().toString();
         this.nombre = nombre;
         this.creador = creador;
-        this.contenidos = new ArrayList<>();
+        this.contenidos = new SecuenciaContenidos();
         this.esPublica = false;
         this.seguidores = 0;
         this.fechaCreacion = new Date();
         this.maxContenidos = MAX_CONTENIDOS_DEFAULT;
+        this.fechasAgregado = new HashMap<>();
+        this.vistas = new VistasOrdenadas();
+        this.criterioActivo = CriterioOrden.FECHA_AGREGADO;
+        this.resumen = new ResumenContenidos();
+        this.cursoresPorOyente = new LinkedHashMap<>(16, 0.75f, true);
+        this.cursoresGuardados = new HashMap<>();
+        this.observadores = new CopyOnWriteArrayList<>();
     }
 
     public Playlist(String nombre, Usuario creador, boolean esPublica, String descripcion) {
+        this(nombre, creador, esPublica, descripcion, MAX_CONTENIDOS_DEFAULT);
+    }
+
+    public Playlist(String nombre, Usuario creador, boolean esPublica, String descripcion, int maxContenidos) {
         this.id = UUID.randomUUID().toString();
         this.nombre = nombre;
         this.creador = creador;
-        this.contenidos = new ArrayList<>();
+        this.contenidos = new SecuenciaContenidos();
         this.esPublica = esPublica;
         this.descripcion = descripcion;
         this.seguidores = 0;
         this.fechaCreacion = new Date();
-        this.maxContenidos = MAX_CONTENIDOS_DEFAULT;
+        this.maxContenidos = maxContenidos > 0 ? maxContenidos : MAX_CONTENIDOS_DEFAULT;
+        this.fechasAgregado = new HashMap<>();
+        this.vistas = new VistasOrdenadas();
+        this.criterioActivo = CriterioOrden.FECHA_AGREGADO;
+        this.resumen = new ResumenContenidos();
+        this.cursoresPorOyente = new LinkedHashMap<>(16, 0.75f, true);
+        this.cursoresGuardados = new HashMap<>();
+        this.observadores = new CopyOnWriteArrayList<>();
     }
 
 
     // Métodos
     public void agregarContenido(Contenido contenido) throws PlaylistLlenaException, ContenidoDuplicadoException{
         // Primero checo si ya llegué al límite de contenidos
-        if (contenidos.size() >= maxContenidos) {
+        if (contenidos.tamano() >= maxContenidos) {
             throw new PlaylistLlenaException("La playlist ha alcanzado su capacidad máxima.");
         }
-        // Luego verifico que no esté duplicado
-        if (contenidos.contains(contenido)) {
+        // Luego verifico que no esté duplicado (búsqueda en el índice por id, O(1))
+        if (contenidos.contiene(contenido.getId())) {
             throw new ContenidoDuplicadoException("El contenido ya existe en la playlist.");
         }
-        // Si pasó todas las validaciones, lo agrego
-        contenidos.add(contenido);
+        // Si pasó todas las validaciones, lo agrego al final y reparo las vistas en caché
+        contenidos.agregar(contenido);
+        fechasAgregado.put(contenido.getId(), new Date());
+        vistas.agregado(contenido);
+        resumen.agregar(contenido);
+        contenido.registrarEnPlaylist(this);
     }
 
     public boolean eliminarContenido(String idContenido){
         // Elimino el contenido que tenga ese ID y devuelvo si se pudo eliminar
-        return contenidos.removeIf(contenido -> contenido.getId().equals(idContenido));
+        Contenido eliminado = contenidos.eliminar(idContenido);
+        if (eliminado == null) {
+            return false;
+        }
+        fechasAgregado.remove(idContenido);
+        vistas.eliminado(eliminado);
+        resumen.quitar(eliminado);
+        eliminado.quitarDePlaylist(this);
+        return true;
     }
 
     public boolean eliminarContenido(Contenido contenido){
         // Intento eliminar el contenido directo
-        return contenidos.remove(contenido);
+        return contenido != null && eliminarContenido(contenido.getId());
     }
 
     public void ordenarPor(CriterioOrden criterio) throws PlaylistVaciaException{
         // No puedo ordenar una playlist vacía
-        if(contenidos.isEmpty()){
+        if(contenidos.estaVacia()){
             throw new PlaylistVaciaException("La playlist está vacía.");
         }
 
-        switch(criterio){
-            case POPULARIDAD:
-                // Ordeno por reproducciones de mayor a menor (los más populares primero)
-                contenidos.sort(Comparator.comparingInt(Contenido::getReproducciones).reversed());
-                break;
-            case DURACION:
-                // Ordeno por duración de menor a mayor (los más cortos primero)
-                contenidos.sort(Comparator.comparingInt(Contenido::getDuracionSegundos));
-                break;
-            case ALFABETICO:
-                // Ordeno alfabéticamente por el título (A-Z)
-                contenidos.sort(Comparator.comparing(Contenido::getTitulo));
-                break;
-            case ALEATORIO:
-                // Mezclo todo al azar (shuffle)
-                Collections.shuffle(contenidos);
-                break;
-            default:
-                break;
+        // No reordeno los contenidos: solo cambio la vista con la que se recorren.
+        // El orden original sigue disponible con FECHA_AGREGADO
+        if(criterio == CriterioOrden.ALEATORIO){
+            vistas.mezclar();
         }
+        this.criterioActivo = criterio != null ? criterio : CriterioOrden.FECHA_AGREGADO;
     }
 
-    public int getDuracionTotal(){
-        // Sumo todas las duraciones de los contenidos
-        return contenidos.stream()
-                .mapToInt(Contenido::getDuracionSegundos)
-                .sum();
+    public ArrayList<Contenido> getContenidosOrdenados(CriterioOrden criterio){
+        // Devuelve la vista pedida sin cambiar la activa
+        if(criterio == null || criterio == CriterioOrden.FECHA_AGREGADO){
+            return contenidos.comoLista();
+        }
+        if(criterio == CriterioOrden.ALEATORIO){
+            return vistas.aleatoria(contenidos).obtenerTodos();
+        }
+        return new ArrayList<>(vistas.obtener(criterio, contenidos));
     }
 
-    public String getDuracionTotalFormateada(){
-        int totalSegundos = getDuracionTotal();
-        int horas = totalSegundos / 3600;
-        int minutos = (totalSegundos % 3600) / 60;
-        int segundos = totalSegundos % 60;
+    public CursorAleatorio crearCursorAleatorio(boolean inteligente){
+        // Recorrido aleatorio independiente: no copia ni cambia la playlist
+        return new CursorAleatorio(contenidos, inteligente, new Random().nextLong());
+    }
 
-        if(horas > 0){
-            return String.format("%d:%02d:%02d", horas, minutos, segundos);
+    public CursorAleatorio getCursorAleatorio(Usuario oyente, boolean inteligente){
+        // Cada oyente conserva su propio recorrido y su posición en él
+        CursorAleatorio cursor = cursoresPorOyente.get(oyente.getId());
+        if(cursor != null && cursor.isInteligente() == inteligente){
+            return cursor;
+        }
+        EstadoCursor guardado = cursoresGuardados.remove(oyente.getId());
+        if(guardado != null && guardado.inteligente == inteligente){
+            // Misma semilla sobre la misma playlist: rehace el recorrido hasta donde iba
+            cursor = new CursorAleatorio(contenidos, inteligente, guardado.semilla);
+            cursor.avanzar(guardado.posicion);
         } else {
-            return String.format("%d:%02d", minutos, segundos);
+            cursor = crearCursorAleatorio(inteligente);
+        }
+        cursoresPorOyente.put(oyente.getId(), cursor);
+        if(cursoresPorOyente.size() > MAXIMO_CURSORES){
+            // Desalojo el menos usado y me quedo solo con su semilla y su posición
+            Iterator<Map.Entry<String, CursorAleatorio>> masAntiguo = cursoresPorOyente.entrySet().iterator();
+            Map.Entry<String, CursorAleatorio> desalojado = masAntiguo.next();
+            cursoresGuardados.put(desalojado.getKey(), new EstadoCursor(desalojado.getValue()));
+            masAntiguo.remove();
+        }
+        return cursor;
+    }
+
+    public void reiniciarCursorAleatorio(Usuario oyente){
+        cursoresPorOyente.remove(oyente.getId());
+        cursoresGuardados.remove(oyente.getId());
+    }
+
+    public int getNumCursoresActivos(){
+        return cursoresPorOyente.size();
+    }
+
+    // ========== PERSISTENCIA DE CURSORES ==========
+
+    // Guarda semilla y posición del recorrido de cada oyente; con la misma playlist se retoma igual
+    public void guardarCursores(Path archivo) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(FORMATO_CURSORES);
+            salida.writeInt(cursoresPorOyente.size() + cursoresGuardados.size());
+            for (Map.Entry<String, CursorAleatorio> entrada : cursoresPorOyente.entrySet()) {
+                escribirCursor(salida, entrada.getKey(), new EstadoCursor(entrada.getValue()));
+            }
+            for (Map.Entry<String, EstadoCursor> entrada : cursoresGuardados.entrySet()) {
+                escribirCursor(salida, entrada.getKey(), entrada.getValue());
+            }
+        }
+        // Reemplazo el archivo de una vez para no dejarlo a medias si algo falla
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void cargarCursores(Path archivo) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            int formato = entrada.readInt();
+            if (formato != FORMATO_CURSORES) {
+                throw new IOException("Formato de archivo de cursores no soportado: " + formato);
+            }
+            int cantidad = entrada.readInt();
+            for (int i = 0; i < cantidad; i++) {
+                String idOyente = entrada.readUTF();
+                boolean inteligente = entrada.readBoolean();
+                long semilla = entrada.readLong();
+                int posicion = entrada.readInt();
+                // Se rehacen al pedirlos, no al cargar
+                cursoresPorOyente.remove(idOyente);
+                cursoresGuardados.put(idOyente, new EstadoCursor(inteligente, semilla, posicion));
+            }
         }
     }
 
+    private static void escribirCursor(DataOutputStream salida, String idOyente, EstadoCursor estado) throws IOException {
+        salida.writeUTF(idOyente);
+        salida.writeBoolean(estado.inteligente);
+        salida.writeLong(estado.semilla);
+        salida.writeInt(estado.posicion);
+    }
+
+    public int getDuracionTotal(){
+        // El total se mantiene al agregar y eliminar, no hace falta recorrer
+        return resumen.getDuracionTotal();
+    }
+
+    public String getDuracionTotalFormateada(){
+        return resumen.getDuracionTotalFormateada();
+    }
+
+    public int getNumExplicitos(){
+        return resumen.getExplicitos();
+    }
+
+    public int getNumPorGenero(GeneroMusical genero){
+        return resumen.getCantidadPorGenero(genero);
+    }
+
+    public EnumMap<GeneroMusical, Integer> getConteoPorGenero(){
+        return resumen.getConteoPorGenero();
+    }
+
     public void shuffle(){
-        Collections.shuffle(contenidos);
+        // Descarto el orden aleatorio anterior y lo dejo activo; se sortea al consultarlo
+        vistas.mezclar();
+        this.criterioActivo = CriterioOrden.ALEATORIO;
     }
 
     public ArrayList<Contenido> buscarContenido(String termino){
         ArrayList<Contenido> resultados = new ArrayList<>();
-        for(Contenido contenido : contenidos){
+        for(Contenido contenido : contenidos.comoLista()){
             if(contenido.getTitulo().toLowerCase().contains(termino.toLowerCase())){
                 resultados.add(contenido);
             }
@@ -139,36 +280,90 @@ public class Playlist {
     }
 
     public void hacerPublica(){
-        this.esPublica = true;
+        setEsPublica(true);
     }
 
     public void hacerPrivada(){
-        this.esPublica = false;
+        setEsPublica(false);
     }
 
     public void incrementarSeguidores(){
         this.seguidores++;
+        notificarCambio(TipoCambioPlaylist.SEGUIDORES, 1);
     }
 
     public void decrementarSeguidores(){
         if(this.seguidores > 0){
             this.seguidores--;
+            notificarCambio(TipoCambioPlaylist.SEGUIDORES, -1);
+        }
+    }
+
+    // ========== OBSERVADORES ==========
+
+    public void agregarObservador(ObservadorPlaylist observador) {
+        if (observador != null) {
+            this.observadores.addIfAbsent(observador);
+        }
+    }
+
+    public void quitarObservador(ObservadorPlaylist observador) {
+        this.observadores.remove(observador);
+    }
+
+    private void notificarCambio(TipoCambioPlaylist cambio, int diferencia) {
+        for (ObservadorPlaylist observador : this.observadores) {
+            observador.playlistActualizada(this, cambio, diferencia);
         }
     }
 
     public int getNumContenidos(){
-        return contenidos.size();
+        return contenidos.tamano();
     }
 
     public boolean estaVacia(){
-        return contenidos.isEmpty();
+        return contenidos.estaVacia();
+    }
+
+    public boolean contieneContenido(String idContenido){
+        return contenidos.contiene(idContenido);
+    }
+
+    public int getPosicion(String idContenido){
+        // Posición (desde 0) del contenido en el orden activo, o -1 si no está
+        if(criterioActivo == CriterioOrden.FECHA_AGREGADO){
+            return contenidos.posicionDe(idContenido);
+        }
+        Contenido contenido = contenidos.buscar(idContenido);
+        if(contenido == null){
+            return -1;
+        }
+        if(criterioActivo == CriterioOrden.ALEATORIO){
+            return vistas.aleatoria(contenidos).posicionDe(contenido);
+        }
+        return vistas.posicion(criterioActivo, contenidos, contenido);
     }
 
     public Contenido getContenido(int posicion){
-        if(posicion >= 0 && posicion < contenidos.size()){
-            return contenidos.get(posicion);
+        // Acceso por posición en el orden activo (devuelve null si la posición no existe)
+        if(criterioActivo == CriterioOrden.FECHA_AGREGADO){
+            return contenidos.obtener(posicion);
+        }
+        if(criterioActivo == CriterioOrden.ALEATORIO){
+            // Solo se sortea hasta la posición pedida
+            return vistas.aleatoria(contenidos).obtener(posicion);
         }
-        return null;
+        ArrayList<Contenido> vista = vistas.obtener(criterioActivo, contenidos);
+        return posicion >= 0 && posicion < vista.size() ? vista.get(posicion) : null;
+    }
+
+    public Date getFechaAgregado(String idContenido){
+        Date fecha = fechasAgregado.get(idContenido);
+        return fecha != null ? new Date(fecha.getTime()) : null;
+    }
+
+    public CriterioOrden getCriterioOrden(){
+        return this.criterioActivo;
     }
 
     // Getters y Setters
@@ -189,7 +384,8 @@ public class Playlist {
     }
 
     public ArrayList<Contenido> getContenidos(){
-        return new ArrayList<>(this.contenidos);
+        // Copia en el orden activo
+        return getContenidosOrdenados(criterioActivo);
     }
 
     public boolean isEsPublica(){
@@ -197,7 +393,10 @@ public class Playlist {
     }
 
     public void setEsPublica(boolean esPublica){
-        this.esPublica = esPublica;
+        if (this.esPublica != esPublica) {
+            this.esPublica = esPublica;
+            notificarCambio(TipoCambioPlaylist.VISIBILIDAD, 0);
+        }
     }
 
     public int getSeguidores(){
@@ -205,7 +404,12 @@ public class Playlist {
     }
 
     public void setSeguidores(int seguidores){
+        int anteriores = this.seguidores;
         this.seguidores = seguidores;
+        if (anteriores != seguidores) {
+            // Un ajuste directo no es un seguimiento nuevo: no cuenta para la tendencia
+            notificarCambio(TipoCambioPlaylist.SEGUIDORES, 0);
+        }
     }
 
     public String getDescripcion(){
@@ -232,6 +436,13 @@ public class Playlist {
         return this.maxContenidos;
     }
 
+    public void setMaxContenidos(int maxContenidos){
+        // Solo acepto capacidades positivas
+        if(maxContenidos > 0){
+            this.maxContenidos = maxContenidos;
+        }
+    }
+
     // Overrides
     @Override
     public String toString(){
@@ -239,7 +450,7 @@ public class Playlist {
                 "id='" + id + '\'' +
                 ", nombre='" + nombre + '\'' +
                 ", creador=" + (creador != null ? creador.getNombre() : "Sin creador") +
-                ", contenidos=" + contenidos.size() +
+                ", contenidos=" + contenidos.tamano() +
                 ", esPublica=" + esPublica +
                 ", seguidores=" + seguidores +
                 '}';
@@ -257,4 +468,21 @@ public class Playlist {
     public int hashCode(){
         return id.hashCode();
     }
+
+    // Lo mínimo para rehacer un cursor aleatorio: modo, semilla y cuántos entregó
+    private static class EstadoCursor {
+        private final boolean inteligente;
+        private final long semilla;
+        private final int posicion;
+
+        private EstadoCursor(boolean inteligente, long semilla, int posicion) {
+            this.inteligente = inteligente;
+            this.semilla = semilla;
+            this.posicion = posicion;
+        }
+
+        private EstadoCursor(CursorAleatorio cursor) {
+            this(cursor.isInteligente(), cursor.getSemilla(), cursor.getPosicion());
+        }
+    }
 }
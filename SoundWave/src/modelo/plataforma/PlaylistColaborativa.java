@@ -0,0 +1,491 @@
+package modelo.plataforma;
+
+import enums.CriterioOrden;
+import excepciones.playlist.ContenidoDuplicadoException;
+import excepciones.playlist.PermisoPlaylistException;
+import excepciones.playlist.PlaylistLlenaException;
+import modelo.contenido.Contenido;
+import modelo.usuarios.Usuario;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Playlist pública que varios colaboradores pueden editar a la vez sin bloqueos.
+ * Cada contenido ocupa una posición fraccionaria (ClavePosicion) dentro de un
+ * ConcurrentSkipListMap, así que insertar, mover o eliminar no desplaza a nadie.
+ * Cada cambio recibe una versión. La versión publicada (marca de confirmación) solo
+ * avanza cuando todas las anteriores terminaron, y una instantánea solo ve los
+ * cambios con versión menor o igual a ella: los lectores siempre obtienen un
+ * estado consistente y los escritores nunca esperan unos a otros.
+ * Dos réplicas de la misma playlist se pueden fusionar y convergen al mismo orden.
+ * Las lápidas de lo eliminado se guardan solo hasta que todas las réplicas
+ * conocidas las han visto; a partir de ahí ninguna fusión puede revivir la entrada.
+ */
+public class PlaylistColaborativa {
+    private static final int MAX_CONTENIDOS_DEFAULT = 500;
+    private static final long VIVA = Long.MAX_VALUE;
+    private static final int VENTANA = 1 << 12; // Cambios en curso que se pueden seguir a la vez
+
+    private final String id;
+    private final String idReplica;
+    private String nombre;
+    private final Usuario propietario;
+    private final Set<Usuario> colaboradores;
+    private final Date fechaCreacion;
+    private volatile int maxContenidos;
+
+    private final ConcurrentSkipListMap<ClavePosicion, Entrada> entradas; // Incluye las eliminadas (lápidas)
+    private final Set<String> replicas;   // Réplicas conocidas de esta playlist, esta incluida
+    private final AtomicInteger lapidas;
+    private final AtomicInteger lectores; // Instantáneas en curso: mientras haya, no se borra ninguna lápida
+    private final ConcurrentHashMap<String, Entrada> vivasPorContenido;
+    private final AtomicInteger tamano;
+    private final AtomicLong contadorClaves;
+    private final AtomicLong siguienteVersion;
+    private final AtomicLong versionPublicada;
+    private final AtomicLongArray terminadas; // Ventana circular de versiones ya aplicadas
+
+    // Constructores
+    public PlaylistColaborativa(String nombre, Usuario propietario) {
+        this(UUID.randomUUID().toString(), nombre, propietario, MAX_CONTENIDOS_DEFAULT);
+    }
+
+    public PlaylistColaborativa(String nombre, Usuario propietario, int maxContenidos) {
+        this(UUID.randomUUID().toString(), nombre, propietario, maxContenidos);
+    }
+
+    private PlaylistColaborativa(String id, String nombre, Usuario propietario, int maxContenidos) {
+        this.id = id;
+        this.idReplica = UUID.randomUUID().toString();
+        this.nombre = nombre;
+        this.propietario = propietario;
+        this.colaboradores = ConcurrentHashMap.newKeySet();
+        this.fechaCreacion = new Date();
+        this.maxContenidos = maxContenidos > 0 ? maxContenidos : MAX_CONTENIDOS_DEFAULT;
+        this.entradas = new ConcurrentSkipListMap<>();
+        this.replicas = ConcurrentHashMap.newKeySet();
+        this.replicas.add(idReplica);
+        this.lapidas = new AtomicInteger();
+        this.lectores = new AtomicInteger();
+        this.vivasPorContenido = new ConcurrentHashMap<>();
+        this.tamano = new AtomicInteger();
+        this.contadorClaves = new AtomicLong();
+        this.siguienteVersion = new AtomicLong();
+        this.versionPublicada = new AtomicLong();
+        this.terminadas = new AtomicLongArray(VENTANA);
+    }
+
+    // ========== COLABORADORES ==========
+
+    public void agregarColaborador(Usuario usuario) {
+        if (usuario != null) {
+            colaboradores.add(usuario);
+        }
+    }
+
+    public boolean quitarColaborador(Usuario usuario) {
+        return colaboradores.remove(usuario);
+    }
+
+    public boolean puedeEditar(Usuario usuario) {
+        return usuario != null && (usuario.equals(propietario) || colaboradores.contains(usuario));
+    }
+
+    private void verificarPermiso(Usuario usuario) throws PermisoPlaylistException {
+        if (!puedeEditar(usuario)) {
+            throw new PermisoPlaylistException("El usuario no puede editar la playlist '" + nombre + "'.");
+        }
+    }
+
+    // ========== ESCRITURA ==========
+
+    public void agregarContenido(Usuario autor, Contenido contenido)
+            throws PermisoPlaylistException, PlaylistLlenaException, ContenidoDuplicadoException {
+        insertar(autor, contenido, null, true);
+    }
+
+    public void insertarDespues(Usuario autor, Contenido contenido, String idAnterior)
+            throws PermisoPlaylistException, PlaylistLlenaException, ContenidoDuplicadoException {
+        // idAnterior null significa al principio
+        insertar(autor, contenido, idAnterior, false);
+    }
+
+    private void insertar(Usuario autor, Contenido contenido, String idAnterior, boolean alFinal)
+            throws PermisoPlaylistException, PlaylistLlenaException, ContenidoDuplicadoException {
+        verificarPermiso(autor);
+
+        // Reservo un lugar antes de tocar nada para no pasarme del máximo
+        while (true) {
+            int actual = tamano.get();
+            if (actual >= maxContenidos) {
+                throw new PlaylistLlenaException("La playlist ha alcanzado su capacidad máxima.");
+            }
+            if (tamano.compareAndSet(actual, actual + 1)) {
+                break;
+            }
+        }
+
+        boolean agregado = false;
+        long version = siguienteVersion.incrementAndGet();
+        try {
+            ClavePosicion clave = alFinal ? claveAlFinal() : claveDespues(idAnterior);
+            Entrada nueva = new Entrada(clave, contenido, autor, version);
+            // Solo una entrada viva por contenido: si otro la agregó antes, es duplicado
+            if (vivasPorContenido.putIfAbsent(contenido.getId(), nueva) == null) {
+                entradas.put(clave, nueva);
+                contenido.registrarEnColaborativa(this);
+                agregado = true;
+            }
+        } finally {
+            publicar(version);
+            if (!agregado) {
+                tamano.decrementAndGet();
+            }
+        }
+
+        if (!agregado) {
+            throw new ContenidoDuplicadoException("El contenido ya existe en la playlist.");
+        }
+    }
+
+    public boolean eliminarContenido(Usuario autor, String idContenido) throws PermisoPlaylistException {
+        verificarPermiso(autor);
+        return eliminar(idContenido);
+    }
+
+    // La usa la plataforma al retirar un contenido del catálogo: no depende de los colaboradores
+    boolean retirarContenido(String idContenido) {
+        return eliminar(idContenido);
+    }
+
+    private boolean eliminar(String idContenido) {
+        long version = siguienteVersion.incrementAndGet();
+        Entrada eliminada;
+        try {
+            eliminada = vivasPorContenido.remove(idContenido);
+            if (eliminada != null) {
+                // La entrada se queda como lápida para que las fusiones no la resuciten
+                darDeBaja(eliminada, version);
+            }
+        } finally {
+            publicar(version);
+        }
+
+        if (eliminada == null) {
+            return false;
+        }
+        tamano.decrementAndGet();
+        eliminada.contenido.quitarDeColaborativa(this);
+        recolectarSiSobran();
+        return true;
+    }
+
+    public boolean moverDespues(Usuario autor, String idContenido, String idAnterior) throws PermisoPlaylistException {
+        verificarPermiso(autor);
+
+        Entrada actual = vivasPorContenido.get(idContenido);
+        if (actual == null || idContenido.equals(idAnterior)) {
+            return false;
+        }
+
+        boolean movido = false;
+        long version = siguienteVersion.incrementAndGet();
+        try {
+            // Mover es dar de baja la posición vieja y de alta la nueva en la misma versión,
+            // así ninguna instantánea ve el contenido dos veces ni ninguna
+            Entrada nueva = new Entrada(claveDespues(idAnterior), actual.contenido, autor, version);
+            if (vivasPorContenido.replace(idContenido, actual, nueva)) {
+                entradas.put(nueva.clave, nueva);
+                darDeBaja(actual, version);
+                movido = true;
+            }
+        } finally {
+            publicar(version);
+        }
+        if (movido) {
+            recolectarSiSobran();
+        }
+        return movido;
+    }
+
+    private ClavePosicion claveAlFinal() {
+        ClavePosicion ultima = entradas.isEmpty() ? null : ultimaClave();
+        return ClavePosicion.entre(ultima, null, idReplica, contadorClaves.incrementAndGet());
+    }
+
+    private ClavePosicion ultimaClave() {
+        Map.Entry<ClavePosicion, Entrada> ultima = entradas.lastEntry();
+        return ultima != null ? ultima.getKey() : null;
+    }
+
+    private ClavePosicion claveDespues(String idAnterior) {
+        ClavePosicion anterior = null;
+        if (idAnterior != null) {
+            Entrada entrada = vivasPorContenido.get(idAnterior);
+            if (entrada == null) {
+                // El ancla ya no está (quizá otro la eliminó): agrego al final
+                return claveAlFinal();
+            }
+            anterior = entrada.clave;
+        }
+        // El límite es la clave inmediatamente siguiente, aunque sea una lápida
+        ClavePosicion siguiente = anterior != null ? entradas.higherKey(anterior)
+                : (entradas.isEmpty() ? null : entradas.firstKey());
+        return ClavePosicion.entre(anterior, siguiente, idReplica, contadorClaves.incrementAndGet());
+    }
+
+    private void publicar(long version) {
+        // Marco la versión como terminada sin esperar a las anteriores.
+        // Solo espero si hay más de VENTANA cambios pendientes (la ventana es circular)
+        while (version - versionPublicada.get() > VENTANA) {
+            Thread.yield();
+        }
+        terminadas.set((int) (version & (VENTANA - 1)), version);
+        avanzarPublicada();
+    }
+
+    private void avanzarPublicada() {
+        // La versión publicada sube mientras la siguiente ya esté terminada; cualquier
+        // hilo puede empujarla, así que el último en terminar publica a los que esperaban
+        while (true) {
+            long publicada = versionPublicada.get();
+            long siguiente = publicada + 1;
+            if (terminadas.get((int) (siguiente & (VENTANA - 1))) != siguiente) {
+                return;
+            }
+            versionPublicada.compareAndSet(publicada, siguiente);
+        }
+    }
+
+    // ========== LECTURA ==========
+
+    public InstantaneaPlaylist getInstantanea() {
+        // Me apunto como lector antes de leer la versión: así ninguna lápida que yo
+        // pueda necesitar (baja posterior a mi versión) se borra mientras recorro
+        lectores.incrementAndGet();
+        try {
+            long version = versionPublicada.get();
+            ArrayList<Contenido> visibles = new ArrayList<>(tamano.get());
+            for (Entrada entrada : entradas.values()) {
+                if (entrada.versionAlta <= version && entrada.versionBaja > version) {
+                    visibles.add(entrada.contenido);
+                }
+            }
+            return new InstantaneaPlaylist(version, visibles);
+        } finally {
+            lectores.decrementAndGet();
+        }
+    }
+
+    public InstantaneaPlaylist getInstantaneaOrdenada(CriterioOrden criterio) {
+        // Ordeno una copia de la instantánea; la playlist compartida no cambia
+        InstantaneaPlaylist base = getInstantanea();
+        ArrayList<Contenido> lista = new ArrayList<>(base.getContenidos());
+        if (criterio == CriterioOrden.ALEATORIO) {
+            Collections.shuffle(lista);
+        } else if (criterio != null && criterio != CriterioOrden.FECHA_AGREGADO) {
+            lista.sort(VistasOrdenadas.comparador(criterio));
+        }
+        return new InstantaneaPlaylist(base.getVersion(), lista);
+    }
+
+    public boolean contieneContenido(String idContenido) {
+        return vivasPorContenido.containsKey(idContenido);
+    }
+
+    public int getNumContenidos() {
+        return tamano.get();
+    }
+
+    public long getVersion() {
+        return versionPublicada.get();
+    }
+
+    public int getNumLapidas() {
+        return lapidas.get();
+    }
+
+    // ========== RÉPLICAS ==========
+
+    public PlaylistColaborativa crearReplica() {
+        // Copia con su propio sitio de claves; se puede editar por separado y fusionar después
+        PlaylistColaborativa replica = new PlaylistColaborativa(id, nombre, propietario, maxContenidos);
+        replica.colaboradores.addAll(colaboradores);
+        replicas.add(replica.idReplica);
+        replica.fusionar(this);
+        return replica;
+    }
+
+    public void fusionar(PlaylistColaborativa otra) {
+        if (otra == null || otra == this || !id.equals(otra.id)) {
+            return;
+        }
+        // Las dos se cuentan las réplicas que conocen: una lápida no se borra
+        // hasta que la hayan visto todas
+        replicas.addAll(otra.replicas);
+        otra.replicas.addAll(replicas);
+
+        for (Entrada externa : otra.entradas.values()) {
+            long version = siguienteVersion.incrementAndGet();
+            try {
+                Entrada propia = fusionarEntrada(externa, version);
+                if (externa.versionBaja != VIVA && propia != null && propia.conocidaPor != null) {
+                    // Las dos réplicas tienen ya la baja y cada una lo sabe de la otra
+                    propia.conocidaPor.addAll(externa.conocidaPor);
+                    externa.conocidaPor.add(idReplica);
+                }
+            } finally {
+                publicar(version);
+            }
+        }
+        recolectarLapidas();
+        otra.recolectarLapidas();
+    }
+
+    // Devuelve la entrada propia que quedó en la clave de la externa
+    private Entrada fusionarEntrada(Entrada externa, long version) {
+        Entrada propia = entradas.get(externa.clave);
+        if (propia != null) {
+            // Ya conozco esa posición: solo puede cambiar que la hayan eliminado allá
+            if (externa.versionBaja != VIVA && propia.versionBaja == VIVA
+                    && vivasPorContenido.remove(propia.contenido.getId(), propia)) {
+                darDeBaja(propia, version);
+                tamano.decrementAndGet();
+                propia.contenido.quitarDeColaborativa(this);
+            }
+            return propia;
+        }
+
+        Entrada copia = new Entrada(externa.clave, externa.contenido, externa.autor, version);
+        if (externa.versionBaja == VIVA) {
+            // Si el mismo contenido está vivo en dos posiciones, gana la clave menor en ambas réplicas
+            String idContenido = externa.contenido.getId();
+            Entrada actual = vivasPorContenido.get(idContenido);
+            if (actual == null) {
+                if (vivasPorContenido.putIfAbsent(idContenido, copia) == null) {
+                    entradas.put(copia.clave, copia);
+                    tamano.incrementAndGet();
+                    copia.contenido.registrarEnColaborativa(this);
+                    return copia;
+                }
+            } else if (copia.clave.compareTo(actual.clave) < 0
+                    && vivasPorContenido.replace(idContenido, actual, copia)) {
+                entradas.put(copia.clave, copia);
+                darDeBaja(actual, version);
+                return copia;
+            }
+        }
+        // Entra ya eliminada: nunca será visible, pero evita que otra fusión la reviva
+        darDeBaja(copia, version);
+        entradas.put(copia.clave, copia);
+        return copia;
+    }
+
+    // ========== LÁPIDAS ==========
+
+    private void darDeBaja(Entrada entrada, long version) {
+        Set<String> conocidaPor = ConcurrentHashMap.newKeySet();
+        conocidaPor.add(idReplica);
+        entrada.conocidaPor = conocidaPor;
+        entrada.versionBaja = version;
+        lapidas.incrementAndGet();
+    }
+
+    // Sin fusiones de por medio, barro cuando hay más lápidas que contenidos vivos (coste amortizado O(1))
+    private void recolectarSiSobran() {
+        if (lapidas.get() > Math.max(tamano.get(), 16)) {
+            recolectarLapidas();
+        }
+    }
+
+    private void recolectarLapidas() {
+        long publicada = versionPublicada.get();
+        for (Entrada entrada : entradas.values()) {
+            if (lectores.get() != 0) {
+                return;
+            }
+            // Solo las publicadas (ningún lector futuro las ve vivas) y vistas por todas las réplicas
+            Set<String> conocidaPor = entrada.conocidaPor;
+            if (conocidaPor != null && entrada.versionBaja <= publicada && conocidaPor.containsAll(replicas)
+                    && entradas.remove(entrada.clave, entrada)) {
+                lapidas.decrementAndGet();
+            }
+        }
+    }
+
+    // ========== GETTERS Y SETTERS ==========
+
+    public String getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public Usuario getPropietario() {
+        return propietario;
+    }
+
+    public ArrayList<Usuario> getColaboradores() {
+        return new ArrayList<>(colaboradores);
+    }
+
+    public Date getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public int getMaxContenidos() {
+        return maxContenidos;
+    }
+
+    public void setMaxContenidos(int maxContenidos) {
+        if (maxContenidos > 0) {
+            this.maxContenidos = maxContenidos;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PlaylistColaborativa{" +
+                "id='" + id + '\'' +
+                ", nombre='" + nombre + '\'' +
+                ", propietario=" + (propietario != null ? propietario.getNombre() : "Sin propietario") +
+                ", colaboradores=" + colaboradores.size() +
+                ", contenidos=" + tamano.get() +
+                ", version=" + versionPublicada.get() +
+                '}';
+    }
+
+    // Un contenido en una posición, con las versiones en que apareció y desapareció
+    private static class Entrada {
+        private final ClavePosicion clave;
+        private final Contenido contenido;
+        private final Usuario autor;
+        private final long versionAlta;
+        private volatile long versionBaja;
+        private volatile Set<String> conocidaPor; // Réplicas que tienen la baja (null mientras está viva)
+
+        private Entrada(ClavePosicion clave, Contenido contenido, Usuario autor, long versionAlta) {
+            this.clave = clave;
+            this.contenido = contenido;
+            this.autor = autor;
+            this.versionAlta = versionAlta;
+            this.versionBaja = VIVA;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package modelo.plataforma;
+
+import enums.CriterioOrden;
+import enums.GeneroMusical;
+import enums.TipoCambioContenido;
+import interfaces.ListaContenidos;
+import modelo.contenido.Contenido;
+import modelo.usuarios.Usuario;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Playlist definida por reglas (por ejemplo: género ROCK, no explícita, menos de 300s).
+ * Se llena una sola vez al crearla y después se mantiene sola: la plataforma le avisa
+ * de cada contenido nuevo y de cada cambio relevante, y aquí solo se vuelve a evaluar
+ * ese contenido. Con un límite, guarda los candidatos ordenados por reproducciones
+ * y los miembros son los primeros del orden. Las lecturas por posición usan una
+ * copia en lista de los miembros que se rehace solo después de un cambio.
+ */
+public class PlaylistInteligente implements ListaContenidos {
+
+    private final String id;
+    private String nombre;
+    private final Usuario creador;
+    private final Date fechaCreacion;
+    private final ArrayList<ReglaPlaylist> reglas;
+    private final int limite;                     // 0 = sin límite
+    private final EnumSet<TipoCambioContenido> sensibleA;
+    private final GeneroMusical genero;           // Género que exigen las reglas, o null
+
+    private final HashMap<String, Candidato> candidatos;
+    private final TreeSet<Candidato> ordenados;
+    private long secuencia;
+    private ArrayList<Contenido> miembros;        // Copia indexable; null tras un cambio
+
+    // Constructores
+    public PlaylistInteligente(String nombre, Usuario creador, List<ReglaPlaylist> reglas) {
+        this(nombre, creador, reglas, 0);
+    }
+
+    public PlaylistInteligente(String nombre, Usuario creador, List<ReglaPlaylist> reglas, int limite) {
+        this.id = UUID.randomUUID().toString();
+        this.nombre = nombre;
+        this.creador = creador;
+        this.fechaCreacion = new Date();
+        this.reglas = new ArrayList<>(reglas);
+        this.limite = Math.max(limite, 0);
+        this.candidatos = new HashMap<>();
+        this.secuencia = 0;
+        this.miembros = null;
+
+        GeneroMusical exigido = null;
+        for (ReglaPlaylist regla : this.reglas) {
+            if (regla.getGenero() != null) {
+                exigido = regla.getGenero();
+                break;
+            }
+        }
+        this.genero = exigido;
+
+        // Solo me interesan los cambios de los que dependen mis reglas
+        this.sensibleA = EnumSet.of(TipoCambioContenido.DISPONIBILIDAD);
+        for (TipoCambioContenido cambio : TipoCambioContenido.values()) {
+            for (ReglaPlaylist regla : this.reglas) {
+                if (regla.dependeDe(cambio)) {
+                    sensibleA.add(cambio);
+                }
+            }
+        }
+        if (this.limite > 0) {
+            // El top depende de las reproducciones aunque ninguna regla las use
+            sensibleA.add(TipoCambioContenido.REPRODUCCION);
+            this.ordenados = new TreeSet<>((a, b) -> {
+                int comparacion = Integer.compare(b.reproducciones, a.reproducciones);
+                return comparacion != 0 ? comparacion : Long.compare(a.secuencia, b.secuencia);
+            });
+        } else {
+            this.ordenados = new TreeSet<>((a, b) -> Long.compare(a.secuencia, b.secuencia));
+        }
+    }
+
+    // ========== MANTENIMIENTO ==========
+
+    public synchronized void cargar(Collection<Contenido> catalogo) {
+        // Único recorrido completo: al crear la playlist
+        for (Contenido contenido : catalogo) {
+            evaluar(contenido);
+        }
+    }
+
+    public boolean esSensibleA(TipoCambioContenido cambio) {
+        return sensibleA.contains(cambio);
+    }
+
+    public synchronized void evaluar(Contenido contenido) {
+        Candidato actual = candidatos.get(contenido.getId());
+        boolean cumple = cumpleReglas(contenido);
+
+        if (!cumple) {
+            if (actual != null) {
+                candidatos.remove(contenido.getId());
+                ordenados.remove(actual);
+                miembros = null;
+            }
+            return;
+        }
+
+        if (actual == null) {
+            Candidato nuevo = new Candidato(contenido, contenido.getReproducciones(), secuencia++);
+            candidatos.put(contenido.getId(), nuevo);
+            ordenados.add(nuevo);
+            miembros = null;
+        } else if (limite > 0 && actual.reproducciones != contenido.getReproducciones()) {
+            // Cambiaron las reproducciones: lo saco y lo vuelvo a meter con la clave nueva
+            ordenados.remove(actual);
+            Candidato movido = new Candidato(contenido, contenido.getReproducciones(), actual.secuencia);
+            candidatos.put(contenido.getId(), movido);
+            ordenados.add(movido);
+            miembros = null;
+        }
+    }
+
+    public synchronized void quitar(Contenido contenido) {
+        Candidato actual = candidatos.remove(contenido.getId());
+        if (actual != null) {
+            ordenados.remove(actual);
+            miembros = null;
+        }
+    }
+
+    private boolean cumpleReglas(Contenido contenido) {
+        if (!contenido.isDisponible()) {
+            return false;
+        }
+        for (ReglaPlaylist regla : reglas) {
+            if (!regla.cumple(contenido)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ========== LECTURA ==========
+
+    // Los primeros del orden, en lista; solo se recorre el árbol si cambió algo desde la última lectura
+    private ArrayList<Contenido> miembros() {
+        if (miembros == null) {
+            ArrayList<Contenido> lista = new ArrayList<>(getNumContenidos());
+            Iterator<Candidato> iterador = ordenados.iterator();
+            while (iterador.hasNext() && (limite == 0 || lista.size() < limite)) {
+                lista.add(iterador.next().contenido);
+            }
+            miembros = lista;
+        }
+        return miembros;
+    }
+
+    @Override
+    public synchronized ArrayList<Contenido> getContenidos() {
+        return new ArrayList<>(miembros());
+    }
+
+    @Override
+    public ArrayList<Contenido> getContenidosOrdenados(CriterioOrden criterio) {
+        ArrayList<Contenido> lista = getContenidos();
+        if (criterio == CriterioOrden.ALEATORIO) {
+            Collections.shuffle(lista);
+        } else if (criterio != null && criterio != CriterioOrden.FECHA_AGREGADO) {
+            lista.sort(VistasOrdenadas.comparador(criterio));
+        }
+        return lista;
+    }
+
+    @Override
+    public synchronized Contenido getContenido(int posicion) {
+        ArrayList<Contenido> lista = miembros();
+        return posicion >= 0 && posicion < lista.size() ? lista.get(posicion) : null;
+    }
+
+    @Override
+    public synchronized int getPosicion(String idContenido) {
+        Candidato buscado = candidatos.get(idContenido);
+        if (buscado == null) {
+            return -1;
+        }
+        // Cuántos candidatos van antes que él en el orden
+        int posicion = ordenados.headSet(buscado).size();
+        return limite == 0 || posicion < limite ? posicion : -1;
+    }
+
+    @Override
+    public synchronized boolean contieneContenido(String idContenido) {
+        return getPosicion(idContenido) >= 0;
+    }
+
+    @Override
+    public synchronized int getNumContenidos() {
+        return limite == 0 ? ordenados.size() : Math.min(limite, ordenados.size());
+    }
+
+    @Override
+    public synchronized boolean estaVacia() {
+        return ordenados.isEmpty();
+    }
+
+    @Override
+    public int getDuracionTotal() {
+        int total = 0;
+        for (Contenido contenido : getContenidos()) {
+            total += contenido.getDuracionSegundos();
+        }
+        return total;
+    }
+
+    @Override
+    public String getDuracionTotalFormateada() {
+        int totalSegundos = getDuracionTotal();
+        int horas = totalSegundos / 3600;
+        int minutos = (totalSegundos % 3600) / 60;
+        int segundos = totalSegundos % 60;
+
+        if (horas > 0) {
+            return String.format("%d:%02d:%02d", horas, minutos, segundos);
+        } else {
+            return String.format("%d:%02d", minutos, segundos);
+        }
+    }
+
+    @Override
+    public ArrayList<Contenido> buscarContenido(String termino) {
+        ArrayList<Contenido> resultados = new ArrayList<>();
+        for (Contenido contenido : getContenidos()) {
+            if (contenido.getTitulo().toLowerCase().contains(termino.toLowerCase())) {
+                resultados.add(contenido);
+            }
+        }
+        return resultados;
+    }
+
+    // ========== GETTERS Y SETTERS ==========
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    @Override
+    public Usuario getCreador() {
+        return creador;
+    }
+
+    public Date getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public ArrayList<ReglaPlaylist> getReglas() {
+        return new ArrayList<>(reglas);
+    }
+
+    public GeneroMusical getGenero() {
+        return genero;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    @Override
+    public String toString() {
+        return "PlaylistInteligente{" +
+                "id='" + id + '\'' +
+                ", nombre='" + nombre + '\'' +
+                ", reglas=" + reglas +
+                ", limite=" + limite +
+                ", contenidos=" + getNumContenidos() +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        return id.equals(((PlaylistInteligente) obj).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    // Candidato con la clave con la que está guardado en el orden
+    private static class Candidato {
+        private final Contenido contenido;
+        private final int reproducciones;
+        private final long secuencia;
+
+        private Candidato(Contenido contenido, int reproducciones, long secuencia) {
+            this.contenido = contenido;
+            this.reproducciones = reproducciones;
+            this.secuencia = secuencia;
+        }
+    }
+}
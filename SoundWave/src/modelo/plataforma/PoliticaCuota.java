@@ -0,0 +1,52 @@
+package modelo.plataforma;
+
+import enums.TipoSuscripcion;
+
+public class PoliticaCuota {
+
+    // Constantes
+    public static final int SIN_LIMITE = -1;
+    public static final int SIN_ANUNCIOS = 0;
+    private static final int CANCIONES_ENTRE_ANUNCIOS_DEFAULT = 3;
+
+    // Atributos
+    private final int limiteDiario;
+    private final int cancionesEntreAnuncios;
+
+    // Constructor
+    public PoliticaCuota(int limiteDiario, int cancionesEntreAnuncios) {
+        this.limiteDiario = limiteDiario < 0 ? SIN_LIMITE : limiteDiario;
+        this.cancionesEntreAnuncios = Math.max(cancionesEntreAnuncios, SIN_ANUNCIOS);
+    }
+
+    public static PoliticaCuota desde(TipoSuscripcion tipo) {
+        // Por defecto uso lo que ya define la suscripción: su límite y si lleva anuncios
+        int entreAnuncios = tipo.isSinAnuncios() ? SIN_ANUNCIOS : CANCIONES_ENTRE_ANUNCIOS_DEFAULT;
+        return new PoliticaCuota(tipo.getLimiteReproducciones(), entreAnuncios);
+    }
+
+    public boolean tieneLimiteDiario() {
+        return limiteDiario != SIN_LIMITE;
+    }
+
+    public boolean tieneAnuncios() {
+        return cancionesEntreAnuncios != SIN_ANUNCIOS;
+    }
+
+    // Getters
+    public int getLimiteDiario() {
+        return limiteDiario;
+    }
+
+    public int getCancionesEntreAnuncios() {
+        return cancionesEntreAnuncios;
+    }
+
+    @Override
+    public String toString() {
+        return "PoliticaCuota{" +
+                "limiteDiario=" + (tieneLimiteDiario() ? limiteDiario : "sin límite") +
+                ", cancionesEntreAnuncios=" + (tieneAnuncios() ? cancionesEntreAnuncios : "sin anuncios") +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package modelo.plataforma;
+
+import enums.GeneroMusical;
+import enums.TipoCambioContenido;
+import modelo.contenido.Cancion;
+import modelo.contenido.Contenido;
+
+import java.util.EnumSet;
+import java.util.function.Predicate;
+
+/**
+ * Condición que debe cumplir un contenido para entrar en una playlist inteligente.
+ * Además del filtro, cada regla declara de qué cambios del contenido depende,
+ * para que solo se vuelva a evaluar cuando alguno de ellos ocurre.
+ */
+public class ReglaPlaylist {
+
+    //Atributos:
+    private final String descripcion;
+    private final Predicate<Contenido> condicion;
+    private final EnumSet<TipoCambioContenido> dependencias;
+    private GeneroMusical genero; // Género que exige la regla, si es una regla de género
+
+    //Constructor
+    public ReglaPlaylist(String descripcion, Predicate<Contenido> condicion, TipoCambioContenido... dependencias) {
+        this.descripcion = descripcion;
+        this.condicion = condicion;
+        this.genero = null;
+        this.dependencias = EnumSet.noneOf(TipoCambioContenido.class);
+        for (TipoCambioContenido dependencia : dependencias) {
+            this.dependencias.add(dependencia);
+        }
+    }
+
+    // ========== REGLAS COMUNES ==========
+
+    public static ReglaPlaylist genero(GeneroMusical genero) {
+        ReglaPlaylist regla = new ReglaPlaylist("género = " + genero,
+                c -> c instanceof Cancion && ((Cancion) c).getGenero() == genero,
+                TipoCambioContenido.GENERO);
+        // La plataforma indexa las playlists por este género para no avisar a las de otros
+        regla.genero = genero;
+        return regla;
+    }
+
+    public static ReglaPlaylist sinExplicito() {
+        return new ReglaPlaylist("no explícito",
+                c -> !(c instanceof Cancion) || !((Cancion) c).isExplicit(),
+                TipoCambioContenido.EXPLICITO);
+    }
+
+    public static ReglaPlaylist duracionMenorA(int segundos) {
+        // La duración no cambia, así que no depende de ningún aviso
+        return new ReglaPlaylist("duración < " + segundos + "s",
+                c -> c.getDuracionSegundos() < segundos);
+    }
+
+    public static ReglaPlaylist conTag(String tag) {
+        return new ReglaPlaylist("tag \"" + tag + "\"",
+                c -> c.tieneTag(tag),
+                TipoCambioContenido.TAG);
+    }
+
+    public static ReglaPlaylist minimoReproducciones(int reproducciones) {
+        return new ReglaPlaylist("reproducciones >= " + reproducciones,
+                c -> c.getReproducciones() >= reproducciones,
+                TipoCambioContenido.REPRODUCCION);
+    }
+
+    public static ReglaPlaylist minimoLikes(int likes) {
+        return new ReglaPlaylist("likes >= " + likes,
+                c -> c.getLikes() >= likes,
+                TipoCambioContenido.LIKE);
+    }
+
+    // ========== EVALUACIÓN ==========
+
+    public boolean cumple(Contenido contenido) {
+        return condicion.test(contenido);
+    }
+
+    public boolean dependeDe(TipoCambioContenido cambio) {
+        return dependencias.contains(cambio);
+    }
+
+    public GeneroMusical getGenero() {
+        return genero;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
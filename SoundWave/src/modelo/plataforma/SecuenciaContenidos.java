@@ -0,0 +1,190 @@
+package modelo.plataforma;
+
+import modelo.contenido.Contenido;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Secuencia ordenada de contenidos con índice por id.
+ * Los elementos viven en un arreglo de huecos: eliminar deja un hueco (null)
+ * en lugar de desplazar todo, y un árbol de Fenwick cuenta los huecos ocupados
+ * para poder pedir "el elemento en la posición i" en O(log n).
+ * Cuando hay más huecos vacíos que elementos, se compacta.
+ */
+class SecuenciaContenidos {
+
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    private Contenido[] elementos;
+    private int[] fenwick;
+    private int usados;   // Huecos usados (incluye los vacíos)
+    private int vivos;    // Elementos reales
+    private HashMap<String, Integer> huecoPorId;
+    private long generacion; // Cambia cada vez que los elementos cambian de hueco
+
+    SecuenciaContenidos() {
+        this.elementos = new Contenido[CAPACIDAD_INICIAL];
+        this.fenwick = new int[CAPACIDAD_INICIAL + 1];
+        this.usados = 0;
+        this.vivos = 0;
+        this.huecoPorId = new HashMap<>();
+    }
+
+    // ========== CONSULTAS ==========
+
+    int tamano() {
+        return vivos;
+    }
+
+    boolean estaVacia() {
+        return vivos == 0;
+    }
+
+    boolean contiene(String idContenido) {
+        return huecoPorId.containsKey(idContenido);
+    }
+
+    Contenido buscar(String idContenido) {
+        Integer hueco = huecoPorId.get(idContenido);
+        return hueco != null ? elementos[hueco] : null;
+    }
+
+    Contenido obtener(int posicion) {
+        if (posicion < 0 || posicion >= vivos) {
+            return null;
+        }
+        return elementos[seleccionar(posicion + 1)];
+    }
+
+    int posicionDe(String idContenido) {
+        Integer hueco = huecoPorId.get(idContenido);
+        if (hueco == null) {
+            return -1;
+        }
+        // Cuántos elementos vivos hay antes de este hueco
+        return sumaHasta(hueco) - 1;
+    }
+
+    // Acceso directo por hueco, O(1); puede devolver null si el hueco está vacío
+    Contenido enHueco(int hueco) {
+        return hueco >= 0 && hueco < usados ? elementos[hueco] : null;
+    }
+
+    int getHuecosUsados() {
+        return usados;
+    }
+
+    long getGeneracion() {
+        return generacion;
+    }
+
+    ArrayList<Contenido> comoLista() {
+        ArrayList<Contenido> lista = new ArrayList<>(vivos);
+        for (int i = 0; i < usados; i++) {
+            if (elementos[i] != null) {
+                lista.add(elementos[i]);
+            }
+        }
+        return lista;
+    }
+
+    // ========== MODIFICACIONES ==========
+
+    void agregar(Contenido contenido) {
+        if (usados == elementos.length) {
+            // Si la mitad son huecos vacíos, compactar basta; si no, crezco
+            if (vivos * 2 <= usados) {
+                compactar();
+            } else {
+                elementos = Arrays.copyOf(elementos, elementos.length * 2);
+                reconstruirFenwick();
+            }
+        }
+        int hueco = usados++;
+        elementos[hueco] = contenido;
+        huecoPorId.put(contenido.getId(), hueco);
+        sumar(hueco, 1);
+        vivos++;
+    }
+
+    Contenido eliminar(String idContenido) {
+        Integer hueco = huecoPorId.remove(idContenido);
+        if (hueco == null) {
+            return null;
+        }
+        Contenido eliminado = elementos[hueco];
+        elementos[hueco] = null;
+        sumar(hueco, -1);
+        vivos--;
+
+        // Compacto cuando hay más huecos vacíos que elementos (coste amortizado O(1))
+        if (usados > CAPACIDAD_INICIAL && vivos * 2 < usados) {
+            compactar();
+        }
+        return eliminado;
+    }
+
+    private void compactar() {
+        int destino = 0;
+        for (int i = 0; i < usados; i++) {
+            if (elementos[i] != null) {
+                elementos[destino] = elementos[i];
+                huecoPorId.put(elementos[destino].getId(), destino);
+                destino++;
+            }
+        }
+        Arrays.fill(elementos, destino, usados, null);
+        usados = destino;
+        generacion++;
+        reconstruirFenwick();
+    }
+
+    // ========== ÁRBOL DE FENWICK ==========
+
+    private void reconstruirFenwick() {
+        // Construcción en O(n): cada nodo pasa su suma a su padre
+        fenwick = new int[elementos.length + 1];
+        for (int i = 0; i < usados; i++) {
+            if (elementos[i] != null) {
+                fenwick[i + 1]++;
+            }
+        }
+        for (int i = 1; i <= elementos.length; i++) {
+            int padre = i + (i & -i);
+            if (padre <= elementos.length) {
+                fenwick[padre] += fenwick[i];
+            }
+        }
+    }
+
+    private void sumar(int hueco, int delta) {
+        for (int i = hueco + 1; i < fenwick.length; i += i & -i) {
+            fenwick[i] += delta;
+        }
+    }
+
+    private int sumaHasta(int hueco) {
+        int suma = 0;
+        for (int i = hueco + 1; i > 0; i -= i & -i) {
+            suma += fenwick[i];
+        }
+        return suma;
+    }
+
+    // Devuelve el hueco donde está el k-ésimo elemento vivo (k empieza en 1)
+    private int seleccionar(int k) {
+        int posicion = 0;
+        int paso = Integer.highestOneBit(fenwick.length - 1);
+        while (paso > 0) {
+            int siguiente = posicion + paso;
+            if (siguiente < fenwick.length && fenwick[siguiente] < k) {
+                posicion = siguiente;
+                k -= fenwick[siguiente];
+            }
+            paso >>= 1;
+        }
+        return posicion;
+    }
+}
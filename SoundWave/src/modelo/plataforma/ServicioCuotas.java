@@ -0,0 +1,266 @@
+package modelo.plataforma;
+
+import enums.ResultadoCuota;
+import enums.TipoSuscripcion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Servicio central de cuotas (límite diario y anuncios) para todos los usuarios.
+ * El estado de cada usuario ocupa un solo long dentro de bloques de AtomicLongArray:
+ *   bits 0-21  -> día (desde la época) al que pertenecen los contadores
+ *   bits 22-43 -> reproducciones usadas ese día
+ *   bits 44-63 -> canciones desde el último anuncio
+ * Las comprobaciones se hacen con compareAndSet, sin bloqueos, y el estado se puede
+ * guardar y cargar de disco para que los límites sobrevivan a un reinicio.
+ */
+public class ServicioCuotas {
+
+    // Singleton
+    private static ServicioCuotas instancia;
+
+    // Constantes
+    private static final int BITS_BLOQUE = 16;
+    private static final int TAMANO_BLOQUE = 1 << BITS_BLOQUE;
+    private static final long MASCARA_DIA = (1L << 22) - 1;
+    private static final long MASCARA_USADAS = (1L << 22) - 1;
+    private static final long MASCARA_SIN_ANUNCIO = (1L << 20) - 1;
+    private static final int FORMATO_ARCHIVO = 1;
+
+    // Atributos
+    private volatile PoliticaCuota[] politicas;
+    private volatile AtomicLongArray[] bloques;
+    private final ConcurrentHashMap<String, Integer> slotsPorUsuario;
+    private int siguienteSlot;
+
+    // Constructor
+    public ServicioCuotas() {
+        this.politicas = new PoliticaCuota[TipoSuscripcion.values().length];
+        for (TipoSuscripcion tipo : TipoSuscripcion.values()) {
+            this.politicas[tipo.ordinal()] = PoliticaCuota.desde(tipo);
+        }
+        this.bloques = new AtomicLongArray[]{new AtomicLongArray(TAMANO_BLOQUE)};
+        this.slotsPorUsuario = new ConcurrentHashMap<>();
+        this.siguienteSlot = 0;
+    }
+
+    // Métodos Singleton
+    public static synchronized ServicioCuotas getInstancia() {
+        if (instancia == null) {
+            instancia = new ServicioCuotas();
+        }
+        return instancia;
+    }
+
+    public static synchronized void reiniciarInstancia() {
+        instancia = null;
+    }
+
+    // ==================== POLÍTICAS ====================
+
+    public synchronized void configurarPolitica(TipoSuscripcion tipo, PoliticaCuota politica) {
+        if (tipo == null || politica == null) {
+            return;
+        }
+        // Copio el arreglo para que los lectores nunca vean uno a medio cambiar
+        PoliticaCuota[] nuevas = politicas.clone();
+        nuevas[tipo.ordinal()] = politica;
+        politicas = nuevas;
+    }
+
+    public PoliticaCuota getPolitica(TipoSuscripcion tipo) {
+        return politicas[tipo.ordinal()];
+    }
+
+    // ==================== SLOTS ====================
+
+    public int registrar(String idUsuario) {
+        Integer existente = slotsPorUsuario.get(idUsuario);
+        if (existente != null) {
+            return existente;
+        }
+        return asignarSlot(idUsuario);
+    }
+
+    private synchronized int asignarSlot(String idUsuario) {
+        // Vuelvo a mirar dentro del bloqueo por si otro hilo ya lo registró
+        Integer existente = slotsPorUsuario.get(idUsuario);
+        if (existente != null) {
+            return existente;
+        }
+
+        int slot = siguienteSlot++;
+        int bloque = slot >>> BITS_BLOQUE;
+        if (bloque >= bloques.length) {
+            // Crecer solo añade bloques nuevos; los existentes no se copian
+            AtomicLongArray[] nuevos = new AtomicLongArray[bloques.length * 2];
+            System.arraycopy(bloques, 0, nuevos, 0, bloques.length);
+            for (int i = bloques.length; i < nuevos.length; i++) {
+                nuevos[i] = new AtomicLongArray(TAMANO_BLOQUE);
+            }
+            bloques = nuevos;
+        }
+        slotsPorUsuario.put(idUsuario, slot);
+        return slot;
+    }
+
+    public int getTotalUsuarios() {
+        return slotsPorUsuario.size();
+    }
+
+    // ==================== ADMISIÓN ====================
+
+    public ResultadoCuota intentarConsumir(int slot, TipoSuscripcion tipo, long dia) {
+        PoliticaCuota politica = politicas[tipo.ordinal()];
+        AtomicLongArray bloque = bloques[slot >>> BITS_BLOQUE];
+        int indice = slot & (TAMANO_BLOQUE - 1);
+
+        while (true) {
+            long actual = bloque.get(indice);
+            long estado = alDia(actual, dia);
+            long usadas = usadas(estado);
+            long sinAnuncio = sinAnuncio(estado);
+
+            // Mismo orden que antes: primero el límite diario, luego el anuncio
+            if (politica.tieneLimiteDiario() && usadas >= politica.getLimiteDiario()) {
+                return ResultadoCuota.LIMITE_DIARIO;
+            }
+            if (politica.tieneAnuncios() && sinAnuncio >= politica.getCancionesEntreAnuncios()) {
+                return ResultadoCuota.ANUNCIO_REQUERIDO;
+            }
+
+            long nuevo = empaquetar(dia, Math.min(usadas + 1, MASCARA_USADAS), Math.min(sinAnuncio + 1, MASCARA_SIN_ANUNCIO));
+            if (bloque.compareAndSet(indice, actual, nuevo)) {
+                return ResultadoCuota.PERMITIDO;
+            }
+            // Otro hilo cambió el estado entre la lectura y la escritura: reintento
+        }
+    }
+
+    public ResultadoCuota consultar(int slot, TipoSuscripcion tipo, long dia) {
+        PoliticaCuota politica = politicas[tipo.ordinal()];
+        long estado = alDia(leer(slot), dia);
+        if (politica.tieneLimiteDiario() && usadas(estado) >= politica.getLimiteDiario()) {
+            return ResultadoCuota.LIMITE_DIARIO;
+        }
+        if (politica.tieneAnuncios() && sinAnuncio(estado) >= politica.getCancionesEntreAnuncios()) {
+            return ResultadoCuota.ANUNCIO_REQUERIDO;
+        }
+        return ResultadoCuota.PERMITIDO;
+    }
+
+    public void registrarAnuncio(int slot, long dia) {
+        actualizar(slot, dia, -1, 0);
+    }
+
+    public void reiniciarDia(int slot, long dia) {
+        actualizar(slot, dia, 0, 0);
+    }
+
+    public int getUsadasHoy(int slot, long dia) {
+        return (int) usadas(alDia(leer(slot), dia));
+    }
+
+    public int getCancionesSinAnuncio(int slot, long dia) {
+        return (int) sinAnuncio(alDia(leer(slot), dia));
+    }
+
+    public void setUsadasHoy(int slot, long dia, int usadas) {
+        actualizar(slot, dia, Math.max(usadas, 0), -1);
+    }
+
+    public void setCancionesSinAnuncio(int slot, long dia, int canciones) {
+        actualizar(slot, dia, -1, Math.max(canciones, 0));
+    }
+
+    // Cambia uno o ambos contadores (-1 significa "dejar igual")
+    private void actualizar(int slot, long dia, long usadas, long sinAnuncio) {
+        AtomicLongArray bloque = bloques[slot >>> BITS_BLOQUE];
+        int indice = slot & (TAMANO_BLOQUE - 1);
+        while (true) {
+            long actual = bloque.get(indice);
+            long estado = alDia(actual, dia);
+            long nuevasUsadas = usadas >= 0 ? Math.min(usadas, MASCARA_USADAS) : usadas(estado);
+            long nuevasSinAnuncio = sinAnuncio >= 0 ? Math.min(sinAnuncio, MASCARA_SIN_ANUNCIO) : sinAnuncio(estado);
+            if (bloque.compareAndSet(indice, actual, empaquetar(dia, nuevasUsadas, nuevasSinAnuncio))) {
+                return;
+            }
+        }
+    }
+
+    private long leer(int slot) {
+        return bloques[slot >>> BITS_BLOQUE].get(slot & (TAMANO_BLOQUE - 1));
+    }
+
+    // ==================== EMPAQUETADO ====================
+
+    private static long alDia(long estado, long dia) {
+        // Si el estado es de otro día, los contadores valen cero (reinicio perezoso)
+        if ((estado & MASCARA_DIA) != (dia & MASCARA_DIA)) {
+            return empaquetar(dia, 0, 0);
+        }
+        return estado;
+    }
+
+    private static long empaquetar(long dia, long usadas, long sinAnuncio) {
+        return (dia & MASCARA_DIA) | (usadas << 22) | (sinAnuncio << 44);
+    }
+
+    private static long usadas(long estado) {
+        return (estado >>> 22) & MASCARA_USADAS;
+    }
+
+    private static long sinAnuncio(long estado) {
+        return (estado >>> 44) & MASCARA_SIN_ANUNCIO;
+    }
+
+    // ==================== PERSISTENCIA ====================
+
+    public void guardar(Path archivo) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(FORMATO_ARCHIVO);
+            salida.writeInt(slotsPorUsuario.size());
+            for (Map.Entry<String, Integer> entrada : slotsPorUsuario.entrySet()) {
+                salida.writeUTF(entrada.getKey());
+                salida.writeLong(leer(entrada.getValue()));
+            }
+        }
+        // Reemplazo el archivo de una vez para no dejarlo a medias si algo falla
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void cargar(Path archivo) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            int formato = entrada.readInt();
+            if (formato != FORMATO_ARCHIVO) {
+                throw new IOException("Formato de archivo de cuotas no soportado: " + formato);
+            }
+            int cantidad = entrada.readInt();
+            for (int i = 0; i < cantidad; i++) {
+                String idUsuario = entrada.readUTF();
+                long estado = entrada.readLong();
+                int slot = registrar(idUsuario);
+                bloques[slot >>> BITS_BLOQUE].set(slot & (TAMANO_BLOQUE - 1), estado);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ServicioCuotas{" +
+                "usuarios=" + slotsPorUsuario.size() +
+                ", capacidad=" + ((long) bloques.length * TAMANO_BLOQUE) +
+                '}';
+    }
+}
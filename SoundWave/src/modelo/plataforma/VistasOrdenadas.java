@@ -0,0 +1,194 @@
+package modelo.plataforma;
+
+import enums.CriterioOrden;
+import enums.TipoCambioContenido;
+import modelo.contenido.Cancion;
+import modelo.contenido.Contenido;
+import modelo.contenido.Podcast;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Random;
+
+/**
+ * Vistas ordenadas de una playlist, una por criterio, guardadas en caché.
+ * No tocan el orden original: cada vista es una lista aparte que se repara
+ * al agregar o eliminar contenidos en lugar de volver a ordenarse desde cero.
+ * Cada vista recuerda la versión de su clave (reproducciones o título/autor, ver
+ * Contenido.getVersionOrden) con la que se ordenó; al pedirla, si la versión
+ * cambió, se comprueba en una pasada y solo se reordena si algo quedó fuera de sitio.
+ * FECHA_AGREGADO es el propio orden de la playlist, así que no necesita vista,
+ * y ALEATORIO se sirve con un CursorAleatorio que solo sortea lo que se consulta.
+ */
+class VistasOrdenadas {
+
+    private EnumMap<CriterioOrden, ArrayList<Contenido>> vistas;
+    private EnumMap<CriterioOrden, Long> versiones; // Versión de la clave con la que se ordenó cada vista
+    private CursorAleatorio aleatoria;
+    private Random aleatorio;
+
+    VistasOrdenadas() {
+        this.vistas = new EnumMap<>(CriterioOrden.class);
+        this.versiones = new EnumMap<>(CriterioOrden.class);
+        this.aleatorio = new Random();
+    }
+
+    // Devuelve la vista del criterio (salvo ALEATORIO), construyéndola o reparándola si hace falta
+    ArrayList<Contenido> obtener(CriterioOrden criterio, SecuenciaContenidos contenidos) {
+        // Leo la versión antes de ordenar: un cambio durante la ordenación se verá en la próxima lectura
+        long version = versionClave(criterio);
+        ArrayList<Contenido> vista = vistas.get(criterio);
+        if (vista == null) {
+            vista = contenidos.comoLista();
+            // sort es estable: a igualdad de clave se respeta el orden en que se agregaron
+            vista.sort(comparador(criterio));
+            vistas.put(criterio, vista);
+        } else if (versiones.get(criterio) != version && !ordenada(vista, comparador(criterio))) {
+            // La vista anterior ya está casi ordenada, así que reordenarla es casi lineal
+            vista.sort(comparador(criterio));
+        }
+        versiones.put(criterio, version);
+        return vista;
+    }
+
+    // Posición del contenido en la vista: búsqueda binaria y, entre los de igual clave, el mismo contenido
+    int posicion(CriterioOrden criterio, SecuenciaContenidos contenidos, Contenido contenido) {
+        ArrayList<Contenido> vista = obtener(criterio, contenidos);
+        return buscar(vista, contenido, comparador(criterio));
+    }
+
+    CursorAleatorio aleatoria(SecuenciaContenidos contenidos) {
+        if (aleatoria == null) {
+            aleatoria = new CursorAleatorio(contenidos, false, aleatorio.nextLong());
+        }
+        return aleatoria;
+    }
+
+    void agregado(Contenido contenido) {
+        // En el orden aleatorio no hace falta nada: el hueco nuevo entra en lo que falta por sortear
+        for (CriterioOrden criterio : vistas.keySet()) {
+            ArrayList<Contenido> vista = vistas.get(criterio);
+            if (!alDia(criterio)) {
+                // Se comprueba entera la próxima vez que se pida
+                vista.add(contenido);
+            } else {
+                vista.add(posicionInsercion(vista, contenido, comparador(criterio)), contenido);
+            }
+        }
+    }
+
+    void eliminado(Contenido contenido) {
+        for (CriterioOrden criterio : vistas.keySet()) {
+            ArrayList<Contenido> vista = vistas.get(criterio);
+            int posicion = !alDia(criterio) ? vista.indexOf(contenido) : buscar(vista, contenido, comparador(criterio));
+            if (posicion >= 0) {
+                vista.remove(posicion);
+            }
+        }
+        if (aleatoria != null) {
+            aleatoria.eliminado(contenido);
+        }
+    }
+
+    void mezclar() {
+        // Descarto el orden aleatorio; el siguiente se sortea a medida que se consulte (O(1) aquí)
+        aleatoria = null;
+    }
+
+    // ========== AUXILIARES ==========
+
+    // Versión global de lo que ordena el criterio; DURACION no cambia y los demás no tienen vista
+    private static long versionClave(CriterioOrden criterio) {
+        switch (criterio) {
+            case POPULARIDAD:
+                return Contenido.getVersionOrden(TipoCambioContenido.REPRODUCCION);
+            case ALFABETICO:
+            case ARTISTA:
+                return Contenido.getVersionOrden(TipoCambioContenido.TITULO);
+            default:
+                return 0;
+        }
+    }
+
+    // La vista se ordenó con la versión actual de su clave, así que sigue ordenada
+    private boolean alDia(CriterioOrden criterio) {
+        return versiones.get(criterio) == versionClave(criterio);
+    }
+
+    private static boolean ordenada(ArrayList<Contenido> vista, Comparator<Contenido> comparador) {
+        for (int i = 1; i < vista.size(); i++) {
+            if (comparador.compare(vista.get(i - 1), vista.get(i)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Primera posición con clave igual o mayor y, desde ahí, el contenido entre los de su misma clave
+    private static int buscar(ArrayList<Contenido> vista, Contenido contenido, Comparator<Contenido> comparador) {
+        int inicio = 0;
+        int fin = vista.size();
+        while (inicio < fin) {
+            int medio = (inicio + fin) >>> 1;
+            if (comparador.compare(vista.get(medio), contenido) < 0) {
+                inicio = medio + 1;
+            } else {
+                fin = medio;
+            }
+        }
+        for (int i = inicio; i < vista.size() && comparador.compare(vista.get(i), contenido) == 0; i++) {
+            if (vista.get(i).equals(contenido)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Primera posición cuyo elemento es mayor que el nuevo (los iguales quedan antes)
+    private static int posicionInsercion(ArrayList<Contenido> vista, Contenido contenido, Comparator<Contenido> comparador) {
+        int inicio = 0;
+        int fin = vista.size();
+        while (inicio < fin) {
+            int medio = (inicio + fin) >>> 1;
+            if (comparador.compare(vista.get(medio), contenido) <= 0) {
+                inicio = medio + 1;
+            } else {
+                fin = medio;
+            }
+        }
+        return inicio;
+    }
+
+    static Comparator<Contenido> comparador(CriterioOrden criterio) {
+        switch (criterio) {
+            case POPULARIDAD:
+                // Más reproducciones primero
+                return Comparator.comparingInt(Contenido::getReproducciones).reversed();
+            case DURACION:
+                // Más cortos primero
+                return Comparator.comparingInt(Contenido::getDuracionSegundos);
+            case ALFABETICO:
+                return Comparator.comparing(Contenido::getTitulo, Comparator.nullsLast(Comparator.naturalOrder()));
+            case ARTISTA:
+                // Por artista y, dentro del mismo artista, por título
+                return Comparator.comparing(VistasOrdenadas::nombreAutor, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                        .thenComparing(Contenido::getTitulo, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+            default:
+                // FECHA_AGREGADO y ALEATORIO no comparan contenidos
+                return (a, b) -> 0;
+        }
+    }
+
+    static String nombreAutor(Contenido contenido) {
+        if (contenido instanceof Cancion) {
+            Cancion cancion = (Cancion) contenido;
+            return cancion.getArtista() != null ? cancion.getArtista().getNombreArtistico() : null;
+        }
+        if (contenido instanceof Podcast) {
+            Podcast podcast = (Podcast) contenido;
+            return podcast.getCreador() != null ? podcast.getCreador().getNombreCanal() : null;
+        }
+        return null;
+    }
+}
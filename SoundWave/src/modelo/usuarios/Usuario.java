@@ -6,11 +6,20 @@ import excepciones.usuario.AnuncioRequeridoException;
 import excepciones.usuario.EmailInvalidoException;
 import excepciones.usuario.LimiteDiarioAlcanzadoException;
 import excepciones.usuario.PasswordDebilException;
+import interfaces.Reloj;
+import modelo.contenido.Cancion;
 import modelo.contenido.Contenido;
 import modelo.plataforma.Playlist;
+import utilidades.RankingPlaylists;
+import utilidades.RegistroEscuchas;
+import utilidades.RelojSistema;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.UUID;
 
 public abstract class Usuario {
@@ -24,8 +33,13 @@ public abstract class Usuario {
     protected ArrayList<Playlist> misPlaylist;
     protected ArrayList<Contenido> historial;
     protected Date fechaRegistro;
-    protected ArrayList<Playlist> playlistsSeguidas;
-    protected ArrayList<Contenido> contenidosLiked;
+    protected LinkedHashSet<Playlist> playlistsSeguidas;
+    protected LinkedHashSet<Contenido> contenidosLiked;
+    protected RegistroEscuchas registroEscuchas;
+    protected RankingPlaylists rankingPlaylists; // Rankings de la plataforma (null si no está registrado)
+    protected Reloj reloj;
+    protected Contenido escuchaEnCurso;   // Lo que está sonando, aún sin apuntar en el registro
+    protected long inicioEscuchaMillis;
 
     //Contructores
     Usuario(String nombre, String email, String password, TipoSuscripcion suscripcion)
@@ -58,9 +72,11 @@ public abstract class Usuario {
         // Creo las listas vacías para las colecciones del usuario
         this.misPlaylist = new ArrayList<>();
         this.historial = new ArrayList<>();
-        this.playlistsSeguidas = new ArrayList<>();
-        this.contenidosLiked = new ArrayList<>();
+        // Seguidas y likes van en conjuntos para comprobar y quitar en O(1) (conservan el orden)
+        this.playlistsSeguidas = new LinkedHashSet<>();
+        this.contenidosLiked = new LinkedHashSet<>();
         this.fechaRegistro = new Date(); // Guardo cuando se registró
+        this.reloj = RelojSistema.getPorDefecto(); // Reloj del sistema en la zona local
     }
 
     // Método abstracto que cada tipo de usuario implementa a su manera
@@ -72,16 +88,18 @@ public abstract class Usuario {
         Playlist nuevaPlaylist = new Playlist(nombrePlaylist, this);
         // La agrego a mi lista de playlists
         this.misPlaylist.add(nuevaPlaylist);
+        // Y a los rankings, para que aparezca en ellos en cuanto la haga pública
+        if (this.rankingPlaylists != null) {
+            this.rankingPlaylists.registrar(nuevaPlaylist);
+        }
         // Devuelvo la playlist para que se pueda usar
         return nuevaPlaylist;
     }
 
     public void seguirPlaylist(Playlist playlist){
         // Solo puedo seguir playlists públicas y que no esté siguiendo ya
-        if (playlist.isEsPublica() && !this.playlistsSeguidas.contains(playlist)) {
-            // La agrego a mis playlists seguidas
-            this.playlistsSeguidas.add(playlist);
-            // Sumo un seguidor a la playlist
+        if (playlist.isEsPublica() && this.playlistsSeguidas.add(playlist)) {
+            // Si se agregó a mis seguidas, sumo un seguidor a la playlist
             playlist.incrementarSeguidores();
         }
     }
@@ -94,16 +112,27 @@ public abstract class Usuario {
         }
     }
 
-    public void darLike(Contenido contenido) {
-        // Solo agrego el like si no lo tengo ya (evito duplicados)
-        if (!this.contenidosLiked.contains(contenido)) {
-            this.contenidosLiked.add(contenido);
+    public synchronized void darLike(Contenido contenido) {
+        // Solo agrego el like si no lo tengo ya (el conjunto evita duplicados)
+        if (contenido != null && this.contenidosLiked.add(contenido)) {
+            // El contenido guarda quién le dio like y actualiza su contador en la misma operación
+            contenido.registrarLike(this);
         }
     }
 
-    public void quitarLike(Contenido contenido){
-        // Simplemente quito el contenido de mis likes
-        this.contenidosLiked.remove(contenido);
+    public synchronized void quitarLike(Contenido contenido){
+        // Quito el contenido de mis likes y, si estaba, también me quito del contenido
+        if (contenido != null && this.contenidosLiked.remove(contenido)) {
+            contenido.quitarLike(this);
+        }
+    }
+
+    public boolean tieneLike(Contenido contenido) {
+        return this.contenidosLiked.contains(contenido);
+    }
+
+    public boolean sigueA(Playlist playlist) {
+        return this.playlistsSeguidas.contains(playlist);
     }
 
     boolean validarEmail() throws EmailInvalidoException {
@@ -134,6 +163,60 @@ public abstract class Usuario {
         }
     }
 
+    // Lo que cuenta como una reproducción, igual para gratuitos y premium
+    protected void registrarReproduccion(Contenido contenido){
+        agregarAlHistorial(contenido);
+        registrarOyente(contenido);
+        registrarEnSeries(contenido);
+        contenido.aumentarReproducciones();
+        // Al final: cerrar la escucha anterior escribe en disco y puede fallar,
+        // y para entonces los contadores en memoria ya están al día
+        registrarEscucha(contenido);
+    }
+
+    protected void registrarOyente(Contenido contenido){
+        // Cuenta a este usuario entre los oyentes distintos del artista (por día y por mes)
+        if(contenido instanceof Cancion && ((Cancion) contenido).getArtista() != null){
+            ((Cancion) contenido).getArtista().registrarOyente(this.id, this.reloj.diaEpoch());
+        }
+    }
+
+    protected void registrarEnSeries(Contenido contenido){
+        // Suma la reproducción en las series por hora, día y mes del contenido
+        contenido.registrarEnSerie(this.reloj.ahoraMillis(), this.reloj.diaEpoch());
+    }
+
+    protected void registrarEscucha(Contenido contenido){
+        // La escucha anterior termina cuando empieza esta
+        detenerReproduccion();
+        this.escuchaEnCurso = contenido;
+        this.inicioEscuchaMillis = this.reloj.ahoraMillis();
+    }
+
+    // Apunta en el registro lo que está sonando con el tiempo que de verdad se escuchó
+    public void detenerReproduccion(){
+        Contenido contenido = this.escuchaEnCurso;
+        if(contenido == null){
+            return;
+        }
+        this.escuchaEnCurso = null;
+        // Si no hay registro configurado, solo queda el historial corto en memoria
+        if(this.registroEscuchas == null){
+            return;
+        }
+        long transcurridos = Math.max(this.reloj.ahoraMillis() - this.inicioEscuchaMillis, 0) / 1000;
+        int segundos = (int) Math.min(transcurridos, contenido.getDuracionSegundos());
+        try {
+            this.registroEscuchas.registrar(this.id, contenido.getId(), this.inicioEscuchaMillis, segundos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la escucha en el registro", e);
+        }
+    }
+
+    public Contenido getEscuchaEnCurso(){
+        return this.escuchaEnCurso;
+    }
+
     public void limpiarHistorial(){
         // Borro todo el historial de una vez
         this.historial.clear();
@@ -183,6 +266,43 @@ public abstract class Usuario {
         return new ArrayList<>(this.contenidosLiked);
     }
 
+    public RegistroEscuchas getRegistroEscuchas(){
+        return this.registroEscuchas;
+    }
+
+    public void setRegistroEscuchas(RegistroEscuchas registroEscuchas){
+        this.registroEscuchas = registroEscuchas;
+    }
+
+    public RankingPlaylists getRankingPlaylists(){
+        return this.rankingPlaylists;
+    }
+
+    public void setRankingPlaylists(RankingPlaylists rankingPlaylists){
+        this.rankingPlaylists = rankingPlaylists;
+        if(rankingPlaylists != null){
+            // Las que ya tenía también entran (registrar ignora las repetidas)
+            for(Playlist playlist : this.misPlaylist){
+                rankingPlaylists.registrar(playlist);
+            }
+        }
+    }
+
+    public Reloj getReloj(){
+        return this.reloj;
+    }
+
+    public void setReloj(Reloj reloj){
+        if(reloj != null){
+            this.reloj = reloj;
+        }
+    }
+
+    public void setZonaHoraria(ZoneId zona){
+        // Los días (y los límites diarios) se cuentan en la zona horaria del usuario
+        this.reloj = new RelojSistema(zona);
+    }
+
     public void setNombre(String nombre){
         this.nombre = nombre;
     }
@@ -1,5 +1,6 @@
 package modelo.usuarios;
 
+import enums.ResultadoCuota;
 import enums.TipoSuscripcion;
 import excepciones.contenido.ContenidoNoDisponibleException;
 import excepciones.usuario.AnuncioRequeridoException;
@@ -8,32 +9,32 @@ import excepciones.usuario.LimiteDiarioAlcanzadoException;
 import excepciones.usuario.PasswordDebilException;
 import modelo.contenido.Contenido;
 import modelo.plataforma.Anuncio;
+import modelo.plataforma.PoliticaCuota;
+import modelo.plataforma.ServicioCuotas;
 
 import java.util.Date;
 
 public class UsuarioGratuito extends Usuario {
 
-    // Constantes
-    private static final int LIMITE_DIARIO = 50;
-    private static final int CANCIONES_ENTRE_ANUNCIOS = 3;
-
     // Atributos
     private int anunciosEscuchados;
     private Date ultimoAnuncio;
-    private int reproduccionesHoy;
-    private int limiteReproducciones;
-    private int cancionesSinAnuncio;
-    private Date fechaUltimaReproduccion;
+    // Los contadores diarios viven en el servicio de cuotas; aquí solo guardo mi posición en él
+    private ServicioCuotas cuotas;
+    private int slotCuota;
 
     // Constructor
     public UsuarioGratuito(String nombre, String email, String password)
             throws EmailInvalidoException, PasswordDebilException {
+        this(nombre, email, password, ServicioCuotas.getInstancia());
+    }
+
+    public UsuarioGratuito(String nombre, String email, String password, ServicioCuotas cuotas)
+            throws EmailInvalidoException, PasswordDebilException {
         super(nombre, email, password, TipoSuscripcion.GRATUITO);
         this.anunciosEscuchados = 0;
-        this.reproduccionesHoy = 0;
-        this.limiteReproducciones = LIMITE_DIARIO;
-        this.cancionesSinAnuncio = 0;
-        this.fechaUltimaReproduccion = new Date(System.currentTimeMillis());
+        this.cuotas = cuotas;
+        this.slotCuota = cuotas.registrar(getId());
     }
 
     @Override
@@ -48,46 +49,28 @@ public class UsuarioGratuito extends Usuario {
             throw new ContenidoNoDisponibleException("El contenido '" + contenido.getTitulo() + "' no está disponible actualmente");
         }
 
-        // Si cambió el día, reinicio mis contadores para el nuevo día
-        if(nuevoDia()){
-            reiniciarContadorDiario();
-        }
+        // Pido permiso al servicio de cuotas: revisa el límite diario y los anuncios y,
+        // si todo está bien, descuenta la reproducción en la misma operación.
+        // Si cambió el día, el servicio reinicia mis contadores solo.
+        ResultadoCuota resultado = cuotas.intentarConsumir(slotCuota, getSuscripcion(), reloj.diaEpoch());
 
-        // Reviso si ya alcancé mi límite diario (50 reproducciones)
-        if (!puedeReproducir()) {
+        if (resultado == ResultadoCuota.LIMITE_DIARIO) {
             throw new LimiteDiarioAlcanzadoException("Has alcanzado el límite diario de reproducciones gratuitas. Considera suscribirte a Premium para disfrutar sin límites.");
         }
 
-        // Si ya escuché 3 canciones sin anuncio, me toca ver uno
-        if (debeVerAnuncio()) {
+        if (resultado == ResultadoCuota.ANUNCIO_REQUERIDO) {
             throw new AnuncioRequeridoException("Es hora de escuchar un anuncio. Por favor, disfruta de un anuncio para continuar escuchando tu música.");
         }
 
         // Si pasé todas las validaciones, puedo reproducir el contenido
-        super.agregarAlHistorial(contenido);
-        contenido.aumentarReproducciones();
-
-        // Actualizo mis contadores después de reproducir
-        this.reproduccionesHoy++; // Una reproducción más hoy
-        this.cancionesSinAnuncio++; // Una canción más sin ver anuncio
-        this.fechaUltimaReproduccion = new Date(System.currentTimeMillis()); // Guardo cuándo reproduje
-    }
-
-    private boolean nuevoDia() {
-        // Checo si es un día diferente desde la última vez que reproduje algo
-        if (this.fechaUltimaReproduccion == null) {
-            return true; // Si nunca he reproducido, es nuevo día
-        }
-        Date hoy = new Date(System.currentTimeMillis());
-        // Comparar solo la fecha (ignorar hora)
-        return !hoy.toString().equals(this.fechaUltimaReproduccion.toString());
+        super.registrarReproduccion(contenido);
     }
 
     public void verAnuncio() {
         // Incrementa el contador de anuncios
         this.anunciosEscuchados++;
-        this.ultimoAnuncio = new Date(System.currentTimeMillis());
-        this.cancionesSinAnuncio = 0; // Reinicia el contador de canciones
+        this.ultimoAnuncio = new Date(reloj.ahoraMillis());
+        cuotas.registrarAnuncio(slotCuota, reloj.diaEpoch()); // Reinicia el contador de canciones
     }
 
     public void verAnuncio(Anuncio anuncio) {
@@ -97,30 +80,43 @@ public class UsuarioGratuito extends Usuario {
         } else {
             // Reproduce un anuncio específico
             this.anunciosEscuchados++;
-            this.ultimoAnuncio = new Date(System.currentTimeMillis());
-            this.cancionesSinAnuncio = 0; // Reinicia el contador de canciones
+            this.ultimoAnuncio = new Date(reloj.ahoraMillis());
+            cuotas.registrarAnuncio(slotCuota, reloj.diaEpoch()); // Reinicia el contador de canciones
         }
     }
 
     public boolean puedeReproducir() {
-        return this.reproduccionesHoy < LIMITE_DIARIO;
+        PoliticaCuota politica = getPolitica();
+        return !politica.tieneLimiteDiario() || getReproduccionesHoy() < politica.getLimiteDiario();
     }
 
     public boolean debeVerAnuncio() {
-        return this.cancionesSinAnuncio >= CANCIONES_ENTRE_ANUNCIOS;
+        PoliticaCuota politica = getPolitica();
+        return politica.tieneAnuncios() && getCancionesSinAnuncio() >= politica.getCancionesEntreAnuncios();
     }
 
     public void reiniciarContadorDiario() {
-        this.reproduccionesHoy = 0;
-        this.cancionesSinAnuncio = 0;
+        cuotas.reiniciarDia(slotCuota, reloj.diaEpoch());
     }
 
     public int getReproduccionesRestantes() {
-        return LIMITE_DIARIO - this.reproduccionesHoy;
+        PoliticaCuota politica = getPolitica();
+        if (!politica.tieneLimiteDiario()) {
+            return Integer.MAX_VALUE;
+        }
+        return politica.getLimiteDiario() - getReproduccionesHoy();
     }
 
     public int getCancionesHastaAnuncio() {
-        return CANCIONES_ENTRE_ANUNCIOS - this.cancionesSinAnuncio;
+        PoliticaCuota politica = getPolitica();
+        if (!politica.tieneAnuncios()) {
+            return Integer.MAX_VALUE;
+        }
+        return politica.getCancionesEntreAnuncios() - getCancionesSinAnuncio();
+    }
+
+    public PoliticaCuota getPolitica() {
+        return cuotas.getPolitica(getSuscripcion());
     }
 
     // Getters y Setters
@@ -133,23 +129,27 @@ public class UsuarioGratuito extends Usuario {
     }
 
     public int getReproduccionesHoy() {
-        return this.reproduccionesHoy;
+        return cuotas.getUsadasHoy(slotCuota, reloj.diaEpoch());
     }
 
     public void setReproduccionesHoy(int reproduccionesHoy) {
-        this.reproduccionesHoy = reproduccionesHoy;
+        cuotas.setUsadasHoy(slotCuota, reloj.diaEpoch(), reproduccionesHoy);
     }
 
     public int getLimiteReproducciones() {
-        return this.limiteReproducciones;
+        return getPolitica().getLimiteDiario();
     }
 
     public int getCancionesSinAnuncio() {
-        return this.cancionesSinAnuncio;
+        return cuotas.getCancionesSinAnuncio(slotCuota, reloj.diaEpoch());
     }
 
     public void setCancionesSinAnuncio(int cancionesSinAnuncio) {
-        this.cancionesSinAnuncio = cancionesSinAnuncio;
+        cuotas.setCancionesSinAnuncio(slotCuota, reloj.diaEpoch(), cancionesSinAnuncio);
+    }
+
+    public ServicioCuotas getCuotas() {
+        return this.cuotas;
     }
 
     // Override toString
@@ -160,10 +160,10 @@ public class UsuarioGratuito extends Usuario {
                 ", nombre='" + getNombre() + '\'' +
                 ", email='" + getEmail() + '\'' +
                 ", suscripcion=" + getSuscripcion() +
-                ", reproduccionesHoy=" + reproduccionesHoy +
-                ", limiteReproducciones=" + limiteReproducciones +
+                ", reproduccionesHoy=" + getReproduccionesHoy() +
+                ", limiteReproducciones=" + getLimiteReproducciones() +
                 ", anunciosEscuchados=" + anunciosEscuchados +
-                ", cancionesSinAnuncio=" + cancionesSinAnuncio +
+                ", cancionesSinAnuncio=" + getCancionesSinAnuncio() +
                 '}';
     }
 }
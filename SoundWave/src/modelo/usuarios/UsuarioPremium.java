@@ -57,9 +57,8 @@ public class UsuarioPremium extends Usuario {
         }
 
         // Como soy Premium, puedo reproducir sin anuncios y sin límites
-        // Solo guardo en el historial y aumento las reproducciones
-        agregarAlHistorial(contenido);
-        contenido.aumentarReproducciones();
+        // Solo guardo en el historial (y en el registro de escuchas) y aumento las reproducciones
+        registrarReproduccion(contenido);
     }
 
     //Métodos propios
@@ -75,13 +74,18 @@ public class UsuarioPremium extends Usuario {
             throw new LimiteDescargasException("Se alcanzó el límite de descargas (" + this.maxDescargas + ")");
         }
 
-        // Registrar la descarga
+        // Registrar la descarga (y en el índice inverso del contenido)
         this.descargados.add(contenido);
+        contenido.registrarDescarga(this);
     }
 
     public boolean eliminarDescarga(Contenido contenido) {
         // Elimina una descarga existente y retorna true si existía
-        return this.descargados.remove(contenido);
+        if (!this.descargados.remove(contenido)) {
+            return false;
+        }
+        contenido.quitarDescarga(this);
+        return true;
     }
 
     public boolean verificarEspacioDescarga() {
@@ -103,6 +107,9 @@ public class UsuarioPremium extends Usuario {
 
     public void limpiarDescargas() {
         // Vacía la lista de descargas
+        for (Contenido contenido : this.descargados) {
+            contenido.quitarDescarga(this);
+        }
         this.descargados.clear();
     }
 
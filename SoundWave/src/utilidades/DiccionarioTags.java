@@ -0,0 +1,128 @@
+package utilidades;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Traduce cada tag a un entero y representa un conjunto de tags como un
+ * mapa de bits (long[]): el bit i está encendido si el conjunto tiene el tag
+ * con id i. Así la coincidencia entre dos conjuntos se cuenta con AND y
+ * popcount palabra a palabra en lugar de comparar cadenas una por una.
+ */
+public class DiccionarioTags {
+
+    private static final long[] VACIO = new long[0];
+
+    //Atributos:
+    private HashMap<String, Integer> ids;
+    private ArrayList<String> tags;
+
+    //Constructor
+    public DiccionarioTags() {
+        this.ids = new HashMap<>();
+        this.tags = new ArrayList<>();
+    }
+
+    // ========== IDS ==========
+
+    // Id del tag, asignándole uno nuevo si no lo conocía
+    public int id(String tag) {
+        Integer existente = ids.get(tag);
+        if (existente != null) {
+            return existente;
+        }
+        ids.put(tag, tags.size());
+        tags.add(tag);
+        return tags.size() - 1;
+    }
+
+    // Id del tag o -1 si no lo conozco (no crece el diccionario)
+    public int buscar(String tag) {
+        Integer existente = ids.get(tag);
+        return existente != null ? existente : -1;
+    }
+
+    public String tag(int id) {
+        return tags.get(id);
+    }
+
+    public int getNumTags() {
+        return tags.size();
+    }
+
+    // ========== CONJUNTOS ==========
+
+    // Conjunto de bits de los tags, registrando los nuevos
+    public long[] conjunto(Collection<String> tagsConjunto) {
+        if (tagsConjunto == null || tagsConjunto.isEmpty()) {
+            return VACIO;
+        }
+        long[] bits = new long[palabras(tags.size() + tagsConjunto.size())];
+        for (String tag : tagsConjunto) {
+            int id = id(tag);
+            bits[id >>> 6] |= 1L << id;
+        }
+        return recortar(bits);
+    }
+
+    // Igual, pero ignorando los tags que no conozco: sirve para consultas
+    public long[] conjuntoConocido(Collection<String> tagsConjunto) {
+        if (tagsConjunto == null || tagsConjunto.isEmpty()) {
+            return VACIO;
+        }
+        long[] bits = new long[palabras(tags.size())];
+        for (String tag : tagsConjunto) {
+            int id = buscar(tag);
+            if (id >= 0) {
+                bits[id >>> 6] |= 1L << id;
+            }
+        }
+        return recortar(bits);
+    }
+
+    public static int interseccion(long[] a, long[] b) {
+        // Los conjuntos pueden tener distinta longitud: lo que sobra no puede coincidir
+        int total = 0;
+        int limite = Math.min(a.length, b.length);
+        for (int i = 0; i < limite; i++) {
+            total += Long.bitCount(a[i] & b[i]);
+        }
+        return total;
+    }
+
+    public static boolean seCruzan(long[] a, long[] b) {
+        int limite = Math.min(a.length, b.length);
+        for (int i = 0; i < limite; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static int cardinalidad(long[] conjunto) {
+        int total = 0;
+        for (long palabra : conjunto) {
+            total += Long.bitCount(palabra);
+        }
+        return total;
+    }
+
+    private static int palabras(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    // Quito las palabras vacías del final para no recorrerlas al comparar
+    private static long[] recortar(long[] bits) {
+        int longitud = bits.length;
+        while (longitud > 0 && bits[longitud - 1] == 0) {
+            longitud--;
+        }
+        if (longitud == 0) {
+            return VACIO;
+        }
+        return longitud == bits.length ? bits : Arrays.copyOf(bits, longitud);
+    }
+}
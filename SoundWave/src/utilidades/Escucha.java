@@ -0,0 +1,44 @@
+package utilidades;
+
+import java.util.Date;
+
+public class Escucha {
+
+    //Atributos:
+    private String idContenido;
+    private long marcaTiempo;
+    private int segundosEscuchados;
+
+    //Constructor
+    public Escucha(String idContenido, long marcaTiempo, int segundosEscuchados) {
+        this.idContenido = idContenido;
+        this.marcaTiempo = marcaTiempo;
+        this.segundosEscuchados = segundosEscuchados;
+    }
+
+    //Getters
+    public String getIdContenido() {
+        return idContenido;
+    }
+
+    public long getMarcaTiempo() {
+        return marcaTiempo;
+    }
+
+    public Date getFecha() {
+        return new Date(marcaTiempo);
+    }
+
+    public int getSegundosEscuchados() {
+        return segundosEscuchados;
+    }
+
+    @Override
+    public String toString() {
+        return "Escucha{" +
+                "idContenido='" + idContenido + '\'' +
+                ", fecha=" + getFecha() +
+                ", segundosEscuchados=" + segundosEscuchados +
+                '}';
+    }
+}
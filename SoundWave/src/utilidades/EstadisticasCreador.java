@@ -1,9 +1,20 @@
 package utilidades;
 
-import java.util.HashMap;
 import modelo.artistas.Creador;
 import modelo.contenido.Podcast;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadísticas de un creador en un momento dado; no cambian después de crearse.
+ * Creada con {@code new EstadisticasCreador(creador)} recorre una vez los episodios
+ * y no se suscribe a nada. Creador mantiene su propio agregado vivo y entrega
+ * copias de él con {@link modelo.artistas.Creador#obtenerEstadisticas()}.
+ */
 public class EstadisticasCreador {
 
     private Creador creador;
@@ -15,36 +26,51 @@ public class EstadisticasCreador {
     private int duracionTotalSegundos;
     private Podcast episodioMasPopular;
     private HashMap<Integer, Integer> episodiosPorTemporada;
+    private ArrayList<Podcast> topEpisodios; // Más reproducidos primero; a igualdad, el publicado antes
 
 
     //contructor
     public EstadisticasCreador(Creador creador) {
         this.creador = creador;
         this.episodiosPorTemporada = new HashMap<>();
-        calcularEstadisticas();
-    }
-
-    private void calcularEstadisticas() {
-        // Obtener suscriptores del creador (no se suman por episodio)
-        this.totalSuscriptores = creador.getSuscriptores();
-
-        for (Podcast episodio : creador.getEpisodios()) {
+        this.topEpisodios = creador.getEpisodios();
+        for (Podcast episodio : topEpisodios) {
             totalEpisodios++;
             totalReproducciones += episodio.getReproducciones();
             totalLikes += episodio.getLikes();
             duracionTotalSegundos += episodio.getDuracionSegundos();
+            episodiosPorTemporada.merge(episodio.getTemporada(), 1, Integer::sum);
+        }
+        // getEpisodios va por orden de publicación y sort es estable
+        topEpisodios.sort(Comparator.comparingInt(Podcast::getReproducciones).reversed());
+        this.totalSuscriptores = creador.getSuscriptores();
+        calcularDerivados();
+    }
 
-            if (episodioMasPopular == null || episodio.getReproducciones() > episodioMasPopular.getReproducciones()) {
-                episodioMasPopular = episodio;
-            }
+    // Copia de un agregado ya calculado (la usa el agregado vivo de Creador)
+    public EstadisticasCreador(Creador creador, int totalEpisodios, int totalReproducciones, int totalLikes,
+                               int duracionTotalSegundos, int totalSuscriptores, List<Podcast> topEpisodios,
+                               Map<Integer, Integer> episodiosPorTemporada) {
+        this.creador = creador;
+        this.totalEpisodios = totalEpisodios;
+        this.totalReproducciones = totalReproducciones;
+        this.totalLikes = totalLikes;
+        this.duracionTotalSegundos = duracionTotalSegundos;
+        this.totalSuscriptores = totalSuscriptores;
+        this.topEpisodios = new ArrayList<>(topEpisodios);
+        this.episodiosPorTemporada = new HashMap<>(episodiosPorTemporada);
+        calcularDerivados();
+    }
 
-            int temporada = episodio.getTemporada();
-            episodiosPorTemporada.put(temporada, episodiosPorTemporada.getOrDefault(temporada, 0) + 1);
-        }
+    private void calcularDerivados() {
+        promedioReproducciones = totalEpisodios > 0 ? (double) totalReproducciones / totalEpisodios : 0.0;
+        episodioMasPopular = topEpisodios.isEmpty() ? null : topEpisodios.get(0);
+    }
 
-        if (totalEpisodios > 0) {
-            promedioReproducciones = (double) totalReproducciones / totalEpisodios;
-        }
+    // ========== CONSULTAS ==========
+
+    public ArrayList<Podcast> getTopEpisodios(int cantidad) {
+        return new ArrayList<>(topEpisodios.subList(0, Math.max(0, Math.min(cantidad, topEpisodios.size()))));
     }
 
     public String formatearDuracion(int segundos) {
@@ -160,4 +186,4 @@ public class EstadisticasCreador {
                 ", episodiosPorTemporada=" + episodiosPorTemporada +
                 '}';
          }
-    }
\ No newline at end of file
+}
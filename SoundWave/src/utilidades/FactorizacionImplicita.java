@@ -0,0 +1,554 @@
+package utilidades;
+
+import modelo.contenido.Contenido;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Factorización de matrices para feedback implícito con mínimos cuadrados
+ * alternados (ALS). Cada usuario y cada contenido tiene un vector de F factores,
+ * guardados seguidos en float[] (fila i en [i * F, (i + 1) * F)). La preferencia
+ * es 1 si hubo interacción y la confianza 1 + alfa * r, con r = escuchas + likes.
+ * Cada iteración fija los contenidos y resuelve todos los usuarios, y luego al
+ * revés; cada fila es un sistema F x F independiente, así que se reparten en un
+ * ForkJoinPool. Al volver a entrenar se parte de los vectores que ya había.
+ * Los usuarios se recorren por id y el ruido inicial de cada vector sale de su id,
+ * así que el resultado no depende del orden del mapa de interacciones.
+ */
+public class FactorizacionImplicita {
+
+    private static final int FACTORES_DEFAULT = 32;
+    private static final int ITERACIONES_DEFAULT = 10;
+    private static final double REGULARIZACION_DEFAULT = 1.0;
+    private static final double ALFA_DEFAULT = 40.0;
+    private static final double ESCALA_INICIAL = 0.01;
+    private static final int UMBRAL_PARALELO = 16; // Mínimo de filas por tarea
+
+    //Atributos:
+    private final int factores;
+    private final int iteraciones;
+    private final double regularizacion;
+    private final double alfa;
+    private final long semilla;
+    private HashMap<String, Integer> idsUsuario;
+    private ArrayList<String> usuarios;
+    private HashMap<String, Integer> idsContenido;
+    private ArrayList<Contenido> contenidos;
+    private float[] factoresUsuario;
+    private float[] factoresContenido;
+    private double[] gramContenidos;   // Y^T Y + lambda I de los contenidos, para proyectar usuarios
+    private long millisEntrenamiento;
+    private double perdida;
+    private int iteracionesTotales;
+
+    //Constructores
+    public FactorizacionImplicita() {
+        this(FACTORES_DEFAULT, ITERACIONES_DEFAULT, REGULARIZACION_DEFAULT, ALFA_DEFAULT, 42L);
+    }
+
+    public FactorizacionImplicita(int factores, int iteraciones, double regularizacion, double alfa, long semilla) {
+        this.factores = Math.max(factores, 1);
+        this.iteraciones = Math.max(iteraciones, 1);
+        this.regularizacion = regularizacion > 0 ? regularizacion : REGULARIZACION_DEFAULT;
+        this.alfa = Math.max(alfa, 0.0);
+        this.semilla = semilla;
+        reiniciar();
+    }
+
+    // ========== ENTRENAMIENTO ==========
+
+    public void entrenar(Map<String, ? extends Map<Contenido, Float>> interacciones) {
+        entrenar(interacciones, iteraciones);
+    }
+
+    // Si ya había un modelo, los usuarios y contenidos conocidos empiezan desde su vector anterior
+    public void entrenar(Map<String, ? extends Map<Contenido, Float>> interacciones, int numIteraciones) {
+        long inicio = System.nanoTime();
+        int f = factores;
+
+        // Ids enteros y las interacciones por usuario en formato disperso (CSR)
+        HashMap<String, Integer> nuevosUsuarios = new HashMap<>();
+        ArrayList<String> listaUsuarios = new ArrayList<>();
+        HashMap<String, Integer> nuevosContenidos = new HashMap<>();
+        ArrayList<Contenido> listaContenidos = new ArrayList<>();
+        ArrayList<int[]> filasItems = new ArrayList<>();
+        ArrayList<float[]> filasValores = new ArrayList<>();
+        int totalInteracciones = 0;
+        ArrayList<String> ordenUsuarios = new ArrayList<>(interacciones.keySet());
+        Collections.sort(ordenUsuarios);
+        for (String idUsuario : ordenUsuarios) {
+            Map<Contenido, Float> deUsuario = interacciones.get(idUsuario);
+            int[] items = new int[deUsuario.size()];
+            float[] valores = new float[items.length];
+            int usados = 0;
+            for (Map.Entry<Contenido, Float> interaccion : deUsuario.entrySet()) {
+                if (interaccion.getValue() == null || interaccion.getValue() <= 0) {
+                    continue;
+                }
+                String idContenido = interaccion.getKey().getId();
+                Integer id = nuevosContenidos.get(idContenido);
+                if (id == null) {
+                    id = listaContenidos.size();
+                    nuevosContenidos.put(idContenido, id);
+                    listaContenidos.add(interaccion.getKey());
+                }
+                items[usados] = id;
+                valores[usados++] = interaccion.getValue();
+            }
+            if (usados > 0) {
+                nuevosUsuarios.put(idUsuario, listaUsuarios.size());
+                listaUsuarios.add(idUsuario);
+                filasItems.add(Arrays.copyOf(items, usados));
+                filasValores.add(Arrays.copyOf(valores, usados));
+                totalInteracciones += usados;
+            }
+        }
+        int numUsuarios = listaUsuarios.size();
+        int numContenidos = listaContenidos.size();
+
+        Dispersa porUsuario = new Dispersa(numUsuarios, totalInteracciones);
+        int[] porContenido = new int[numContenidos + 1];
+        for (int u = 0; u < numUsuarios; u++) {
+            int[] items = filasItems.get(u);
+            System.arraycopy(items, 0, porUsuario.columnas, porUsuario.inicio[u], items.length);
+            System.arraycopy(filasValores.get(u), 0, porUsuario.valores, porUsuario.inicio[u], items.length);
+            porUsuario.inicio[u + 1] = porUsuario.inicio[u] + items.length;
+            for (int item : items) {
+                porContenido[item + 1]++;
+            }
+        }
+
+        // La traspuesta: para cada contenido, sus usuarios
+        Dispersa traspuesta = new Dispersa(numContenidos, totalInteracciones);
+        for (int i = 0; i < numContenidos; i++) {
+            traspuesta.inicio[i + 1] = traspuesta.inicio[i] + porContenido[i + 1];
+        }
+        int[] llenos = new int[numContenidos];
+        for (int u = 0; u < numUsuarios; u++) {
+            for (int p = porUsuario.inicio[u]; p < porUsuario.inicio[u + 1]; p++) {
+                int item = porUsuario.columnas[p];
+                int destino = traspuesta.inicio[item] + llenos[item]++;
+                traspuesta.columnas[destino] = u;
+                traspuesta.valores[destino] = porUsuario.valores[p];
+            }
+        }
+
+        // Arranque en caliente: copio los vectores conocidos y el resto empieza con ruido pequeño
+        float[] nuevosFactoresUsuario;
+        float[] nuevosFactoresContenido;
+        synchronized (this) {
+            nuevosFactoresUsuario = inicializar(listaUsuarios, idsUsuario, factoresUsuario);
+            ArrayList<String> clavesContenido = new ArrayList<>(numContenidos);
+            for (Contenido contenido : listaContenidos) {
+                clavesContenido.add(contenido.getId());
+            }
+            nuevosFactoresContenido = inicializar(clavesContenido, idsContenido, factoresContenido);
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int divisor = pool.getParallelism() * 4;
+        int umbralUsuarios = Math.max(UMBRAL_PARALELO, numUsuarios / divisor);
+        int umbralContenidos = Math.max(UMBRAL_PARALELO, numContenidos / divisor);
+        for (int iteracion = 0; iteracion < numIteraciones; iteracion++) {
+            // Medio paso: contenidos fijos, resuelvo usuarios; y luego al revés
+            Paso usuariosPaso = new Paso(porUsuario, nuevosFactoresContenido, nuevosFactoresUsuario,
+                    gram(nuevosFactoresContenido, f, regularizacion), f, alfa, umbralUsuarios);
+            pool.invoke(new ResolverFilas(0, numUsuarios, usuariosPaso));
+            Paso contenidosPaso = new Paso(traspuesta, nuevosFactoresUsuario, nuevosFactoresContenido,
+                    gram(nuevosFactoresUsuario, f, regularizacion), f, alfa, umbralContenidos);
+            pool.invoke(new ResolverFilas(0, numContenidos, contenidosPaso));
+        }
+        double[] gramFinal = gram(nuevosFactoresContenido, f, regularizacion);
+        double nuevaPerdida = calcularPerdida(porUsuario, nuevosFactoresUsuario, nuevosFactoresContenido);
+
+        synchronized (this) {
+            this.idsUsuario = nuevosUsuarios;
+            this.usuarios = listaUsuarios;
+            this.idsContenido = nuevosContenidos;
+            this.contenidos = listaContenidos;
+            this.factoresUsuario = nuevosFactoresUsuario;
+            this.factoresContenido = nuevosFactoresContenido;
+            this.gramContenidos = gramFinal;
+            this.perdida = nuevaPerdida;
+            this.iteracionesTotales += numIteraciones;
+            this.millisEntrenamiento = (System.nanoTime() - inicio) / 1_000_000;
+        }
+    }
+
+    // Olvida el modelo: el siguiente entrenamiento empieza desde cero (y da lo mismo que el primero)
+    public synchronized void reiniciar() {
+        this.idsUsuario = new HashMap<>();
+        this.usuarios = new ArrayList<>();
+        this.idsContenido = new HashMap<>();
+        this.contenidos = new ArrayList<>();
+        this.factoresUsuario = new float[0];
+        this.factoresContenido = new float[0];
+        this.gramContenidos = null;
+        this.perdida = 0.0;
+        this.iteracionesTotales = 0;
+    }
+
+    private float[] inicializar(ArrayList<String> claves, HashMap<String, Integer> anteriores, float[] vectores) {
+        int f = factores;
+        float[] resultado = new float[claves.size() * f];
+        for (int i = 0; i < claves.size(); i++) {
+            Integer anterior = anteriores.get(claves.get(i));
+            if (anterior != null) {
+                System.arraycopy(vectores, anterior * f, resultado, i * f, f);
+            } else {
+                // Semilla propia de cada id: su vector inicial no depende de quién vaya antes
+                Random ruido = new Random(semilla ^ (claves.get(i).hashCode() * 0x9E3779B97F4A7C15L));
+                for (int a = 0; a < f; a++) {
+                    resultado[i * f + a] = (float) (ruido.nextGaussian() * ESCALA_INICIAL);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    // Matriz dispersa por filas: la fila i ocupa [inicio[i], inicio[i + 1])
+    private static class Dispersa {
+        private final int[] inicio;
+        private final int[] columnas;
+        private final float[] valores;
+
+        private Dispersa(int filas, int total) {
+            this.inicio = new int[filas + 1];
+            this.columnas = new int[total];
+            this.valores = new float[total];
+        }
+    }
+
+    // Datos compartidos por todas las tareas de un medio paso
+    private static class Paso {
+        private final Dispersa datos;
+        private final float[] fijos;
+        private final float[] destino;
+        private final double[] gram;
+        private final int factores;
+        private final double alfa;
+        private final int umbral;
+
+        private Paso(Dispersa datos, float[] fijos, float[] destino, double[] gram, int factores, double alfa, int umbral) {
+            this.datos = datos;
+            this.fijos = fijos;
+            this.destino = destino;
+            this.gram = gram;
+            this.factores = factores;
+            this.alfa = alfa;
+            this.umbral = umbral;
+        }
+    }
+
+    // Resuelve las filas [desde, hasta) dividiéndolas en mitades hasta que son pocas
+    private static class ResolverFilas extends RecursiveAction {
+        private final int desde;
+        private final int hasta;
+        private final Paso paso;
+
+        private ResolverFilas(int desde, int hasta, Paso paso) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.paso = paso;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > paso.umbral) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(new ResolverFilas(desde, medio, paso), new ResolverFilas(medio, hasta, paso));
+                return;
+            }
+            // Matriz y vector reutilizados por todas las filas de esta tarea
+            int f = paso.factores;
+            double[] sistema = new double[f * f];
+            double[] derecha = new double[f];
+            Dispersa datos = paso.datos;
+            for (int fila = desde; fila < hasta; fila++) {
+                resolverFila(paso.gram, paso.fijos, datos.columnas, datos.valores,
+                        datos.inicio[fila], datos.inicio[fila + 1], f, paso.alfa, sistema, derecha);
+                for (int a = 0; a < f; a++) {
+                    paso.destino[fila * f + a] = (float) derecha[a];
+                }
+            }
+        }
+    }
+
+    // x = (Y^T Y + lambda I + Y^T (C - I) Y)^-1 Y^T C p, con p = 1 en las interacciones.
+    // Deja la solución en 'derecha'
+    private static void resolverFila(double[] gram, float[] fijos, int[] columnas, float[] valores, int desde, int hasta,
+                                     int f, double alfa, double[] sistema, double[] derecha) {
+        System.arraycopy(gram, 0, sistema, 0, f * f);
+        Arrays.fill(derecha, 0.0);
+        for (int p = desde; p < hasta; p++) {
+            int base = columnas[p] * f;
+            double confianza = 1.0 + alfa * valores[p];
+            double extra = confianza - 1.0;
+            for (int a = 0; a < f; a++) {
+                double ya = fijos[base + a];
+                derecha[a] += confianza * ya;
+                double peso = extra * ya;
+                // Solo el triángulo inferior: es lo que usa Cholesky
+                int filaSistema = a * f;
+                for (int b = 0; b <= a; b++) {
+                    sistema[filaSistema + b] += peso * fijos[base + b];
+                }
+            }
+        }
+        cholesky(sistema, derecha, f);
+    }
+
+    // Resuelve A x = b en el sitio (A simétrica definida positiva, triángulo inferior)
+    private static void cholesky(double[] a, double[] b, int n) {
+        for (int j = 0; j < n; j++) {
+            double suma = a[j * n + j];
+            for (int p = 0; p < j; p++) {
+                suma -= a[j * n + p] * a[j * n + p];
+            }
+            double diagonal = Math.sqrt(Math.max(suma, 1e-12));
+            a[j * n + j] = diagonal;
+            for (int i = j + 1; i < n; i++) {
+                double valor = a[i * n + j];
+                for (int p = 0; p < j; p++) {
+                    valor -= a[i * n + p] * a[j * n + p];
+                }
+                a[i * n + j] = valor / diagonal;
+            }
+        }
+        // L z = b
+        for (int i = 0; i < n; i++) {
+            double valor = b[i];
+            for (int p = 0; p < i; p++) {
+                valor -= a[i * n + p] * b[p];
+            }
+            b[i] = valor / a[i * n + i];
+        }
+        // L^T x = z
+        for (int i = n - 1; i >= 0; i--) {
+            double valor = b[i];
+            for (int p = i + 1; p < n; p++) {
+                valor -= a[p * n + i] * b[p];
+            }
+            b[i] = valor / a[i * n + i];
+        }
+    }
+
+    // V^T V + lambda I (triángulo inferior)
+    private static double[] gram(float[] vectores, int f, double regularizacion) {
+        double[] resultado = new double[f * f];
+        for (int base = 0; base < vectores.length; base += f) {
+            for (int a = 0; a < f; a++) {
+                double va = vectores[base + a];
+                for (int b = 0; b <= a; b++) {
+                    resultado[a * f + b] += va * vectores[base + b];
+                }
+            }
+        }
+        for (int a = 0; a < f; a++) {
+            resultado[a * f + a] += regularizacion;
+        }
+        return resultado;
+    }
+
+    // Pérdida de entrenamiento sin recorrer todos los pares usuario-contenido:
+    // la suma de (x·y)^2 sobre todos los pares es la traza de (X^T X)(Y^T Y)
+    private double calcularPerdida(Dispersa porUsuario, float[] x, float[] y) {
+        int f = factores;
+        double[] gramX = gram(x, f, 0.0);
+        double[] gramY = gram(y, f, 0.0);
+        double total = 0.0;
+        for (int a = 0; a < f; a++) {
+            for (int b = 0; b < f; b++) {
+                double gx = a >= b ? gramX[a * f + b] : gramX[b * f + a];
+                double gy = a >= b ? gramY[a * f + b] : gramY[b * f + a];
+                total += gx * gy;
+            }
+        }
+        double normas = 0.0;
+        for (int a = 0; a < f; a++) {
+            normas += gramX[a * f + a] + gramY[a * f + a];
+        }
+        // Corrijo los pares con interacción: confianza c y preferencia 1 en vez de 1 y 0
+        for (int u = 0; u + 1 < porUsuario.inicio.length; u++) {
+            for (int p = porUsuario.inicio[u]; p < porUsuario.inicio[u + 1]; p++) {
+                double prediccion = producto(x, u * f, y, porUsuario.columnas[p] * f, f);
+                double confianza = 1.0 + alfa * porUsuario.valores[p];
+                total += confianza * (1.0 - prediccion) * (1.0 - prediccion) - prediccion * prediccion;
+            }
+        }
+        return total + regularizacion * normas;
+    }
+
+    private static double producto(float[] x, int baseX, float[] y, int baseY, int f) {
+        double total = 0.0;
+        for (int a = 0; a < f; a++) {
+            total += x[baseX + a] * y[baseY + a];
+        }
+        return total;
+    }
+
+    // ========== RECOMENDACIÓN ==========
+
+    // Vector de un usuario a partir de sus interacciones actuales con los contenidos fijos
+    // (un medio paso para una sola fila): sirve aunque no estuviera al entrenar
+    public synchronized float[] proyectar(Map<Contenido, Float> interacciones) {
+        int f = factores;
+        float[] vector = new float[f];
+        if (gramContenidos == null || interacciones == null) {
+            return vector;
+        }
+        int[] columnas = new int[interacciones.size()];
+        float[] valores = new float[columnas.length];
+        int usados = 0;
+        for (Map.Entry<Contenido, Float> interaccion : interacciones.entrySet()) {
+            Integer id = idsContenido.get(interaccion.getKey().getId());
+            if (id != null && interaccion.getValue() != null && interaccion.getValue() > 0) {
+                columnas[usados] = id;
+                valores[usados++] = interaccion.getValue();
+            }
+        }
+        if (usados == 0) {
+            return vector;
+        }
+        double[] derecha = new double[f];
+        resolverFila(gramContenidos, factoresContenido, columnas, valores, 0, usados, f, alfa, new double[f * f], derecha);
+        for (int a = 0; a < f; a++) {
+            vector[a] = (float) derecha[a];
+        }
+        return vector;
+    }
+
+    // Los k contenidos disponibles con mayor x·y que no están en las interacciones
+    public ArrayList<Contenido> recomendar(Map<Contenido, Float> interacciones, int k) {
+        float[] vector = proyectar(interacciones);
+        return recomendar(vector, interacciones.keySet(), k);
+    }
+
+    public synchronized ArrayList<Contenido> recomendar(float[] vector, Collection<Contenido> excluidos, int k) {
+        ArrayList<Contenido> resultado = new ArrayList<>();
+        if (k <= 0 || vector.length != factores) {
+            return resultado;
+        }
+        HashSet<Contenido> saltar = new HashSet<>(excluidos);
+        int f = factores;
+        double[] puntuaciones = new double[contenidos.size()];
+
+        // Montículo de mínimos con los k mejores vistos hasta ahora
+        PriorityQueue<Integer> mejores = new PriorityQueue<>(k + 1,
+                (a, b) -> Double.compare(puntuaciones[a], puntuaciones[b]));
+        for (int item = 0; item < contenidos.size(); item++) {
+            Contenido contenido = contenidos.get(item);
+            if (saltar.contains(contenido) || !contenido.isDisponible()) {
+                continue;
+            }
+            double puntuacion = 0.0;
+            for (int a = 0; a < f; a++) {
+                puntuacion += vector[a] * factoresContenido[item * f + a];
+            }
+            puntuaciones[item] = puntuacion;
+            if (mejores.size() < k) {
+                mejores.add(item);
+            } else if (puntuacion > puntuaciones[mejores.peek()]) {
+                mejores.poll();
+                mejores.add(item);
+            }
+        }
+        while (!mejores.isEmpty()) {
+            resultado.add(0, contenidos.get(mejores.poll()));
+        }
+        return resultado;
+    }
+
+    public synchronized double puntuar(String idUsuario, Contenido contenido) {
+        Integer usuario = idsUsuario.get(idUsuario);
+        Integer item = idsContenido.get(contenido.getId());
+        if (usuario == null || item == null) {
+            return 0.0;
+        }
+        return producto(factoresUsuario, usuario * factores, factoresContenido, item * factores, factores);
+    }
+
+    // ========== GETTERS ==========
+
+    public synchronized float[] getVectorUsuario(String idUsuario) {
+        Integer id = idsUsuario.get(idUsuario);
+        return id == null ? null : Arrays.copyOfRange(factoresUsuario, id * factores, (id + 1) * factores);
+    }
+
+    public synchronized float[] getVectorContenido(Contenido contenido) {
+        Integer id = idsContenido.get(contenido.getId());
+        return id == null ? null : Arrays.copyOfRange(factoresContenido, id * factores, (id + 1) * factores);
+    }
+
+    public synchronized ArrayList<Contenido> getContenidos() {
+        return new ArrayList<>(contenidos);
+    }
+
+    public synchronized boolean isEntrenado() {
+        return gramContenidos != null;
+    }
+
+    public synchronized int getNumUsuarios() {
+        return usuarios.size();
+    }
+
+    public synchronized int getNumContenidos() {
+        return contenidos.size();
+    }
+
+    public int getFactores() {
+        return factores;
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    public double getRegularizacion() {
+        return regularizacion;
+    }
+
+    public double getAlfa() {
+        return alfa;
+    }
+
+    // Iteraciones hechas desde el último reinicio, contando los arranques en caliente
+    public synchronized int getIteracionesTotales() {
+        return iteracionesTotales;
+    }
+
+    public synchronized double getPerdida() {
+        return perdida;
+    }
+
+    public synchronized long getMillisEntrenamiento() {
+        return millisEntrenamiento;
+    }
+
+    // Memoria de los vectores (arreglos primitivos; no cuenta los mapas de ids)
+    public synchronized long getBytesFactores() {
+        return 4L * factoresUsuario.length + 4L * factoresContenido.length;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FactorizacionImplicita{" +
+                "usuarios=" + usuarios.size() +
+                ", contenidos=" + contenidos.size() +
+                ", factores=" + factores +
+                ", iteraciones=" + iteracionesTotales +
+                ", perdida=" + perdida +
+                ", entrenamientoMs=" + millisEntrenamiento +
+                '}';
+    }
+}
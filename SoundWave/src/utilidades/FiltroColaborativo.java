@@ -0,0 +1,363 @@
+package utilidades;
+
+import modelo.contenido.Contenido;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtro colaborativo ítem a ítem: "quien escuchó esto también escuchó...".
+ * Al entrenar, cada contenido recibe un id entero y se calcula su fila de la
+ * matriz de coincidencias (cuántos usuarios tienen a la vez ese contenido y
+ * cada uno de los demás) de forma dispersa: solo se tocan los contenidos que
+ * aparecen junto a él. Las filas son independientes, así que se reparten en
+ * un ForkJoinPool. De cada fila solo se guardan los N vecinos más parecidos
+ * (coseno) en arreglos primitivos: int[] vecinos y float[] pesos.
+ * Para recomendar se suman los pesos de los vecinos de lo que el usuario ya
+ * escuchó, sin recorrer el catálogo.
+ */
+public class FiltroColaborativo {
+
+    private static final int VECINOS_DEFAULT = 20;
+    private static final int UMBRAL_PARALELO = 64; // Mínimo de filas por tarea
+
+    //Atributos:
+    private final int maxVecinos;
+    private HashMap<String, Integer> idsContenido;
+    private ArrayList<Contenido> contenidos;
+    private int[] vecinos;      // Fila i en [i * maxVecinos, i * maxVecinos + numVecinos[i])
+    private float[] pesos;
+    private int[] numVecinos;
+    private long millisEntrenamiento;
+    private long coincidencias;  // Celdas no nulas de la matriz dispersa
+
+    //Constructores
+    public FiltroColaborativo() {
+        this(VECINOS_DEFAULT);
+    }
+
+    public FiltroColaborativo(int maxVecinos) {
+        this.maxVecinos = Math.max(maxVecinos, 1);
+        this.idsContenido = new HashMap<>();
+        this.contenidos = new ArrayList<>();
+        this.vecinos = new int[0];
+        this.pesos = new float[0];
+        this.numVecinos = new int[0];
+    }
+
+    // ========== ENTRENAMIENTO ==========
+
+    public void entrenar(Collection<? extends List<Contenido>> historiales) {
+        long inicio = System.nanoTime();
+
+        // Ids enteros para los contenidos y cada historial como int[] sin repetidos
+        HashMap<String, Integer> ids = new HashMap<>();
+        ArrayList<Contenido> lista = new ArrayList<>();
+        ArrayList<int[]> usuarios = new ArrayList<>();
+        for (List<Contenido> historial : historiales) {
+            HashSet<Integer> vistos = new HashSet<>();
+            for (Contenido contenido : historial) {
+                Integer id = ids.get(contenido.getId());
+                if (id == null) {
+                    id = lista.size();
+                    ids.put(contenido.getId(), id);
+                    lista.add(contenido);
+                }
+                vistos.add(id);
+            }
+            if (vistos.size() > 1) {
+                // Un historial de un solo contenido no aporta coincidencias
+                usuarios.add(vistos.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        // Índice invertido: para cada contenido, los usuarios que lo tienen
+        int numItems = lista.size();
+        int[] frecuencia = new int[numItems];
+        for (int[] usuario : usuarios) {
+            for (int item : usuario) {
+                frecuencia[item]++;
+            }
+        }
+        int[][] usuariosDe = new int[numItems][];
+        for (int item = 0; item < numItems; item++) {
+            usuariosDe[item] = new int[frecuencia[item]];
+        }
+        int[] llenos = new int[numItems];
+        for (int u = 0; u < usuarios.size(); u++) {
+            for (int item : usuarios.get(u)) {
+                usuariosDe[item][llenos[item]++] = u;
+            }
+        }
+
+        // Cada tarea hoja reserva un acumulador del tamaño del catálogo, así que no
+        // divido en más de unas pocas tareas por hilo
+        int umbral = Math.max(UMBRAL_PARALELO, numItems / (ForkJoinPool.getCommonPoolParallelism() * 8));
+        Entrenamiento datos = new Entrenamiento(usuarios, usuariosDe, frecuencia, maxVecinos, umbral);
+        ForkJoinPool.commonPool().invoke(new CalculoFilas(0, numItems, datos));
+
+        synchronized (this) {
+            this.idsContenido = ids;
+            this.contenidos = lista;
+            this.vecinos = datos.vecinos;
+            this.pesos = datos.pesos;
+            this.numVecinos = datos.numVecinos;
+            this.coincidencias = datos.celdas.get();
+            this.millisEntrenamiento = (System.nanoTime() - inicio) / 1_000_000;
+        }
+    }
+
+    // Datos compartidos por todas las tareas de un entrenamiento
+    private static class Entrenamiento {
+        private final List<int[]> usuarios;
+        private final int[][] usuariosDe;
+        private final int[] frecuencia;
+        private final int maxVecinos;
+        private final int umbral;
+        private final int[] vecinos;
+        private final float[] pesos;
+        private final int[] numVecinos;
+        private final AtomicLong celdas;
+
+        private Entrenamiento(List<int[]> usuarios, int[][] usuariosDe, int[] frecuencia, int maxVecinos, int umbral) {
+            this.usuarios = usuarios;
+            this.usuariosDe = usuariosDe;
+            this.frecuencia = frecuencia;
+            this.maxVecinos = maxVecinos;
+            this.umbral = umbral;
+            this.vecinos = new int[frecuencia.length * maxVecinos];
+            this.pesos = new float[frecuencia.length * maxVecinos];
+            this.numVecinos = new int[frecuencia.length];
+            this.celdas = new AtomicLong();
+        }
+    }
+
+    // Calcula las filas [desde, hasta) dividiéndolas en mitades hasta que son pocas
+    private static class CalculoFilas extends RecursiveAction {
+        private final int desde;
+        private final int hasta;
+        private final Entrenamiento datos;
+
+        private CalculoFilas(int desde, int hasta, Entrenamiento datos) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.datos = datos;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > datos.umbral) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(new CalculoFilas(desde, medio, datos), new CalculoFilas(medio, hasta, datos));
+                return;
+            }
+            int[] frecuencia = datos.frecuencia;
+            int maxVecinos = datos.maxVecinos;
+
+            // Acumulador denso reutilizado por todas las filas de esta tarea, más la lista
+            // de posiciones tocadas para limpiarlo sin recorrerlo entero
+            int[] cuenta = new int[frecuencia.length];
+            int[] tocados = new int[frecuencia.length];
+            int[] monticulo = new int[maxVecinos];
+            float[] pesosMonticulo = new float[maxVecinos];
+            long celdasTarea = 0;
+
+            for (int item = desde; item < hasta; item++) {
+                int numTocados = 0;
+                for (int usuario : datos.usuariosDe[item]) {
+                    for (int otro : datos.usuarios.get(usuario)) {
+                        if (otro != item && cuenta[otro]++ == 0) {
+                            tocados[numTocados++] = otro;
+                        }
+                    }
+                }
+                celdasTarea += numTocados;
+
+                // Me quedo con los maxVecinos de mayor coseno usando un montículo de mínimos
+                int enMonticulo = 0;
+                for (int t = 0; t < numTocados; t++) {
+                    int otro = tocados[t];
+                    float peso = (float) (cuenta[otro] / Math.sqrt((double) frecuencia[item] * frecuencia[otro]));
+                    cuenta[otro] = 0;
+                    if (enMonticulo < maxVecinos) {
+                        monticulo[enMonticulo] = otro;
+                        pesosMonticulo[enMonticulo] = peso;
+                        subir(monticulo, pesosMonticulo, enMonticulo++);
+                    } else if (peso > pesosMonticulo[0]) {
+                        monticulo[0] = otro;
+                        pesosMonticulo[0] = peso;
+                        bajar(monticulo, pesosMonticulo, enMonticulo);
+                    }
+                }
+
+                // Vuelco el montículo ordenado de mayor a menor peso
+                int base = item * maxVecinos;
+                datos.numVecinos[item] = enMonticulo;
+                for (int posicion = enMonticulo - 1; posicion >= 0; posicion--) {
+                    datos.vecinos[base + posicion] = monticulo[0];
+                    datos.pesos[base + posicion] = pesosMonticulo[0];
+                    monticulo[0] = monticulo[posicion];
+                    pesosMonticulo[0] = pesosMonticulo[posicion];
+                    bajar(monticulo, pesosMonticulo, posicion);
+                }
+            }
+
+            datos.celdas.addAndGet(celdasTarea);
+        }
+    }
+
+    private static void subir(int[] monticulo, float[] pesos, int posicion) {
+        while (posicion > 0) {
+            int padre = (posicion - 1) >>> 1;
+            if (pesos[padre] <= pesos[posicion]) {
+                return;
+            }
+            intercambiar(monticulo, pesos, padre, posicion);
+            posicion = padre;
+        }
+    }
+
+    private static void bajar(int[] monticulo, float[] pesos, int tamano) {
+        int posicion = 0;
+        while (true) {
+            int menor = posicion;
+            int izquierdo = 2 * posicion + 1;
+            int derecho = izquierdo + 1;
+            if (izquierdo < tamano && pesos[izquierdo] < pesos[menor]) {
+                menor = izquierdo;
+            }
+            if (derecho < tamano && pesos[derecho] < pesos[menor]) {
+                menor = derecho;
+            }
+            if (menor == posicion) {
+                return;
+            }
+            intercambiar(monticulo, pesos, menor, posicion);
+            posicion = menor;
+        }
+    }
+
+    private static void intercambiar(int[] monticulo, float[] pesos, int a, int b) {
+        int item = monticulo[a];
+        monticulo[a] = monticulo[b];
+        monticulo[b] = item;
+        float peso = pesos[a];
+        pesos[a] = pesos[b];
+        pesos[b] = peso;
+    }
+
+    // ========== RECOMENDACIÓN ==========
+
+    // Puntuación de cada candidato: suma de sus pesos como vecino de lo ya escuchado
+    public synchronized HashMap<Contenido, Double> puntuar(Collection<Contenido> historial) {
+        HashMap<Integer, Double> puntuaciones = new HashMap<>();
+        HashSet<Integer> escuchados = new HashSet<>();
+        for (Contenido contenido : historial) {
+            Integer id = idsContenido.get(contenido.getId());
+            if (id != null) {
+                escuchados.add(id);
+            }
+        }
+        for (int item : escuchados) {
+            int base = item * maxVecinos;
+            for (int v = 0; v < numVecinos[item]; v++) {
+                int vecino = vecinos[base + v];
+                if (!escuchados.contains(vecino)) {
+                    puntuaciones.merge(vecino, (double) pesos[base + v], Double::sum);
+                }
+            }
+        }
+
+        HashMap<Contenido, Double> resultado = new HashMap<>();
+        for (Integer item : puntuaciones.keySet()) {
+            resultado.put(contenidos.get(item), puntuaciones.get(item));
+        }
+        return resultado;
+    }
+
+    // Los k mejores candidatos disponibles, de mayor a menor puntuación
+    public ArrayList<Contenido> recomendar(Collection<Contenido> historial, int k) {
+        HashMap<Contenido, Double> puntuaciones = puntuar(historial);
+        ArrayList<Contenido> candidatos = new ArrayList<>();
+        for (Contenido contenido : puntuaciones.keySet()) {
+            if (contenido.isDisponible()) {
+                candidatos.add(contenido);
+            }
+        }
+        candidatos.sort((a, b) -> Double.compare(puntuaciones.get(b), puntuaciones.get(a)));
+        return new ArrayList<>(candidatos.subList(0, Math.min(candidatos.size(), Math.max(k, 0))));
+    }
+
+    // Vecinos guardados de un contenido, el más parecido primero
+    public synchronized ArrayList<Contenido> getVecinos(Contenido contenido) {
+        ArrayList<Contenido> resultado = new ArrayList<>();
+        Integer id = idsContenido.get(contenido.getId());
+        if (id != null) {
+            int base = id * maxVecinos;
+            for (int v = 0; v < numVecinos[id]; v++) {
+                resultado.add(contenidos.get(vecinos[base + v]));
+            }
+        }
+        return resultado;
+    }
+
+    public synchronized float getPeso(Contenido a, Contenido b) {
+        Integer idA = idsContenido.get(a.getId());
+        Integer idB = idsContenido.get(b.getId());
+        if (idA == null || idB == null) {
+            return 0f;
+        }
+        int base = idA * maxVecinos;
+        for (int v = 0; v < numVecinos[idA]; v++) {
+            if (vecinos[base + v] == idB) {
+                return pesos[base + v];
+            }
+        }
+        return 0f;
+    }
+
+    // ========== ESTADÍSTICAS ==========
+
+    public synchronized int getNumContenidos() {
+        return contenidos.size();
+    }
+
+    public int getMaxVecinos() {
+        return maxVecinos;
+    }
+
+    public synchronized long getMillisEntrenamiento() {
+        return millisEntrenamiento;
+    }
+
+    public synchronized long getCoincidencias() {
+        return coincidencias;
+    }
+
+    // Memoria aproximada de la tabla de vecinos (arreglos primitivos; no cuenta el mapa de ids)
+    public synchronized long getBytesVecinos() {
+        return 4L * vecinos.length + 4L * pesos.length + 4L * numVecinos.length;
+    }
+
+    public synchronized int getTotalVecinos() {
+        return Arrays.stream(numVecinos).sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FiltroColaborativo{" +
+                "contenidos=" + contenidos.size() +
+                ", vecinos=" + getTotalVecinos() +
+                ", coincidencias=" + coincidencias +
+                ", bytes=" + getBytesVecinos() +
+                ", entrenamientoMs=" + millisEntrenamiento +
+                '}';
+    }
+}
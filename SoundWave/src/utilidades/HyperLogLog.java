@@ -0,0 +1,232 @@
+package utilidades;
+
+import java.util.Arrays;
+
+/**
+ * Contador aproximado de elementos distintos (HyperLogLog).
+ * Con precisión p usa 2^p registros de un byte: con p = 12 son 4 KB y el error
+ * típico ronda el 1.6 %, cuente mil o cien millones de elementos. Dos sketches
+ * de la misma precisión se fusionan tomando el máximo de cada registro, así que
+ * se pueden sumar días en ventanas o artistas en totales sin volver a contar.
+ * Mientras hay pocos registros ocupados el sketch es disperso: un int[] ordenado
+ * con (índice, rango) de cada registro no nulo. Al pasar de 2^p / 8 entradas
+ * (la mitad de lo que ocupa el denso) se convierte al arreglo de bytes.
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION_DEFAULT = 12;
+    private static final int CAPACIDAD_DISPERSA_INICIAL = 4;
+
+    //Atributos:
+    private final int precision;
+    private byte[] registros;       // Denso: 2^p registros (null mientras es disperso)
+    private int[] dispersos;        // Disperso: (índice << 8) | rango, ordenado por índice
+    private int numDispersos;
+
+    //Constructores
+    public HyperLogLog() {
+        this(PRECISION_DEFAULT);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("La precisión debe estar entre 4 y 16");
+        }
+        this.precision = precision;
+        this.registros = null;
+        this.dispersos = new int[CAPACIDAD_DISPERSA_INICIAL];
+        this.numDispersos = 0;
+    }
+
+    private HyperLogLog(HyperLogLog otro) {
+        this.precision = otro.precision;
+        this.registros = otro.registros != null ? otro.registros.clone() : null;
+        this.dispersos = otro.dispersos != null ? otro.dispersos.clone() : null;
+        this.numDispersos = otro.numDispersos;
+    }
+
+    // ========== ACTUALIZACIÓN ==========
+
+    // Devuelve true si el sketch cambió
+    public synchronized boolean agregar(String elemento) {
+        long hash = hash64(elemento);
+        int indice = (int) (hash >>> (64 - precision));
+        // Posición del primer 1 en el resto de bits (el bit centinela limita el máximo)
+        byte rango = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        return actualizar(indice, rango);
+    }
+
+    public void fusionar(HyperLogLog otro) {
+        if (otro.precision != precision) {
+            throw new IllegalArgumentException("Solo se pueden fusionar sketches de la misma precisión");
+        }
+        // Copio el otro primero para no tener dos bloqueos a la vez
+        HyperLogLog copia = otro.copia();
+        synchronized (this) {
+            if (copia.registros != null) {
+                densificar();
+                for (int i = 0; i < registros.length; i++) {
+                    if (copia.registros[i] > registros[i]) {
+                        registros[i] = copia.registros[i];
+                    }
+                }
+            } else {
+                for (int i = 0; i < copia.numDispersos; i++) {
+                    actualizar(copia.dispersos[i] >>> 8, (byte) copia.dispersos[i]);
+                }
+            }
+        }
+    }
+
+    // Sube el registro 'indice' a 'rango' si es mayor; devuelve true si cambió
+    private boolean actualizar(int indice, byte rango) {
+        if (registros != null) {
+            if (rango > registros[indice]) {
+                registros[indice] = rango;
+                return true;
+            }
+            return false;
+        }
+
+        int posicion = buscarDisperso(indice);
+        if (posicion >= 0) {
+            if (rango > (byte) dispersos[posicion]) {
+                dispersos[posicion] = (indice << 8) | rango;
+                return true;
+            }
+            return false;
+        }
+        if (numDispersos + 1 > (1 << precision) / 8) {
+            // Disperso ya no ahorra memoria: paso a denso
+            densificar();
+            registros[indice] = rango;
+            return true;
+        }
+        posicion = -posicion - 1;
+        if (numDispersos == dispersos.length) {
+            dispersos = Arrays.copyOf(dispersos, dispersos.length * 2);
+        }
+        System.arraycopy(dispersos, posicion, dispersos, posicion + 1, numDispersos - posicion);
+        dispersos[posicion] = (indice << 8) | rango;
+        numDispersos++;
+        return true;
+    }
+
+    // Búsqueda binaria por índice; si no está, -(punto de inserción) - 1
+    private int buscarDisperso(int indice) {
+        int bajo = 0;
+        int alto = numDispersos - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int actual = dispersos[medio] >>> 8;
+            if (actual < indice) {
+                bajo = medio + 1;
+            } else if (actual > indice) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+
+    private void densificar() {
+        if (registros != null) {
+            return;
+        }
+        registros = new byte[1 << precision];
+        for (int i = 0; i < numDispersos; i++) {
+            registros[dispersos[i] >>> 8] = (byte) dispersos[i];
+        }
+        dispersos = null;
+        numDispersos = 0;
+    }
+
+    // ========== CONSULTA ==========
+
+    public synchronized long estimar() {
+        int m = 1 << precision;
+        double suma = 0.0;
+        int vacios = 0;
+        if (registros != null) {
+            for (byte registro : registros) {
+                suma += 1.0 / (1L << registro);
+                if (registro == 0) {
+                    vacios++;
+                }
+            }
+        } else {
+            // Los registros que no aparecen valen 0 y aportan 1 cada uno
+            vacios = m - numDispersos;
+            suma = vacios;
+            for (int i = 0; i < numDispersos; i++) {
+                suma += 1.0 / (1L << (byte) dispersos[i]);
+            }
+        }
+        double alfa = 0.7213 / (1.0 + 1.079 / m);
+        double estimacion = alfa * m * m / suma;
+
+        // Con pocos elementos el conteo lineal de registros vacíos es más exacto
+        if (estimacion <= 2.5 * m && vacios > 0) {
+            estimacion = m * Math.log((double) m / vacios);
+        }
+        return Math.round(estimacion);
+    }
+
+    public synchronized boolean estaVacio() {
+        if (registros == null) {
+            return numDispersos == 0;
+        }
+        for (byte registro : registros) {
+            if (registro != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized HyperLogLog copia() {
+        return new HyperLogLog(this);
+    }
+
+    // ========== AUXILIARES ==========
+
+    // FNV-1a de 64 bits con el mezclado final de MurmurHash3 para repartir bien los bits altos
+    private static long hash64(String elemento) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < elemento.length(); i++) {
+            hash ^= elemento.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // ========== GETTERS ==========
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    // Memoria de los registros: 2^p si es denso, 4 por entrada reservada si es disperso
+    public synchronized int getTamanoBytes() {
+        return registros != null ? registros.length : 4 * dispersos.length;
+    }
+
+    public synchronized boolean isDisperso() {
+        return registros == null;
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{" +
+                "precision=" + precision +
+                ", disperso=" + isDisperso() +
+                ", estimacion=" + estimar() +
+                '}';
+    }
+}
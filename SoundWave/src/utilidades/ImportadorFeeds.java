@@ -0,0 +1,490 @@
+package utilidades;
+
+import enums.CategoriaPodcast;
+import excepciones.artista.LimiteEpisodiosException;
+import excepciones.contenido.DuracionInvalidaException;
+import excepciones.plataforma.FeedInvalidoException;
+import modelo.artistas.Creador;
+import modelo.contenido.Podcast;
+import modelo.plataforma.Plataforma;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Importa el catálogo de un creador desde feeds RSS de podcast guardados en disco.
+ * Lee con StAX en modo cursor, así que nunca carga el documento entero: en memoria
+ * solo están el episodio que se está leyendo y el lote pendiente de publicar.
+ * Los episodios se publican por lotes con Plataforma.publicarPodcasts y un
+ * directorio con muchos feeds se reparte entre varios hilos, un feed por tarea.
+ */
+public class ImportadorFeeds {
+
+    private static final int TAMANO_LOTE = 100;
+    private static final String NS_ITUNES = "http://www.itunes.com/dtds/podcast-1.0.dtd";
+    private static final String NS_PODCAST = "https://podcastindex.org/namespace/1.0";
+    private static final Pattern ETIQUETAS_HTML = Pattern.compile("<[^>]*>");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    //Atributos:
+    private final Plataforma plataforma;
+    private final XMLInputFactory fabrica;
+    private final int tamanoLote;
+
+    //Constructores
+    public ImportadorFeeds(Plataforma plataforma) {
+        this(plataforma, TAMANO_LOTE);
+    }
+
+    public ImportadorFeeds(Plataforma plataforma, int tamanoLote) {
+        this.plataforma = plataforma;
+        this.tamanoLote = Math.max(tamanoLote, 1);
+        this.fabrica = XMLInputFactory.newInstance();
+        // Sin DTD ni entidades externas: un feed no debe poder leer otros archivos
+        this.fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.fabrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        this.fabrica.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        this.fabrica.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    // ========== IMPORTACIÓN ==========
+
+    public ResultadoImportacion importarFeed(Path archivo) throws IOException, FeedInvalidoException {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        try (InputStream entrada = new BufferedInputStream(Files.newInputStream(archivo))) {
+            XMLStreamReader lector = fabrica.createXMLStreamReader(entrada);
+            try {
+                new LecturaFeed(lector, nombreSinExtension(archivo), resultado).leer();
+            } finally {
+                lector.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new FeedInvalidoException("Feed mal formado '" + archivo.getFileName() + "': " + e.getMessage());
+        } catch (LimiteEpisodiosException e) {
+            // Lo publicado hasta el límite se queda; el resto del feed se descarta
+            resultado.agregarError(archivo.getFileName() + ": " + e.getMessage());
+        }
+        resultado.sumarFeed();
+        return resultado;
+    }
+
+    // Importa todos los .xml y .rss del directorio repartiéndolos entre 'hilos' hilos
+    public ResultadoImportacion importarDirectorio(Path directorio, int hilos) throws IOException {
+        ResultadoImportacion total = new ResultadoImportacion();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(Math.max(hilos, 1));
+        ArrayList<Future<?>> tareas = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "*.{xml,rss}")) {
+            for (Path archivo : archivos) {
+                tareas.add(ejecutor.submit(() -> total.acumular(importarSinLanzar(archivo))));
+            }
+        } finally {
+            ejecutor.shutdown();
+        }
+
+        for (Future<?> tarea : tareas) {
+            try {
+                tarea.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ejecutor.shutdownNow();
+                throw new IOException("Importación interrumpida", e);
+            } catch (ExecutionException e) {
+                total.agregarError(String.valueOf(e.getCause()));
+            }
+        }
+        return total;
+    }
+
+    private ResultadoImportacion importarSinLanzar(Path archivo) {
+        try {
+            return importarFeed(archivo);
+        } catch (IOException | FeedInvalidoException e) {
+            // Un feed roto no para el resto del directorio
+            ResultadoImportacion resultado = new ResultadoImportacion();
+            resultado.agregarError(archivo.getFileName() + ": " + e.getMessage());
+            return resultado;
+        }
+    }
+
+    // ========== LECTURA DE UN FEED ==========
+
+    // Estado de la lectura de un feed: datos del canal, episodio en curso y lote pendiente
+    private class LecturaFeed {
+        private final XMLStreamReader lector;
+        private final String nombreArchivo;
+        private final ResultadoImportacion resultado;
+
+        private String canal;
+        private String autor;
+        private String descripcionCanal;
+        private CategoriaPodcast categoria;
+        private boolean categoriaLeida;
+        private Creador creador;
+        private final ArrayList<Podcast> lote;
+        private final HashMap<Integer, Integer> numeracion; // Mayor número dado en cada temporada por este feed
+        private final HashMap<Long, String> usados;         // (temporada, número) -> título dado en este feed
+
+        private String titulo;
+        private String descripcion;
+        private String duracion;
+        private int temporada;
+        private int numero;
+        private final ArrayList<String> invitados;
+
+        private LecturaFeed(XMLStreamReader lector, String nombreArchivo, ResultadoImportacion resultado) {
+            this.lector = lector;
+            this.nombreArchivo = nombreArchivo;
+            this.resultado = resultado;
+            this.categoria = CategoriaPodcast.ENTRETENIMIENTO;
+            this.lote = new ArrayList<>();
+            this.numeracion = new HashMap<>();
+            this.usados = new HashMap<>();
+            this.invitados = new ArrayList<>();
+        }
+
+        private void leer() throws XMLStreamException, FeedInvalidoException, LimiteEpisodiosException {
+            int profundidad = 0;
+            int profundidadCanal = -1;
+            int profundidadEpisodio = -1;
+
+            while (lector.hasNext()) {
+                int evento = lector.next();
+                if (evento == XMLStreamConstants.START_ELEMENT) {
+                    profundidad++;
+                    String nombre = lector.getLocalName();
+                    String espacio = lector.getNamespaceURI();
+                    boolean sinEspacio = espacio == null || espacio.isEmpty();
+
+                    if (profundidad == 1) {
+                        if (!"rss".equals(nombre)) {
+                            throw new FeedInvalidoException("'" + nombreArchivo + "' no es un feed RSS");
+                        }
+                    } else if (profundidadCanal < 0 && sinEspacio && "channel".equals(nombre)) {
+                        profundidadCanal = profundidad;
+                    } else if (profundidadCanal > 0 && profundidadEpisodio < 0 && profundidad == profundidadCanal + 1) {
+                        if (sinEspacio && "item".equals(nombre)) {
+                            profundidadEpisodio = profundidad;
+                            empezarEpisodio();
+                        } else if (leerCampoCanal(nombre, espacio)) {
+                            profundidad--; // getElementText ya consumió el cierre
+                        }
+                    } else if (profundidadEpisodio > 0 && profundidad == profundidadEpisodio + 1) {
+                        if (leerCampoEpisodio(nombre, espacio)) {
+                            profundidad--;
+                        }
+                    }
+                } else if (evento == XMLStreamConstants.END_ELEMENT) {
+                    if (profundidad == profundidadEpisodio) {
+                        terminarEpisodio();
+                        profundidadEpisodio = -1;
+                    } else if (profundidad == profundidadCanal) {
+                        profundidadCanal = -1;
+                    }
+                    profundidad--;
+                }
+            }
+            publicarLote();
+        }
+
+        // Devuelven true si leyeron el texto del elemento (y con él su cierre)
+        private boolean leerCampoCanal(String nombre, String espacio) throws XMLStreamException {
+            if (NS_ITUNES.equals(espacio)) {
+                if ("author".equals(nombre)) {
+                    autor = lector.getElementText().trim();
+                    return true;
+                }
+                if ("category".equals(nombre) && !categoriaLeida) {
+                    // Me quedo con la primera; va en el atributo y puede tener subcategorías dentro
+                    categoria = categoriaDesde(lector.getAttributeValue(null, "text"));
+                    categoriaLeida = true;
+                }
+                return false;
+            }
+            if (espacio != null && !espacio.isEmpty()) {
+                return false;
+            }
+            if ("title".equals(nombre)) {
+                canal = lector.getElementText().trim();
+                return true;
+            }
+            if ("description".equals(nombre)) {
+                descripcionCanal = limpiar(lector.getElementText());
+                return true;
+            }
+            return false;
+        }
+
+        private boolean leerCampoEpisodio(String nombre, String espacio) throws XMLStreamException {
+            if (NS_ITUNES.equals(espacio)) {
+                switch (nombre) {
+                    case "duration":
+                        duracion = lector.getElementText();
+                        return true;
+                    case "season":
+                        temporada = entero(lector.getElementText());
+                        return true;
+                    case "episode":
+                        numero = entero(lector.getElementText());
+                        return true;
+                    case "summary":
+                        String resumen = lector.getElementText();
+                        if (descripcion == null) {
+                            descripcion = resumen;
+                        }
+                        return true;
+                    case "title":
+                        String tituloItunes = lector.getElementText();
+                        if (titulo == null) {
+                            titulo = tituloItunes;
+                        }
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+            if (NS_PODCAST.equals(espacio) && "person".equals(nombre)) {
+                // Solo los invitados; el rol por defecto es "host"
+                String rol = lector.getAttributeValue(null, "role");
+                String persona = lector.getElementText();
+                if ("guest".equalsIgnoreCase(rol)) {
+                    invitados.add(persona);
+                }
+                return true;
+            }
+            if (espacio != null && !espacio.isEmpty()) {
+                return false;
+            }
+            if ("title".equals(nombre)) {
+                titulo = lector.getElementText();
+                return true;
+            }
+            if ("description".equals(nombre)) {
+                // La descripción del RSS manda sobre itunes:summary
+                descripcion = lector.getElementText();
+                return true;
+            }
+            return false;
+        }
+
+        private void empezarEpisodio() {
+            titulo = null;
+            descripcion = null;
+            duracion = null;
+            temporada = 0;
+            numero = 0;
+            invitados.clear();
+        }
+
+        private void terminarEpisodio() throws LimiteEpisodiosException {
+            int segundos = duracionEnSegundos(duracion);
+            if (titulo == null || titulo.trim().isEmpty() || segundos <= 0) {
+                resultado.sumarOmitidos(1);
+                return;
+            }
+            if (creador == null) {
+                // El canal va antes que los episodios; si no trae título uso el nombre del archivo
+                String nombreCanal = canal != null && !canal.isEmpty() ? canal : nombreArchivo;
+                creador = plataforma.buscarOCrearCreador(nombreCanal, autor != null ? autor : nombreCanal, descripcionCanal);
+            }
+
+            String nombre = titulo.trim();
+            int temporadaEpisodio = temporada > 0 ? temporada : 1;
+            try {
+                // Sin itunes:episode el número queda a 0 y se decide al publicar el lote
+                Podcast episodio = new Podcast(nombre, segundos, creador, Math.max(numero, 0), temporadaEpisodio, categoria);
+                episodio.setDescripcion(limpiar(descripcion));
+                for (String invitado : invitados) {
+                    episodio.agregarInvitado(invitado);
+                }
+                lote.add(episodio);
+            } catch (DuracionInvalidaException e) {
+                resultado.sumarOmitidos(1);
+                return;
+            }
+
+            if (lote.size() >= tamanoLote) {
+                publicarLote();
+            }
+        }
+
+        private void publicarLote() throws LimiteEpisodiosException {
+            if (lote.isEmpty()) {
+                return;
+            }
+            // Numerar, comprobar choques y publicar bajo el bloqueo de la plataforma: otro feed del
+            // mismo canal en otro hilo no puede dar el mismo número ni publicar entre medias
+            synchronized (plataforma) {
+                int antes = creador.getNumEpisodios();
+                try {
+                    ArrayList<Podcast> listos = numerar();
+                    int publicados = plataforma.publicarPodcasts(creador, listos);
+                    resultado.sumarImportados(publicados);
+                    if (publicados < listos.size()) {
+                        // No debería pasar tras numerar aquí mismo, pero no lo dejo pasar en silencio
+                        resultado.agregarError(nombreArchivo + ": " + (listos.size() - publicados)
+                                + " episodios chocaron con otros ya publicados");
+                        resultado.sumarOmitidos(listos.size() - publicados);
+                    }
+                } catch (LimiteEpisodiosException e) {
+                    resultado.sumarImportados(creador.getNumEpisodios() - antes);
+                    throw e;
+                } finally {
+                    lote.clear();
+                }
+            }
+        }
+
+        // Da número a los que no lo traen y aparta los que repiten uno ocupado; se llama con el bloqueo tomado
+        private ArrayList<Podcast> numerar() {
+            ArrayList<Podcast> listos = new ArrayList<>(lote.size());
+            HashMap<String, Integer> publicadosPorTitulo = null; // "temporada|título" -> número, de lo que ya tenía el creador
+            for (Podcast episodio : lote) {
+                int temporadaEpisodio = episodio.getTemporada();
+                String nombre = episodio.getTitulo();
+                int numeroEpisodio = episodio.getNumeroEpisodio();
+                if (numeroEpisodio <= 0) {
+                    // Si el creador ya lo tenía (reimportación) conserva su número;
+                    // si no, va detrás del mayor de la temporada, publicado o dado en este feed
+                    if (publicadosPorTitulo == null) {
+                        publicadosPorTitulo = new HashMap<>();
+                        for (Podcast publicado : creador.getEpisodiosOrdenados()) {
+                            publicadosPorTitulo.putIfAbsent(publicado.getTemporada() + "|" + publicado.getTitulo(), publicado.getNumeroEpisodio());
+                        }
+                    }
+                    Integer publicado = publicadosPorTitulo.get(temporadaEpisodio + "|" + nombre);
+                    numeroEpisodio = publicado != null ? publicado
+                            : Math.max(creador.getUltimoNumero(temporadaEpisodio), numeracion.getOrDefault(temporadaEpisodio, 0)) + 1;
+                    episodio.setNumeroEpisodio(numeroEpisodio);
+                }
+
+                // Mismo número con otro título: son episodios distintos y publicarlo taparía uno de los dos
+                String previo = usados.putIfAbsent(clave(temporadaEpisodio, numeroEpisodio), nombre);
+                Podcast existente = creador.buscarEpisodio(temporadaEpisodio, numeroEpisodio);
+                String ocupadoPor = previo != null ? previo : existente != null ? existente.getTitulo() : null;
+                if (ocupadoPor != null) {
+                    if (!ocupadoPor.equals(nombre)) {
+                        resultado.agregarError(nombreArchivo + ": '" + nombre + "' repite el episodio " + temporadaEpisodio
+                                + "x" + numeroEpisodio + " de '" + ocupadoPor + "'");
+                    }
+                    // Con el mismo título es el mismo episodio: ya está publicado o va en este feed
+                    resultado.sumarOmitidos(1);
+                    continue;
+                }
+                numeracion.merge(temporadaEpisodio, numeroEpisodio, Math::max);
+                listos.add(episodio);
+            }
+            return listos;
+        }
+    }
+
+    // ========== AUXILIARES ==========
+
+    // Acepta "HH:MM:SS", "MM:SS" o segundos ("3723" o "3723.5")
+    static int duracionEnSegundos(String texto) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return 0;
+        }
+        try {
+            String[] partes = texto.trim().split(":");
+            if (partes.length == 1) {
+                return (int) Math.round(Double.parseDouble(partes[0]));
+            }
+            if (partes.length > 3) {
+                return 0;
+            }
+            int total = 0;
+            for (String parte : partes) {
+                total = total * 60 + Integer.parseInt(parte.trim());
+            }
+            return total;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static CategoriaPodcast categoriaDesde(String texto) {
+        if (texto == null) {
+            return CategoriaPodcast.ENTRETENIMIENTO;
+        }
+        String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "").trim().toUpperCase().replace(' ', '_');
+        for (CategoriaPodcast categoria : CategoriaPodcast.values()) {
+            if (categoria.name().equals(normalizado)) {
+                return categoria;
+            }
+        }
+        // Categorías de Apple Podcasts más habituales
+        switch (normalizado) {
+            case "TECHNOLOGY":
+                return CategoriaPodcast.TECNOLOGIA;
+            case "SPORTS":
+                return CategoriaPodcast.DEPORTES;
+            case "COMEDY":
+                return CategoriaPodcast.COMEDIA;
+            case "EDUCATION":
+                return CategoriaPodcast.EDUCACION;
+            case "BUSINESS":
+                return CategoriaPodcast.NEGOCIOS;
+            case "HEALTH_&_FITNESS":
+                return CategoriaPodcast.SALUD;
+            case "SCIENCE":
+                return CategoriaPodcast.CIENCIA;
+            case "HISTORY":
+                return CategoriaPodcast.HISTORIA;
+            case "NEWS":
+            case "GOVERNMENT":
+                return CategoriaPodcast.POLITICA;
+            case "ARTS":
+            case "SOCIETY_&_CULTURE":
+                return CategoriaPodcast.CULTURA;
+            default:
+                return CategoriaPodcast.ENTRETENIMIENTO;
+        }
+    }
+
+    private static long clave(int temporada, int numero) {
+        return ((long) temporada << 32) | (numero & 0xFFFFFFFFL);
+    }
+
+    private static int entero(String texto) {
+        try {
+            return Integer.parseInt(texto.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String limpiar(String html) {
+        if (html == null) {
+            return "";
+        }
+        // Las descripciones suelen traer HTML: me quedo con el texto
+        return ESPACIOS.matcher(ETIQUETAS_HTML.matcher(html).replaceAll(" ")).replaceAll(" ").trim();
+    }
+
+    private static String nombreSinExtension(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        int punto = nombre.lastIndexOf('.');
+        return punto > 0 ? nombre.substring(0, punto) : nombre;
+    }
+
+    public int getTamanoLote() {
+        return tamanoLote;
+    }
+}
@@ -0,0 +1,357 @@
+package utilidades;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Firmas MinHash de los conjuntos de tags de cada usuario con cubetas LSH para
+ * encontrar usuarios parecidos sin compararlos con todos. La firma tiene
+ * bandas x filas mínimos, cada uno con su propia función hash; la probabilidad
+ * de que dos firmas coincidan en una posición es su Jaccard. La firma se corta
+ * en bandas y cada banda va a una cubeta: dos usuarios son candidatos si
+ * coinciden en al menos una banda entera. Con 32 bandas de 4 filas el umbral
+ * está hacia Jaccard 0,42. Si un conjunto solo gana tags, la firma se
+ * actualiza con los nuevos sin recalcularla entera. El hueco de un usuario quitado
+ * (su posición en las listas y su tramo de firmas) lo reutiliza el siguiente que llega.
+ */
+public class IndiceMinHash {
+
+    private static final int BANDAS_DEFAULT = 32;
+    private static final int FILAS_DEFAULT = 4;
+    private static final long[] VACIO = new long[0];
+
+    //Atributos:
+    private final int bandas;
+    private final int filas;
+    private final int numHashes;
+    private final long[] semillas;      // Una por función hash
+    private HashMap<String, Integer> ids;
+    private ArrayList<String> usuarios;  // null en los huecos libres
+    private ArrayList<long[]> conjuntos; // Último conjunto de cada usuario
+    private int[] firmas;                // Usuario u en [u * numHashes, (u + 1) * numHashes)
+    private ArrayList<HashMap<Long, int[]>> cubetas; // Una tabla por banda; cubeta = {cantidad, usuarios...}
+    private ArrayDeque<Integer> libres;  // Huecos de usuarios quitados
+    private long actualizacionesIncrementales;
+    private long recalculos;
+
+    //Constructores
+    public IndiceMinHash() {
+        this(BANDAS_DEFAULT, FILAS_DEFAULT, 42L);
+    }
+
+    public IndiceMinHash(int bandas, int filas, long semilla) {
+        this.bandas = Math.max(bandas, 1);
+        this.filas = Math.max(filas, 1);
+        this.numHashes = this.bandas * this.filas;
+        this.semillas = new long[numHashes];
+        Random aleatorio = new Random(semilla);
+        for (int i = 0; i < numHashes; i++) {
+            semillas[i] = aleatorio.nextLong();
+        }
+        vaciar();
+    }
+
+    // ========== ACTUALIZACIÓN ==========
+
+    // Guarda el nuevo conjunto de tags del usuario; devuelve true si cambió su firma
+    public synchronized boolean actualizar(String idUsuario, long[] conjunto) {
+        long[] nuevo = conjunto != null ? conjunto : VACIO;
+        int usuario = interno(idUsuario);
+        long[] anterior = conjuntos.get(usuario);
+        if (Arrays.equals(anterior, nuevo)) {
+            return false;
+        }
+
+        int base = usuario * numHashes;
+        long[] clavesAnteriores = clavesBandas(usuario, anterior);
+        if (anterior.length > 0 && incluido(anterior, nuevo)) {
+            // Solo ganó tags: el mínimo de cada función solo puede bajar con los nuevos
+            for (int palabra = 0; palabra < nuevo.length; palabra++) {
+                long nuevos = nuevo[palabra] & ~(palabra < anterior.length ? anterior[palabra] : 0L);
+                aplicarTags(base, palabra, nuevos);
+            }
+            actualizacionesIncrementales++;
+        } else {
+            Arrays.fill(firmas, base, base + numHashes, Integer.MAX_VALUE);
+            for (int palabra = 0; palabra < nuevo.length; palabra++) {
+                aplicarTags(base, palabra, nuevo[palabra]);
+            }
+            recalculos++;
+        }
+        conjuntos.set(usuario, nuevo);
+
+        // Muevo al usuario solo en las bandas cuya clave cambió
+        long[] clavesNuevas = clavesBandas(usuario, nuevo);
+        boolean cambio = false;
+        for (int banda = 0; banda < bandas; banda++) {
+            boolean teniaClave = clavesAnteriores != null;
+            boolean tieneClave = clavesNuevas != null;
+            if (teniaClave && tieneClave && clavesAnteriores[banda] == clavesNuevas[banda]) {
+                continue;
+            }
+            cambio = true;
+            if (teniaClave) {
+                quitarDeCubeta(banda, clavesAnteriores[banda], usuario);
+            }
+            if (tieneClave) {
+                agregarACubeta(banda, clavesNuevas[banda], usuario);
+            }
+        }
+        return cambio;
+    }
+
+    // Lo saca de sus cubetas y deja libre su hueco para el siguiente usuario nuevo
+    public synchronized void quitar(String idUsuario) {
+        Integer usuario = ids.remove(idUsuario);
+        if (usuario == null) {
+            return;
+        }
+        long[] claves = clavesBandas(usuario, conjuntos.get(usuario));
+        if (claves != null) {
+            for (int banda = 0; banda < bandas; banda++) {
+                quitarDeCubeta(banda, claves[banda], usuario);
+            }
+        }
+        usuarios.set(usuario, null);
+        conjuntos.set(usuario, VACIO);
+        Arrays.fill(firmas, usuario * numHashes, (usuario + 1) * numHashes, Integer.MAX_VALUE);
+        libres.push(usuario);
+    }
+
+    public synchronized void vaciar() {
+        this.ids = new HashMap<>();
+        this.usuarios = new ArrayList<>();
+        this.conjuntos = new ArrayList<>();
+        this.firmas = new int[0];
+        this.cubetas = new ArrayList<>();
+        this.libres = new ArrayDeque<>();
+        for (int banda = 0; banda < bandas; banda++) {
+            cubetas.add(new HashMap<>());
+        }
+        this.actualizacionesIncrementales = 0;
+        this.recalculos = 0;
+    }
+
+    private int interno(String idUsuario) {
+        Integer existente = ids.get(idUsuario);
+        if (existente != null) {
+            return existente;
+        }
+        if (!libres.isEmpty()) {
+            // El hueco ya tiene el conjunto vacío y la firma en blanco
+            int usuario = libres.pop();
+            ids.put(idUsuario, usuario);
+            usuarios.set(usuario, idUsuario);
+            return usuario;
+        }
+        int usuario = usuarios.size();
+        ids.put(idUsuario, usuario);
+        usuarios.add(idUsuario);
+        conjuntos.add(VACIO);
+        if ((usuario + 1) * numHashes > firmas.length) {
+            firmas = Arrays.copyOf(firmas, Math.max((usuario + 1) * numHashes, firmas.length * 2));
+        }
+        Arrays.fill(firmas, usuario * numHashes, (usuario + 1) * numHashes, Integer.MAX_VALUE);
+        return usuario;
+    }
+
+    // Baja cada mínimo de la firma con los tags encendidos en 'bits' (palabra 'palabra' del conjunto)
+    private void aplicarTags(int base, int palabra, long bits) {
+        while (bits != 0) {
+            int tag = (palabra << 6) + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            for (int h = 0; h < numHashes; h++) {
+                int valor = hash(semillas[h], tag);
+                if (valor < firmas[base + h]) {
+                    firmas[base + h] = valor;
+                }
+            }
+        }
+    }
+
+    // Mezcla de 64 bits (la de SplitMix64) sobre el tag y la semilla de la función
+    private static int hash(long semilla, int tag) {
+        long x = semilla + tag * 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (x ^ (x >>> 31));
+    }
+
+    private static boolean incluido(long[] menor, long[] mayor) {
+        if (menor.length > mayor.length) {
+            return false;
+        }
+        for (int i = 0; i < menor.length; i++) {
+            if ((menor[i] & ~mayor[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Clave de cada banda de la firma actual, o null si el conjunto está vacío (no se indexa)
+    private long[] clavesBandas(int usuario, long[] conjunto) {
+        if (conjunto.length == 0) {
+            return null;
+        }
+        long[] claves = new long[bandas];
+        int base = usuario * numHashes;
+        for (int banda = 0; banda < bandas; banda++) {
+            long clave = banda;
+            for (int fila = 0; fila < filas; fila++) {
+                clave = clave * 0x100000001B3L + firmas[base + banda * filas + fila];
+            }
+            claves[banda] = clave;
+        }
+        return claves;
+    }
+
+    // Las cubetas suelen tener pocos usuarios: un int[] que crece ocupa mucho menos que un HashSet
+    private void agregarACubeta(int banda, long clave, int usuario) {
+        HashMap<Long, int[]> tabla = cubetas.get(banda);
+        int[] cubeta = tabla.get(clave);
+        if (cubeta == null) {
+            tabla.put(clave, new int[]{1, usuario});
+            return;
+        }
+        if (cubeta[0] + 1 == cubeta.length) {
+            cubeta = Arrays.copyOf(cubeta, cubeta.length * 2);
+            tabla.put(clave, cubeta);
+        }
+        cubeta[++cubeta[0]] = usuario;
+    }
+
+    private void quitarDeCubeta(int banda, long clave, int usuario) {
+        HashMap<Long, int[]> tabla = cubetas.get(banda);
+        int[] cubeta = tabla.get(clave);
+        if (cubeta == null) {
+            return;
+        }
+        for (int i = 1; i <= cubeta[0]; i++) {
+            if (cubeta[i] == usuario) {
+                // El último ocupa su hueco
+                cubeta[i] = cubeta[cubeta[0]--];
+                break;
+            }
+        }
+        if (cubeta[0] == 0) {
+            tabla.remove(clave);
+        }
+    }
+
+    // ========== CONSULTAS ==========
+
+    // Usuarios que comparten al menos una banda con él (sin él mismo)
+    public synchronized ArrayList<String> candidatos(String idUsuario) {
+        ArrayList<String> resultado = new ArrayList<>();
+        Integer usuario = ids.get(idUsuario);
+        if (usuario == null) {
+            return resultado;
+        }
+        long[] claves = clavesBandas(usuario, conjuntos.get(usuario));
+        if (claves == null) {
+            return resultado;
+        }
+        HashSet<Integer> vistos = new HashSet<>();
+        vistos.add(usuario);
+        for (int banda = 0; banda < bandas; banda++) {
+            int[] cubeta = cubetas.get(banda).get(claves[banda]);
+            if (cubeta == null) {
+                continue;
+            }
+            for (int i = 1; i <= cubeta[0]; i++) {
+                int otro = cubeta[i];
+                if (vistos.add(otro)) {
+                    resultado.add(usuarios.get(otro));
+                }
+            }
+        }
+        return resultado;
+    }
+
+    // Fracción de posiciones de la firma que coinciden: estimación del Jaccard
+    public synchronized double estimarJaccard(String idA, String idB) {
+        Integer a = ids.get(idA);
+        Integer b = ids.get(idB);
+        if (a == null || b == null || conjuntos.get(a).length == 0 || conjuntos.get(b).length == 0) {
+            return 0.0;
+        }
+        int iguales = 0;
+        for (int h = 0; h < numHashes; h++) {
+            if (firmas[a * numHashes + h] == firmas[b * numHashes + h]) {
+                iguales++;
+            }
+        }
+        return (double) iguales / numHashes;
+    }
+
+    public synchronized int[] getFirma(String idUsuario) {
+        Integer usuario = ids.get(idUsuario);
+        return usuario == null ? null : Arrays.copyOfRange(firmas, usuario * numHashes, (usuario + 1) * numHashes);
+    }
+
+    // ========== ESTADÍSTICAS ==========
+
+    public synchronized boolean contiene(String idUsuario) {
+        Integer usuario = ids.get(idUsuario);
+        return usuario != null && conjuntos.get(usuario).length > 0;
+    }
+
+    public synchronized int getNumUsuarios() {
+        return ids.size();
+    }
+
+    // Huecos reservados: usuarios actuales más los libres que esperan a uno nuevo
+    public synchronized int getCapacidad() {
+        return usuarios.size();
+    }
+
+    public int getBandas() {
+        return bandas;
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    // Jaccard a partir del cual es más probable ser candidato que no serlo: (1 / bandas)^(1 / filas)
+    public double getUmbralAproximado() {
+        return Math.pow(1.0 / bandas, 1.0 / filas);
+    }
+
+    public synchronized int getNumCubetas() {
+        int total = 0;
+        for (HashMap<Long, int[]> banda : cubetas) {
+            total += banda.size();
+        }
+        return total;
+    }
+
+    public synchronized long getActualizacionesIncrementales() {
+        return actualizacionesIncrementales;
+    }
+
+    public synchronized long getRecalculos() {
+        return recalculos;
+    }
+
+    public synchronized long getBytesFirmas() {
+        return 4L * ids.size() * numHashes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "IndiceMinHash{" +
+                "usuarios=" + ids.size() +
+                ", bandas=" + bandas +
+                ", filas=" + filas +
+                ", cubetas=" + getNumCubetas() +
+                ", incrementales=" + actualizacionesIncrementales +
+                ", recalculos=" + recalculos +
+                '}';
+    }
+}
@@ -0,0 +1,365 @@
+package utilidades;
+
+import modelo.contenido.Cancion;
+import modelo.contenido.Contenido;
+import modelo.contenido.Podcast;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Índice invertido posicional sobre las letras de canciones y las transcripciones
+ * de podcasts. Cada término guarda en qué contenidos aparece y en qué posiciones,
+ * así que una búsqueda solo toca las listas de sus términos y nunca lee los textos
+ * (salvo el de los resultados, para armar el fragmento).
+ * Los términos se pasan a minúsculas y sin tildes ("corazón" y "CORAZON" son lo
+ * mismo). Las palabras vacías del español también se indexan con su posición,
+ * pero solo se usan para comprobar frases ("la vida es bella" exige ese "es" entre
+ * "vida" y "bella"); como palabra suelta no se buscan ni puntúan.
+ */
+public class IndiceTexto {
+
+    private static final int CONTEXTO_FRAGMENTO = 6; // Palabras a cada lado de la coincidencia
+    private static final char TILDE_COMBINABLE = '\u0303'; // La de la ñ una vez descompuesta (NFD)
+
+    private static final Set<String> PALABRAS_VACIAS = new HashSet<>(Arrays.asList(
+            "a", "al", "algo", "ante", "antes", "como", "con", "contra", "cual", "cuando", "de", "del",
+            "desde", "donde", "durante", "e", "el", "ella", "ellas", "ellos", "en", "entre", "era", "es",
+            "esa", "esas", "ese", "eso", "esos", "esta", "estas", "este", "esto", "estos", "fue", "ha",
+            "hasta", "hay", "la", "las", "le", "les", "lo", "los", "mas", "me", "mi", "mis", "muy", "ni",
+            "no", "nos", "o", "otra", "otro", "para", "pero", "por", "porque", "que", "quien", "se",
+            "si", "sin", "sobre", "son", "su", "sus", "tambien", "te", "ti", "tu", "tus", "u", "un",
+            "una", "uno", "unos", "unas", "y", "ya", "yo"
+    ));
+
+    //Atributos:
+    private final HashMap<String, HashMap<String, int[]>> postings; // Término -> (id contenido -> posiciones)
+    private final HashMap<String, Documento> documentos;
+
+    //Constructor
+    public IndiceTexto() {
+        this.postings = new HashMap<>();
+        this.documentos = new HashMap<>();
+    }
+
+    // ========== MANTENIMIENTO ==========
+
+    // Indexa (o vuelve a indexar) la letra o la transcripción del contenido
+    public synchronized void indexar(Contenido contenido) {
+        quitar(contenido);
+        String texto = textoDe(contenido);
+        if (texto == null || texto.isBlank()) {
+            return;
+        }
+
+        HashMap<String, ArrayList<Integer>> posiciones = new HashMap<>();
+        for (Token token : tokenizar(texto)) {
+            posiciones.computeIfAbsent(token.termino, t -> new ArrayList<>()).add(token.posicion);
+        }
+        for (String termino : posiciones.keySet()) {
+            ArrayList<Integer> lista = posiciones.get(termino);
+            int[] arreglo = new int[lista.size()];
+            for (int i = 0; i < arreglo.length; i++) {
+                arreglo[i] = lista.get(i);
+            }
+            postings.computeIfAbsent(termino, t -> new HashMap<>()).put(contenido.getId(), arreglo);
+        }
+        documentos.put(contenido.getId(), new Documento(contenido, new HashSet<>(posiciones.keySet())));
+    }
+
+    public synchronized void quitar(Contenido contenido) {
+        Documento documento = documentos.remove(contenido.getId());
+        if (documento == null) {
+            return;
+        }
+        // Solo toco las listas de los términos que tenía
+        for (String termino : documento.terminos) {
+            HashMap<String, int[]> lista = postings.get(termino);
+            lista.remove(contenido.getId());
+            if (lista.isEmpty()) {
+                postings.remove(termino);
+            }
+        }
+    }
+
+    // ========== BÚSQUEDA ==========
+
+    // Palabras sueltas y frases entre comillas; deben aparecer todas
+    public synchronized ArrayList<ResultadoTexto> buscar(String consulta, int limite) {
+        ArrayList<ResultadoTexto> resultados = new ArrayList<>();
+        List<ArrayList<Token>> clausulas = analizarConsulta(consulta);
+        if (clausulas.isEmpty()) {
+            return resultados;
+        }
+
+        // Parto de la lista más corta (sin contar palabras vacías, que están en casi todo) y filtro con las demás
+        HashMap<String, int[]> menor = null;
+        for (ArrayList<Token> clausula : clausulas) {
+            for (Token token : clausula) {
+                HashMap<String, int[]> lista = postings.get(token.termino);
+                if (lista == null) {
+                    return resultados;
+                }
+                if (!token.vacia && (menor == null || lista.size() < menor.size())) {
+                    menor = lista;
+                }
+            }
+        }
+
+        // Primero puntúo y ordeno; el fragmento (que vuelve a leer el texto) solo para los que se devuelven
+        ArrayList<Coincidencia> coincidencias = new ArrayList<>();
+        int total = documentos.size();
+        for (String idContenido : menor.keySet()) {
+            double puntuacion = 0.0;
+            int primeraCoincidencia = -1;
+            boolean cumple = true;
+            for (ArrayList<Token> clausula : clausulas) {
+                int coincidencia = buscarClausula(clausula, idContenido);
+                if (coincidencia < 0) {
+                    cumple = false;
+                    break;
+                }
+                if (primeraCoincidencia < 0 || coincidencia < primeraCoincidencia) {
+                    primeraCoincidencia = coincidencia;
+                }
+                for (Token token : clausula) {
+                    if (token.vacia) {
+                        continue;
+                    }
+                    // tf-idf: frecuencia en el texto por rareza en el índice
+                    HashMap<String, int[]> lista = postings.get(token.termino);
+                    puntuacion += lista.get(idContenido).length * Math.log(1.0 + (double) total / lista.size());
+                }
+            }
+            if (cumple) {
+                coincidencias.add(new Coincidencia(documentos.get(idContenido).contenido, puntuacion, primeraCoincidencia));
+            }
+        }
+
+        coincidencias.sort((a, b) -> {
+            int comparacion = Double.compare(b.puntuacion, a.puntuacion);
+            return comparacion != 0 ? comparacion : a.contenido.getTitulo().compareToIgnoreCase(b.contenido.getTitulo());
+        });
+        int cantidad = limite > 0 ? Math.min(limite, coincidencias.size()) : coincidencias.size();
+        for (int i = 0; i < cantidad; i++) {
+            Coincidencia coincidencia = coincidencias.get(i);
+            resultados.add(new ResultadoTexto(coincidencia.contenido, coincidencia.puntuacion,
+                    fragmento(coincidencia.contenido, coincidencia.posicion, clausulas)));
+        }
+        return resultados;
+    }
+
+    public synchronized int getNumDocumentos() {
+        return documentos.size();
+    }
+
+    public synchronized int getNumTerminos() {
+        return postings.size();
+    }
+
+    public synchronized boolean estaIndexado(Contenido contenido) {
+        return documentos.containsKey(contenido.getId());
+    }
+
+    // ========== AUXILIARES ==========
+
+    // Posición donde empieza la primera aparición de la cláusula en el contenido, o -1
+    private int buscarClausula(ArrayList<Token> clausula, String idContenido) {
+        // Me anclo en la primera palabra no vacía: sus posiciones son muchas menos
+        Token ancla = clausula.get(0);
+        for (Token token : clausula) {
+            if (!token.vacia) {
+                ancla = token;
+                break;
+            }
+        }
+        int[] apariciones = postings.get(ancla.termino).get(idContenido);
+        if (apariciones == null) {
+            return -1;
+        }
+        int desplazamiento = ancla.posicion - clausula.get(0).posicion;
+        for (int aparicion : apariciones) {
+            int inicio = aparicion - desplazamiento;
+            boolean encaja = inicio >= 0;
+            for (int i = 0; i < clausula.size() && encaja; i++) {
+                Token token = clausula.get(i);
+                if (token == ancla) {
+                    continue;
+                }
+                int[] posiciones = postings.get(token.termino).get(idContenido);
+                // Cada término, vacío o no, debe estar a la misma distancia que en la consulta
+                encaja = posiciones != null
+                        && Arrays.binarySearch(posiciones, inicio + token.posicion - clausula.get(0).posicion) >= 0;
+            }
+            if (encaja) {
+                return inicio;
+            }
+        }
+        return -1;
+    }
+
+    // Cada frase entre comillas es una cláusula; cada palabra suelta, otra
+    private List<ArrayList<Token>> analizarConsulta(String consulta) {
+        ArrayList<ArrayList<Token>> clausulas = new ArrayList<>();
+        if (consulta == null) {
+            return clausulas;
+        }
+        String[] partes = consulta.split("\"", -1);
+        for (int i = 0; i < partes.length; i++) {
+            ArrayList<Token> tokens = tokenizar(partes[i]);
+            if (i % 2 == 1) {
+                // Dentro de comillas: una sola cláusula con las posiciones relativas, palabras vacías
+                // incluidas; una frase solo de palabras vacías no filtra nada
+                if (tokens.stream().anyMatch(token -> !token.vacia)) {
+                    clausulas.add(tokens);
+                }
+            } else {
+                for (Token token : tokens) {
+                    if (!token.vacia) {
+                        ArrayList<Token> sola = new ArrayList<>();
+                        sola.add(token);
+                        clausulas.add(sola);
+                    }
+                }
+            }
+        }
+        return clausulas;
+    }
+
+    // Vuelve a trocear solo el texto del resultado y marca los términos buscados
+    private String fragmento(Contenido contenido, int posicion, List<ArrayList<Token>> clausulas) {
+        String texto = textoDe(contenido);
+        ArrayList<Token> tokens = tokenizar(texto);
+        if (tokens.isEmpty() || posicion < 0) {
+            return "";
+        }
+        HashSet<String> buscados = new HashSet<>();
+        for (ArrayList<Token> clausula : clausulas) {
+            for (Token token : clausula) {
+                if (!token.vacia) {
+                    buscados.add(token.termino);
+                }
+            }
+        }
+
+        int desde = Math.max(0, posicion - CONTEXTO_FRAGMENTO);
+        int hasta = Math.min(tokens.size() - 1, posicion + CONTEXTO_FRAGMENTO);
+        StringBuilder fragmento = new StringBuilder();
+        if (desde > 0) {
+            fragmento.append("...");
+        }
+        int cursor = tokens.get(desde).inicio;
+        for (int i = desde; i <= hasta; i++) {
+            Token token = tokens.get(i);
+            fragmento.append(texto, cursor, token.inicio);
+            if (buscados.contains(token.termino)) {
+                fragmento.append('[').append(texto, token.inicio, token.fin).append(']');
+            } else {
+                fragmento.append(texto, token.inicio, token.fin);
+            }
+            cursor = token.fin;
+        }
+        if (hasta < tokens.size() - 1) {
+            fragmento.append("...");
+        }
+        // Los saltos de línea de la letra se leen mejor como " / "
+        return fragmento.toString().replaceAll("\\s*\\R\\s*", " / ");
+    }
+
+    private static String textoDe(Contenido contenido) {
+        if (contenido instanceof Cancion) {
+            return ((Cancion) contenido).getLetra();
+        }
+        if (contenido instanceof Podcast) {
+            return ((Podcast) contenido).getTranscripcion();
+        }
+        return null;
+    }
+
+    // Palabras (letras y dígitos) con su posición y su rango en el texto original
+    private static ArrayList<Token> tokenizar(String texto) {
+        ArrayList<Token> tokens = new ArrayList<>();
+        if (texto == null) {
+            return tokens;
+        }
+        int posicion = 0;
+        int i = 0;
+        while (i < texto.length()) {
+            if (!Character.isLetterOrDigit(texto.charAt(i))) {
+                i++;
+                continue;
+            }
+            int inicio = i;
+            while (i < texto.length() && (Character.isLetterOrDigit(texto.charAt(i)) || Character.getType(texto.charAt(i)) == Character.NON_SPACING_MARK)) {
+                i++;
+            }
+            String termino = normalizar(texto.substring(inicio, i));
+            tokens.add(new Token(termino, posicion++, inicio, i, PALABRAS_VACIAS.contains(termino)));
+        }
+        return tokens;
+    }
+
+    private static String normalizar(String palabra) {
+        // Minúsculas y sin marcas diacríticas (tildes, diéresis), salvo la ñ: "año" no es "ano"
+        String descompuesta = Normalizer.normalize(palabra.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder limpia = new StringBuilder(descompuesta.length());
+        for (int i = 0; i < descompuesta.length(); i++) {
+            char c = descompuesta.charAt(i);
+            int ultima = limpia.length() - 1;
+            if (c == TILDE_COMBINABLE && ultima >= 0 && limpia.charAt(ultima) == 'n') {
+                // NFD separa la ñ en n + tilde: la vuelvo a juntar
+                limpia.setCharAt(ultima, 'ñ');
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                limpia.append(c);
+            }
+        }
+        return limpia.toString();
+    }
+
+    // Palabra del texto: término normalizado, posición y rango de caracteres
+    private static class Token {
+        private final String termino;
+        private final int posicion;
+        private final int inicio;
+        private final int fin;
+        private final boolean vacia;
+
+        private Token(String termino, int posicion, int inicio, int fin, boolean vacia) {
+            this.termino = termino;
+            this.posicion = posicion;
+            this.inicio = inicio;
+            this.fin = fin;
+            this.vacia = vacia;
+        }
+    }
+
+    // Resultado ya puntuado al que todavía no se le armó el fragmento
+    private static class Coincidencia {
+        private final Contenido contenido;
+        private final double puntuacion;
+        private final int posicion;
+
+        private Coincidencia(Contenido contenido, double puntuacion, int posicion) {
+            this.contenido = contenido;
+            this.puntuacion = puntuacion;
+            this.posicion = posicion;
+        }
+    }
+
+    // Contenido indexado y los términos que aportó (para poder quitarlo)
+    private static class Documento {
+        private final Contenido contenido;
+        private final HashSet<String> terminos;
+
+        private Documento(Contenido contenido, HashSet<String> terminos) {
+            this.contenido = contenido;
+            this.terminos = terminos;
+        }
+    }
+}
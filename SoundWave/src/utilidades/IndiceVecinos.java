@@ -0,0 +1,601 @@
+package utilidades;
+
+import modelo.contenido.Contenido;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice aproximado de vecinos más cercanos (HNSW) sobre los vectores de los
+ * contenidos. Es un grafo por niveles: el nivel 0 tiene todos los contenidos y
+ * cada nivel superior una fracción cada vez menor, así que una búsqueda baja de
+ * arriba a abajo acercándose a la consulta y solo explora el nivel 0 alrededor
+ * de ella. La cercanía es el coseno: los vectores se guardan normalizados y
+ * basta su producto escalar. efBusqueda fija cuántos candidatos se exploran: más
+ * es más exacto y más lento. Los vectores van seguidos en un float[] y los
+ * enlaces de cada nodo en int[] con el número de vecinos en la posición 0.
+ * Cada búsqueda lleva sus propios nodos visitados, así que las consultas van en
+ * paralelo bajo el cerrojo de lectura y solo las inserciones toman el de escritura.
+ */
+public class IndiceVecinos {
+
+    private static final int M_DEFAULT = 16;
+    private static final int EF_CONSTRUCCION_DEFAULT = 100;
+    private static final int EF_BUSQUEDA_DEFAULT = 64;
+    private static final int CAPACIDAD_INICIAL = 64;
+    private static final int FORMATO_ARCHIVO = 1;
+
+    //Atributos:
+    private final int dimension;
+    private final int m;                // Vecinos por nodo en los niveles superiores (el doble en el 0)
+    private final int efConstruccion;
+    private volatile int efBusqueda;
+    private final double factorNivel;   // 1 / ln(m): reparto geométrico de niveles
+    private final Random aleatorio;
+    private HashMap<String, Integer> ids;
+    private ArrayList<String> claves;
+    private ArrayList<Contenido> contenidos;   // null si al cargar no estaba en el catálogo
+    private float[] vectores;
+    private int[][][] enlaces;                 // nodo -> nivel -> {cantidad, vecinos...}
+    private int numNodos;
+    private int puntoEntrada;
+    private int nivelMaximo;
+    private final ReentrantReadWriteLock cerrojo;
+
+    //Constructores
+    public IndiceVecinos(int dimension) {
+        this(dimension, M_DEFAULT, EF_CONSTRUCCION_DEFAULT, 42L);
+    }
+
+    public IndiceVecinos(int dimension, int m, int efConstruccion, long semilla) {
+        this.dimension = Math.max(dimension, 1);
+        this.m = Math.max(m, 2);
+        this.efConstruccion = Math.max(efConstruccion, this.m);
+        this.efBusqueda = EF_BUSQUEDA_DEFAULT;
+        this.factorNivel = 1.0 / Math.log(this.m);
+        this.aleatorio = new Random(semilla);
+        this.ids = new HashMap<>();
+        this.claves = new ArrayList<>();
+        this.contenidos = new ArrayList<>();
+        this.vectores = new float[CAPACIDAD_INICIAL * this.dimension];
+        this.enlaces = new int[CAPACIDAD_INICIAL][][];
+        this.numNodos = 0;
+        this.puntoEntrada = -1;
+        this.nivelMaximo = -1;
+        this.cerrojo = new ReentrantReadWriteLock();
+    }
+
+    // ========== INSERCIÓN ==========
+
+    // Añade un contenido nuevo o, si ya estaba, cambia su vector y rehace sus enlaces
+    public void agregar(Contenido contenido, float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("El vector debe tener " + dimension + " componentes");
+        }
+        cerrojo.writeLock().lock();
+        try {
+            insertar(contenido, normalizado(vector));
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    private void insertar(Contenido contenido, float[] vector) {
+        Integer existente = ids.get(contenido.getId());
+        if (existente != null) {
+            contenidos.set(existente, contenido);
+            System.arraycopy(vector, 0, vectores, existente * dimension, dimension);
+            enlazar(existente, enlaces[existente].length - 1);
+            return;
+        }
+
+        int nodo = numNodos;
+        asegurarCapacidad(nodo + 1);
+        int nivel = (int) (-Math.log(1.0 - aleatorio.nextDouble()) * factorNivel);
+        ids.put(contenido.getId(), nodo);
+        claves.add(contenido.getId());
+        contenidos.add(contenido);
+        System.arraycopy(vector, 0, vectores, nodo * dimension, dimension);
+        enlaces[nodo] = new int[nivel + 1][];
+        for (int l = 0; l <= nivel; l++) {
+            enlaces[nodo][l] = new int[maxVecinos(l) + 1];
+        }
+        numNodos++;
+
+        if (puntoEntrada < 0) {
+            puntoEntrada = nodo;
+            nivelMaximo = nivel;
+            return;
+        }
+        enlazar(nodo, nivel);
+        if (nivel > nivelMaximo) {
+            puntoEntrada = nodo;
+            nivelMaximo = nivel;
+        }
+    }
+
+    // Busca los vecinos del nodo en cada uno de sus niveles y crea los enlaces en los dos sentidos
+    private void enlazar(int nodo, int nivel) {
+        if (nodo == puntoEntrada && numNodos == 1) {
+            return;
+        }
+        int base = nodo * dimension;
+        int actual = puntoEntrada == nodo ? cualquierOtro(nodo) : puntoEntrada;
+        // Por encima de su nivel solo bajo con avance voraz
+        for (int l = nivelMaximo; l > nivel; l--) {
+            actual = voraz(vectores, base, actual, l);
+        }
+        for (int l = Math.min(nivel, nivelMaximo); l >= 0; l--) {
+            PriorityQueue<long[]> candidatos = buscarEnNivel(vectores, base, actual, efConstruccion, l, nodo);
+            int[] elegidos = seleccionar(candidatos, m);
+            int[] propios = enlaces[nodo][l];
+            propios[0] = elegidos.length;
+            System.arraycopy(elegidos, 0, propios, 1, elegidos.length);
+            for (int vecino : elegidos) {
+                conectar(vecino, nodo, l);
+            }
+            if (elegidos.length > 0) {
+                actual = elegidos[0];
+            }
+        }
+    }
+
+    private int cualquierOtro(int nodo) {
+        return nodo == 0 ? 1 : 0;
+    }
+
+    // Añade 'nuevo' a los vecinos de 'nodo'; si ya no caben, vuelvo a elegir entre todos
+    private void conectar(int nodo, int nuevo, int nivel) {
+        if (nivel >= enlaces[nodo].length) {
+            return;
+        }
+        int[] lista = enlaces[nodo][nivel];
+        int cantidad = lista[0];
+        for (int i = 1; i <= cantidad; i++) {
+            if (lista[i] == nuevo) {
+                return;
+            }
+        }
+        if (cantidad < lista.length - 1) {
+            lista[cantidad + 1] = nuevo;
+            lista[0] = cantidad + 1;
+            return;
+        }
+        int base = nodo * dimension;
+        ArrayList<long[]> candidatos = new ArrayList<>(cantidad + 1);
+        candidatos.add(par(distancia(vectores, base, nuevo), nuevo));
+        for (int i = 1; i <= cantidad; i++) {
+            candidatos.add(par(distancia(vectores, base, lista[i]), lista[i]));
+        }
+        int[] elegidos = seleccionar(candidatos, lista.length - 1);
+        lista[0] = elegidos.length;
+        System.arraycopy(elegidos, 0, lista, 1, elegidos.length);
+    }
+
+    // Heurística de HNSW: de más cercano a más lejano, me quedo con un candidato solo si
+    // está más cerca de la consulta que de los ya elegidos; así los enlaces apuntan en
+    // direcciones distintas. Si sobran huecos los lleno con los descartados más cercanos
+    private int[] seleccionar(Collection<long[]> candidatos, int maximo) {
+        long[][] ordenados = candidatos.toArray(new long[0][]);
+        Arrays.sort(ordenados, IndiceVecinos::compararDistancia);
+        int[] elegidos = new int[Math.min(maximo, ordenados.length)];
+        int numElegidos = 0;
+        boolean[] tomado = new boolean[ordenados.length];
+        for (int i = 0; i < ordenados.length && numElegidos < elegidos.length; i++) {
+            int candidato = (int) ordenados[i][1];
+            float distanciaConsulta = Float.intBitsToFloat((int) ordenados[i][0]);
+            boolean diverso = true;
+            for (int j = 0; j < numElegidos && diverso; j++) {
+                diverso = distancia(vectores, candidato * dimension, elegidos[j]) >= distanciaConsulta;
+            }
+            if (diverso) {
+                elegidos[numElegidos++] = candidato;
+                tomado[i] = true;
+            }
+        }
+        for (int i = 0; i < ordenados.length && numElegidos < elegidos.length; i++) {
+            if (!tomado[i]) {
+                elegidos[numElegidos++] = (int) ordenados[i][1];
+            }
+        }
+        return elegidos;
+    }
+
+    private int maxVecinos(int nivel) {
+        return nivel == 0 ? 2 * m : m;
+    }
+
+    private void asegurarCapacidad(int nodos) {
+        if (nodos <= enlaces.length) {
+            return;
+        }
+        int nueva = Math.max(nodos, enlaces.length * 2);
+        vectores = Arrays.copyOf(vectores, nueva * dimension);
+        enlaces = Arrays.copyOf(enlaces, nueva);
+    }
+
+    // ========== BÚSQUEDA ==========
+
+    // Los k contenidos disponibles más parecidos (por coseno) a la consulta, sin los excluidos
+    public ArrayList<Contenido> buscar(float[] consulta, int k, Collection<Contenido> excluidos) {
+        if (k <= 0 || consulta == null || consulta.length != dimension) {
+            return new ArrayList<>();
+        }
+        float[] normalizada = normalizado(consulta);
+        cerrojo.readLock().lock();
+        try {
+            return buscarNormalizada(normalizada, k, excluidos);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    private ArrayList<Contenido> buscarNormalizada(float[] consulta, int k, Collection<Contenido> excluidos) {
+        ArrayList<Contenido> resultado = new ArrayList<>();
+        if (numNodos == 0) {
+            return resultado;
+        }
+        HashSet<Contenido> saltar = excluidos != null ? new HashSet<>(excluidos) : new HashSet<>();
+        int actual = puntoEntrada;
+        for (int l = nivelMaximo; l > 0; l--) {
+            actual = voraz(consulta, 0, actual, l);
+        }
+
+        // Si el filtro deja menos de k, repito con más candidatos hasta recorrer el índice entero
+        int ef = Math.max(efBusqueda, k);
+        while (true) {
+            PriorityQueue<long[]> candidatos = buscarEnNivel(consulta, 0, actual, ef, 0, -1);
+            long[][] ordenados = candidatos.toArray(new long[0][]);
+            Arrays.sort(ordenados, IndiceVecinos::compararDistancia);
+            resultado.clear();
+            for (long[] candidato : ordenados) {
+                Contenido contenido = contenidos.get((int) candidato[1]);
+                if (contenido != null && contenido.isDisponible() && !saltar.contains(contenido)) {
+                    resultado.add(contenido);
+                    if (resultado.size() == k) {
+                        return resultado;
+                    }
+                }
+            }
+            if (ef >= numNodos) {
+                return resultado;
+            }
+            ef = Math.min(ef * 2, numNodos);
+        }
+    }
+
+    // Recorrido completo, para comparar la precisión del índice
+    public ArrayList<Contenido> buscarExacto(float[] consulta, int k, Collection<Contenido> excluidos) {
+        HashSet<Contenido> saltar = excluidos != null ? new HashSet<>(excluidos) : new HashSet<>();
+        float[] normalizada = normalizado(consulta);
+        PriorityQueue<long[]> mejores = new PriorityQueue<>((a, b) -> compararDistancia(b, a));
+        cerrojo.readLock().lock();
+        try {
+            for (int nodo = 0; nodo < numNodos; nodo++) {
+                Contenido contenido = contenidos.get(nodo);
+                if (contenido == null || !contenido.isDisponible() || saltar.contains(contenido)) {
+                    continue;
+                }
+                mejores.add(par(distancia(normalizada, 0, nodo), nodo));
+                if (mejores.size() > k) {
+                    mejores.poll();
+                }
+            }
+            ArrayList<Contenido> resultado = new ArrayList<>();
+            while (!mejores.isEmpty()) {
+                resultado.add(0, contenidos.get((int) mejores.poll()[1]));
+            }
+            return resultado;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    // Los más parecidos a un contenido del índice (sin él mismo)
+    public ArrayList<Contenido> buscarSimilares(Contenido contenido, int k) {
+        cerrojo.readLock().lock();
+        try {
+            Integer nodo = ids.get(contenido.getId());
+            if (nodo == null || k <= 0) {
+                return new ArrayList<>();
+            }
+            float[] vector = Arrays.copyOfRange(vectores, nodo * dimension, (nodo + 1) * dimension);
+            ArrayList<Contenido> excluido = new ArrayList<>();
+            excluido.add(contenido);
+            return buscarNormalizada(vector, k, excluido);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    // Avance voraz en un nivel: me muevo al vecino más cercano mientras mejore
+    private int voraz(float[] consulta, int base, int actual, int nivel) {
+        float mejor = distancia(consulta, base, actual);
+        boolean mejora = true;
+        while (mejora) {
+            mejora = false;
+            if (nivel >= enlaces[actual].length) {
+                return actual;
+            }
+            int[] lista = enlaces[actual][nivel];
+            for (int i = 1; i <= lista[0]; i++) {
+                float d = distancia(consulta, base, lista[i]);
+                if (d < mejor) {
+                    mejor = d;
+                    actual = lista[i];
+                    mejora = true;
+                }
+            }
+        }
+        return actual;
+    }
+
+    // Búsqueda en anchura acotada a 'ef' resultados. Devuelve un montículo con el más lejano
+    // arriba; cada par guarda la distancia (bits de float) y el nodo
+    private PriorityQueue<long[]> buscarEnNivel(float[] consulta, int base, int entrada, int ef, int nivel, int ignorar) {
+        BitSet visitados = new BitSet(numNodos); // De esta búsqueda: otras pueden ir a la vez
+        PriorityQueue<long[]> porVisitar = new PriorityQueue<>(IndiceVecinos::compararDistancia);
+        PriorityQueue<long[]> resultado = new PriorityQueue<>(ef + 1, (a, b) -> compararDistancia(b, a));
+        long[] inicial = par(distancia(consulta, base, entrada), entrada);
+        visitados.set(entrada);
+        porVisitar.add(inicial);
+        if (entrada != ignorar) {
+            resultado.add(inicial);
+        }
+
+        while (!porVisitar.isEmpty()) {
+            long[] cercano = porVisitar.poll();
+            if (resultado.size() >= ef && compararDistancia(cercano, resultado.peek()) > 0) {
+                break;
+            }
+            int nodo = (int) cercano[1];
+            if (nivel >= enlaces[nodo].length) {
+                continue;
+            }
+            int[] lista = enlaces[nodo][nivel];
+            for (int i = 1; i <= lista[0]; i++) {
+                int vecino = lista[i];
+                if (visitados.get(vecino)) {
+                    continue;
+                }
+                visitados.set(vecino);
+                long[] candidato = par(distancia(consulta, base, vecino), vecino);
+                if (resultado.size() < ef || compararDistancia(candidato, resultado.peek()) < 0) {
+                    porVisitar.add(candidato);
+                    if (vecino != ignorar) {
+                        resultado.add(candidato);
+                        if (resultado.size() > ef) {
+                            resultado.poll();
+                        }
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    // Menos es más cerca: el coseno con el signo cambiado (los dos vectores están normalizados)
+    private float distancia(float[] consulta, int base, int nodo) {
+        int otro = nodo * dimension;
+        float producto = 0f;
+        for (int a = 0; a < dimension; a++) {
+            producto += consulta[base + a] * vectores[otro + a];
+        }
+        return -producto;
+    }
+
+    // Copia de norma 1; el vector nulo se queda como está
+    private static float[] normalizado(float[] vector) {
+        double norma = 0.0;
+        for (float componente : vector) {
+            norma += componente * componente;
+        }
+        float[] copia = vector.clone();
+        if (norma > 0) {
+            float escala = (float) (1.0 / Math.sqrt(norma));
+            for (int a = 0; a < copia.length; a++) {
+                copia[a] *= escala;
+            }
+        }
+        return copia;
+    }
+
+    private static long[] par(float distancia, int nodo) {
+        return new long[]{Float.floatToIntBits(distancia) & 0xFFFFFFFFL, nodo};
+    }
+
+    // Orden de más cerca a más lejos (a igual distancia, por número de nodo)
+    private static int compararDistancia(long[] a, long[] b) {
+        int porDistancia = Float.compare(Float.intBitsToFloat((int) a[0]), Float.intBitsToFloat((int) b[0]));
+        return porDistancia != 0 ? porDistancia : Long.compare(a[1], b[1]);
+    }
+
+    // ========== PERSISTENCIA ==========
+
+    // Formato binario: cabecera, ids, vectores y solo los enlaces usados de cada nivel
+    public void guardar(Path archivo) throws IOException {
+        cerrojo.readLock().lock();
+        try {
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+                salida.writeInt(FORMATO_ARCHIVO);
+                salida.writeInt(dimension);
+                salida.writeInt(m);
+                salida.writeInt(efConstruccion);
+                salida.writeInt(efBusqueda);
+                salida.writeInt(numNodos);
+                salida.writeInt(puntoEntrada);
+                salida.writeInt(nivelMaximo);
+                for (int nodo = 0; nodo < numNodos; nodo++) {
+                    salida.writeUTF(claves.get(nodo));
+                    salida.writeByte(enlaces[nodo].length);
+                    for (int a = 0; a < dimension; a++) {
+                        salida.writeFloat(vectores[nodo * dimension + a]);
+                    }
+                    for (int[] lista : enlaces[nodo]) {
+                        salida.writeShort(lista[0]);
+                        for (int i = 1; i <= lista[0]; i++) {
+                            salida.writeInt(lista[i]);
+                        }
+                    }
+                }
+            }
+            // Reemplazo el archivo de una vez para no dejarlo a medias si algo falla
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    // Los ids que no estén en el catálogo siguen en el grafo (para no romper caminos) pero no se devuelven
+    public static IndiceVecinos cargar(Path archivo, Collection<Contenido> catalogo) throws IOException {
+        HashMap<String, Contenido> porId = new HashMap<>();
+        for (Contenido contenido : catalogo) {
+            porId.put(contenido.getId(), contenido);
+        }
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            int formato = entrada.readInt();
+            if (formato != FORMATO_ARCHIVO) {
+                throw new IOException("Formato de índice de vecinos no soportado: " + formato);
+            }
+            int dimension = entrada.readInt();
+            int m = entrada.readInt();
+            int efConstruccion = entrada.readInt();
+            IndiceVecinos indice = new IndiceVecinos(dimension, m, efConstruccion, 42L);
+            indice.efBusqueda = entrada.readInt();
+            int nodos = entrada.readInt();
+            indice.asegurarCapacidad(nodos);
+            indice.puntoEntrada = entrada.readInt();
+            indice.nivelMaximo = entrada.readInt();
+            for (int nodo = 0; nodo < nodos; nodo++) {
+                String clave = entrada.readUTF();
+                indice.ids.put(clave, nodo);
+                indice.claves.add(clave);
+                indice.contenidos.add(porId.get(clave));
+                int niveles = entrada.readUnsignedByte();
+                float[] vector = new float[dimension];
+                for (int a = 0; a < dimension; a++) {
+                    vector[a] = entrada.readFloat();
+                }
+                // Ya se guardan normalizados; normalizar otra vez no los cambia
+                System.arraycopy(normalizado(vector), 0, indice.vectores, nodo * dimension, dimension);
+                indice.enlaces[nodo] = new int[niveles][];
+                for (int l = 0; l < niveles; l++) {
+                    int[] lista = new int[indice.maxVecinos(l) + 1];
+                    lista[0] = entrada.readUnsignedShort();
+                    for (int i = 1; i <= lista[0]; i++) {
+                        lista[i] = entrada.readInt();
+                    }
+                    indice.enlaces[nodo][l] = lista;
+                }
+            }
+            indice.numNodos = nodos;
+            return indice;
+        }
+    }
+
+    // ========== GETTERS Y SETTERS ==========
+
+    public boolean contiene(Contenido contenido) {
+        cerrojo.readLock().lock();
+        try {
+            return ids.containsKey(contenido.getId());
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public float[] getVector(Contenido contenido) {
+        cerrojo.readLock().lock();
+        try {
+            Integer nodo = ids.get(contenido.getId());
+            return nodo == null ? null : Arrays.copyOfRange(vectores, nodo * dimension, (nodo + 1) * dimension);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public int getNumElementos() {
+        cerrojo.readLock().lock();
+        try {
+            return numNodos;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public int getEfConstruccion() {
+        return efConstruccion;
+    }
+
+    public int getEfBusqueda() {
+        return efBusqueda;
+    }
+
+    // Más candidatos = más precisión y más latencia
+    public void setEfBusqueda(int efBusqueda) {
+        this.efBusqueda = Math.max(efBusqueda, 1);
+    }
+
+    public int getNivelMaximo() {
+        cerrojo.readLock().lock();
+        try {
+            return nivelMaximo;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public long getTotalEnlaces() {
+        cerrojo.readLock().lock();
+        try {
+            long total = 0;
+            for (int nodo = 0; nodo < numNodos; nodo++) {
+                for (int[] lista : enlaces[nodo]) {
+                    total += lista[0];
+                }
+            }
+            return total;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IndiceVecinos{" +
+                "elementos=" + numNodos +
+                ", dimension=" + dimension +
+                ", m=" + m +
+                ", niveles=" + (nivelMaximo + 1) +
+                ", enlaces=" + getTotalEnlaces() +
+                ", efBusqueda=" + efBusqueda +
+                '}';
+    }
+}
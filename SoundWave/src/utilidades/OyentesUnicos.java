@@ -0,0 +1,144 @@
+package utilidades;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+/**
+ * Oyentes distintos de un artista, por día y por mes, con HyperLogLog.
+ * Los sketches diarios se guardan solo los últimos DIAS_VENTANA días y se
+ * fusionan al consultarlos, así que no se puede pedir un periodo más largo;
+ * los mensuales se mantienen aparte para no tener que reconstruir meses completos. Los sketches empiezan
+ * dispersos, así que un día o un mes con pocos oyentes ocupa unos pocos bytes
+ * y no los 4 KB del sketch denso.
+ */
+public class OyentesUnicos {
+
+    public static final int DIAS_VENTANA = 28;
+    private static final int MESES_RETENIDOS = 13;
+
+    //Atributos:
+    private final int precision;
+    private final TreeMap<Long, HyperLogLog> porDia;     // Día desde la época -> sketch
+    private final HashMap<YearMonth, HyperLogLog> porMes;
+    private long ultimoDia;                              // Último día con escuchas
+    private YearMonth mesDeUltimoDia;                    // Caché para no calcular el mes en cada escucha
+
+    //Constructores
+    public OyentesUnicos() {
+        this(HyperLogLog.PRECISION_DEFAULT);
+    }
+
+    public OyentesUnicos(int precision) {
+        this.precision = precision;
+        this.porDia = new TreeMap<>();
+        this.porMes = new HashMap<>();
+        this.ultimoDia = Long.MIN_VALUE;
+    }
+
+    // ========== ACTUALIZACIÓN ==========
+
+    public synchronized void registrar(String idUsuario, long diaEpoch) {
+        if (idUsuario == null) {
+            return;
+        }
+        YearMonth mes = mesDe(diaEpoch);
+        porDia.computeIfAbsent(diaEpoch, dia -> new HyperLogLog(precision)).agregar(idUsuario);
+        porMes.computeIfAbsent(mes, m -> new HyperLogLog(precision)).agregar(idUsuario);
+
+        if (diaEpoch > ultimoDia) {
+            ultimoDia = diaEpoch;
+            descartarAntiguos();
+        }
+    }
+
+    // ========== CONSULTAS ==========
+
+    public synchronized long estimarMes(YearMonth mes) {
+        HyperLogLog sketch = porMes.get(mes);
+        return sketch != null ? sketch.estimar() : 0;
+    }
+
+    // Solo se guardan DIAS_VENTANA días, así que 'dias' debe estar entre 1 y DIAS_VENTANA
+    public synchronized long estimarUltimosDias(long hoy, int dias) {
+        return sketchUltimosDias(hoy, dias).estimar();
+    }
+
+    // Ventana móvil de DIAS_VENTANA días que termina hoy (sin escuchas recientes da 0)
+    public synchronized long estimarVentana(long hoy) {
+        return estimarUltimosDias(hoy, DIAS_VENTANA);
+    }
+
+    // Copias fusionables, para totales de varios artistas
+    public synchronized HyperLogLog sketchMes(YearMonth mes) {
+        HyperLogLog sketch = porMes.get(mes);
+        return sketch != null ? sketch.copia() : new HyperLogLog(precision);
+    }
+
+    public synchronized HyperLogLog sketchUltimosDias(long hoy, int dias) {
+        comprobarDias(dias);
+        HyperLogLog ventana = new HyperLogLog(precision);
+        for (HyperLogLog dia : porDia.subMap(hoy - dias + 1, true, hoy, true).values()) {
+            ventana.fusionar(dia);
+        }
+        return ventana;
+    }
+
+    public synchronized boolean estaVacio() {
+        return porMes.isEmpty();
+    }
+
+    // Memoria ocupada por todos los sketches retenidos
+    public synchronized long getTamanoBytes() {
+        long total = 0;
+        for (HyperLogLog sketch : porDia.values()) {
+            total += sketch.getTamanoBytes();
+        }
+        for (HyperLogLog sketch : porMes.values()) {
+            total += sketch.getTamanoBytes();
+        }
+        return total;
+    }
+
+    public synchronized long getUltimoDia() {
+        return ultimoDia;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    // ========== AUXILIARES ==========
+
+    private YearMonth mesDe(long diaEpoch) {
+        if (diaEpoch == ultimoDia && mesDeUltimoDia != null) {
+            return mesDeUltimoDia;
+        }
+        YearMonth mes = YearMonth.from(LocalDate.ofEpochDay(diaEpoch));
+        if (diaEpoch >= ultimoDia) {
+            mesDeUltimoDia = mes;
+        }
+        return mes;
+    }
+
+    private static void comprobarDias(int dias) {
+        // Un periodo más largo que lo retenido daría una cifra más baja de la real sin avisar
+        if (dias < 1 || dias > DIAS_VENTANA) {
+            throw new IllegalArgumentException("El periodo debe estar entre 1 y " + DIAS_VENTANA + " días");
+        }
+    }
+
+    private void descartarAntiguos() {
+        // Solo guardo los días que pueden caer en una ventana de DIAS_VENTANA
+        porDia.headMap(ultimoDia - DIAS_VENTANA + 1).clear();
+        YearMonth limite = mesDeUltimoDia.minusMonths(MESES_RETENIDOS);
+        Iterator<YearMonth> meses = porMes.keySet().iterator();
+        while (meses.hasNext()) {
+            if (meses.next().isBefore(limite)) {
+                meses.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package utilidades;
+
+import interfaces.Reloj;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Posición de escucha y marca de terminado de cada par (usuario, episodio).
+ * Los ids de usuario y de episodio se traducen a enteros y cada par se guarda
+ * con una clave long en una tabla de direccionamiento abierto sobre arreglos
+ * primitivos, sin un objeto por entrada. Los latidos de los clientes solo
+ * cambian memoria: un par actualizado muchas veces se escribe una sola vez en
+ * el siguiente volcado, que se hace cada cierto tiempo o al acumular muchos
+ * cambios. Cada usuario tiene además una lista enlazada de sus episodios a
+ * medias, del más reciente al más antiguo, para "Seguir escuchando" en O(k).
+ * Un volcado que falla a medias recorta el archivo a como estaba y deja los
+ * cambios pendientes; al cargar, un último registro cortado por una caída se
+ * descarta igualmente. Los latidos con una marca anterior a la guardada se ignoran.
+ */
+public class PosicionesReproduccion {
+
+    private static final int CAPACIDAD_INICIAL = 64;
+    private static final int MAXIMO_PENDIENTES = 4096;
+    private static final double UMBRAL_COMPLETADO = 0.95; // Escuchado el 95% se da por terminado
+    private static final int FORMATO_ARCHIVO = 1;
+
+    // Tipos de registro del archivo
+    private static final byte REGISTRO_USUARIO = 0;
+    private static final byte REGISTRO_EPISODIO = 1;
+    private static final byte REGISTRO_POSICION = 2;
+
+    // Bits de estado de cada entrada
+    private static final byte COMPLETADO = 1;
+    private static final byte SUCIO = 2;
+
+    //Atributos:
+    private HashMap<String, Integer> usuarios;
+    private HashMap<String, Integer> episodios;
+    private ArrayList<String> idsUsuario;
+    private ArrayList<String> idsEpisodio;
+
+    // Entradas densas: nunca se mueven, así que la lista enlazada usa sus índices
+    private long[] claves;
+    private int[] segundos;
+    private long[] marcas;
+    private byte[] estados;
+    private int[] anterior;
+    private int[] siguiente;
+    private int numEntradas;
+
+    private int[] tabla;    // Índice de entrada + 1 (0 es hueco libre)
+    private int[] cabezas;  // Por usuario: entrada a medias más reciente (-1 si no hay)
+
+    private int[] pendientes;
+    private int numPendientes;
+
+    // Persistencia (opcional)
+    private Path archivo;
+    private Reloj reloj;
+    private long intervaloMillis;
+    private long ultimoVolcado;
+    private int usuariosEscritos;
+    private int episodiosEscritos;
+    private long registrosEnArchivo;
+
+    //Constructores
+    public PosicionesReproduccion() {
+        this.usuarios = new HashMap<>();
+        this.episodios = new HashMap<>();
+        this.idsUsuario = new ArrayList<>();
+        this.idsEpisodio = new ArrayList<>();
+        this.claves = new long[CAPACIDAD_INICIAL];
+        this.segundos = new int[CAPACIDAD_INICIAL];
+        this.marcas = new long[CAPACIDAD_INICIAL];
+        this.estados = new byte[CAPACIDAD_INICIAL];
+        this.anterior = new int[CAPACIDAD_INICIAL];
+        this.siguiente = new int[CAPACIDAD_INICIAL];
+        this.numEntradas = 0;
+        this.tabla = new int[CAPACIDAD_INICIAL * 2];
+        this.cabezas = new int[CAPACIDAD_INICIAL];
+        Arrays.fill(this.cabezas, -1);
+        this.pendientes = new int[CAPACIDAD_INICIAL];
+        this.numPendientes = 0;
+    }
+
+    // Con archivo: carga lo guardado y vuelca los cambios cada 'intervaloMillis'
+    public PosicionesReproduccion(Path archivo, Reloj reloj, long intervaloMillis) throws IOException {
+        this();
+        this.archivo = archivo;
+        this.reloj = reloj;
+        this.intervaloMillis = Math.max(intervaloMillis, 0);
+        if (Files.exists(archivo)) {
+            cargar();
+        } else if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        this.ultimoVolcado = reloj.ahoraMillis();
+    }
+
+    // ========== ESCRITURA ==========
+
+    // Latido del cliente: el usuario va por 'segundo' de un episodio de 'duracion' segundos
+    public synchronized void registrar(String idUsuario, String idEpisodio, int segundo, int duracion, long marcaTiempo)
+            throws IOException {
+        if (idUsuario == null || idEpisodio == null) {
+            return;
+        }
+        int usuario = interno(usuarios, idsUsuario, idUsuario);
+        int entrada = obtenerOCrear(usuario, interno(episodios, idsEpisodio, idEpisodio));
+        if (marcaTiempo < marcas[entrada]) {
+            // Latido que llega desordenado (reintento, otro dispositivo): ya hay uno más reciente
+            return;
+        }
+
+        boolean completado = duracion > 0 && segundo >= duracion * UMBRAL_COMPLETADO;
+        actualizar(usuario, entrada, completado ? duracion : Math.max(segundo, 0), completado, marcaTiempo);
+        volcarSiToca();
+    }
+
+    public synchronized void marcarCompletado(String idUsuario, String idEpisodio, long marcaTiempo) throws IOException {
+        if (idUsuario == null || idEpisodio == null) {
+            return;
+        }
+        int usuario = interno(usuarios, idsUsuario, idUsuario);
+        int entrada = obtenerOCrear(usuario, interno(episodios, idsEpisodio, idEpisodio));
+        if (marcaTiempo < marcas[entrada]) {
+            return;
+        }
+        actualizar(usuario, entrada, segundos[entrada], true, marcaTiempo);
+        volcarSiToca();
+    }
+
+    private void actualizar(int usuario, int entrada, int segundo, boolean completado, long marcaTiempo) {
+        segundos[entrada] = segundo;
+        marcas[entrada] = marcaTiempo;
+
+        // Lo saco de la lista del usuario y, si sigue a medias, lo vuelvo a poner delante
+        desenlazar(usuario, entrada);
+        if (completado) {
+            estados[entrada] |= COMPLETADO;
+        } else {
+            estados[entrada] &= ~COMPLETADO;
+            if (segundo > 0) {
+                enlazarDelante(usuario, entrada);
+            }
+        }
+
+        // Varios latidos del mismo par antes del volcado se quedan en una sola escritura
+        if ((estados[entrada] & SUCIO) == 0) {
+            estados[entrada] |= SUCIO;
+            if (numPendientes == pendientes.length) {
+                pendientes = Arrays.copyOf(pendientes, pendientes.length * 2);
+            }
+            pendientes[numPendientes++] = entrada;
+        }
+    }
+
+    // ========== LECTURA ==========
+
+    // Segundo desde el que reanudar: 0 si nunca lo empezó o si ya lo terminó
+    public synchronized int getPosicion(String idUsuario, String idEpisodio) {
+        int entrada = buscar(idUsuario, idEpisodio);
+        if (entrada < 0 || (estados[entrada] & COMPLETADO) != 0) {
+            return 0;
+        }
+        return segundos[entrada];
+    }
+
+    public synchronized boolean isCompletado(String idUsuario, String idEpisodio) {
+        int entrada = buscar(idUsuario, idEpisodio);
+        return entrada >= 0 && (estados[entrada] & COMPLETADO) != 0;
+    }
+
+    // Los k episodios a medias más recientes del usuario, O(k)
+    public synchronized ArrayList<String> getContinuarEscuchando(String idUsuario, int k) {
+        ArrayList<String> resultado = new ArrayList<>();
+        Integer usuario = usuarios.get(idUsuario);
+        if (usuario == null || usuario >= cabezas.length) {
+            return resultado;
+        }
+        for (int entrada = cabezas[usuario]; entrada >= 0 && resultado.size() < k; entrada = siguiente[entrada]) {
+            resultado.add(idsEpisodio.get((int) claves[entrada]));
+        }
+        return resultado;
+    }
+
+    // ========== TABLA ==========
+
+    private static int interno(HashMap<String, Integer> diccionario, ArrayList<String> ids, String id) {
+        Integer existente = diccionario.get(id);
+        if (existente != null) {
+            return existente;
+        }
+        diccionario.put(id, ids.size());
+        ids.add(id);
+        return ids.size() - 1;
+    }
+
+    private int buscar(String idUsuario, String idEpisodio) {
+        Integer usuario = usuarios.get(idUsuario);
+        Integer episodio = episodios.get(idEpisodio);
+        if (usuario == null || episodio == null) {
+            return -1;
+        }
+        long clave = clave(usuario, episodio);
+        int mascara = tabla.length - 1;
+        for (int i = hueco(clave, mascara); tabla[i] != 0; i = (i + 1) & mascara) {
+            if (claves[tabla[i] - 1] == clave) {
+                return tabla[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int obtenerOCrear(int usuario, int episodio) {
+        long clave = clave(usuario, episodio);
+        int mascara = tabla.length - 1;
+        int i = hueco(clave, mascara);
+        for (; tabla[i] != 0; i = (i + 1) & mascara) {
+            if (claves[tabla[i] - 1] == clave) {
+                return tabla[i] - 1;
+            }
+        }
+
+        // Entrada nueva al final de los arreglos densos
+        if (numEntradas == claves.length) {
+            int capacidad = claves.length * 2;
+            claves = Arrays.copyOf(claves, capacidad);
+            segundos = Arrays.copyOf(segundos, capacidad);
+            marcas = Arrays.copyOf(marcas, capacidad);
+            estados = Arrays.copyOf(estados, capacidad);
+            anterior = Arrays.copyOf(anterior, capacidad);
+            siguiente = Arrays.copyOf(siguiente, capacidad);
+        }
+        int entrada = numEntradas++;
+        claves[entrada] = clave;
+        anterior[entrada] = -1;
+        siguiente[entrada] = -1;
+        tabla[i] = entrada + 1;
+
+        if (numEntradas * 2 > tabla.length) {
+            // Mantengo la ocupación por debajo de la mitad para que las cadenas sean cortas
+            redimensionarTabla();
+        }
+        if (usuario >= cabezas.length) {
+            int anteriores = cabezas.length;
+            cabezas = Arrays.copyOf(cabezas, Math.max(anteriores * 2, usuario + 1));
+            Arrays.fill(cabezas, anteriores, cabezas.length, -1);
+        }
+        return entrada;
+    }
+
+    private void redimensionarTabla() {
+        // Solo se reconstruye la tabla; las entradas se quedan en su sitio
+        tabla = new int[tabla.length * 2];
+        int mascara = tabla.length - 1;
+        for (int entrada = 0; entrada < numEntradas; entrada++) {
+            int i = hueco(claves[entrada], mascara);
+            while (tabla[i] != 0) {
+                i = (i + 1) & mascara;
+            }
+            tabla[i] = entrada + 1;
+        }
+    }
+
+    private static long clave(int usuario, int episodio) {
+        return ((long) usuario << 32) | (episodio & 0xFFFFFFFFL);
+    }
+
+    private static int hueco(long clave, int mascara) {
+        // Mezcla de bits para que claves consecutivas no caigan juntas
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    // ========== LISTA "SEGUIR ESCUCHANDO" ==========
+
+    private void desenlazar(int usuario, int entrada) {
+        if (anterior[entrada] >= 0) {
+            siguiente[anterior[entrada]] = siguiente[entrada];
+        } else if (cabezas[usuario] == entrada) {
+            cabezas[usuario] = siguiente[entrada];
+        } else {
+            return; // No estaba en la lista
+        }
+        if (siguiente[entrada] >= 0) {
+            anterior[siguiente[entrada]] = anterior[entrada];
+        }
+        anterior[entrada] = -1;
+        siguiente[entrada] = -1;
+    }
+
+    private void enlazarDelante(int usuario, int entrada) {
+        siguiente[entrada] = cabezas[usuario];
+        anterior[entrada] = -1;
+        if (cabezas[usuario] >= 0) {
+            anterior[cabezas[usuario]] = entrada;
+        }
+        cabezas[usuario] = entrada;
+    }
+
+    // ========== PERSISTENCIA ==========
+
+    private void volcarSiToca() throws IOException {
+        if (archivo == null) {
+            return;
+        }
+        if (numPendientes >= MAXIMO_PENDIENTES || reloj.ahoraMillis() - ultimoVolcado >= intervaloMillis) {
+            vaciar();
+        }
+    }
+
+    // Escribe al final del archivo los pares cambiados desde el último volcado
+    public synchronized void vaciar() throws IOException {
+        if (archivo == null) {
+            return;
+        }
+        ultimoVolcado = reloj.ahoraMillis();
+        if (numPendientes == 0) {
+            return;
+        }
+        if (registrosEnArchivo > 2L * numEntradas + MAXIMO_PENDIENTES) {
+            // El archivo tiene sobre todo versiones viejas: lo reescribo entero
+            compactar();
+            return;
+        }
+
+        long tamanoPrevio = Files.exists(archivo) ? Files.size(archivo) : 0;
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            if (tamanoPrevio == 0) {
+                salida.writeInt(FORMATO_ARCHIVO);
+            }
+            // Primero los ids nuevos, para que las posiciones se puedan escribir como enteros
+            escribirIds(salida, REGISTRO_USUARIO, idsUsuario, usuariosEscritos);
+            escribirIds(salida, REGISTRO_EPISODIO, idsEpisodio, episodiosEscritos);
+            for (int i = 0; i < numPendientes; i++) {
+                escribirPosicion(salida, pendientes[i]);
+            }
+        } catch (IOException e) {
+            // Vuelvo al último registro completo para que el siguiente volcado no quede detrás
+            // de uno cortado; los ids y los pares siguen pendientes y se reintentan enteros
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                canal.truncate(tamanoPrevio);
+            } catch (IOException recorte) {
+                e.addSuppressed(recorte);
+            }
+            throw e;
+        }
+        // Solo ahora cuentan como escritos
+        usuariosEscritos = idsUsuario.size();
+        episodiosEscritos = idsEpisodio.size();
+        registrosEnArchivo += numPendientes;
+        limpiarPendientes();
+    }
+
+    public synchronized void compactar() throws IOException {
+        if (archivo == null) {
+            return;
+        }
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(FORMATO_ARCHIVO);
+            escribirIds(salida, REGISTRO_USUARIO, idsUsuario, 0);
+            escribirIds(salida, REGISTRO_EPISODIO, idsEpisodio, 0);
+            for (int entrada = 0; entrada < numEntradas; entrada++) {
+                escribirPosicion(salida, entrada);
+            }
+        }
+        // Reemplazo el archivo de una vez para no dejarlo a medias si algo falla
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        usuariosEscritos = idsUsuario.size();
+        episodiosEscritos = idsEpisodio.size();
+        registrosEnArchivo = numEntradas;
+        limpiarPendientes();
+    }
+
+    private static void escribirIds(DataOutputStream salida, byte tipo, ArrayList<String> ids, int desde) throws IOException {
+        for (int i = desde; i < ids.size(); i++) {
+            salida.writeByte(tipo);
+            salida.writeUTF(ids.get(i));
+        }
+    }
+
+    private void escribirPosicion(DataOutputStream salida, int entrada) throws IOException {
+        salida.writeByte(REGISTRO_POSICION);
+        salida.writeLong(claves[entrada]);
+        salida.writeInt(segundos[entrada]);
+        salida.writeLong(marcas[entrada]);
+        salida.writeByte(estados[entrada] & COMPLETADO);
+    }
+
+    private void limpiarPendientes() {
+        for (int i = 0; i < numPendientes; i++) {
+            estados[pendientes[i]] &= ~SUCIO;
+        }
+        numPendientes = 0;
+    }
+
+    private void cargar() throws IOException {
+        long completo = 0; // Bytes hasta el final del último registro entero
+        ArrayList<long[]> posiciones = new ArrayList<>();
+        try (ContadorBytes contador = new ContadorBytes(new BufferedInputStream(Files.newInputStream(archivo)));
+             DataInputStream entrada = new DataInputStream(contador)) {
+            try {
+                int formato = entrada.readInt();
+                if (formato != FORMATO_ARCHIVO) {
+                    throw new IOException("Formato de archivo de posiciones no soportado: " + formato);
+                }
+                completo = contador.leidos;
+                while (true) {
+                    byte tipo = entrada.readByte();
+                    if (tipo == REGISTRO_USUARIO) {
+                        interno(usuarios, idsUsuario, entrada.readUTF());
+                    } else if (tipo == REGISTRO_EPISODIO) {
+                        interno(episodios, idsEpisodio, entrada.readUTF());
+                    } else if (tipo == REGISTRO_POSICION) {
+                        posiciones.add(new long[]{entrada.readLong(), entrada.readInt(), entrada.readLong(), entrada.readByte()});
+                    } else {
+                        throw new IOException("Registro de posiciones desconocido: " + tipo);
+                    }
+                    completo = contador.leidos;
+                }
+            } catch (EOFException e) {
+                // Fin del archivo; un último registro cortado por una caída se descarta
+            }
+        }
+        if (Files.size(archivo) > completo) {
+            // Recorto el registro cortado: si no, lo que se añada detrás quedaría ilegible
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                canal.truncate(completo);
+            }
+        }
+
+        // Aplico en el orden del archivo, igual que se aplicaron en memoria: la última versión
+        // escrita de cada par es la que queda y la lista de cada usuario sigue ese mismo orden
+        for (long[] posicion : posiciones) {
+            int usuario = (int) (posicion[0] >>> 32);
+            int episodio = (int) posicion[0];
+            if (usuario >= idsUsuario.size() || episodio >= idsEpisodio.size()) {
+                continue;
+            }
+            int indice = obtenerOCrear(usuario, episodio);
+            actualizar(usuario, indice, (int) posicion[1], posicion[3] != 0, posicion[2]);
+        }
+        registrosEnArchivo = posiciones.size();
+        // Lo cargado ya está en disco
+        usuariosEscritos = idsUsuario.size();
+        episodiosEscritos = idsEpisodio.size();
+        limpiarPendientes();
+    }
+
+    // Cuenta los bytes que se consumen, para saber dónde acaba el último registro completo
+    private static class ContadorBytes extends FilterInputStream {
+        private long leidos;
+
+        private ContadorBytes(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int leido = super.read();
+            if (leido >= 0) {
+                leidos++;
+            }
+            return leido;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int cantidad) throws IOException {
+            int leidosAhora = super.read(destino, desde, cantidad);
+            if (leidosAhora > 0) {
+                leidos += leidosAhora;
+            }
+            return leidosAhora;
+        }
+
+        @Override
+        public long skip(long cantidad) throws IOException {
+            long saltados = super.skip(cantidad);
+            leidos += saltados;
+            return saltados;
+        }
+    }
+
+    // ========== GETTERS ==========
+
+    public synchronized int getNumEntradas() {
+        return numEntradas;
+    }
+
+    public synchronized int getNumPendientes() {
+        return numPendientes;
+    }
+
+    public Path getArchivo() {
+        return archivo;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PosicionesReproduccion{" +
+                "usuarios=" + idsUsuario.size() +
+                ", episodios=" + idsEpisodio.size() +
+                ", entradas=" + numEntradas +
+                ", pendientes=" + numPendientes +
+                '}';
+    }
+}
@@ -0,0 +1,197 @@
+package utilidades;
+
+import enums.TipoCambioPlaylist;
+import interfaces.ObservadorPlaylist;
+import interfaces.Reloj;
+import modelo.plataforma.Playlist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * Rankings de descubrimiento de las playlists públicas: más seguidas, en tendencia
+ * y más recientes. Cada ranking es un árbol ordenado que se repara solo cuando una
+ * playlist cambia de seguidores o de visibilidad, así que pedir el top-k es O(k).
+ * La tendencia usa decaimiento hacia adelante: cada seguimiento pesa e^(λ(t - t0))
+ * con t0 fijo, y como el paso del tiempo escala a todas igual, el orden no cambia
+ * mientras nadie siga una playlist. El peso se guarda en logaritmo para no desbordar.
+ */
+public class RankingPlaylists implements ObservadorPlaylist {
+
+    private static final long VIDA_MEDIA_DEFAULT = 24L * 60 * 60 * 1000; // Un día
+
+    //Atributos:
+    private final Reloj reloj;
+    private final long inicio;            // t0 del decaimiento
+    private final double lambda;          // ln 2 / vida media (por milisegundo)
+    private final HashMap<String, Entrada> registradas;
+    private final TreeSet<Entrada> porSeguidores;
+    private final TreeSet<Entrada> porTendencia;
+    private final TreeSet<Entrada> porFecha;
+    private long secuencia;
+
+    //Constructores
+    public RankingPlaylists() {
+        this(RelojSistema.getPorDefecto(), VIDA_MEDIA_DEFAULT);
+    }
+
+    public RankingPlaylists(Reloj reloj, long vidaMediaMillis) {
+        this.reloj = reloj != null ? reloj : RelojSistema.getPorDefecto();
+        this.inicio = this.reloj.ahoraMillis();
+        this.lambda = Math.log(2) / Math.max(vidaMediaMillis, 1);
+        this.registradas = new HashMap<>();
+        this.secuencia = 0;
+        // A igualdad de clave desempata el orden de registro para que ninguna entrada se pierda
+        this.porSeguidores = new TreeSet<>((a, b) -> {
+            int comparacion = Integer.compare(b.seguidores, a.seguidores);
+            return comparacion != 0 ? comparacion : Long.compare(a.orden, b.orden);
+        });
+        this.porTendencia = new TreeSet<>((a, b) -> {
+            int comparacion = Double.compare(b.logTendencia, a.logTendencia);
+            return comparacion != 0 ? comparacion : Long.compare(a.orden, b.orden);
+        });
+        this.porFecha = new TreeSet<>((a, b) -> {
+            int comparacion = Long.compare(b.creada, a.creada);
+            return comparacion != 0 ? comparacion : Long.compare(b.orden, a.orden);
+        });
+    }
+
+    // ========== REGISTRO ==========
+
+    public synchronized void registrar(Playlist playlist) {
+        if (playlist == null || registradas.containsKey(playlist.getId())) {
+            return;
+        }
+        Entrada entrada = new Entrada(playlist, secuencia++);
+        registradas.put(playlist.getId(), entrada);
+        if (playlist.isEsPublica()) {
+            insertar(entrada);
+        }
+        playlist.agregarObservador(this);
+    }
+
+    public synchronized void quitar(Playlist playlist) {
+        Entrada entrada = registradas.remove(playlist.getId());
+        if (entrada != null) {
+            retirar(entrada);
+            playlist.quitarObservador(this);
+        }
+    }
+
+    @Override
+    public synchronized void playlistActualizada(Playlist playlist, TipoCambioPlaylist cambio, int diferencia) {
+        Entrada entrada = registradas.get(playlist.getId());
+        if (entrada == null) {
+            return;
+        }
+
+        if (cambio == TipoCambioPlaylist.VISIBILIDAD) {
+            if (playlist.isEsPublica() && !entrada.publica) {
+                insertar(entrada);
+            } else if (!playlist.isEsPublica() && entrada.publica) {
+                retirar(entrada);
+            }
+            return;
+        }
+
+        // Saco la entrada con sus claves viejas, las actualizo y la vuelvo a meter
+        boolean publica = entrada.publica;
+        if (publica) {
+            retirar(entrada);
+        }
+        entrada.seguidores = playlist.getSeguidores();
+        if (diferencia > 0) {
+            // Solo los seguimientos nuevos suman a la tendencia
+            entrada.logTendencia = sumarLog(entrada.logTendencia, lambda * (reloj.ahoraMillis() - inicio));
+        }
+        if (publica) {
+            insertar(entrada);
+        }
+    }
+
+    // ========== CONSULTAS ==========
+
+    public synchronized ArrayList<Playlist> getMasSeguidas(int k) {
+        return primeras(porSeguidores, k);
+    }
+
+    public synchronized ArrayList<Playlist> getEnTendencia(int k) {
+        return primeras(porTendencia, k);
+    }
+
+    public synchronized ArrayList<Playlist> getRecientes(int k) {
+        return primeras(porFecha, k);
+    }
+
+    // Seguimientos recientes ponderados: uno de ahora vale 1, uno de hace una vida media vale 0.5
+    public synchronized double getTendencia(Playlist playlist) {
+        Entrada entrada = registradas.get(playlist.getId());
+        if (entrada == null || entrada.logTendencia == Double.NEGATIVE_INFINITY) {
+            return 0.0;
+        }
+        return Math.exp(entrada.logTendencia - lambda * (reloj.ahoraMillis() - inicio));
+    }
+
+    public synchronized int getNumPublicas() {
+        return porSeguidores.size();
+    }
+
+    public synchronized boolean estaRegistrada(Playlist playlist) {
+        return registradas.containsKey(playlist.getId());
+    }
+
+    // ========== AUXILIARES ==========
+
+    private void insertar(Entrada entrada) {
+        porSeguidores.add(entrada);
+        porTendencia.add(entrada);
+        porFecha.add(entrada);
+        entrada.publica = true;
+    }
+
+    private void retirar(Entrada entrada) {
+        porSeguidores.remove(entrada);
+        porTendencia.remove(entrada);
+        porFecha.remove(entrada);
+        entrada.publica = false;
+    }
+
+    private static ArrayList<Playlist> primeras(TreeSet<Entrada> ranking, int k) {
+        ArrayList<Playlist> resultado = new ArrayList<>(Math.max(0, Math.min(k, ranking.size())));
+        Iterator<Entrada> iterador = ranking.iterator();
+        while (iterador.hasNext() && resultado.size() < k) {
+            resultado.add(iterador.next().playlist);
+        }
+        return resultado;
+    }
+
+    // log(e^a + e^b) sin desbordar
+    private static double sumarLog(double a, double b) {
+        if (a == Double.NEGATIVE_INFINITY) {
+            return b;
+        }
+        double mayor = Math.max(a, b);
+        return mayor + Math.log1p(Math.exp(-Math.abs(a - b)));
+    }
+
+    // Playlist con las claves con las que está guardada en los rankings
+    private static class Entrada {
+        private final Playlist playlist;
+        private final long orden;
+        private final long creada;
+        private int seguidores;
+        private double logTendencia;
+        private boolean publica;
+
+        private Entrada(Playlist playlist, long orden) {
+            this.playlist = playlist;
+            this.orden = orden;
+            this.creada = playlist.getFechaCreacion().getTime();
+            this.seguidores = playlist.getSeguidores();
+            this.logTendencia = Double.NEGATIVE_INFINITY;
+            this.publica = false;
+        }
+    }
+}
@@ -1,19 +1,52 @@
 package utilidades;
 
 import enums.AlgoritmoRecomendacion;
+import enums.TipoCambioContenido;
 import excepciones.recomendacion.HistorialVacioException;
 import excepciones.recomendacion.ModeloNoEntrenadoException;
 import excepciones.recomendacion.RecomendacionException;
+import interfaces.ObservadorContenido;
 import interfaces.Recomendador;
+import modelo.contenido.Cancion;
 import modelo.contenido.Contenido;
+import modelo.contenido.Podcast;
 import modelo.usuarios.Usuario;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
-
-public class RecomendadorIA implements Recomendador {
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Recomendador por tags. Cada tag tiene un id entero en un DiccionarioTags y tanto
+ * las preferencias de cada usuario como los tags de cada contenido del catálogo se
+ * guardan como conjuntos de bits, así que comparar dos conjuntos es un AND con
+ * popcount por cada 64 tags. Los conjuntos del catálogo se calculan una vez y se
+ * rehacen solo cuando un contenido avisa de que cambió sus tags.
+ * Según el algoritmo: CONTENIDO usa solo los tags, COLABORATIVO usa el
+ * FiltroColaborativo (completado con tags si no llega a 10), HIBRIDO mezcla ambos y
+ * FACTORIZACION usa los vectores de FactorizacionImplicita (ALS), que solo se
+ * entrena la primera vez que se pide con ese algoritmo. Con la factorización
+ * entrenada, los candidatos y los similares salen de un IndiceVecinos (HNSW)
+ * sobre los vectores de los contenidos en vez de recorrer el catálogo.
+ * Los usuarios parecidos se buscan con firmas MinHash de sus preferencias
+ * (IndiceMinHash), que se actualizan cada vez que cambian. Las escuchas de cada
+ * usuario se cuentan una vez y después solo se suman las que llegan nuevas al registro.
+ */
+public class RecomendadorIA implements Recomendador, ObservadorContenido {
 
     private static final double UMBRAL_DEFAULT = 0.6; // Umbral de similitud por defecto
+    private static final int MAX_RECOMENDACIONES = 10;
+    private static final float PESO_LIKE = 3.0f;    // Un like cuenta como tres escuchas
+    private static final Set<TipoCambioContenido> CAMBIOS_OBSERVADOS =
+            Collections.unmodifiableSet(EnumSet.of(TipoCambioContenido.TAG));
 
     //Atributos:
     private HashMap<String, ArrayList<String>> matrizPreferencias; // Matriz de preferencias de los usuarios (usuario -> lista de contenidos preferidos)
@@ -22,6 +55,18 @@ public class RecomendadorIA implements Recomendador {
     private double umbralSimilitud;
     private boolean modeloEntrenado;
     private ArrayList<Contenido> catalogoReferencia;
+    private DiccionarioTags diccionario;
+    private HashMap<String, long[]> preferenciasBits;       // usuario -> tags preferidos en bits
+    private ArrayList<long[]> tagsCatalogo;                 // En el mismo orden que catalogoReferencia
+    private HashMap<String, Integer> posicionCatalogo;      // id de contenido -> posición en el catálogo
+    private FiltroColaborativo colaborativo;
+    private FactorizacionImplicita factorizacion;
+    private ArrayList<Usuario> usuariosEntrenamiento;
+    private boolean factorizacionPendiente;         // Hay usuarios nuevos que la factorización no ha visto
+    private IndiceVecinos indiceVecinos;            // null hasta entrenar la factorización
+    private IndiceMinHash firmasUsuarios;
+    private HashMap<String, Usuario> usuariosPorId; // Los que tienen firma, para devolverlos
+    private HashMap<String, EscuchasContadas> escuchasContadas; // Escuchas del registro de cada usuario por contenido
 
 
     //CONTRUCTOR:
@@ -33,6 +78,18 @@ public class RecomendadorIA implements Recomendador {
         this.umbralSimilitud = UMBRAL_DEFAULT;
         this.modeloEntrenado = false;
         this.catalogoReferencia = new ArrayList<>();
+        this.diccionario = new DiccionarioTags();
+        this.preferenciasBits = new HashMap<>();
+        this.tagsCatalogo = new ArrayList<>();
+        this.posicionCatalogo = new HashMap<>();
+        this.colaborativo = new FiltroColaborativo();
+        this.factorizacion = new FactorizacionImplicita();
+        this.usuariosEntrenamiento = new ArrayList<>();
+        this.factorizacionPendiente = false;
+        this.indiceVecinos = null;
+        this.firmasUsuarios = new IndiceMinHash();
+        this.usuariosPorId = new HashMap<>();
+        this.escuchasContadas = new HashMap<>();
     }
 
     public RecomendadorIA(AlgoritmoRecomendacion algoritmo) {
@@ -42,6 +99,18 @@ public class RecomendadorIA implements Recomendador {
         this.umbralSimilitud = UMBRAL_DEFAULT;
         this.modeloEntrenado = false;
         this.catalogoReferencia = new ArrayList<>();
+        this.diccionario = new DiccionarioTags();
+        this.preferenciasBits = new HashMap<>();
+        this.tagsCatalogo = new ArrayList<>();
+        this.posicionCatalogo = new HashMap<>();
+        this.colaborativo = new FiltroColaborativo();
+        this.factorizacion = new FactorizacionImplicita();
+        this.usuariosEntrenamiento = new ArrayList<>();
+        this.factorizacionPendiente = false;
+        this.indiceVecinos = null;
+        this.firmasUsuarios = new IndiceMinHash();
+        this.usuariosPorId = new HashMap<>();
+        this.escuchasContadas = new HashMap<>();
     }
 
     @Override
@@ -67,24 +136,57 @@ public class RecomendadorIA implements Recomendador {
         // Obtengo el ID del usuario para buscar sus preferencias
         String idUsuario = usuario.getId();
 
-        // Busco las preferencias del usuario en mi matriz
-        ArrayList<String> preferenciasUsuario = this.matrizPreferencias.get(idUsuario);
+        // Busco las preferencias del usuario (como conjunto de bits)
+        long[] preferenciasUsuario = this.preferenciasBits.get(idUsuario);
 
         // Si no tengo sus preferencias guardadas, las calculo ahora
         if (preferenciasUsuario == null) {
             actualizarPreferencias(usuario);
-            preferenciasUsuario = this.matrizPreferencias.get(idUsuario);
+            preferenciasUsuario = this.preferenciasBits.get(idUsuario);
         }
 
-        // Creo una lista donde voy a guardar las recomendaciones
-        ArrayList<Contenido> recomendaciones = new ArrayList<>();
+        HashSet<Contenido> escuchados = new HashSet<>(historial);
+
+        // Cada algoritmo tiene su propio cálculo
+        switch (this.algoritmo) {
+            case CONTENIDO:
+                return recomendarPorTags(escuchados, preferenciasUsuario, new ArrayList<>());
+            case HIBRIDO:
+                return recomendarHibrido(escuchados, preferenciasUsuario);
+            case FACTORIZACION:
+                // El vector del usuario sale de sus interacciones actuales, no hace falta reentrenar
+                HashMap<Contenido, Float> interacciones;
+                try {
+                    entrenarFactorizacionPendiente();
+                    interacciones = interaccionesDe(usuario);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudieron leer las escuchas del registro", e);
+                }
+                float[] vector = factorizacion.proyectar(interacciones);
+                ArrayList<Contenido> porFactores = indiceVecinos != null
+                        ? indiceVecinos.buscar(vector, MAX_RECOMENDACIONES, interacciones.keySet())
+                        : new ArrayList<>();
+                return recomendarPorTags(escuchados, preferenciasUsuario, porFactores);
+            default:
+                // Ítem a ítem; si no hay bastantes coincidencias (usuarios nuevos, poco historial)
+                // completo con los que encajan por tags
+                ArrayList<Contenido> recomendaciones = colaborativo.recomendar(historial, MAX_RECOMENDACIONES);
+                return recomendarPorTags(escuchados, preferenciasUsuario, recomendaciones);
+        }
+    }
 
-        // Reviso todo el catálogo para ver qué le puede gustar
-        for (Contenido contenido : this.catalogoReferencia) {
+    // Añade a 'recomendaciones' los contenidos del catálogo que encajan con los tags preferidos
+    private ArrayList<Contenido> recomendarPorTags(HashSet<Contenido> escuchados, long[] preferenciasUsuario,
+                                                   ArrayList<Contenido> recomendaciones) {
+        HashSet<Contenido> yaIncluidos = new HashSet<>(recomendaciones);
+
+        // Reviso el catálogo en orden hasta tener 10 (máximo que devuelvo)
+        for (int i = 0; i < this.catalogoReferencia.size() && recomendaciones.size() < MAX_RECOMENDACIONES; i++) {
+            Contenido contenido = this.catalogoReferencia.get(i);
             // Solo recomiendo cosas que NO ha escuchado
-            if (!historial.contains(contenido)) {
+            if (!escuchados.contains(contenido) && !yaIncluidos.contains(contenido)) {
                 // Calculo qué tan parecido es este contenido a sus gustos
-                double similitud = calcularSimilitudContenido(contenido, preferenciasUsuario);
+                double similitud = calcularSimilitudContenido(this.tagsCatalogo.get(i), preferenciasUsuario);
 
                 // Si la similitud supera mi umbral, lo agrego a las recomendaciones
                 if (similitud >= this.umbralSimilitud) {
@@ -93,47 +195,72 @@ public class RecomendadorIA implements Recomendador {
             }
         }
 
-        // Si no encontré nada que recomendar, devuelvo lista vacía
-        if (recomendaciones.isEmpty()) {
-            return new ArrayList<>();
+        return recomendaciones;
+    }
+
+    // Mitad filtro colaborativo (normalizado al mejor candidato) y mitad similitud por tags
+    private ArrayList<Contenido> recomendarHibrido(HashSet<Contenido> escuchados, long[] preferenciasUsuario) {
+        HashMap<Contenido, Double> colaborativas = colaborativo.puntuar(escuchados);
+        double maxima = 0.0;
+        for (double puntuacion : colaborativas.values()) {
+            maxima = Math.max(maxima, puntuacion);
+        }
+
+        HashMap<Contenido, Double> puntuaciones = new HashMap<>();
+        for (int i = 0; i < catalogoReferencia.size(); i++) {
+            Contenido contenido = catalogoReferencia.get(i);
+            if (!escuchados.contains(contenido)) {
+                double porTags = calcularSimilitudContenido(tagsCatalogo.get(i), preferenciasUsuario);
+                double porUsuarios = maxima > 0 ? colaborativas.getOrDefault(contenido, 0.0) / maxima : 0.0;
+                double puntuacion = 0.5 * porTags + 0.5 * porUsuarios;
+                if (puntuacion > 0) {
+                    puntuaciones.put(contenido, puntuacion);
+                }
+            }
         }
 
-        // Devuelvo máximo 10 recomendaciones (o todas si hay menos de 10)
-        return new ArrayList<>(recomendaciones.subList(0, Math.min(recomendaciones.size(), 10)));
+        ArrayList<Contenido> recomendaciones = new ArrayList<>(puntuaciones.keySet());
+        recomendaciones.sort((a, b) -> Double.compare(puntuaciones.get(b), puntuaciones.get(a)));
+        return new ArrayList<>(recomendaciones.subList(0, Math.min(recomendaciones.size(), MAX_RECOMENDACIONES)));
     }
 
+    // Hasta MAX_RECOMENDACIONES contenidos disponibles: primero los más cercanos en el índice
+    // (coseno entre vectores) si el contenido tiene vector, y hasta completar, los que comparten
+    // tags con él, de más a menos popular
     @Override
     public ArrayList<Contenido> obtenerSimilares(Contenido contenido) throws RecomendacionException {
         if (contenido == null) {
             throw new RecomendacionException("El contenido no puede ser null");
         }
 
-        ArrayList<Contenido> similares = new ArrayList<>();
-        ArrayList<String> tagsContenido = contenido.getTags();
+        IndiceVecinos indice = indiceVecinos;
+        LinkedHashSet<Contenido> similares = new LinkedHashSet<>();
+        if (indice != null && indice.contiene(contenido)) {
+            similares.addAll(indice.buscarSimilares(contenido, MAX_RECOMENDACIONES));
+            if (similares.size() == MAX_RECOMENDACIONES) {
+                return new ArrayList<>(similares);
+            }
+        }
 
-        // Buscar contenidos similares en el catálogo
-        for (Contenido item : catalogoReferencia) {
-            if (!item.equals(contenido)) {
-                // Calcular similitud basada en tags
-                int coincidencias = 0;
-                for (String tag : item.getTags()) {
-                    if (tagsContenido.contains(tag)) {
-                        coincidencias++;
-                    }
-                }
+        ArrayList<Contenido> porTags = new ArrayList<>();
+        // Los tags que ningún contenido del catálogo tiene no pueden coincidir: no los registro
+        long[] tagsContenido = diccionario.conjuntoConocido(contenido.getTags());
 
-                // Si hay al menos 1 coincidencia, agregarlo
-                if (coincidencias > 0) {
-                    similares.add(item);
-                }
+        // Buscar contenidos similares en el catálogo (basta con compartir un tag)
+        for (int i = 0; i < catalogoReferencia.size(); i++) {
+            Contenido item = catalogoReferencia.get(i);
+            if (!item.equals(contenido) && item.isDisponible() && !similares.contains(item)
+                    && DiccionarioTags.seCruzan(tagsCatalogo.get(i), tagsContenido)) {
+                porTags.add(item);
             }
         }
 
         // Ordenar por número de reproducciones (más populares primero)
-        similares.sort((c1, c2) -> Integer.compare(c2.getReproducciones(), c1.getReproducciones()));
-
-        // Retornar máximo 10
-        return new ArrayList<>(similares.subList(0, Math.min(similares.size(), 10)));
+        porTags.sort((c1, c2) -> Integer.compare(c2.getReproducciones(), c1.getReproducciones()));
+        for (int i = 0; i < porTags.size() && similares.size() < MAX_RECOMENDACIONES; i++) {
+            similares.add(porTags.get(i));
+        }
+        return new ArrayList<>(similares);
     }
 
     // ========== MÉTODOS PROPIOS ==========
@@ -146,15 +273,43 @@ public class RecomendadorIA implements Recomendador {
 
         // Limpio lo que tenía guardado antes para empezar de cero
         matrizPreferencias.clear();
+        preferenciasBits.clear();
         historialCompleto.clear();
 
         // Proceso cada usuario para aprender sus gustos
+        HashSet<String> entrenados = new HashSet<>();
         for (Usuario usuario : usuarios) {
             // Guardo una copia de su historial completo
             historialCompleto.put(usuario.getId(), new ArrayList<>(usuario.getHistorial()));
 
             // Calculo y guardo sus preferencias basadas en lo que ha escuchado
             actualizarPreferencias(usuario);
+            entrenados.add(usuario.getId());
+        }
+
+        // Las firmas se conservan entre entrenamientos (quien no cambió no cuesta nada);
+        // solo quito a los que ya no están
+        for (String idUsuario : new ArrayList<>(usuariosPorId.keySet())) {
+            if (!entrenados.contains(idUsuario)) {
+                firmasUsuarios.quitar(idUsuario);
+                usuariosPorId.remove(idUsuario);
+            }
+        }
+        escuchasContadas.keySet().retainAll(entrenados);
+
+        // Con los historiales de todos calculo los vecinos de cada contenido (en paralelo)
+        colaborativo.entrenar(historialCompleto.values());
+
+        // La factorización es más cara (y lee los registros de escuchas): solo la entreno
+        // ahora si es el algoritmo en uso; si no, la primera vez que se necesite
+        usuariosEntrenamiento = new ArrayList<>(usuarios);
+        factorizacionPendiente = true;
+        if (algoritmo == AlgoritmoRecomendacion.FACTORIZACION) {
+            try {
+                entrenarFactorizacionPendiente();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudieron leer las escuchas del registro", e);
+            }
         }
 
         // Marco que ya entrené el modelo y está listo para usar
@@ -169,6 +324,135 @@ public class RecomendadorIA implements Recomendador {
         entrenarModelo(usuarios);
     }
 
+    // Parte de los vectores del entrenamiento anterior (arranque en caliente)
+    private void entrenarFactorizacionPendiente() throws IOException {
+        if (!factorizacionPendiente) {
+            return;
+        }
+        HashMap<String, HashMap<Contenido, Float>> interacciones = new HashMap<>();
+        for (Usuario usuario : usuariosEntrenamiento) {
+            interacciones.put(usuario.getId(), interaccionesDe(usuario));
+        }
+        factorizacion.entrenar(interacciones);
+        factorizacionPendiente = false;
+
+        // Todos los vectores cambian al entrenar, así que rehago el índice (conservo su efBusqueda)
+        IndiceVecinos nuevo = new IndiceVecinos(factorizacion.getFactores());
+        if (indiceVecinos != null) {
+            nuevo.setEfBusqueda(indiceVecinos.getEfBusqueda());
+        }
+        for (Contenido contenido : factorizacion.getContenidos()) {
+            nuevo.agregar(contenido, factorizacion.getVectorContenido(contenido));
+        }
+        indiceVecinos = nuevo;
+    }
+
+    // Un estreno sin escuchas todavía no tiene vector: se puede añadir al índice con uno
+    // estimado (por ejemplo, el de otro contenido del mismo artista) sin reentrenar
+    public void indexarContenido(Contenido contenido, float[] vector) throws RecomendacionException {
+        if (indiceVecinos == null) {
+            throw new ModeloNoEntrenadoException("No hay índice de vecinos: entrena la factorización primero.");
+        }
+        if (contenido == null || vector == null || vector.length != indiceVecinos.getDimension()) {
+            throw new RecomendacionException("Hace falta un contenido y un vector de " + indiceVecinos.getDimension() + " componentes.");
+        }
+        indiceVecinos.agregar(contenido, vector);
+    }
+
+    // Lo llama la plataforma al publicar: si su autor ya tiene algo en el índice, el estreno
+    // entra con la media de esos vectores; si no, espera al siguiente entrenamiento
+    public void contenidoPublicado(Contenido contenido) {
+        IndiceVecinos indice = indiceVecinos;
+        if (indice == null || contenido == null || indice.contiene(contenido)) {
+            return;
+        }
+        float[] suma = new float[indice.getDimension()];
+        int sumados = 0;
+        for (Contenido delAutor : obrasDelAutor(contenido)) {
+            float[] vector = indice.getVector(delAutor);
+            if (vector != null) {
+                for (int a = 0; a < suma.length; a++) {
+                    suma[a] += vector[a];
+                }
+                sumados++;
+            }
+        }
+        // El índice normaliza: no hace falta dividir entre 'sumados'
+        if (sumados > 0) {
+            indice.agregar(contenido, suma);
+        }
+    }
+
+    private static ArrayList<? extends Contenido> obrasDelAutor(Contenido contenido) {
+        if (contenido instanceof Cancion && ((Cancion) contenido).getArtista() != null) {
+            return ((Cancion) contenido).getArtista().getDiscografia();
+        }
+        if (contenido instanceof Podcast && ((Podcast) contenido).getCreador() != null) {
+            return ((Podcast) contenido).getCreador().getEpisodios();
+        }
+        return new ArrayList<>();
+    }
+
+    public void guardarIndiceVecinos(Path archivo) throws IOException {
+        if (indiceVecinos != null) {
+            indiceVecinos.guardar(archivo);
+        }
+    }
+
+    // Los ids se resuelven contra el catálogo de referencia
+    public void cargarIndiceVecinos(Path archivo) throws IOException {
+        indiceVecinos = IndiceVecinos.cargar(archivo, catalogoReferencia);
+    }
+
+    // Fuerza de cada interacción del usuario: escuchas (del registro si lo tiene, si no una
+    // por contenido del historial) más PESO_LIKE por cada like
+    private HashMap<Contenido, Float> interaccionesDe(Usuario usuario) throws IOException {
+        HashMap<Contenido, Float> interacciones = new HashMap<>();
+        HashMap<String, Contenido> porId = new HashMap<>();
+        for (Contenido contenido : usuario.getHistorial()) {
+            interacciones.put(contenido, 1.0f);
+            porId.put(contenido.getId(), contenido);
+        }
+
+        RegistroEscuchas registro = usuario.getRegistroEscuchas();
+        if (registro != null) {
+            for (Map.Entry<String, Float> escuchas : contarEscuchas(usuario.getId(), registro).porContenido.entrySet()) {
+                // Lo que ya salió del historial lo busco en el catálogo
+                Contenido contenido = porId.get(escuchas.getKey());
+                if (contenido == null) {
+                    Integer posicion = posicionCatalogo.get(escuchas.getKey());
+                    contenido = posicion != null ? catalogoReferencia.get(posicion) : null;
+                }
+                if (contenido != null) {
+                    interacciones.put(contenido, escuchas.getValue());
+                }
+            }
+        }
+
+        for (Contenido contenido : usuario.getContenidosLiked()) {
+            interacciones.merge(contenido, PESO_LIKE, Float::sum);
+        }
+        return interacciones;
+    }
+
+    // Solo lee del registro las escuchas posteriores a las ya contadas. Contar cuántas hay
+    // solo abre las cabeceras de los segmentos: si no hay nuevas no se descomprime nada
+    private EscuchasContadas contarEscuchas(String idUsuario, RegistroEscuchas registro) throws IOException {
+        EscuchasContadas cuentas = escuchasContadas.computeIfAbsent(idUsuario, id -> new EscuchasContadas());
+        long total = registro.contarEscuchas(idUsuario);
+        if (total == cuentas.contadas) {
+            return cuentas;
+        }
+        cuentas.sumarDesdeUltima(registro, idUsuario);
+        if (cuentas.contadas != total) {
+            // Entraron escuchas con marcas anteriores a las ya contadas: vuelvo a contar todo
+            cuentas = new EscuchasContadas();
+            cuentas.sumarDesdeUltima(registro, idUsuario);
+            escuchasContadas.put(idUsuario, cuentas);
+        }
+        return cuentas;
+    }
+
     public double calcularSimilitud(Usuario u1, Usuario u2) {
         // Si alguno es null, no hay similitud
         if (u1 == null || u2 == null) {
@@ -176,25 +460,20 @@ public class RecomendadorIA implements Recomendador {
         }
 
         // Obtengo las preferencias de ambos usuarios
-        ArrayList<String> pref1 = matrizPreferencias.get(u1.getId());
-        ArrayList<String> pref2 = matrizPreferencias.get(u2.getId());
+        long[] pref1 = preferenciasBits.get(u1.getId());
+        long[] pref2 = preferenciasBits.get(u2.getId());
 
         // Si no tengo preferencias de alguno, tampoco hay similitud
-        if (pref1 == null || pref2 == null || pref1.isEmpty() || pref2.isEmpty()) {
+        if (pref1 == null || pref2 == null || pref1.length == 0 || pref2.length == 0) {
             return 0.0;
         }
 
-        // Cuento cuántas preferencias tienen en común
-        int coincidencias = 0;
-        for (String pref : pref1) {
-            if (pref2.contains(pref)) {
-                coincidencias++;
-            }
-        }
+        // Cuento cuántas preferencias tienen en común (AND + popcount)
+        int coincidencias = DiccionarioTags.interseccion(pref1, pref2);
 
         // Calculo la similitud: coincidencias / total único
         // (Índice de Jaccard: intersección / unión)
-        int totalUnico = pref1.size() + pref2.size() - coincidencias;
+        int totalUnico = DiccionarioTags.cardinalidad(pref1) + DiccionarioTags.cardinalidad(pref2) - coincidencias;
         return totalUnico > 0 ? (double) coincidencias / totalUnico : 0.0;
     }
 
@@ -210,25 +489,57 @@ public class RecomendadorIA implements Recomendador {
         // Si no tiene historial, guardo preferencias vacías
         if (historial == null || historial.isEmpty()) {
             matrizPreferencias.put(usuario.getId(), new ArrayList<>());
+            preferenciasBits.put(usuario.getId(), diccionario.conjunto(null));
+            firmasUsuarios.quitar(usuario.getId());
+            usuariosPorId.remove(usuario.getId());
             return;
         }
 
-        // Voy a extraer todos los tags únicos de lo que ha escuchado
-        ArrayList<String> preferencias = new ArrayList<>();
+        // Voy a extraer todos los tags únicos de lo que ha escuchado (en orden de aparición)
+        LinkedHashSet<String> preferencias = new LinkedHashSet<>();
 
         // Recorro todo su historial
         for (Contenido contenido : historial) {
-            // Por cada contenido, saco sus tags
-            for (String tag : contenido.getTags()) {
-                // Solo agrego el tag si no lo tengo ya
-                if (!preferencias.contains(tag)) {
-                    preferencias.add(tag);
-                }
+            preferencias.addAll(contenido.getTags());
+        }
+
+        // Guardo las preferencias del usuario en mi matriz y como bits para comparar
+        matrizPreferencias.put(usuario.getId(), new ArrayList<>(preferencias));
+        long[] bits = diccionario.conjunto(preferencias);
+        preferenciasBits.put(usuario.getId(), bits);
+
+        // Y su firma MinHash (si solo ganó tags se actualiza sin recalcular)
+        firmasUsuarios.actualizar(usuario.getId(), bits);
+        usuariosPorId.put(usuario.getId(), usuario);
+    }
+
+    // "Usuarios como tú": candidatos de las cubetas LSH ordenados por su Jaccard exacto
+    public ArrayList<Usuario> obtenerUsuariosSimilares(Usuario usuario, int k) throws RecomendacionException {
+        if (usuario == null) {
+            throw new RecomendacionException("El usuario no puede ser null.");
+        }
+        if (!preferenciasBits.containsKey(usuario.getId())) {
+            actualizarPreferencias(usuario);
+        }
+
+        HashMap<Usuario, Double> similitudes = new HashMap<>();
+        for (String idCandidato : firmasUsuarios.candidatos(usuario.getId())) {
+            Usuario candidato = usuariosPorId.get(idCandidato);
+            if (candidato == null) {
+                continue;
+            }
+            double similitud = calcularSimilitud(usuario, candidato);
+            if (similitud > 0) {
+                similitudes.put(candidato, similitud);
             }
         }
 
-        // Guardo las preferencias del usuario en mi matriz
-        matrizPreferencias.put(usuario.getId(), preferencias);
+        ArrayList<Usuario> similares = new ArrayList<>(similitudes.keySet());
+        similares.sort((a, b) -> {
+            int porSimilitud = Double.compare(similitudes.get(b), similitudes.get(a));
+            return porSimilitud != 0 ? porSimilitud : a.getId().compareTo(b.getId());
+        });
+        return new ArrayList<>(similares.subList(0, Math.min(similares.size(), Math.max(k, 0))));
     }
 
     public HashMap<String, Integer> obtenerGenerosPopulares() {
@@ -245,29 +556,40 @@ public class RecomendadorIA implements Recomendador {
     }
 
     /**
-     * Calcula la similitud entre un contenido y las preferencias del usuario
+     * Calcula la similitud entre los tags de un contenido y las preferencias del usuario
      * @return valor entre 0.0 y 1.0
      */
-    private double calcularSimilitudContenido(Contenido contenido, ArrayList<String> preferencias) {
-        if (contenido == null || preferencias == null || preferencias.isEmpty()) {
+    private double calcularSimilitudContenido(long[] tagsContenido, long[] preferencias) {
+        if (tagsContenido == null || preferencias == null || preferencias.length == 0) {
             return 0.0;
         }
 
-        ArrayList<String> tagsContenido = contenido.getTags();
-        if (tagsContenido.isEmpty()) {
+        int totalTags = DiccionarioTags.cardinalidad(tagsContenido);
+        if (totalTags == 0) {
             return 0.0;
         }
 
-        // Contar coincidencias
-        int coincidencias = 0;
-        for (String tag : tagsContenido) {
-            if (preferencias.contains(tag)) {
-                coincidencias++;
-            }
-        }
-
         // Similitud = coincidencias / total de tags del contenido
-        return (double) coincidencias / tagsContenido.size();
+        return (double) DiccionarioTags.interseccion(tagsContenido, preferencias) / totalTags;
+    }
+
+    // ========== CATÁLOGO ==========
+
+    @Override
+    public Set<TipoCambioContenido> getCambiosObservados() {
+        return CAMBIOS_OBSERVADOS;
+    }
+
+    @Override
+    public void contenidoActualizado(Contenido contenido, TipoCambioContenido cambio) {
+        // Solo me afectan los tags: rehago el conjunto de bits de ese contenido
+        if (cambio != TipoCambioContenido.TAG) {
+            return;
+        }
+        Integer posicion = posicionCatalogo.get(contenido.getId());
+        if (posicion != null) {
+            tagsCatalogo.set(posicion, diccionario.conjunto(contenido.getTags()));
+        }
     }
 
     // ========== GETTERS Y SETTERS ==========
@@ -302,7 +624,69 @@ public class RecomendadorIA implements Recomendador {
 
     public void setCatalogoReferencia(ArrayList<Contenido> catalogo) {
         if (catalogo != null) {
+            // Dejo de observar el catálogo anterior
+            for (Contenido contenido : this.catalogoReferencia) {
+                contenido.quitarObservador(this);
+            }
             this.catalogoReferencia = new ArrayList<>(catalogo);
+
+            // Calculo una vez los tags de cada contenido como bits
+            this.tagsCatalogo = new ArrayList<>(catalogo.size());
+            this.posicionCatalogo = new HashMap<>();
+            for (int i = 0; i < this.catalogoReferencia.size(); i++) {
+                Contenido contenido = this.catalogoReferencia.get(i);
+                this.tagsCatalogo.add(diccionario.conjunto(contenido.getTags()));
+                this.posicionCatalogo.put(contenido.getId(), i);
+                contenido.agregarObservador(this);
+            }
+        }
+    }
+
+    public FiltroColaborativo getFiltroColaborativo() {
+        return colaborativo;
+    }
+
+    public FactorizacionImplicita getFactorizacion() {
+        return factorizacion;
+    }
+
+    public IndiceVecinos getIndiceVecinos() {
+        return indiceVecinos;
+    }
+
+    public IndiceMinHash getFirmasUsuarios() {
+        return firmasUsuarios;
+    }
+
+    public int getNumTags() {
+        return diccionario.getNumTags();
+    }
+
+    // Escuchas de un usuario por id de contenido y hasta dónde se han leído del registro
+    private static class EscuchasContadas {
+        private final HashMap<String, Float> porContenido = new HashMap<>();
+        private long contadas;
+        private long ultimaMarca;
+        private int enUltimaMarca; // Las ya contadas con esa misma marca
+
+        // El registro las entrega ordenadas por tiempo: empiezo en la última marca y salto las que ya sumé
+        private void sumarDesdeUltima(RegistroEscuchas registro, String idUsuario) throws IOException {
+            int[] saltar = {contadas > 0 ? enUltimaMarca : 0};
+            registro.recorrer(idUsuario, contadas > 0 ? ultimaMarca : 0L, Long.MAX_VALUE, escucha -> {
+                long marca = escucha.getMarcaTiempo();
+                if (contadas > 0 && marca == ultimaMarca) {
+                    if (saltar[0] > 0) {
+                        saltar[0]--;
+                        return;
+                    }
+                    enUltimaMarca++;
+                } else {
+                    ultimaMarca = marca;
+                    enUltimaMarca = 1;
+                }
+                porContenido.merge(escucha.getIdContenido(), 1.0f, Float::sum);
+                contadas++;
+            });
         }
     }
 }
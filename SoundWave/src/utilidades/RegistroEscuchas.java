@@ -0,0 +1,361 @@
+package utilidades;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Registro de escuchas por usuario, solo de añadido y sin límite de tamaño.
+ * Las escuchas se guardan en disco en segmentos comprimidos: cada segmento
+ * guarda las marcas de tiempo como diferencias (delta) y los ids de contenido
+ * con un diccionario propio. En memoria solo queda un buffer pequeño por usuario:
+ * los de usuarios que llevan un rato sin escuchar nada se bajan a disco y se
+ * sueltan, y si entre todos pasan de un tope se bajan primero los más antiguos.
+ */
+public class RegistroEscuchas {
+
+    private static final int ENTRADAS_POR_SEGMENTO = 256;
+    private static final int CAPACIDAD_INICIAL = 16;
+    private static final int MAXIMO_PENDIENTES = 64 * ENTRADAS_POR_SEGMENTO;
+    private static final long INACTIVIDAD_MAXIMA_MILLIS = 30 * 60 * 1000L;
+    private static final String EXTENSION = ".seg";
+
+    //Atributos:
+    private Path directorio;
+    private LinkedHashMap<String, BufferEscuchas> pendientes; // En orden de último uso
+    private int totalPendientes;
+    private long contadorSegmentos;
+
+    //Constructor
+    public RegistroEscuchas(Path directorio) throws IOException {
+        this.directorio = directorio;
+        this.pendientes = new LinkedHashMap<>();
+        this.totalPendientes = 0;
+        this.contadorSegmentos = 0;
+        Files.createDirectories(directorio);
+    }
+
+    // ========== ESCRITURA ==========
+
+    public synchronized void registrar(String idUsuario, String idContenido, long marcaTiempo, int segundosEscuchados)
+            throws IOException {
+        if (idUsuario == null || idContenido == null) {
+            return;
+        }
+
+        // Acumulo la escucha en el buffer del usuario
+        // (lo saco y lo vuelvo a meter para que quede el último en el orden de uso)
+        BufferEscuchas buffer = pendientes.remove(idUsuario);
+        if (buffer == null) {
+            buffer = new BufferEscuchas();
+        }
+        pendientes.put(idUsuario, buffer);
+        buffer.agregar(idContenido, marcaTiempo, segundosEscuchados);
+        totalPendientes++;
+
+        // Cuando el buffer se llena lo bajo a disco como un segmento nuevo
+        if (buffer.tamano >= ENTRADAS_POR_SEGMENTO) {
+            vaciar(idUsuario);
+        }
+        desalojar(marcaTiempo);
+    }
+
+    // Baja a disco y suelta los buffers menos usados mientras estén inactivos o se pase del tope
+    private void desalojar(long ahora) throws IOException {
+        Iterator<Map.Entry<String, BufferEscuchas>> it = pendientes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, BufferEscuchas> entrada = it.next();
+            BufferEscuchas buffer = entrada.getValue();
+            boolean inactivo = ahora - buffer.ultimaMarca > INACTIVIDAD_MAXIMA_MILLIS;
+            if (!inactivo && totalPendientes <= MAXIMO_PENDIENTES) {
+                // El resto se usó más tarde que este
+                break;
+            }
+            escribirSegmento(entrada.getKey(), buffer);
+            it.remove();
+        }
+    }
+
+    public synchronized void vaciar(String idUsuario) throws IOException {
+        BufferEscuchas buffer = pendientes.get(idUsuario);
+        if (buffer != null) {
+            escribirSegmento(idUsuario, buffer);
+            pendientes.remove(idUsuario);
+        }
+    }
+
+    public synchronized void vaciar() throws IOException {
+        Iterator<Map.Entry<String, BufferEscuchas>> it = pendientes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, BufferEscuchas> entrada = it.next();
+            escribirSegmento(entrada.getKey(), entrada.getValue());
+            it.remove();
+        }
+    }
+
+    private void escribirSegmento(String idUsuario, BufferEscuchas buffer) throws IOException {
+        if (buffer.tamano == 0) {
+            return;
+        }
+        // Ordeno las entradas por tiempo para que las diferencias sean pequeñas
+        Integer[] orden = new Integer[buffer.tamano];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Long.compare(buffer.marcas[a], buffer.marcas[b]));
+
+        long minimo = buffer.marcas[orden[0]];
+        long maximo = buffer.marcas[orden[orden.length - 1]];
+
+        Path carpeta = directorio.resolve(idUsuario);
+        Files.createDirectories(carpeta);
+        String nombre = minimo + "_" + maximo + "_" + System.nanoTime() + "_" + (contadorSegmentos++);
+        Path temporal = carpeta.resolve(nombre + ".tmp");
+
+        try (OutputStream archivo = Files.newOutputStream(temporal)) {
+            // La cabecera va sin comprimir para poder contar sin descomprimir
+            DataOutputStream cabecera = new DataOutputStream(archivo);
+            cabecera.writeInt(buffer.tamano);
+            cabecera.flush();
+
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(archivo)));
+            HashMap<String, Integer> diccionario = new HashMap<>();
+            long anterior = minimo;
+            for (int i : orden) {
+                escribirVarLong(salida, buffer.marcas[i] - anterior);
+                anterior = buffer.marcas[i];
+                escribirVarLong(salida, buffer.segundos[i]);
+
+                // Los ids repetidos dentro del segmento se escriben como referencia
+                Integer indice = diccionario.get(buffer.ids[i]);
+                if (indice != null) {
+                    escribirVarLong(salida, indice + 1);
+                } else {
+                    escribirVarLong(salida, 0);
+                    salida.writeUTF(buffer.ids[i]);
+                    diccionario.put(buffer.ids[i], diccionario.size());
+                }
+            }
+            salida.close();
+        }
+
+        // Renombro al final para que nunca se lea un segmento a medio escribir
+        Files.move(temporal, carpeta.resolve(nombre + EXTENSION), StandardCopyOption.ATOMIC_MOVE);
+        totalPendientes -= buffer.tamano;
+        buffer.limpiar();
+    }
+
+    // ========== LECTURA ==========
+
+    public void recorrer(String idUsuario, long desde, long hasta, Consumer<Escucha> consumidor) throws IOException {
+        // Listo los segmentos y copio el buffer bajo el mismo bloqueo: un vaciado entre
+        // medias haría que una escucha no saliera en ninguno de los dos o en ambos
+        ArrayList<Path> enDisco;
+        ArrayList<Escucha> enMemoria = new ArrayList<>();
+        synchronized (this) {
+            enDisco = listarSegmentos(idUsuario);
+            BufferEscuchas buffer = pendientes.get(idUsuario);
+            if (buffer != null) {
+                for (int i = 0; i < buffer.tamano; i++) {
+                    if (buffer.marcas[i] >= desde && buffer.marcas[i] <= hasta) {
+                        enMemoria.add(new Escucha(buffer.ids[i], buffer.marcas[i], buffer.segundos[i]));
+                    }
+                }
+            }
+        }
+
+        // Solo abro los segmentos cuyo rango (guardado en el nombre) se cruza con el pedido
+        ArrayList<Path> segmentos = new ArrayList<>();
+        ArrayList<long[]> rangos = new ArrayList<>();
+        for (Path archivo : enDisco) {
+            String[] partes = archivo.getFileName().toString().split("_");
+            long minimo = Long.parseLong(partes[0]);
+            long maximo = Long.parseLong(partes[1]);
+            if (maximo >= desde && minimo <= hasta) {
+                segmentos.add(archivo);
+                rangos.add(new long[]{minimo, maximo, segmentos.size() - 1});
+            }
+        }
+
+        // Lo que todavía no se ha bajado a disco, ordenado por tiempo
+        enMemoria.sort((a, b) -> Long.compare(a.getMarcaTiempo(), b.getMarcaTiempo()));
+
+        // Si los rangos no se pisan basta con leerlos en orden; si se pisan (escuchas
+        // registradas con marcas antiguas) junto todo y lo ordeno antes de entregarlo
+        rangos.sort((a, b) -> Long.compare(a[0], b[0]));
+        boolean solapados = false;
+        long maximoAnterior = Long.MIN_VALUE;
+        for (long[] rango : rangos) {
+            solapados |= rango[0] < maximoAnterior;
+            maximoAnterior = Math.max(maximoAnterior, rango[1]);
+        }
+        solapados |= !enMemoria.isEmpty() && enMemoria.get(0).getMarcaTiempo() < maximoAnterior;
+
+        if (!solapados) {
+            for (long[] rango : rangos) {
+                leerSegmento(segmentos.get((int) rango[2]), rango[0], desde, hasta, consumidor);
+            }
+            enMemoria.forEach(consumidor);
+            return;
+        }
+
+        ArrayList<Escucha> todas = new ArrayList<>();
+        for (long[] rango : rangos) {
+            leerSegmento(segmentos.get((int) rango[2]), rango[0], desde, hasta, todas::add);
+        }
+        todas.addAll(enMemoria);
+        todas.sort((a, b) -> Long.compare(a.getMarcaTiempo(), b.getMarcaTiempo()));
+        todas.forEach(consumidor);
+    }
+
+    public ArrayList<Escucha> consultar(String idUsuario, long desde, long hasta) throws IOException {
+        ArrayList<Escucha> resultado = new ArrayList<>();
+        recorrer(idUsuario, desde, hasta, resultado::add);
+        return resultado;
+    }
+
+    public long contarEscuchas(String idUsuario) throws IOException {
+        long total = 0;
+        ArrayList<Path> segmentos;
+        synchronized (this) {
+            segmentos = listarSegmentos(idUsuario);
+            BufferEscuchas buffer = pendientes.get(idUsuario);
+            if (buffer != null) {
+                total += buffer.tamano;
+            }
+        }
+
+        // Solo leo la cabecera de cada segmento, sin descomprimir (los segmentos no cambian una vez escritos)
+        for (Path archivo : segmentos) {
+            try (DataInputStream entrada = new DataInputStream(Files.newInputStream(archivo))) {
+                total += entrada.readInt();
+            }
+        }
+        return total;
+    }
+
+    // Segmentos ya escritos del usuario; se llama con el bloqueo tomado para casar con el buffer
+    private ArrayList<Path> listarSegmentos(String idUsuario) throws IOException {
+        ArrayList<Path> segmentos = new ArrayList<>();
+        Path carpeta = directorio.resolve(idUsuario);
+        if (Files.isDirectory(carpeta)) {
+            try (DirectoryStream<Path> archivos = Files.newDirectoryStream(carpeta, "*" + EXTENSION)) {
+                for (Path archivo : archivos) {
+                    segmentos.add(archivo);
+                }
+            }
+        }
+        return segmentos;
+    }
+
+    private void leerSegmento(Path archivo, long minimo, long desde, long hasta, Consumer<Escucha> consumidor)
+            throws IOException {
+        try (InputStream flujo = Files.newInputStream(archivo)) {
+            int cantidad = new DataInputStream(flujo).readInt();
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(new InflaterInputStream(flujo)));
+
+            ArrayList<String> diccionario = new ArrayList<>();
+            long marca = minimo;
+            for (int i = 0; i < cantidad; i++) {
+                marca += leerVarLong(entrada);
+                int segundos = (int) leerVarLong(entrada);
+                int referencia = (int) leerVarLong(entrada);
+                String idContenido;
+                if (referencia == 0) {
+                    idContenido = entrada.readUTF();
+                    diccionario.add(idContenido);
+                } else {
+                    idContenido = diccionario.get(referencia - 1);
+                }
+
+                // Las entradas están ordenadas, así que puedo cortar al pasar el límite
+                if (marca > hasta) {
+                    break;
+                }
+                if (marca >= desde) {
+                    consumidor.accept(new Escucha(idContenido, marca, segundos));
+                }
+            }
+        }
+    }
+
+    // ========== CODIFICACIÓN ==========
+
+    private static void escribirVarLong(DataOutputStream salida, long valor) throws IOException {
+        // 7 bits por byte; el bit alto indica que sigue otro byte
+        while ((valor & ~0x7FL) != 0) {
+            salida.writeByte((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        salida.writeByte((int) valor);
+    }
+
+    private static long leerVarLong(DataInputStream entrada) throws IOException {
+        long valor = 0;
+        int desplazamiento = 0;
+        int b;
+        do {
+            b = entrada.readUnsignedByte();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while ((b & 0x80) != 0);
+        return valor;
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    public synchronized int getUsuariosPendientes() {
+        return pendientes.size();
+    }
+
+    public synchronized int getEscuchasPendientes() {
+        return totalPendientes;
+    }
+
+    // Escuchas aún no escritas de un usuario; crece hasta el tamaño de un segmento
+    private static class BufferEscuchas {
+        private long[] marcas = new long[CAPACIDAD_INICIAL];
+        private int[] segundos = new int[CAPACIDAD_INICIAL];
+        private String[] ids = new String[CAPACIDAD_INICIAL];
+        private int tamano;
+        private long ultimaMarca;
+
+        private void agregar(String idContenido, long marcaTiempo, int segundosEscuchados) {
+            if (tamano == marcas.length) {
+                int capacidad = Math.min(marcas.length * 2, ENTRADAS_POR_SEGMENTO);
+                marcas = Arrays.copyOf(marcas, capacidad);
+                segundos = Arrays.copyOf(segundos, capacidad);
+                ids = Arrays.copyOf(ids, capacidad);
+            }
+            ultimaMarca = Math.max(ultimaMarca, marcaTiempo);
+            marcas[tamano] = marcaTiempo;
+            segundos[tamano] = Math.max(segundosEscuchados, 0);
+            ids[tamano] = idContenido;
+            tamano++;
+        }
+
+        private void limpiar() {
+            Arrays.fill(ids, 0, tamano, null);
+            tamano = 0;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package utilidades;
+
+import java.time.ZoneId;
+
+/**
+ * Reloj controlado a mano, para pruebas y simulaciones deterministas.
+ */
+public class RelojManual extends RelojSistema {
+
+    private static final long MILLIS_POR_DIA = 24L * 60 * 60 * 1000;
+
+    private volatile long millis;
+
+    public RelojManual(long millisIniciales, ZoneId zona) {
+        super(zona);
+        this.millis = millisIniciales;
+    }
+
+    public RelojManual(long millisIniciales) {
+        this(millisIniciales, ZoneId.of("UTC"));
+    }
+
+    @Override
+    protected long leerMillis() {
+        return millis;
+    }
+
+    public void avanzarMillis(long cantidad) {
+        this.millis += cantidad;
+    }
+
+    public void avanzarDias(int dias) {
+        avanzarMillis(dias * MILLIS_POR_DIA);
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+}
@@ -0,0 +1,76 @@
+package utilidades;
+
+import interfaces.Reloj;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Reloj del sistema en una zona horaria. Guarda en caché el día actual
+ * (como número de día desde la época) junto con el rango de milisegundos
+ * que cubre, así que consultar el día no crea objetos salvo al cambiar de día.
+ */
+public class RelojSistema implements Reloj {
+
+    private static final RelojSistema POR_DEFECTO = new RelojSistema(ZoneId.systemDefault());
+
+    //Atributos:
+    private final ZoneId zona;
+    private volatile DiaCacheado diaCacheado;
+
+    //Constructor
+    public RelojSistema(ZoneId zona) {
+        this.zona = zona != null ? zona : ZoneId.systemDefault();
+    }
+
+    public static RelojSistema getPorDefecto() {
+        return POR_DEFECTO;
+    }
+
+    // Las subclases (por ejemplo el reloj manual de pruebas) cambian de dónde sale la hora
+    protected long leerMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long ahoraMillis() {
+        return leerMillis();
+    }
+
+    @Override
+    public long diaEpoch() {
+        long ahora = leerMillis();
+        DiaCacheado dia = this.diaCacheado;
+
+        // Camino rápido: seguimos dentro del día que ya tengo calculado
+        if (dia != null && ahora >= dia.inicio && ahora < dia.fin) {
+            return dia.numero;
+        }
+
+        // Cambió el día (o es la primera vez): lo calculo una sola vez
+        LocalDate fecha = Instant.ofEpochMilli(ahora).atZone(zona).toLocalDate();
+        long inicio = fecha.atStartOfDay(zona).toInstant().toEpochMilli();
+        long fin = fecha.plusDays(1).atStartOfDay(zona).toInstant().toEpochMilli();
+        this.diaCacheado = new DiaCacheado(fecha.toEpochDay(), inicio, fin);
+        return fecha.toEpochDay();
+    }
+
+    @Override
+    public ZoneId getZona() {
+        return zona;
+    }
+
+    // Día inmutable para poder publicarlo entre hilos sin bloqueos
+    private static final class DiaCacheado {
+        private final long numero;
+        private final long inicio;
+        private final long fin;
+
+        private DiaCacheado(long numero, long inicio, long fin) {
+            this.numero = numero;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+    }
+}
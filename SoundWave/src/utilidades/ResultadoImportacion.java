@@ -0,0 +1,82 @@
+package utilidades;
+
+import java.util.ArrayList;
+
+/**
+ * Recuento de una importación de feeds: feeds leídos, episodios creados,
+ * episodios saltados (ya existían o no tenían duración) y errores por feed.
+ */
+public class ResultadoImportacion {
+
+    //Atributos:
+    private int feeds;
+    private int episodiosImportados;
+    private int episodiosOmitidos;
+    private ArrayList<String> errores;
+
+    //Constructor
+    public ResultadoImportacion() {
+        this.feeds = 0;
+        this.episodiosImportados = 0;
+        this.episodiosOmitidos = 0;
+        this.errores = new ArrayList<>();
+    }
+
+    // ========== ACUMULACIÓN ==========
+
+    synchronized void sumarFeed() {
+        feeds++;
+    }
+
+    synchronized void sumarImportados(int cantidad) {
+        episodiosImportados += cantidad;
+    }
+
+    synchronized void sumarOmitidos(int cantidad) {
+        episodiosOmitidos += cantidad;
+    }
+
+    synchronized void agregarError(String error) {
+        errores.add(error);
+    }
+
+    // Suma el resultado de un feed al total (lo llaman varios hilos a la vez)
+    synchronized void acumular(ResultadoImportacion otro) {
+        feeds += otro.feeds;
+        episodiosImportados += otro.episodiosImportados;
+        episodiosOmitidos += otro.episodiosOmitidos;
+        errores.addAll(otro.errores);
+    }
+
+    // ========== GETTERS ==========
+
+    public synchronized int getFeeds() {
+        return feeds;
+    }
+
+    public synchronized int getEpisodiosImportados() {
+        return episodiosImportados;
+    }
+
+    public synchronized int getEpisodiosOmitidos() {
+        return episodiosOmitidos;
+    }
+
+    public synchronized ArrayList<String> getErrores() {
+        return new ArrayList<>(errores);
+    }
+
+    public synchronized boolean tieneErrores() {
+        return !errores.isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResultadoImportacion{" +
+                "feeds=" + feeds +
+                ", importados=" + episodiosImportados +
+                ", omitidos=" + episodiosOmitidos +
+                ", errores=" + errores.size() +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package utilidades;
+
+import modelo.contenido.Contenido;
+
+public class ResultadoTexto {
+
+    //Atributos:
+    private Contenido contenido;
+    private double puntuacion;
+    private String fragmento;
+
+    //Constructor
+    public ResultadoTexto(Contenido contenido, double puntuacion, String fragmento) {
+        this.contenido = contenido;
+        this.puntuacion = puntuacion;
+        this.fragmento = fragmento;
+    }
+
+    //Getters
+    public Contenido getContenido() {
+        return contenido;
+    }
+
+    public double getPuntuacion() {
+        return puntuacion;
+    }
+
+    // Trozo del texto alrededor de la primera coincidencia, con los términos entre [ ]
+    public String getFragmento() {
+        return fragmento;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoTexto{" +
+                "contenido='" + contenido.getTitulo() + '\'' +
+                ", puntuacion=" + String.format("%.3f", puntuacion) +
+                ", fragmento='" + fragmento + '\'' +
+                '}';
+    }
+}
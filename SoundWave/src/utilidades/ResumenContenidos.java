@@ -0,0 +1,144 @@
+package utilidades;
+
+import enums.GeneroMusical;
+import enums.TipoCambioContenido;
+import interfaces.ObservadorContenido;
+import modelo.contenido.Cancion;
+import modelo.contenido.Contenido;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Totales de una colección de contenidos (playlist o álbum) mantenidos al día
+ * conforme se agregan o quitan elementos, para que las cabeceras sean O(1).
+ * Observa cada canción para enterarse si cambia su género o si es explícita.
+ */
+public class ResumenContenidos implements ObservadorContenido {
+
+    // Las reproducciones, likes o tags no cambian los totales: no hace falta enterarse
+    private static final Set<TipoCambioContenido> CAMBIOS_OBSERVADOS =
+            Collections.unmodifiableSet(EnumSet.of(TipoCambioContenido.GENERO, TipoCambioContenido.EXPLICITO));
+
+    //Atributos:
+    private long duracionTotal;
+    private int cantidad;
+    private int explicitos;
+    private EnumMap<GeneroMusical, Integer> porGenero;
+    private HashMap<String, Conteo> contados; // Lo que conté de cada canción, para poder descontarlo
+
+    //Constructor
+    public ResumenContenidos() {
+        this.duracionTotal = 0;
+        this.cantidad = 0;
+        this.explicitos = 0;
+        this.porGenero = new EnumMap<>(GeneroMusical.class);
+        this.contados = new HashMap<>();
+    }
+
+    // ========== ACTUALIZACIÓN ==========
+
+    public synchronized void agregar(Contenido contenido) {
+        duracionTotal += contenido.getDuracionSegundos();
+        cantidad++;
+        if (contenido instanceof Cancion) {
+            Conteo conteo = new Conteo((Cancion) contenido);
+            contados.put(contenido.getId(), conteo);
+            sumar(conteo, 1);
+            contenido.agregarObservador(this);
+        }
+    }
+
+    public synchronized void quitar(Contenido contenido) {
+        duracionTotal -= contenido.getDuracionSegundos();
+        cantidad--;
+        Conteo conteo = contados.remove(contenido.getId());
+        if (conteo != null) {
+            sumar(conteo, -1);
+            contenido.quitarObservador(this);
+        }
+    }
+
+    @Override
+    public Set<TipoCambioContenido> getCambiosObservados() {
+        return CAMBIOS_OBSERVADOS;
+    }
+
+    @Override
+    public synchronized void contenidoActualizado(Contenido contenido, TipoCambioContenido cambio) {
+        if (cambio != TipoCambioContenido.GENERO && cambio != TipoCambioContenido.EXPLICITO) {
+            return;
+        }
+        Conteo anterior = contados.get(contenido.getId());
+        if (anterior == null) {
+            return;
+        }
+        // Descuento lo que había contado y cuento el estado nuevo
+        Conteo nuevo = new Conteo((Cancion) contenido);
+        sumar(anterior, -1);
+        sumar(nuevo, 1);
+        contados.put(contenido.getId(), nuevo);
+    }
+
+    private void sumar(Conteo conteo, int delta) {
+        if (conteo.explicito) {
+            explicitos += delta;
+        }
+        if (conteo.genero != null) {
+            int nuevo = porGenero.getOrDefault(conteo.genero, 0) + delta;
+            if (nuevo > 0) {
+                porGenero.put(conteo.genero, nuevo);
+            } else {
+                porGenero.remove(conteo.genero);
+            }
+        }
+    }
+
+    // ========== CONSULTAS ==========
+
+    public synchronized int getDuracionTotal() {
+        return (int) duracionTotal;
+    }
+
+    public synchronized String getDuracionTotalFormateada() {
+        long horas = duracionTotal / 3600;
+        long minutos = (duracionTotal % 3600) / 60;
+        long segundos = duracionTotal % 60;
+
+        if (horas > 0) {
+            return String.format("%d:%02d:%02d", horas, minutos, segundos);
+        } else {
+            return String.format("%d:%02d", minutos, segundos);
+        }
+    }
+
+    public synchronized int getCantidad() {
+        return cantidad;
+    }
+
+    public synchronized int getExplicitos() {
+        return explicitos;
+    }
+
+    public synchronized int getCantidadPorGenero(GeneroMusical genero) {
+        return porGenero.getOrDefault(genero, 0);
+    }
+
+    public synchronized EnumMap<GeneroMusical, Integer> getConteoPorGenero() {
+        return new EnumMap<>(porGenero); // Copia defensiva
+    }
+
+    // Género y marca explícita con los que se contó una canción
+    private static class Conteo {
+        private final GeneroMusical genero;
+        private final boolean explicito;
+
+        private Conteo(Cancion cancion) {
+            this.genero = cancion.getGenero();
+            this.explicito = cancion.isExplicit();
+        }
+    }
+}
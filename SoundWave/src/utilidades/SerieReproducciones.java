@@ -0,0 +1,139 @@
+package utilidades;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+/**
+ * Reproducciones de un contenido en el tiempo, por hora, por día y por mes.
+ * Cada granularidad es un arreglo circular de enteros reservado de antemano:
+ * la hora más reciente pisa la más vieja, así que la memoria es fija (unos
+ * 2.5 KB) y lo antiguo solo queda con la resolución más gruesa.
+ * Registrar es O(1) y pedir los últimos n puntos es O(n) sin crear objetos
+ * salvo el arreglo del resultado.
+ */
+public class SerieReproducciones {
+
+    public static final int HORAS = 7 * 24;    // Una semana por horas
+    public static final int DIAS = 400;        // Algo más de un año por días
+    public static final int MESES = 60;        // Cinco años por meses
+
+    private static final long MILLIS_POR_HORA = 60L * 60 * 1000;
+
+    //Atributos:
+    private final int[] porHora;
+    private final int[] porDia;
+    private final int[] porMes;
+    private long ultimaHora;   // Índice (desde la época) del hueco más reciente de cada arreglo
+    private long ultimoDia;
+    private long ultimoMes;
+    private long diaDelMes;    // Caché para no calcular el mes en cada reproducción
+    private long mesDelDia;
+    private long total;
+
+    //Constructor
+    public SerieReproducciones() {
+        this.porHora = new int[HORAS];
+        this.porDia = new int[DIAS];
+        this.porMes = new int[MESES];
+        this.ultimaHora = Long.MIN_VALUE;
+        this.ultimoDia = Long.MIN_VALUE;
+        this.ultimoMes = Long.MIN_VALUE;
+        this.diaDelMes = Long.MIN_VALUE;
+        this.mesDelDia = 0;
+        this.total = 0;
+    }
+
+    // ========== ACTUALIZACIÓN ==========
+
+    public synchronized void registrar(long millis, long diaEpoch) {
+        long hora = Math.floorDiv(millis, MILLIS_POR_HORA);
+        long mes = mesEpoch(diaEpoch);
+        ultimaHora = sumar(porHora, ultimaHora, hora);
+        ultimoDia = sumar(porDia, ultimoDia, diaEpoch);
+        ultimoMes = sumar(porMes, ultimoMes, mes);
+        total++;
+    }
+
+    // ========== CONSULTAS ==========
+
+    // Los últimos 'horas' valores hasta la hora de 'ahoraMillis' (el más antiguo primero)
+    public synchronized int[] getPorHora(long ahoraMillis, int horas) {
+        return ventana(porHora, ultimaHora, Math.floorDiv(ahoraMillis, MILLIS_POR_HORA), horas);
+    }
+
+    public synchronized int[] getPorDia(long hoy, int dias) {
+        return ventana(porDia, ultimoDia, hoy, dias);
+    }
+
+    public synchronized int[] getPorMes(YearMonth hasta, int meses) {
+        return ventana(porMes, ultimoMes, hasta.getYear() * 12L + hasta.getMonthValue() - 1, meses);
+    }
+
+    public synchronized long getTotalUltimosDias(long hoy, int dias) {
+        long suma = 0;
+        for (int valor : getPorDia(hoy, dias)) {
+            suma += valor;
+        }
+        return suma;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    // Suma elemento a elemento (para juntar las series de un álbum o de un creador)
+    public static void acumular(int[] destino, int[] serie) {
+        for (int i = 0; i < destino.length && i < serie.length; i++) {
+            destino[i] += serie[i];
+        }
+    }
+
+    // ========== AUXILIARES ==========
+
+    // Suma uno al hueco de 'indice' y devuelve el nuevo índice más reciente
+    private static long sumar(int[] anillo, long ultimo, long indice) {
+        int n = anillo.length;
+        if (ultimo == Long.MIN_VALUE || indice - ultimo >= n) {
+            // Primera vez o hueco más largo que el anillo: todo lo anterior caducó
+            Arrays.fill(anillo, 0);
+            ultimo = indice;
+        } else if (indice > ultimo) {
+            // Limpio los huecos que el anillo salta hasta el nuevo
+            for (long i = ultimo + 1; i <= indice; i++) {
+                anillo[Math.floorMod(i, n)] = 0;
+            }
+            ultimo = indice;
+        } else if (ultimo - indice >= n) {
+            // Demasiado viejo para la resolución de este anillo
+            return ultimo;
+        }
+        anillo[Math.floorMod(indice, n)]++;
+        return ultimo;
+    }
+
+    private static int[] ventana(int[] anillo, long ultimo, long hasta, int cantidad) {
+        int[] resultado = new int[Math.max(cantidad, 0)];
+        if (ultimo == Long.MIN_VALUE) {
+            return resultado;
+        }
+        int n = anillo.length;
+        for (int i = 0; i < resultado.length; i++) {
+            long indice = hasta - resultado.length + 1 + i;
+            // Solo son válidos los huecos que siguen en el anillo
+            if (indice <= ultimo && ultimo - indice < n) {
+                resultado[i] = anillo[Math.floorMod(indice, n)];
+            }
+        }
+        return resultado;
+    }
+
+    private long mesEpoch(long diaEpoch) {
+        if (diaEpoch != diaDelMes) {
+            LocalDate fecha = LocalDate.ofEpochDay(diaEpoch);
+            diaDelMes = diaEpoch;
+            mesDelDia = fecha.getYear() * 12L + fecha.getMonthValue() - 1;
+        }
+        return mesDelDia;
+    }
+}
@@ -1,6 +1,7 @@
 package test;
 
 import enums.GeneroMusical;
+import enums.ResultadoCuota;
 import enums.TipoSuscripcion;
 import excepciones.contenido.ContenidoNoDisponibleException;
 import excepciones.descarga.ContenidoYaDescargadoException;
@@ -10,12 +11,23 @@ import modelo.artistas.Album;
 import modelo.artistas.Artista;
 import modelo.contenido.Cancion;
 import modelo.plataforma.Plataforma;
+import modelo.plataforma.PoliticaCuota;
+import modelo.plataforma.ServicioCuotas;
 import modelo.usuarios.UsuarioGratuito;
 import modelo.usuarios.UsuarioPremium;
 import org.junit.jupiter.api.*;
+import utilidades.Escucha;
+import utilidades.RegistroEscuchas;
+import utilidades.RelojManual;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -215,4 +227,162 @@ public class Escenario3ReproduccionLimitesTest {
         // Restaurar
         cancion.marcarDisponible();
     }
+
+    // ========== TEST 10: Registro de escuchas en disco ==========
+    @Test
+    @Order(10)
+    @DisplayName("3.10 - Las escuchas se guardan en el registro con el tiempo escuchado y sobreviven a reabrirlo")
+    void testRegistroEscuchas() throws Exception {
+        Path directorio = Files.createTempDirectory("escuchas");
+        RegistroEscuchas registro = plataforma.activarRegistroEscuchas(directorio);
+        RelojManual reloj = new RelojManual(1704067200000L, ZoneId.of("UTC"));
+        userPremium.setReloj(reloj);
+        long inicio = reloj.ahoraMillis();
+
+        // 300 escuchas cruzan el límite de un segmento (256); cada canción suena 60 de sus 180 segundos
+        for (int i = 0; i < 300; i++) {
+            userPremium.reproducir(canciones.get(i % 5));
+            reloj.avanzarMillis(60 * 1000);
+        }
+        // La última sigue sonando hasta que se detiene
+        assertEquals(299, registro.contarEscuchas(userPremium.getId()));
+        userPremium.detenerReproduccion();
+        assertNull(userPremium.getEscuchaEnCurso());
+
+        // Y algunas escuchas antiguas registradas a mano
+        registro.registrar(userPremium.getId(), canciones.get(0).getId(), 1000L, 180);
+        registro.registrar(userPremium.getId(), canciones.get(1).getId(), 2000L, 90);
+        registro.vaciar();
+        assertEquals(0, registro.getUsuariosPendientes());
+        assertEquals(0, registro.getEscuchasPendientes());
+
+        // Reabro el registro desde disco: no queda nada en memoria
+        RegistroEscuchas reabierto = new RegistroEscuchas(directorio);
+        ArrayList<Escucha> recientes = reabierto.consultar(userPremium.getId(), inicio, Long.MAX_VALUE);
+        assertEquals(300, recientes.size());
+        for (int i = 0; i < recientes.size(); i++) {
+            assertEquals(canciones.get(i % 5).getId(), recientes.get(i).getIdContenido());
+            assertEquals(inicio + i * 60 * 1000L, recientes.get(i).getMarcaTiempo());
+            assertEquals(60, recientes.get(i).getSegundosEscuchados());
+        }
+
+        ArrayList<Escucha> antiguas = reabierto.consultar(userPremium.getId(), 0L, 1500L);
+        assertEquals(1, antiguas.size());
+        assertEquals(180, antiguas.get(0).getSegundosEscuchados());
+
+        assertEquals(302, reabierto.contarEscuchas(userPremium.getId()));
+    }
+
+    // ========== TEST 11: Cambio de día con reloj controlado ==========
+    @Test
+    @Order(11)
+    @DisplayName("3.11 - El límite diario se reinicia al cambiar de día según el reloj del usuario")
+    void testLimiteDiarioConReloj() throws Exception {
+        UsuarioGratuito usuario = plataforma.registrarUsuarioGratuito("Reloj", "reloj@test.com", "password123");
+        // 2024-01-01 23:30 UTC
+        RelojManual reloj = new RelojManual(1704151800000L, ZoneId.of("UTC"));
+        usuario.setReloj(reloj);
+
+        usuario.setReproduccionesHoy(50);
+        assertThrows(LimiteDiarioAlcanzadoException.class, () -> usuario.reproducir(canciones.get(0)));
+
+        // Unos minutos después sigue siendo el mismo día: no se reinicia
+        reloj.avanzarMillis(10 * 60 * 1000);
+        assertFalse(usuario.puedeReproducir());
+
+        // Al día siguiente el contador vuelve a cero
+        reloj.avanzarDias(1);
+        assertDoesNotThrow(() -> usuario.reproducir(canciones.get(0)));
+        assertEquals(1, usuario.getReproduccionesHoy());
+
+        // El mismo instante cae en días distintos según la zona horaria
+        RelojManual madrid = new RelojManual(1704151800000L, ZoneId.of("Europe/Madrid"));
+        RelojManual utc = new RelojManual(1704151800000L, ZoneId.of("UTC"));
+        assertEquals(utc.diaEpoch() + 1, madrid.diaEpoch());
+    }
+
+    // ========== TEST 12: Políticas de cuota configurables y persistentes ==========
+    @Test
+    @Order(12)
+    @DisplayName("3.12 - La política de cuota se configura por suscripción y el estado sobrevive a un reinicio")
+    void testCuotasConfigurablesYPersistentes() throws Exception {
+        ServicioCuotas servicio = new ServicioCuotas();
+        servicio.configurarPolitica(TipoSuscripcion.GRATUITO, new PoliticaCuota(2, PoliticaCuota.SIN_ANUNCIOS));
+        UsuarioGratuito usuario = new UsuarioGratuito("Cuotas", "cuotas@test.com", "password123", servicio);
+
+        usuario.reproducir(canciones.get(0));
+        usuario.reproducir(canciones.get(1));
+        assertFalse(usuario.debeVerAnuncio());
+        assertThrows(LimiteDiarioAlcanzadoException.class, () -> usuario.reproducir(canciones.get(2)));
+
+        // Guardo el estado y lo cargo en un servicio nuevo (como tras un reinicio)
+        Path archivo = Files.createTempFile("cuotas", ".bin");
+        servicio.guardar(archivo);
+        ServicioCuotas reiniciado = new ServicioCuotas();
+        reiniciado.cargar(archivo);
+
+        int slot = reiniciado.registrar(usuario.getId());
+        assertEquals(2, reiniciado.getUsadasHoy(slot, usuario.getReloj().diaEpoch()));
+    }
+
+    // ========== TEST 13: Las cuotas sobreviven a reiniciar la plataforma ==========
+    @Test
+    @Order(13)
+    @DisplayName("3.13 - Los contadores de cuota se guardan al cerrar la plataforma y se recuperan al arrancar")
+    void testCuotasSobrevivenReinicioPlataforma() throws Exception {
+        Path archivo = Files.createTempDirectory("cuotas").resolve("cuotas.bin");
+        plataforma.activarCuotas(archivo);
+        UsuarioGratuito usuario = plataforma.registrarUsuarioGratuito("Reinicio", "reinicio@test.com", "password123");
+        RelojManual reloj = new RelojManual(1704103200000L, ZoneId.of("UTC"));
+        usuario.setReloj(reloj);
+        usuario.setReproduccionesHoy(49);
+        usuario.reproducir(canciones.get(0));
+        assertEquals(50, usuario.getReproduccionesHoy());
+        ServicioCuotas anterior = plataforma.getCuotas();
+
+        // Reiniciar guarda las cuotas y suelta también el servicio compartido
+        Plataforma.reiniciarInstancia();
+        assertTrue(Files.exists(archivo));
+        plataforma = Plataforma.getInstancia("SoundWave Test");
+        assertNotSame(anterior, plataforma.getCuotas());
+        assertSame(ServicioCuotas.getInstancia(), plataforma.getCuotas());
+
+        ServicioCuotas cuotas = plataforma.activarCuotas(archivo);
+        int slot = cuotas.registrar(usuario.getId());
+        assertEquals(50, cuotas.getUsadasHoy(slot, reloj.diaEpoch()));
+        assertEquals(ResultadoCuota.LIMITE_DIARIO, cuotas.consultar(slot, TipoSuscripcion.GRATUITO, reloj.diaEpoch()));
+    }
+
+    // ========== TEST 14: Consultas mientras se vacía el buffer ==========
+    @Test
+    @Order(14)
+    @DisplayName("3.14 - Consultar mientras se vacía el buffer no pierde ni repite escuchas")
+    void testConsultaDuranteVaciado() throws Exception {
+        RegistroEscuchas registro = new RegistroEscuchas(Files.createTempDirectory("escuchas-vaciado"));
+        String idUsuario = "concurrente";
+        ExecutorService hilos = Executors.newSingleThreadExecutor();
+        try {
+            // Cada escucha tiene una marca distinta y consecutiva: una foto coherente es siempre [0, n)
+            Future<?> escritor = hilos.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    registro.registrar(idUsuario, "c" + (i % 7), i, 30);
+                    if (i % 10 == 9) {
+                        registro.vaciar(idUsuario);
+                    }
+                }
+                return null;
+            });
+            while (!escritor.isDone()) {
+                ArrayList<Escucha> foto = registro.consultar(idUsuario, 0L, Long.MAX_VALUE);
+                for (int i = 0; i < foto.size(); i++) {
+                    assertEquals(i, foto.get(i).getMarcaTiempo());
+                }
+            }
+            escritor.get();
+        } finally {
+            hilos.shutdown();
+        }
+        assertEquals(2000, registro.consultar(idUsuario, 0L, Long.MAX_VALUE).size());
+        assertEquals(2000, registro.contarEscuchas(idUsuario));
+    }
 }
@@ -2,20 +2,41 @@ package test;
 
 import enums.CriterioOrden;
 import enums.GeneroMusical;
+import enums.TipoCambioContenido;
 import enums.TipoSuscripcion;
 import excepciones.playlist.ContenidoDuplicadoException;
+import excepciones.playlist.PermisoPlaylistException;
+import excepciones.playlist.PlaylistLlenaException;
 import excepciones.playlist.PlaylistVaciaException;
+import interfaces.ObservadorContenido;
 import modelo.artistas.Album;
 import modelo.artistas.Artista;
 import modelo.contenido.Cancion;
+import modelo.contenido.Contenido;
+import modelo.plataforma.CursorAleatorio;
+import modelo.plataforma.InstantaneaPlaylist;
 import modelo.plataforma.Plataforma;
 import modelo.plataforma.Playlist;
+import modelo.plataforma.PlaylistColaborativa;
+import modelo.plataforma.PlaylistInteligente;
+import modelo.plataforma.ReglaPlaylist;
+import modelo.usuarios.Usuario;
 import modelo.usuarios.UsuarioGratuito;
 import modelo.usuarios.UsuarioPremium;
+import utilidades.RankingPlaylists;
+import utilidades.RelojManual;
 import org.junit.jupiter.api.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -208,4 +229,504 @@ public class Escenario4GestionPlaylistsTest {
 
         assertEquals(duracionCalculada, playlistPrivada.getDuracionTotal());
     }
+
+    // ========== TEST 11: Likes con contador exacto ==========
+    @Test
+    @Order(11)
+    @DisplayName("4.11 - Dar y quitar like mantiene exacto el contador del contenido")
+    void testLikesConsistentes() {
+        Cancion cancion = canciones.get(0);
+        int likesAntes = cancion.getLikes();
+
+        userPremium.darLike(cancion);
+        userPremium.darLike(cancion); // Duplicado: no cuenta
+        userGratuito.darLike(cancion);
+
+        assertEquals(likesAntes + 2, cancion.getLikes());
+        assertTrue(cancion.tieneLikeDe(userPremium));
+        assertTrue(cancion.getUsuariosLike().contains(userGratuito));
+
+        userPremium.quitarLike(cancion);
+        userPremium.quitarLike(cancion); // Ya no lo tenía: no resta
+
+        assertEquals(likesAntes + 1, cancion.getLikes());
+        assertFalse(userPremium.tieneLike(cancion));
+        assertFalse(cancion.tieneLikeDe(userPremium));
+    }
+
+    // ========== TEST 12: Playlist grande con capacidad configurable ==========
+    @Test
+    @Order(12)
+    @DisplayName("4.12 - Playlist con capacidad configurable admite miles de contenidos y mantiene el orden")
+    void testPlaylistGrande() throws Exception {
+        Artista artista = plataforma.registrarArtista("Artista Masivo", "Masivo", "Test", true);
+        Playlist grande = new Playlist("Maratón", userPremium, false, "", 20000);
+        assertEquals(20000, grande.getMaxContenidos());
+
+        ArrayList<Cancion> agregadas = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Cancion c = new Cancion("Pista " + i, 120, artista, GeneroMusical.ROCK);
+            grande.agregarContenido(c);
+            agregadas.add(c);
+        }
+        assertEquals(20000, grande.getNumContenidos());
+        assertThrows(PlaylistLlenaException.class, () -> grande.agregarContenido(canciones.get(0)));
+
+        // Elimino las pares y compruebo que el orden de las restantes se conserva
+        for (int i = 0; i < agregadas.size(); i += 2) {
+            assertTrue(grande.eliminarContenido(agregadas.get(i).getId()));
+        }
+        assertEquals(10000, grande.getNumContenidos());
+        assertEquals(agregadas.get(1), grande.getContenido(0));
+        assertEquals(agregadas.get(19999), grande.getContenido(9999));
+        assertEquals(5, grande.getPosicion(agregadas.get(11).getId()));
+        assertFalse(grande.contieneContenido(agregadas.get(10).getId()));
+    }
+
+    // ========== TEST 13: Vistas ordenadas sin perder el orden original ==========
+    @Test
+    @Order(13)
+    @DisplayName("4.13 - Ordenar no destruye el orden original y las vistas se mantienen al editar")
+    void testVistasOrdenadas() throws Exception {
+        Artista zeta = plataforma.registrarArtista("Zeta", "Zeta", "Test", true);
+        Artista alfa = plataforma.registrarArtista("Alfa", "Alfa", "Test", true);
+        Playlist lista = new Playlist("Vistas", userPremium);
+        Cancion c1 = new Cancion("Uno", 200, zeta, GeneroMusical.ROCK);
+        Cancion c2 = new Cancion("Dos", 100, alfa, GeneroMusical.ROCK);
+        Cancion c3 = new Cancion("Tres", 300, zeta, GeneroMusical.ROCK);
+        lista.agregarContenido(c1);
+        lista.agregarContenido(c2);
+        lista.agregarContenido(c3);
+
+        lista.ordenarPor(CriterioOrden.ARTISTA);
+        assertEquals(CriterioOrden.ARTISTA, lista.getCriterioOrden());
+        assertEquals(c2, lista.getContenido(0));
+
+        // Agregar con la vista activa la mantiene ordenada
+        Cancion c4 = new Cancion("Cuatro", 50, alfa, GeneroMusical.ROCK);
+        lista.agregarContenido(c4);
+        assertEquals(c4, lista.getContenido(0));
+        assertEquals(c2, lista.getContenido(1));
+
+        // Cambiar de criterio no pierde el orden en que se agregaron
+        lista.ordenarPor(CriterioOrden.DURACION);
+        assertEquals(c4, lista.getContenido(0));
+        lista.eliminarContenido(c4);
+        assertEquals(c2, lista.getContenido(0));
+
+        lista.ordenarPor(CriterioOrden.FECHA_AGREGADO);
+        assertEquals(c1, lista.getContenido(0));
+        assertEquals(c2, lista.getContenido(1));
+        assertEquals(c3, lista.getContenido(2));
+        assertNotNull(lista.getFechaAgregado(c3.getId()));
+
+        // La popularidad se repara si cambian las reproducciones
+        c3.setReproducciones(1000);
+        assertEquals(c3, lista.getContenidosOrdenados(CriterioOrden.POPULARIDAD).get(0));
+        c1.setReproducciones(5000);
+        assertEquals(c1, lista.getContenidosOrdenados(CriterioOrden.POPULARIDAD).get(0));
+
+        // También al cambiar el título o el nombre del artista (de lo que tiene publicado);
+        // la posición sale por búsqueda binaria
+        lista.ordenarPor(CriterioOrden.ALFABETICO);
+        assertEquals(0, lista.getPosicion(c2.getId()));
+        c2.setTitulo("Zzz");
+        assertEquals(2, lista.getPosicion(c2.getId()));
+        assertEquals(c2, lista.getContenido(2));
+        lista.ordenarPor(CriterioOrden.ARTISTA);
+        assertEquals(c2, lista.getContenido(0));
+        alfa.publicarCancion(c2);
+        alfa.setNombreArtistico("Zulu");
+        assertEquals(c2, lista.getContenido(2));
+        lista.eliminarContenido(c2);
+        assertEquals(-1, lista.getPosicion(c2.getId()));
+        assertEquals(2, lista.getNumContenidos());
+    }
+
+    // ========== TEST 14: Playlist colaborativa ==========
+    @Test
+    @Order(14)
+    @DisplayName("4.14 - Playlist colaborativa admite escritores concurrentes y réplicas que convergen")
+    void testPlaylistColaborativa() throws Exception {
+        Artista artista = plataforma.registrarArtista("Colab", "Colab", "Test", true);
+        PlaylistColaborativa colaborativa = plataforma.crearPlaylistColaborativa("Fiesta", userPremium);
+        colaborativa.agregarColaborador(userGratuito);
+
+        ArrayList<Cancion> pistas = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pistas.add(new Cancion("Colab " + i, 120, artista, GeneroMusical.POP));
+        }
+
+        // Dos colaboradores agregan a la vez, cada uno su mitad; get() relanza aquí cualquier fallo del hilo
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> primero = hilos.submit(() -> agregarRango(colaborativa, userPremium, pistas, 0, 100));
+            Future<?> segundo = hilos.submit(() -> agregarRango(colaborativa, userGratuito, pistas, 100, 200));
+            primero.get();
+            segundo.get();
+        } finally {
+            hilos.shutdown();
+        }
+
+        InstantaneaPlaylist foto = colaborativa.getInstantanea();
+        assertEquals(200, foto.getNumContenidos());
+        assertEquals(200 * 120, foto.getDuracionTotal());
+
+        // La instantánea no cambia aunque se sigan haciendo cambios
+        colaborativa.eliminarContenido(userPremium, pistas.get(0).getId());
+        assertEquals(200, foto.getNumContenidos());
+        assertEquals(199, colaborativa.getInstantanea().getNumContenidos());
+
+        // Sin permiso no se puede editar
+        Cancion ajena = new Cancion("Ajena", 100, artista, GeneroMusical.POP);
+        UsuarioPremium intruso = plataforma.registrarUsuarioPremium("Intruso", "intruso@test.com", "password123");
+        assertThrows(PermisoPlaylistException.class, () -> colaborativa.agregarContenido(intruso, ajena));
+
+        // Dos réplicas editadas por separado convergen al mismo orden al fusionarse
+        PlaylistColaborativa replica = colaborativa.crearReplica();
+        colaborativa.insertarDespues(userPremium, ajena, null);
+        replica.moverDespues(userGratuito, pistas.get(5).getId(), null);
+        replica.eliminarContenido(userGratuito, pistas.get(6).getId());
+        colaborativa.fusionar(replica);
+        replica.fusionar(colaborativa);
+
+        assertEquals(colaborativa.getInstantanea().getContenidos(), replica.getInstantanea().getContenidos());
+        // Ambos cambios fueron al principio; el desempate entre réplicas es el mismo en las dos
+        InstantaneaPlaylist fusionada = colaborativa.getInstantanea();
+        assertTrue(fusionada.getContenidos().subList(0, 2).contains(ajena));
+        assertTrue(fusionada.getContenidos().subList(0, 2).contains(pistas.get(5)));
+        assertFalse(replica.contieneContenido(pistas.get(6).getId()));
+        assertEquals(199, replica.getNumContenidos());
+        assertEquals(199, fusionada.getNumContenidos());
+
+        // Tras fusionar en los dos sentidos ambas réplicas han visto todas las bajas: no quedan lápidas
+        assertEquals(0, colaborativa.getNumLapidas());
+        assertEquals(0, replica.getNumLapidas());
+
+        // Una baja que la otra réplica aún no ha visto se conserva hasta la fusión
+        replica.eliminarContenido(userGratuito, pistas.get(7).getId());
+        assertEquals(1, replica.getNumLapidas());
+        colaborativa.fusionar(replica);
+        assertFalse(colaborativa.contieneContenido(pistas.get(7).getId()));
+        assertEquals(0, colaborativa.getNumLapidas());
+        assertEquals(0, replica.getNumLapidas());
+        replica.fusionar(colaborativa);
+        assertEquals(colaborativa.getInstantanea().getContenidos(), replica.getInstantanea().getContenidos());
+        assertEquals(198, replica.getNumContenidos());
+    }
+
+    private Void agregarRango(PlaylistColaborativa playlist, Usuario autor, ArrayList<Cancion> pistas, int desde, int hasta)
+            throws Exception {
+        for (int i = desde; i < hasta; i++) {
+            playlist.agregarContenido(autor, pistas.get(i));
+        }
+        return null;
+    }
+
+    // ========== TEST 15: Playlist inteligente ==========
+    @Test
+    @Order(15)
+    @DisplayName("4.15 - Playlist inteligente se mantiene sola al agregar contenido y al cambiar sus atributos")
+    void testPlaylistInteligente() throws Exception {
+        Artista artista = plataforma.registrarArtista("Reglas", "Reglas", "Test", true);
+        PlaylistInteligente verano = plataforma.crearPlaylistInteligente("Rock de verano", userPremium, 2,
+                ReglaPlaylist.genero(GeneroMusical.ROCK),
+                ReglaPlaylist.sinExplicito(),
+                ReglaPlaylist.duracionMenorA(300),
+                ReglaPlaylist.conTag("verano"));
+        assertTrue(verano.estaVacia());
+
+        Cancion corta = plataforma.crearCancion("Ola", 200, artista, GeneroMusical.ROCK);
+        Cancion larga = plataforma.crearCancion("Marea", 400, artista, GeneroMusical.ROCK);
+        Cancion pop = plataforma.crearCancion("Arena", 180, artista, GeneroMusical.POP);
+        Cancion otra = plataforma.crearCancion("Brisa", 150, artista, GeneroMusical.ROCK);
+        corta.agregarTag("verano");
+        larga.agregarTag("verano");
+        pop.agregarTag("verano");
+        otra.agregarTag("verano");
+
+        // La larga no cumple la duración y la pop no es ROCK
+        assertEquals(2, verano.getNumContenidos());
+        assertTrue(verano.contieneContenido(corta.getId()));
+        assertFalse(verano.contieneContenido(larga.getId()));
+
+        // Cambiar el género la hace entrar; el límite deja solo las 2 más reproducidas
+        pop.setReproducciones(50);
+        pop.cambiarGenero(GeneroMusical.ROCK);
+        assertEquals(2, verano.getNumContenidos());
+        assertEquals(pop, verano.getContenido(0));
+
+        // Las reproducciones reordenan el top
+        for (int i = 0; i < 60; i++) {
+            otra.aumentarReproducciones();
+        }
+        assertEquals(otra, verano.getContenido(0));
+        assertEquals(pop, verano.getContenido(1));
+        assertFalse(verano.contieneContenido(corta.getId()));
+
+        // Marcarla explícita la saca y deja sitio a la siguiente
+        otra.setExplicit(true);
+        assertEquals(pop, verano.getContenido(0));
+        assertEquals(corta, verano.getContenido(1));
+        assertEquals(380, verano.getDuracionTotal());
+    }
+
+    // ========== TEST 16: Shuffle perezoso por oyente ==========
+    @Test
+    @Order(16)
+    @DisplayName("4.16 - Cursor aleatorio no altera la playlist, separa artistas y recuerda la posición de cada oyente")
+    void testCursorAleatorio() throws Exception {
+        Artista[] artistas = {
+                plataforma.registrarArtista("Mezcla A", "A", "Test", true),
+                plataforma.registrarArtista("Mezcla B", "B", "Test", true),
+                plataforma.registrarArtista("Mezcla C", "C", "Test", true)
+        };
+        Playlist mezcla = new Playlist("Mezcla", userPremium, false, "", 1000);
+        for (int i = 0; i < 60; i++) {
+            mezcla.agregarContenido(new Cancion("Mezcla " + i, 120, artistas[i / 20], GeneroMusical.POP));
+        }
+        ArrayList<Contenido> original = mezcla.getContenidos();
+
+        CursorAleatorio cursor = mezcla.getCursorAleatorio(userPremium, true);
+        HashSet<String> vistos = new HashSet<>();
+        Contenido anterior = null;
+        int repetidosSeguidos = 0;
+        for (int i = 0; i < 30; i++) {
+            Contenido actual = cursor.next();
+            assertTrue(vistos.add(actual.getId()));
+            if (anterior != null && ((Cancion) anterior).getArtista() == ((Cancion) actual).getArtista()) {
+                repetidosSeguidos++;
+            }
+            anterior = actual;
+        }
+        assertEquals(0, repetidosSeguidos);
+
+        // El mismo oyente retoma donde lo dejó; otro oyente empieza de cero
+        assertSame(cursor, mezcla.getCursorAleatorio(userPremium, true));
+        assertEquals(30, mezcla.getCursorAleatorio(userPremium, true).getPosicion());
+        assertEquals(0, mezcla.getCursorAleatorio(userGratuito, true).getPosicion());
+
+        // Un contenido eliminado a mitad de recorrido ya no sale
+        Contenido pendiente = original.stream().filter(c -> !vistos.contains(c.getId())).findFirst().get();
+        mezcla.eliminarContenido(pendiente);
+        while (cursor.hasNext()) {
+            Contenido actual = cursor.next();
+            assertNotEquals(pendiente, actual);
+            assertTrue(vistos.add(actual.getId()));
+        }
+        assertEquals(59, vistos.size());
+
+        // Ni el cursor ni shuffle tocan el orden original
+        mezcla.shuffle();
+        assertEquals(59, mezcla.getContenidos().size());
+        original.remove(pendiente);
+        assertEquals(original, mezcla.getContenidosOrdenados(CriterioOrden.FECHA_AGREGADO));
+    }
+
+    // ========== TEST 17: Rankings de descubrimiento ==========
+    @Test
+    @Order(17)
+    @DisplayName("4.17 - Rankings de playlists públicas por seguidores, tendencia y fecha")
+    void testRankingPlaylists() {
+        RelojManual reloj = new RelojManual(0);
+        RankingPlaylists ranking = new RankingPlaylists(reloj, 24L * 60 * 60 * 1000);
+        Playlist veterana = new Playlist("Veterana", userPremium, true, "");
+        Playlist nueva = new Playlist("Nueva", userPremium, true, "");
+        Playlist oculta = new Playlist("Oculta", userPremium, false, "");
+        ranking.registrar(veterana);
+        ranking.registrar(nueva);
+        ranking.registrar(oculta);
+        assertEquals(2, ranking.getNumPublicas());
+
+        // La veterana junta muchos seguidores hace una semana; la nueva pocos, pero hoy
+        for (int i = 0; i < 10; i++) {
+            veterana.incrementarSeguidores();
+        }
+        reloj.avanzarDias(7);
+        for (int i = 0; i < 3; i++) {
+            nueva.incrementarSeguidores();
+        }
+        assertEquals(veterana, ranking.getMasSeguidas(1).get(0));
+        assertEquals(nueva, ranking.getEnTendencia(1).get(0));
+        assertEquals(3.0, ranking.getTendencia(nueva), 1e-9);
+        assertEquals(10.0 / 128, ranking.getTendencia(veterana), 1e-9);
+
+        // Dejar de seguir reordena; la privada solo aparece al hacerse pública
+        for (int i = 0; i < 8; i++) {
+            veterana.decrementarSeguidores();
+        }
+        assertEquals(nueva, ranking.getMasSeguidas(1).get(0));
+        for (int i = 0; i < 5; i++) {
+            oculta.incrementarSeguidores();
+        }
+        assertFalse(ranking.getMasSeguidas(10).contains(oculta));
+        oculta.hacerPublica();
+        assertEquals(oculta, ranking.getMasSeguidas(1).get(0));
+        assertEquals(oculta, ranking.getRecientes(1).get(0));
+        nueva.hacerPrivada();
+        assertEquals(2, ranking.getMasSeguidas(10).size());
+
+        // La plataforma mantiene su propio ranking de las playlists públicas que crea
+        Playlist seguida = plataforma.crearPlaylistPublica("Muy seguida", userPremium);
+        userPremium.seguirPlaylist(seguida);
+        userGratuito.seguirPlaylist(seguida);
+        assertEquals(seguida, plataforma.getPlaylistsMasSeguidas(1).get(0));
+        assertTrue(plataforma.getPlaylistsEnTendencia(3).contains(seguida));
+
+        // Las playlists que crea un usuario también entran al hacerse públicas
+        Playlist propia = userGratuito.crearPlaylist("Propia del usuario");
+        assertFalse(plataforma.getPlaylistsRecientes(10).contains(propia));
+        propia.hacerPublica();
+        assertEquals(propia, plataforma.getPlaylistsRecientes(1).get(0));
+    }
+
+    // ========== TEST 18: Avisos de cambio por tipo ==========
+    @Test
+    @Order(18)
+    @DisplayName("4.18 - Reproducir no avisa a los resúmenes de playlists; cada observador recibe solo lo que sigue")
+    void testObservadoresPorTipoDeCambio() throws Exception {
+        Artista artista = plataforma.registrarArtista("Avisos", "Avisos", "Test", true);
+        Cancion cancion = new Cancion("Aviso", 200, artista, GeneroMusical.POP);
+        ArrayList<TipoCambioContenido> recibidos = new ArrayList<>();
+        ObservadorContenido soloGenero = new ObservadorContenido() {
+            @Override
+            public void contenidoActualizado(Contenido contenido, TipoCambioContenido cambio) {
+                recibidos.add(cambio);
+            }
+
+            @Override
+            public Set<TipoCambioContenido> getCambiosObservados() {
+                return EnumSet.of(TipoCambioContenido.GENERO);
+            }
+        };
+        cancion.agregarObservador(soloGenero);
+        cancion.agregarObservador(soloGenero); // Ya estaba: no se duplica
+
+        Playlist lista = new Playlist("Avisos", userPremium);
+        lista.agregarContenido(cancion);
+        for (int i = 0; i < 5; i++) {
+            cancion.aumentarReproducciones();
+        }
+        assertTrue(recibidos.isEmpty());
+
+        cancion.setGenero(GeneroMusical.ROCK);
+        assertEquals(1, recibidos.size());
+        assertEquals(1, lista.getNumPorGenero(GeneroMusical.ROCK));
+        assertEquals(0, lista.getNumPorGenero(GeneroMusical.POP));
+
+        cancion.quitarObservador(soloGenero);
+        cancion.setGenero(GeneroMusical.JAZZ);
+        assertEquals(1, recibidos.size());
+        assertEquals(1, lista.getNumPorGenero(GeneroMusical.JAZZ));
+    }
+
+    // ========== TEST 19: Playlists inteligentes por género ==========
+    @Test
+    @Order(19)
+    @DisplayName("4.19 - Playlists inteligentes de distinto género: el contenido pasa de una a otra al cambiar de género")
+    void testPlaylistsInteligentesPorGenero() throws Exception {
+        Artista artista = plataforma.registrarArtista("Generos", "Generos", "Test", true);
+        PlaylistInteligente rock = plataforma.crearPlaylistInteligente("Solo rock", userPremium, 0,
+                ReglaPlaylist.genero(GeneroMusical.ROCK));
+        PlaylistInteligente jazz = plataforma.crearPlaylistInteligente("Solo jazz", userPremium, 0,
+                ReglaPlaylist.genero(GeneroMusical.JAZZ));
+        PlaylistInteligente etiquetadas = plataforma.crearPlaylistInteligente("Etiquetadas", userPremium, 0,
+                ReglaPlaylist.conTag("noche"));
+        assertEquals(GeneroMusical.ROCK, rock.getGenero());
+        assertNull(etiquetadas.getGenero());
+        int rockPrevio = rock.getNumContenidos();
+        int jazzPrevio = jazz.getNumContenidos();
+
+        ArrayList<Cancion> canciones = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            canciones.add(plataforma.crearCancion("Roca " + i, 180, artista, GeneroMusical.ROCK));
+        }
+        Cancion movida = canciones.get(2);
+        movida.agregarTag("noche");
+        assertEquals(rockPrevio + 5, rock.getNumContenidos());
+        assertEquals(jazzPrevio, jazz.getNumContenidos());
+        assertEquals(movida, etiquetadas.getContenido(0));
+
+        // Cambia de género: sale de la de rock y entra en la de jazz
+        movida.setGenero(GeneroMusical.JAZZ);
+        assertEquals(rockPrevio + 4, rock.getNumContenidos());
+        assertEquals(movida, jazz.getContenido(jazzPrevio));
+        assertEquals(-1, rock.getPosicion(movida.getId()));
+
+        // La copia por posición sigue el orden de llegada tras cada cambio
+        for (int i = 0; i < rock.getNumContenidos(); i++) {
+            assertEquals(rock.getContenidos().get(i), rock.getContenido(i));
+        }
+        assertEquals(canciones.get(3), rock.getContenido(rockPrevio + 2));
+        assertNull(rock.getContenido(rockPrevio + 4));
+    }
+
+    // ========== TEST 20: Cursores aleatorios acotados y persistentes ==========
+    @Test
+    @Order(20)
+    @DisplayName("4.20 - Los cursores aleatorios se desalojan sin perder la posición y sobreviven a un reinicio")
+    void testCursoresAleatoriosPersistentes() throws Exception {
+        Artista artista = plataforma.registrarArtista("Persistente", "Persistente", "Test", true);
+        ArrayList<Cancion> pistas = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            pistas.add(new Cancion("Persistente " + i, 100, artista, GeneroMusical.POP));
+        }
+        Playlist lista = new Playlist("Persistente", userPremium, false, "", 1000);
+        for (Cancion pista : pistas) {
+            lista.agregarContenido(pista);
+        }
+
+        CursorAleatorio cursor = lista.getCursorAleatorio(userPremium, false);
+        ArrayList<Contenido> escuchadas = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            escuchadas.add(cursor.next());
+        }
+        // Muchos oyentes: el de userPremium se desaloja pero conserva semilla y posición
+        for (int i = 0; i < 70; i++) {
+            UsuarioGratuito oyente = plataforma.registrarUsuarioGratuito("Oyente " + i, "oyente" + i + "@cursor.com", "password123");
+            lista.getCursorAleatorio(oyente, false).next();
+        }
+        assertEquals(64, lista.getNumCursoresActivos());
+        CursorAleatorio rehecho = lista.getCursorAleatorio(userPremium, false);
+        assertNotSame(cursor, rehecho);
+        assertEquals(10, rehecho.getPosicion());
+        assertEquals(escuchadas, rehecho.getEntregados());
+        assertEquals(cursor.next(), rehecho.next());
+
+        // Guardo los cursores y los cargo en la misma playlist reconstruida tras un reinicio
+        Path archivo = Files.createTempDirectory("cursores").resolve("cursores.bin");
+        lista.guardarCursores(archivo);
+        Playlist reconstruida = new Playlist("Persistente", userPremium, false, "", 1000);
+        for (Cancion pista : pistas) {
+            reconstruida.agregarContenido(pista);
+        }
+        reconstruida.cargarCursores(archivo);
+        CursorAleatorio retomado = reconstruida.getCursorAleatorio(userPremium, false);
+        assertEquals(11, retomado.getPosicion());
+        assertEquals(rehecho.getEntregados(), retomado.getEntregados());
+        assertEquals(rehecho.next(), retomado.next());
+
+        // La vista aleatoria quita lo eliminado de lo ya sorteado sin repetir ni perder nada
+        ArrayList<Contenido> mezclada = reconstruida.getContenidosOrdenados(CriterioOrden.ALEATORIO);
+        reconstruida.eliminarContenido(mezclada.get(3));
+        ArrayList<Contenido> sinEliminada = reconstruida.getContenidosOrdenados(CriterioOrden.ALEATORIO);
+        assertEquals(39, sinEliminada.size());
+        assertEquals(39, new HashSet<>(sinEliminada).size());
+        assertFalse(sinEliminada.contains(mezclada.get(3)));
+        // ...y lo ya escuchado sigue en el mismo orden, sin huecos movidos
+        ArrayList<Contenido> esperada = new ArrayList<>(mezclada);
+        esperada.remove(3);
+        assertEquals(esperada, sinEliminada);
+
+        // Con la vista aleatoria activa la posición sale del índice del cursor
+        reconstruida.shuffle();
+        Contenido cualquiera = esperada.get(20);
+        int posicion = reconstruida.getPosicion(cualquiera.getId());
+        assertSame(cualquiera, reconstruida.getContenido(posicion));
+        ArrayList<Contenido> activa = reconstruida.getContenidosOrdenados(CriterioOrden.ALEATORIO);
+        for (int i = 0; i < activa.size(); i++) {
+            assertEquals(i, reconstruida.getPosicion(activa.get(i).getId()));
+        }
+        assertEquals(-1, reconstruida.getPosicion(mezclada.get(3).getId()));
+    }
 }
@@ -1,3 +1,4 @@
+import enums.AlgoritmoRecomendacion;
 import enums.CategoriaPodcast;
 import enums.GeneroMusical;
 import enums.TipoSuscripcion;
@@ -13,11 +14,25 @@ import modelo.contenido.Podcast;
 import modelo.plataforma.Plataforma;
 import modelo.usuarios.Usuario;
 import modelo.usuarios.UsuarioPremium;
+import utilidades.FactorizacionImplicita;
+import utilidades.DiccionarioTags;
+import utilidades.FiltroColaborativo;
+import utilidades.IndiceMinHash;
+import utilidades.IndiceVecinos;
 import utilidades.RecomendadorIA;
 import org.junit.jupiter.api.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -219,4 +234,489 @@ public class Escenario6RecomendacionesTest {
                 "Las recomendaciones no deberían incluir contenido del historial");
         }
     }
+
+    // ========== TEST 11: Tags como conjuntos de bits ==========
+    @Test
+    @Order(11)
+    @DisplayName("6.11 - La similitud por tags usa conjuntos de bits y sigue los cambios de tags del catálogo")
+    void testSimilitudConTagsEnBits() throws Exception {
+        Artista artista = plataforma.registrarArtista("Artista Tags", "Tags", "ES", true);
+        ArrayList<Contenido> catalogo = new ArrayList<>();
+        // Más de 64 tags distintos para que los conjuntos ocupen varias palabras
+        for (int i = 0; i < 200; i++) {
+            Cancion c = new Cancion("Tags " + i, 180, artista, GeneroMusical.POP);
+            c.agregarTag("tag" + i);
+            c.agregarTag("grupo" + (i % 3));
+            catalogo.add(c);
+        }
+        UsuarioPremium oyente = plataforma.registrarUsuarioPremium("Oyente Tags", "tags@test.com", "password123", TipoSuscripcion.PREMIUM);
+        oyente.agregarAlHistorial(catalogo.get(0));   // tag0, grupo0
+        oyente.agregarAlHistorial(catalogo.get(150)); // tag150, grupo0
+        UsuarioPremium otro = plataforma.registrarUsuarioPremium("Otro Tags", "otrotags@test.com", "password123", TipoSuscripcion.PREMIUM);
+        otro.agregarAlHistorial(catalogo.get(3));     // tag3, grupo0
+
+        RecomendadorIA porTags = new RecomendadorIA(AlgoritmoRecomendacion.CONTENIDO);
+        ArrayList<Usuario> usuarios = new ArrayList<>();
+        usuarios.add(oyente);
+        usuarios.add(otro);
+        porTags.entrenarModelo(usuarios, catalogo);
+        porTags.setUmbralSimilitud(0.5);
+
+        // Comparte grupo0 (1 de 2 tags): entran los múltiplos de 3 que no ha escuchado
+        ArrayList<Contenido> recomendaciones = porTags.recomendar(oyente);
+        assertEquals(10, recomendaciones.size());
+        assertEquals(catalogo.get(3), recomendaciones.get(0));
+        for (Contenido rec : recomendaciones) {
+            assertTrue(rec.tieneTag("grupo0"));
+        }
+        // Jaccard: {tag0, tag150, grupo0} frente a {tag3, grupo0} -> 1 / 4
+        assertEquals(0.25, porTags.calcularSimilitud(oyente, otro), 1e-9);
+        ArrayList<Contenido> similares = porTags.obtenerSimilares(catalogo.get(0));
+        assertEquals(10, similares.size());
+        assertTrue(similares.stream().allMatch(c -> c.tieneTag("grupo0")));
+
+        // Un tag nuevo en el catálogo se refleja sin volver a entrenar
+        catalogo.get(1).agregarTag("tag150");
+        porTags.setUmbralSimilitud(0.3);
+        assertTrue(porTags.recomendar(oyente).contains(catalogo.get(1)));
+        assertEquals(200 + 3, porTags.getNumTags());
+    }
+
+    // ========== TEST 12: Filtro colaborativo ítem a ítem ==========
+    @Test
+    @Order(12)
+    @DisplayName("6.12 - COLABORATIVO recomienda lo que escuchan quienes escucharon lo mismo")
+    void testFiltroColaborativo() throws Exception {
+        Artista artista = plataforma.registrarArtista("Artista CF", "CF", "ES", true);
+        ArrayList<Contenido> items = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            items.add(new Cancion("CF " + i, 180, artista, GeneroMusical.ROCK));
+        }
+        // Quien escucha 0 suele escuchar 1 y, menos, 2; 3-4-5 es otro grupo
+        ArrayList<Usuario> usuarios = new ArrayList<>();
+        int[][] historiales = {{0, 1}, {0, 1}, {0, 1, 2}, {1, 2}, {3, 4}, {3, 4, 5}, {0}};
+        for (int u = 0; u < historiales.length; u++) {
+            UsuarioPremium usuario = plataforma.registrarUsuarioPremium("CF " + u, "cf" + u + "@test.com", "password123", TipoSuscripcion.PREMIUM);
+            for (int item : historiales[u]) {
+                usuario.agregarAlHistorial(items.get(item));
+            }
+            usuarios.add(usuario);
+        }
+
+        RecomendadorIA colaborativo = new RecomendadorIA();
+        assertEquals(AlgoritmoRecomendacion.COLABORATIVO, colaborativo.getAlgoritmo());
+        colaborativo.entrenarModelo(usuarios, items);
+
+        // El usuario que solo escuchó 0: primero 1 (coincide 3 veces), luego 2; nada del otro grupo
+        ArrayList<Contenido> recomendaciones = colaborativo.recomendar(usuarios.get(6));
+        assertEquals(List.of(items.get(1), items.get(2)), recomendaciones);
+
+        FiltroColaborativo filtro = colaborativo.getFiltroColaborativo();
+        assertEquals(List.of(items.get(1), items.get(2)), filtro.getVecinos(items.get(0)));
+        assertEquals(3 / Math.sqrt(3 * 4), filtro.getPeso(items.get(0), items.get(1)), 1e-6);
+        assertEquals(0f, filtro.getPeso(items.get(0), items.get(3)));
+        assertEquals(6, filtro.getNumContenidos());
+        assertTrue(filtro.getMillisEntrenamiento() >= 0);
+        assertEquals(6L * filtro.getMaxVecinos() * 8 + 6 * 4, filtro.getBytesVecinos());
+
+        // Un catálogo grande se reparte entre varias tareas y da lo mismo que a mano
+        ArrayList<Contenido> grande = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            grande.add(new Cancion("Grande " + i, 180, artista, GeneroMusical.ROCK));
+        }
+        ArrayList<List<Contenido>> escuchas = new ArrayList<>();
+        for (int u = 0; u < 3000; u++) {
+            // Cada usuario escucha un contenido y sus dos siguientes
+            escuchas.add(List.of(grande.get(u), grande.get((u + 1) % 3000), grande.get((u + 2) % 3000)));
+        }
+        FiltroColaborativo paralelo = new FiltroColaborativo(4);
+        paralelo.entrenar(escuchas);
+        assertEquals(3000, paralelo.getNumContenidos());
+        assertEquals(3000L * 4, paralelo.getCoincidencias());
+        ArrayList<Contenido> vecinos = paralelo.getVecinos(grande.get(100));
+        assertEquals(4, vecinos.size());
+        // Los inmediatos coinciden en dos usuarios, los de dos pasos en uno
+        assertTrue(vecinos.subList(0, 2).containsAll(List.of(grande.get(99), grande.get(101))));
+        assertTrue(vecinos.subList(2, 4).containsAll(List.of(grande.get(98), grande.get(102))));
+    }
+
+    // ========== TEST 13: Factorización implícita (ALS) ==========
+    @Test
+    @Order(13)
+    @DisplayName("6.13 - FACTORIZACION aprende vectores con escuchas y likes y admite arranque en caliente")
+    void testFactorizacionImplicita() throws Exception {
+        Artista artista = plataforma.registrarArtista("Artista ALS", "ALS", "ES", true);
+        ArrayList<Contenido> items = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            items.add(new Cancion("ALS " + i, 180, artista, GeneroMusical.JAZZ));
+        }
+        // Tres grupos de cuatro contenidos; cada usuario escucha tres de su grupo
+        ArrayList<Usuario> usuarios = new ArrayList<>();
+        for (int u = 0; u < 30; u++) {
+            UsuarioPremium usuario = plataforma.registrarUsuarioPremium("ALS " + u, "als" + u + "@test.com", "password123", TipoSuscripcion.PREMIUM);
+            int grupo = u % 3;
+            for (int j = 0; j < 3; j++) {
+                usuario.agregarAlHistorial(items.get(grupo * 4 + (u / 3 + j) % 4));
+            }
+            usuarios.add(usuario);
+        }
+
+        RecomendadorIA recomendadorAls = new RecomendadorIA(AlgoritmoRecomendacion.FACTORIZACION);
+        recomendadorAls.entrenarModelo(usuarios, items);
+        FactorizacionImplicita factorizacion = recomendadorAls.getFactorizacion();
+        assertTrue(factorizacion.isEntrenado());
+        assertEquals(30, factorizacion.getNumUsuarios());
+        assertEquals(12, factorizacion.getNumContenidos());
+        assertEquals(factorizacion.getFactores(), factorizacion.getVectorUsuario(usuarios.get(0).getId()).length);
+        assertEquals(4L * factorizacion.getFactores() * (30 + 12), factorizacion.getBytesFactores());
+
+        // Un usuario que no estaba al entrenar: escuchó el 0 y le gusta el 1 (sin escucharlo)
+        UsuarioPremium nuevo = plataforma.registrarUsuarioPremium("ALS nuevo", "alsnuevo@test.com", "password123", TipoSuscripcion.PREMIUM);
+        nuevo.agregarAlHistorial(items.get(0));
+        nuevo.darLike(items.get(1));
+        ArrayList<Contenido> recomendaciones = recomendadorAls.recomendar(nuevo);
+        assertEquals(10, recomendaciones.size());
+        assertFalse(recomendaciones.contains(items.get(0)));
+        assertFalse(recomendaciones.contains(items.get(1)));
+        assertTrue(recomendaciones.subList(0, 2).containsAll(List.of(items.get(2), items.get(3))));
+
+        // Arranque en caliente: otra iteración partiendo de los vectores anteriores no empeora
+        HashMap<String, HashMap<Contenido, Float>> interacciones = new HashMap<>();
+        for (int u = 0; u < 3000; u++) {
+            HashMap<Contenido, Float> escuchas = new HashMap<>();
+            escuchas.put(items.get(u % 12), 1f + u % 5);
+            escuchas.put(items.get((u + 1) % 12), 1f);
+            escuchas.put(items.get((u * 7) % 12), 2f);
+            interacciones.put("u" + u, escuchas);
+        }
+        FactorizacionImplicita als = new FactorizacionImplicita(8, 1, 0.1, 10.0, 7L);
+        als.entrenar(interacciones);
+        double primera = als.getPerdida();
+        als.entrenar(interacciones);
+        double segunda = als.getPerdida();
+        assertEquals(3000, als.getNumUsuarios());
+        assertEquals(2, als.getIteracionesTotales());
+        assertTrue(segunda <= primera * (1 + 1e-6));
+
+        // Sin arranque en caliente, una sola iteración queda por encima
+        als.reiniciar();
+        assertFalse(als.isEntrenado());
+        als.entrenar(interacciones, 1);
+        assertEquals(1, als.getIteracionesTotales());
+        assertEquals(primera, als.getPerdida(), primera * 1e-6);
+    }
+
+    // ========== TEST 14: Índice de vecinos aproximado (HNSW) ==========
+    @Test
+    @Order(14)
+    @DisplayName("6.14 - El índice HNSW encuentra casi los mismos vecinos que el recorrido completo")
+    void testIndiceVecinos() throws Exception {
+        Artista artista = plataforma.registrarArtista("Artista HNSW", "HNSW", "ES", true);
+        Random aleatorio = new Random(5);
+        IndiceVecinos indice = new IndiceVecinos(16);
+        ArrayList<Contenido> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Cancion cancion = new Cancion("HNSW " + i, 180, artista, GeneroMusical.ELECTRONICA);
+            items.add(cancion);
+            indice.agregar(cancion, vectorAleatorio(aleatorio, 16));
+        }
+        assertEquals(2000, indice.getNumElementos());
+        assertTrue(indice.getNivelMaximo() >= 1);
+
+        // Con suficientes candidatos casi todos los 10 mejores coinciden con los exactos
+        indice.setEfBusqueda(128);
+        int aciertos = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] consulta = vectorAleatorio(aleatorio, 16);
+            ArrayList<Contenido> aproximados = indice.buscar(consulta, 10, null);
+            ArrayList<Contenido> exactos = indice.buscarExacto(consulta, 10, null);
+            assertEquals(10, aproximados.size());
+            for (Contenido contenido : aproximados) {
+                if (exactos.contains(contenido)) {
+                    aciertos++;
+                }
+            }
+        }
+        assertTrue(aciertos >= 450, "recall " + aciertos / 500.0);
+
+        // Con muy pocos candidatos amplía la búsqueda hasta dar k resultados; respeta excluidos y no disponibles
+        indice.setEfBusqueda(1);
+        float[] consulta = vectorAleatorio(aleatorio, 16);
+        ArrayList<Contenido> primeros = indice.buscarExacto(consulta, 2, null);
+        primeros.get(0).marcarNoDisponible();
+        ArrayList<Contenido> filtrados = indice.buscar(consulta, 10, List.of(primeros.get(1)));
+        assertEquals(10, filtrados.size());
+        assertFalse(filtrados.contains(primeros.get(0)));
+        assertFalse(filtrados.contains(primeros.get(1)));
+        primeros.get(0).marcarDisponible();
+
+        // Un estreno se añade sin reconstruir y se encuentra enseguida
+        indice.setEfBusqueda(64);
+        Cancion estreno = new Cancion("HNSW estreno", 180, artista, GeneroMusical.ELECTRONICA);
+        float[] cercano = consulta.clone();
+        for (int a = 0; a < cercano.length; a++) {
+            cercano[a] *= 10;
+        }
+        indice.agregar(estreno, cercano);
+        assertEquals(estreno, indice.buscar(consulta, 1, null).get(0));
+
+        // En disco y de vuelta: mismas respuestas; lo que no está en el catálogo no se devuelve
+        Path archivo = Files.createTempDirectory("vecinos").resolve("indice.bin");
+        indice.guardar(archivo);
+        ArrayList<Contenido> catalogo = new ArrayList<>(items);
+        IndiceVecinos cargado = IndiceVecinos.cargar(archivo, catalogo);
+        assertEquals(2001, cargado.getNumElementos());
+        assertEquals(64, cargado.getEfBusqueda());
+        assertEquals(indice.buscar(consulta, 11, null).subList(1, 11), cargado.buscar(consulta, 10, null));
+        assertTrue(Files.size(archivo) < 2001L * (16 * 4 + 40 * 4 + 20));
+
+        // El recomendador consulta el índice para FACTORIZACION y para los similares
+        ArrayList<Usuario> usuarios = new ArrayList<>();
+        for (int u = 0; u < 60; u++) {
+            UsuarioPremium usuario = plataforma.registrarUsuarioPremium("HNSW " + u, "hnsw" + u + "@test.com", "password123", TipoSuscripcion.PREMIUM);
+            for (int j = 0; j < 4; j++) {
+                usuario.agregarAlHistorial(items.get((u % 3) * 12 + (u / 3 + j) % 12));
+            }
+            usuarios.add(usuario);
+        }
+        RecomendadorIA recomendadorAls = new RecomendadorIA(AlgoritmoRecomendacion.FACTORIZACION);
+        assertThrows(ModeloNoEntrenadoException.class, () -> recomendadorAls.indexarContenido(estreno, cercano));
+        recomendadorAls.entrenarModelo(usuarios, catalogo);
+        IndiceVecinos delRecomendador = recomendadorAls.getIndiceVecinos();
+        assertEquals(36, delRecomendador.getNumElementos());
+        ArrayList<Contenido> similares = recomendadorAls.obtenerSimilares(items.get(0));
+        assertEquals(10, similares.size());
+        assertFalse(similares.contains(items.get(0)));
+        assertEquals(delRecomendador.buscarSimilares(items.get(0), 10), similares);
+
+        recomendadorAls.indexarContenido(estreno, delRecomendador.getVector(items.get(0)));
+        assertTrue(recomendadorAls.obtenerSimilares(estreno).contains(items.get(0)));
+        assertThrows(RecomendacionException.class, () -> recomendadorAls.indexarContenido(estreno, new float[3]));
+    }
+
+    // ========== TEST 15: Usuarios parecidos con MinHash + LSH ==========
+    @Test
+    @Order(15)
+    @DisplayName("6.15 - MinHash encuentra usuarios parecidos sin compararlos con todos")
+    void testUsuariosSimilaresMinHash() throws Exception {
+        // Tres grupos de 300 usuarios: cada uno toma 18 de los 20 tags de su grupo y 2 sueltos
+        DiccionarioTags diccionario = new DiccionarioTags();
+        IndiceMinHash firmas = new IndiceMinHash();
+        Random aleatorio = new Random(11);
+        ArrayList<long[]> conjuntos = new ArrayList<>();
+        for (int u = 0; u < 900; u++) {
+            ArrayList<String> tags = new ArrayList<>();
+            for (int t = 0; t < 20; t++) {
+                tags.add("grupo" + (u % 3) + "-" + t);
+            }
+            tags.remove(aleatorio.nextInt(tags.size()));
+            tags.remove(aleatorio.nextInt(tags.size()));
+            tags.add("suelto" + aleatorio.nextInt(500));
+            tags.add("suelto" + aleatorio.nextInt(500));
+            long[] conjunto = diccionario.conjunto(tags);
+            conjuntos.add(conjunto);
+            assertTrue(firmas.actualizar("u" + u, conjunto));
+        }
+        assertEquals(0, firmas.getActualizacionesIncrementales());
+        assertEquals(900, firmas.getRecalculos());
+
+        // Los candidatos de u0 son casi todo su grupo y nadie de los otros
+        ArrayList<String> candidatos = firmas.candidatos("u0");
+        assertFalse(candidatos.contains("u0"));
+        for (String candidato : candidatos) {
+            assertEquals(0, Integer.parseInt(candidato.substring(1)) % 3, candidato);
+        }
+        assertTrue(candidatos.size() >= 270, "candidatos " + candidatos.size());
+
+        // La firma estima bien el Jaccard
+        long[] a = conjuntos.get(0);
+        long[] b = conjuntos.get(3);
+        int interseccion = DiccionarioTags.interseccion(a, b);
+        double exacto = (double) interseccion / (DiccionarioTags.cardinalidad(a) + DiccionarioTags.cardinalidad(b) - interseccion);
+        assertEquals(exacto, firmas.estimarJaccard("u0", "u3"), 0.15);
+        assertEquals(0.0, firmas.estimarJaccard("u0", "u1"), 0.1);
+
+        // Ganar tags actualiza la firma con los nuevos: queda igual que calculada desde cero
+        int nuevo = diccionario.id("nuevo-tag");
+        long[] ampliado = Arrays.copyOf(a, Math.max(a.length, (nuevo >>> 6) + 1));
+        ampliado[nuevo >>> 6] |= 1L << nuevo;
+        firmas.actualizar("u0", ampliado);
+        assertEquals(1, firmas.getActualizacionesIncrementales());
+        IndiceMinHash desdeCero = new IndiceMinHash();
+        desdeCero.actualizar("u0", ampliado);
+        assertArrayEquals(desdeCero.getFirma("u0"), firmas.getFirma("u0"));
+        assertFalse(firmas.actualizar("u0", ampliado));
+
+        // Perder tags obliga a recalcular; un conjunto vacío la saca de las cubetas
+        firmas.actualizar("u0", a);
+        assertEquals(901, firmas.getRecalculos());
+        firmas.quitar("u3");
+        assertFalse(firmas.contiene("u3"));
+        assertFalse(firmas.candidatos("u0").contains("u3"));
+
+        // Quitar suelta su hueco: el siguiente usuario nuevo lo reutiliza con la firma en blanco
+        assertEquals(899, firmas.getNumUsuarios());
+        assertNull(firmas.getFirma("u3"));
+        assertEquals(4L * 899 * firmas.getBandas() * firmas.getFilas(), firmas.getBytesFirmas());
+        assertTrue(firmas.actualizar("u900", conjuntos.get(3)));
+        assertEquals(900, firmas.getCapacidad());
+        assertEquals(900, firmas.getNumUsuarios());
+        desdeCero.actualizar("u900", conjuntos.get(3));
+        assertArrayEquals(desdeCero.getFirma("u900"), firmas.getFirma("u900"));
+        for (String candidato : firmas.candidatos("u900")) {
+            assertNotEquals("u3", candidato);
+            assertEquals(0, Integer.parseInt(candidato.substring(1)) % 3, candidato);
+        }
+
+        // "Usuarios como tú" en el recomendador
+        Artista artista = plataforma.registrarArtista("Artista MinHash", "MH", "ES", true);
+        ArrayList<Cancion> porGrupo = new ArrayList<>();
+        for (int g = 0; g < 2; g++) {
+            for (int i = 0; i < 4; i++) {
+                Cancion cancion = new Cancion("MH " + g + "-" + i, 180, artista, GeneroMusical.ROCK);
+                cancion.agregarTag("mh" + g + "-" + i);
+                cancion.agregarTag("mh" + g);
+                porGrupo.add(cancion);
+            }
+        }
+        ArrayList<Usuario> usuarios = new ArrayList<>();
+        for (int u = 0; u < 8; u++) {
+            UsuarioPremium usuario = plataforma.registrarUsuarioPremium("MH " + u, "mh" + u + "@test.com", "password123", TipoSuscripcion.PREMIUM);
+            int grupo = u % 2;
+            for (int i = 0; i < 4; i++) {
+                if (i != u / 2) {
+                    usuario.agregarAlHistorial(porGrupo.get(grupo * 4 + i));
+                }
+            }
+            usuarios.add(usuario);
+        }
+        RecomendadorIA recomendadorMh = new RecomendadorIA();
+        recomendadorMh.entrenarModelo(usuarios);
+        ArrayList<Usuario> parecidos = recomendadorMh.obtenerUsuariosSimilares(usuarios.get(0), 10);
+        assertFalse(parecidos.isEmpty());
+        assertFalse(parecidos.contains(usuarios.get(0)));
+        for (Usuario parecido : parecidos) {
+            assertEquals(0, usuarios.indexOf(parecido) % 2);
+        }
+
+        // Escuchar algo nuevo solo añade tags: la firma se actualiza sin recalcularla
+        IndiceMinHash delRecomendador = recomendadorMh.getFirmasUsuarios();
+        long incrementales = delRecomendador.getActualizacionesIncrementales();
+        usuarios.get(0).agregarAlHistorial(porGrupo.get(0));
+        recomendadorMh.actualizarPreferencias(usuarios.get(0));
+        assertEquals(incrementales + 1, delRecomendador.getActualizacionesIncrementales());
+
+        // Reentrenar sin un usuario lo quita de las firmas
+        recomendadorMh.entrenarModelo(new ArrayList<>(usuarios.subList(0, 7)));
+        assertFalse(delRecomendador.contiene(usuarios.get(7).getId()));
+        assertThrows(RecomendacionException.class, () -> recomendadorMh.obtenerUsuariosSimilares(null, 5));
+    }
+
+    // ========== TEST 16: Similares por coseno y estrenos en el índice ==========
+    @Test
+    @Order(16)
+    @DisplayName("6.16 - El índice usa coseno, admite consultas en paralelo y recibe los estrenos al publicarlos")
+    void testSimilaresCosenoYEstrenos() throws Exception {
+        // La norma no cuenta: el más largo no gana si apunta en otra dirección
+        Artista artistaCoseno = plataforma.registrarArtista("Artista Coseno", "Coseno", "ES", true);
+        Cancion recta = new Cancion("Recta", 180, artistaCoseno, GeneroMusical.JAZZ);
+        Cancion larga = new Cancion("Larga", 180, artistaCoseno, GeneroMusical.JAZZ);
+        Cancion cerca = new Cancion("Cerca", 180, artistaCoseno, GeneroMusical.JAZZ);
+        IndiceVecinos pequeno = new IndiceVecinos(2);
+        pequeno.agregar(recta, new float[]{1f, 0f});
+        pequeno.agregar(larga, new float[]{10f, 10f});
+        pequeno.agregar(cerca, new float[]{0.9f, 0.1f});
+        assertEquals(List.of(recta, cerca, larga), pequeno.buscar(new float[]{3f, 0f}, 3, null));
+        float[] normalizado = pequeno.getVector(larga);
+        assertEquals(1.0, normalizado[0] * normalizado[0] + normalizado[1] * normalizado[1], 1e-5);
+
+        // Cada consulta lleva sus visitados: en paralelo dan lo mismo que de una en una
+        Random aleatorio = new Random(11);
+        IndiceVecinos indice = new IndiceVecinos(8);
+        for (int i = 0; i < 500; i++) {
+            indice.agregar(new Cancion("Paralelo " + i, 180, artistaCoseno, GeneroMusical.JAZZ), vectorAleatorio(aleatorio, 8));
+        }
+        ArrayList<float[]> consultas = new ArrayList<>();
+        ArrayList<ArrayList<Contenido>> esperadas = new ArrayList<>();
+        for (int q = 0; q < 40; q++) {
+            float[] consulta = vectorAleatorio(aleatorio, 8);
+            consultas.add(consulta);
+            esperadas.add(indice.buscar(consulta, 10, null));
+        }
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList<Future<Boolean>> tareas = new ArrayList<>();
+            for (int h = 0; h < 4; h++) {
+                tareas.add(hilos.submit(() -> {
+                    for (int vuelta = 0; vuelta < 5; vuelta++) {
+                        for (int q = 0; q < consultas.size(); q++) {
+                            if (!esperadas.get(q).equals(indice.buscar(consultas.get(q), 10, null))) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> tarea : tareas) {
+                assertTrue(tarea.get());
+            }
+        } finally {
+            hilos.shutdown();
+        }
+
+        // Con FACTORIZACION entrenada, lo que se publica entra en el índice con los vectores de su autor
+        Artista artistaPop = canciones.get(0).getArtista();
+        ArrayList<Cancion> pop = new ArrayList<>();
+        for (Cancion cancion : canciones) {
+            if (cancion.getArtista() == artistaPop) {
+                cancion.agregarTag("pop");
+                pop.add(cancion);
+            }
+        }
+        ArrayList<Usuario> oyentes = new ArrayList<>();
+        for (int u = 0; u < 10; u++) {
+            UsuarioPremium oyente = plataforma.registrarUsuarioPremium("Coseno " + u, "coseno" + u + "@test.com", "password123", TipoSuscripcion.PREMIUM);
+            for (int j = 0; j < 2; j++) {
+                oyente.agregarAlHistorial(pop.get((u + j) % 4));
+            }
+            oyentes.add(oyente);
+        }
+        AlgoritmoRecomendacion anterior = recomendador.getAlgoritmo();
+        recomendador.setAlgoritmo(AlgoritmoRecomendacion.FACTORIZACION);
+        try {
+            recomendador.entrenarModelo(oyentes, new ArrayList<>(plataforma.getCanciones()));
+            IndiceVecinos delRecomendador = recomendador.getIndiceVecinos();
+            assertEquals(4, delRecomendador.getNumElementos());
+
+            Cancion estreno = plataforma.crearCancion("Pop Estreno", 180, artistaPop, GeneroMusical.POP);
+            assertTrue(delRecomendador.contiene(estreno));
+            assertEquals(artistaPop, ((Cancion) recomendador.obtenerSimilares(estreno).get(0)).getArtista());
+
+            // Con pocos vecinos en el índice se completa por tags: mismo tope y solo disponibles
+            pop.get(5).marcarNoDisponible();
+            ArrayList<Contenido> similares = recomendador.obtenerSimilares(pop.get(0));
+            ArrayList<Contenido> vecinos = delRecomendador.buscarSimilares(pop.get(0), 10);
+            // Los 3 escuchados y el estreno del índice, y las 5 pop disponibles que quedan por tags
+            assertEquals(4, vecinos.size());
+            assertEquals(9, similares.size());
+            assertEquals(vecinos, similares.subList(0, 4));
+            assertFalse(similares.contains(pop.get(0)));
+            assertFalse(similares.contains(pop.get(5)));
+            for (Contenido similar : similares) {
+                assertTrue(similar.isDisponible());
+            }
+            pop.get(5).marcarDisponible();
+        } finally {
+            recomendador.setAlgoritmo(anterior);
+        }
+    }
+
+    private static float[] vectorAleatorio(Random aleatorio, int dimension) {
+        float[] vector = new float[dimension];
+        for (int a = 0; a < dimension; a++) {
+            vector[a] = (float) aleatorio.nextGaussian();
+        }
+        return vector;
+    }
 }
@@ -1,4 +1,5 @@
 import enums.GeneroMusical;
+import enums.TipoSuscripcion;
 import excepciones.artista.AlbumCompletoException;
 import excepciones.artista.AlbumYaExisteException;
 import excepciones.playlist.CancionNoEncontradaException;
@@ -6,10 +7,15 @@ import modelo.artistas.Album;
 import modelo.artistas.Artista;
 import modelo.contenido.Cancion;
 import modelo.plataforma.Plataforma;
+import modelo.usuarios.UsuarioPremium;
 import org.junit.jupiter.api.*;
+import utilidades.HyperLogLog;
+import utilidades.RelojManual;
 
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -216,4 +222,146 @@ public class Escenario7AlbumesArtistasTest {
             assertEquals((double) total / count, promedio, 0.01);
         }
     }
+
+    // ========== TEST 13: Totales del álbum al día ==========
+    @Test
+    @Order(13)
+    @DisplayName("7.13 - Duración, explícitas y géneros del álbum se mantienen al editar")
+    void testTotalesAlbumIncrementales() throws Exception {
+        Album recopilatorio = plataforma.crearAlbum(artista, "Recopilatorio", new Date());
+        Cancion a = recopilatorio.crearCancion("A", 100, GeneroMusical.ROCK);
+        Cancion b = recopilatorio.crearCancion("B", 200, GeneroMusical.POP, "letra", true);
+        recopilatorio.crearCancion("C", 300, GeneroMusical.ROCK);
+
+        assertEquals(600, recopilatorio.getDuracionTotal());
+        assertEquals("10:00", recopilatorio.getDuracionTotalFormateada());
+        assertEquals(1, recopilatorio.getNumExplicitas());
+        assertEquals(2, recopilatorio.getNumPorGenero(GeneroMusical.ROCK));
+
+        // Cambiar el género o la marca explícita actualiza los conteos
+        a.setGenero(GeneroMusical.JAZZ);
+        b.setExplicit(false);
+        assertEquals(1, recopilatorio.getNumPorGenero(GeneroMusical.ROCK));
+        assertEquals(1, recopilatorio.getNumPorGenero(GeneroMusical.JAZZ));
+        assertEquals(0, recopilatorio.getNumExplicitas());
+
+        recopilatorio.eliminarCancion(a);
+        assertEquals(500, recopilatorio.getDuracionTotal());
+        assertEquals(0, recopilatorio.getNumPorGenero(GeneroMusical.JAZZ));
+
+        // Una canción eliminada ya no afecta al álbum
+        a.setGenero(GeneroMusical.POP);
+        assertEquals(1, recopilatorio.getNumPorGenero(GeneroMusical.POP));
+    }
+
+    // ========== TEST 14: Discografía indexada y top al día ==========
+    @Test
+    @Order(14)
+    @DisplayName("7.14 - Top de canciones y total de reproducciones del artista se mantienen al reproducir")
+    void testTopCancionesMantenido() throws Exception {
+        Artista estrella = plataforma.registrarArtista("Estrella", "Estrella", "Test", true);
+        ArrayList<Cancion> temas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            temas.add(plataforma.crearCancion("Tema " + i, 200, estrella, GeneroMusical.POP));
+        }
+        // Publicar dos veces la misma canción no la duplica
+        estrella.publicarCancion(temas.get(0));
+        assertEquals(5, estrella.getNumCanciones());
+        assertTrue(estrella.tieneCancion(temas.get(3).getId()));
+        assertEquals(temas.get(3), estrella.getCancion(temas.get(3).getId()));
+
+        // Sin reproducciones el top respeta el orden de publicación
+        assertEquals(temas.subList(0, 2), estrella.obtenerTopCanciones(2));
+
+        temas.get(4).reproducir();
+        temas.get(4).reproducir();
+        temas.get(2).reproducir();
+        temas.get(1).setReproducciones(10);
+
+        assertEquals(13, estrella.getTotalReproducciones());
+        assertEquals(List.of(temas.get(1), temas.get(4), temas.get(2)), estrella.obtenerTopCanciones(3));
+        assertEquals(5, estrella.obtenerTopCanciones(100).size());
+        assertEquals(13.0 / 5, estrella.calcularPromedioReproducciones(), 1e-9);
+    }
+
+    // ========== TEST 15: Oyentes únicos con HyperLogLog ==========
+    @Test
+    @Order(15)
+    @DisplayName("7.15 - Oyentes mensuales cuentan usuarios distintos por mes y ventana de 28 días")
+    void testOyentesUnicos() throws Exception {
+        Artista solista = plataforma.registrarArtista("Solista", "Solista", "Test", true);
+        Artista banda = plataforma.registrarArtista("Banda", "Banda", "Test", true);
+        Cancion tema = plataforma.crearCancion("Tema solista", 200, solista, GeneroMusical.POP);
+        Cancion himno = plataforma.crearCancion("Himno", 200, banda, GeneroMusical.ROCK);
+
+        // Un mismo oyente que repite cuenta una vez, y entre artistas también una vez
+        UsuarioPremium oyente = plataforma.registrarUsuarioPremium("Oyente", "oyente@test.com", "password123", TipoSuscripcion.PREMIUM);
+        RelojManual reloj = new RelojManual(1704151800000L); // 2 de enero de 2024, UTC
+        oyente.setReloj(reloj);
+        solista.setReloj(reloj);
+        for (int i = 0; i < 5; i++) {
+            oyente.reproducir(tema);
+        }
+        oyente.reproducir(himno);
+        assertEquals(1, solista.getOyentesMensuales());
+        assertEquals(1, solista.getOyentesUnicos(YearMonth.of(2024, 1)));
+        assertEquals(1, plataforma.estimarOyentesUnicos(YearMonth.of(2024, 1)));
+
+        // La ventana termina hoy según el reloj, no en el último día con escuchas
+        reloj.avanzarDias(30);
+        assertEquals(0, solista.getOyentesMensuales());
+        assertEquals(1, solista.getOyentesUnicos(YearMonth.of(2024, 1)));
+        reloj.avanzarDias(-30);
+
+        // Pocos oyentes: los sketches siguen dispersos y ocupan unos bytes, no 4 KB cada uno
+        assertTrue(solista.getTamanoOyentesBytes() < 64);
+
+        // Con muchos oyentes la estimación queda cerca del valor real
+        long hoy = reloj.diaEpoch();
+        for (int i = 0; i < 20000; i++) {
+            solista.registrarOyente("usuario-" + i, hoy - (i % 40));
+            if (i % 2 == 0) {
+                banda.registrarOyente("usuario-" + i, hoy);
+            }
+        }
+        // Los últimos 28 días cubren 28 de cada 40 usuarios
+        assertEquals(14000 + 1, solista.getOyentesUnicosUltimosDias(hoy, 28), 14000 * 0.05);
+        assertEquals(10000 + 1, banda.getOyentesUnicosUltimosDias(hoy, 28), 10000 * 0.05);
+        // En el total de la plataforma quien escucha a ambos cuenta una sola vez
+        assertEquals(14000 + 10000 * 12 / 40 + 1, plataforma.estimarOyentesUnicosUltimosDias(hoy, 28), 17000 * 0.05);
+        assertEquals(14000 + 1, solista.getOyentesMensuales(), 14000 * 0.05);
+
+        // Solo se guardan 28 días: un periodo más largo se rechaza en vez de recortarse sin avisar
+        assertThrows(IllegalArgumentException.class, () -> solista.getOyentesUnicosUltimosDias(hoy, 29));
+        assertThrows(IllegalArgumentException.class, () -> solista.getSketchOyentesUltimosDias(hoy, 0));
+        assertThrows(IllegalArgumentException.class, () -> plataforma.estimarOyentesUnicosUltimosDias(hoy, 90));
+    }
+
+    // ========== TEST 16: Sketch disperso ==========
+    @Test
+    @Order(16)
+    @DisplayName("7.16 - HyperLogLog disperso estima igual que el denso y pasa a denso al llenarse")
+    void testHyperLogLogDisperso() {
+        HyperLogLog disperso = new HyperLogLog();
+        for (int i = 0; i < 300; i++) {
+            disperso.agregar("oyente-" + i);
+        }
+        assertTrue(disperso.isDisperso());
+        assertTrue(disperso.getTamanoBytes() < 4096);
+        assertEquals(300, disperso.estimar(), 300 * 0.05);
+
+        // Fusionar dispersos sigue siendo disperso mientras quepa; con muchos pasa a denso
+        HyperLogLog otro = new HyperLogLog();
+        for (int i = 200; i < 400; i++) {
+            otro.agregar("oyente-" + i);
+        }
+        disperso.fusionar(otro);
+        assertEquals(400, disperso.estimar(), 400 * 0.05);
+        for (int i = 0; i < 5000; i++) {
+            disperso.agregar("masivo-" + i);
+        }
+        assertFalse(disperso.isDisperso());
+        assertEquals(4096, disperso.getTamanoBytes());
+        assertEquals(5400, disperso.estimar(), 5400 * 0.05);
+    }
 }
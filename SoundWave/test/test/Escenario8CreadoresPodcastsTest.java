@@ -1,12 +1,23 @@
 import enums.CategoriaPodcast;
+import enums.TipoSuscripcion;
 import excepciones.contenido.EpisodioNoEncontradoException;
 import modelo.artistas.Creador;
 import modelo.contenido.Podcast;
 import modelo.plataforma.Plataforma;
+import modelo.usuarios.UsuarioPremium;
 import utilidades.EstadisticasCreador;
+import utilidades.ImportadorFeeds;
+import utilidades.PosicionesReproduccion;
+import utilidades.RelojManual;
+import utilidades.ResultadoImportacion;
 import org.junit.jupiter.api.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -240,4 +251,375 @@ public class Escenario8CreadoresPodcastsTest {
             assertEquals(maxRepros, masPopular.getReproducciones());
         }
     }
+
+    // ========== TEST 14: Estadísticas vivas ==========
+    @Test
+    @Order(14)
+    @DisplayName("8.14 - Las estadísticas del creador se mantienen al publicar, reproducir, dar like y eliminar")
+    void testEstadisticasIncrementales() throws Exception {
+        Creador canal = plataforma.registrarCreador("Canal Vivo", "Vivo", "Test");
+        canal.setSuscriptores(1000);
+        Podcast uno = plataforma.crearPodcast("Vivo 1", 600, canal, 1, 1, CategoriaPodcast.TECNOLOGIA);
+        Podcast dos = plataforma.crearPodcast("Vivo 2", 900, canal, 2, 1, CategoriaPodcast.TECNOLOGIA);
+        Podcast tres = plataforma.crearPodcast("Vivo 3", 300, canal, 1, 2, CategoriaPodcast.TECNOLOGIA);
+
+        EstadisticasCreador antes = canal.obtenerEstadisticas();
+        uno.setReproducciones(40);
+        dos.reproducir();
+        tres.setReproducciones(100);
+        plataforma.registrarUsuarioPremium("Fan Vivo 1", "fanvivo1@test.com", "password123", TipoSuscripcion.PREMIUM).darLike(uno);
+        plataforma.registrarUsuarioPremium("Fan Vivo 2", "fanvivo2@test.com", "password123", TipoSuscripcion.PREMIUM).darLike(uno);
+        canal.incrementarSuscriptores();
+
+        EstadisticasCreador stats = canal.obtenerEstadisticas();
+        assertEquals(3, stats.getTotalEpisodios());
+        assertEquals(141, stats.getTotalReproducciones());
+        assertEquals(47.0, stats.getPromedioReproducciones(), 1e-9);
+        assertEquals(2, stats.getTotalLikes());
+        assertEquals(1001, stats.getTotalSuscriptores());
+        assertEquals(1800, stats.getDuracionTotalSegundos());
+        assertEquals(tres, stats.getEpisodioMasPopular());
+        assertEquals(Integer.valueOf(2), stats.getEpisodiosPorTemporada().get(1));
+        assertEquals(List.of(tres, uno), canal.obtenerTopEpisodios(2));
+
+        // La instantánea anterior no cambia, y las instantáneas llevan su propio top
+        assertEquals(0, antes.getTotalReproducciones());
+        assertEquals(uno, antes.getEpisodioMasPopular());
+        assertEquals(List.of(uno, dos), antes.getTopEpisodios(2));
+        assertEquals(List.of(tres, uno, dos), stats.getTopEpisodios(5));
+
+        // Creada desde fuera es una foto de una pasada: no se suscribe a los episodios
+        EstadisticasCreador externa = new EstadisticasCreador(canal);
+        assertEquals(141, externa.getTotalReproducciones());
+        assertEquals(2, externa.getTotalLikes());
+        assertEquals(tres, externa.getEpisodioMasPopular());
+        assertEquals(List.of(tres, uno), externa.getTopEpisodios(2));
+        uno.setReproducciones(1000);
+        assertEquals(141, externa.getTotalReproducciones());
+        assertEquals(tres, externa.getEpisodioMasPopular());
+        uno.setReproducciones(40);
+
+        canal.eliminarEpisodio(tres.getId());
+        tres.setReproducciones(500); // Ya no cuenta
+        stats = canal.obtenerEstadisticas();
+        assertEquals(2, stats.getTotalEpisodios());
+        assertEquals(41, stats.getTotalReproducciones());
+        assertEquals(uno, stats.getEpisodioMasPopular());
+        assertFalse(stats.getEpisodiosPorTemporada().containsKey(2));
+        assertEquals(2.0 / 41 * 100, stats.calcularEngagement(), 1e-9);
+    }
+
+    // ========== TEST 15: Índice por temporada y episodio ==========
+    @Test
+    @Order(15)
+    @DisplayName("8.15 - Navegación por temporada y número de episodio y última temporada en caché")
+    void testIndiceEpisodios() throws Exception {
+        Creador serie = plataforma.registrarCreador("Serie Larga", "Serie", "Test");
+        // Se publican desordenados
+        Podcast t2e1 = plataforma.crearPodcast("T2E1", 600, serie, 1, 2, CategoriaPodcast.TECNOLOGIA);
+        Podcast t1e2 = plataforma.crearPodcast("T1E2", 600, serie, 2, 1, CategoriaPodcast.TECNOLOGIA);
+        Podcast t1e1 = plataforma.crearPodcast("T1E1", 600, serie, 1, 1, CategoriaPodcast.TECNOLOGIA);
+        Podcast t3e1 = plataforma.crearPodcast("T3E1", 600, serie, 1, 3, CategoriaPodcast.TECNOLOGIA);
+
+        assertEquals(List.of(t2e1, t1e2, t1e1, t3e1), serie.getEpisodios());
+        assertEquals(List.of(t1e1, t1e2, t2e1, t3e1), serie.getEpisodiosOrdenados());
+        assertEquals(t1e2, serie.buscarEpisodio(1, 2));
+        assertNull(serie.buscarEpisodio(2, 2));
+        assertEquals(t2e1, serie.getSiguienteEpisodio(t1e2));
+        assertEquals(t1e2, serie.getEpisodioAnterior(t2e1));
+        assertNull(serie.getSiguienteEpisodio(t3e1));
+        assertEquals(List.of(t1e1, t1e2), serie.getEpisodiosTemporada(1));
+        assertEquals(3, serie.getUltimaTemporada());
+        assertTrue(t2e1.esTemporadaNueva());
+        assertFalse(t1e1.esTemporadaNueva());
+
+        // Eliminar y renumerar mantienen el índice y la última temporada
+        serie.eliminarEpisodio(t3e1.getId());
+        assertEquals(2, serie.getUltimaTemporada());
+        assertNull(serie.getEpisodio(t3e1.getId()));
+        t1e1.setTemporada(4);
+        assertEquals(4, serie.getUltimaTemporada());
+        assertEquals(t1e1, serie.buscarEpisodio(4, 1));
+        assertEquals(List.of(t1e2), serie.getEpisodiosTemporada(1));
+        assertFalse(serie.obtenerEstadisticas().getEpisodiosPorTemporada().containsKey(3));
+        assertEquals(Integer.valueOf(1), serie.obtenerEstadisticas().getEpisodiosPorTemporada().get(4));
+    }
+
+    // ========== TEST 16: Series temporales de reproducciones ==========
+    @Test
+    @Order(16)
+    @DisplayName("8.16 - Reproducciones por hora, día y mes de un episodio con memoria acotada")
+    void testSeriesReproducciones() throws Exception {
+        Creador canal = plataforma.registrarCreador("Canal Series", "Series", "Test");
+        Podcast episodio = plataforma.crearPodcast("Con historia", 600, canal, 1, 1, CategoriaPodcast.TECNOLOGIA);
+        Podcast otro = plataforma.crearPodcast("Otro", 600, canal, 2, 1, CategoriaPodcast.TECNOLOGIA);
+        UsuarioPremium oyente = plataforma.registrarUsuarioPremium("Oyente Series", "series@test.com", "password123", TipoSuscripcion.PREMIUM);
+        RelojManual reloj = new RelojManual(1704067200000L); // 1 de enero de 2024, 00:00 UTC
+        oyente.setReloj(reloj);
+        long primerDia = reloj.diaEpoch();
+
+        // Un año y medio escuchando: una vez al día y dos los domingos
+        for (int dia = 0; dia < 550; dia++) {
+            oyente.reproducir(episodio);
+            if (reloj.diaEpoch() % 7 == 3) {
+                reloj.avanzarMillis(60 * 60 * 1000);
+                oyente.reproducir(episodio);
+            }
+            reloj.setMillis(1704067200000L + (dia + 1) * 24L * 60 * 60 * 1000);
+        }
+        oyente.reproducir(otro);
+        long hoy = reloj.diaEpoch();
+
+        int[] ultimos90 = episodio.getReproduccionesPorDia(hoy - 1, 90);
+        assertEquals(90, ultimos90.length);
+        int total90 = 0;
+        for (int valor : ultimos90) {
+            assertTrue(valor == 1 || valor == 2);
+            total90 += valor;
+        }
+        assertTrue(total90 >= 90 + 12 && total90 <= 90 + 13);
+
+        // Por horas solo queda la última semana; por días, algo más de un año
+        assertEquals(0, episodio.getReproduccionesPorHora(reloj.ahoraMillis() - 8L * 24 * 60 * 60 * 1000, 1)[0]);
+        assertEquals(0, episodio.getReproduccionesPorDia(primerDia, 1)[0]);
+        // Por meses queda todo: enero de 2024 tuvo 31 días y 4 domingos
+        assertEquals(31 + 4, episodio.getReproduccionesPorMes(YearMonth.of(2024, 1), 1)[0]);
+
+        // El creador suma las series de sus episodios
+        int[] canalHoy = canal.getReproduccionesPorDia(hoy, 1);
+        assertEquals(1, canalHoy[0]);
+        assertArrayEquals(new int[3], plataforma.crearPodcast("Nuevo", 600, canal, 3, 1, CategoriaPodcast.TECNOLOGIA)
+                .getReproduccionesPorDia(hoy, 3));
+    }
+
+    // ========== TEST 17: Posiciones de escucha por usuario ==========
+    @Test
+    @Order(17)
+    @DisplayName("8.17 - Cada usuario reanuda donde lo dejó y los latidos se vuelcan a disco agrupados")
+    void testPosicionesDeEscucha() throws Exception {
+        Creador canal = plataforma.registrarCreador("Canal Largo", "Largo", "Episodios largos");
+        Podcast largo = plataforma.crearPodcast("Largo", 7200, canal, 1, 1, CategoriaPodcast.EDUCACION);
+        Podcast corto = plataforma.crearPodcast("Corto", 1200, canal, 2, 1, CategoriaPodcast.EDUCACION);
+        Podcast tercero = plataforma.crearPodcast("Tercero", 3000, canal, 3, 1, CategoriaPodcast.EDUCACION);
+        UsuarioPremium ana = plataforma.registrarUsuarioPremium("Ana Pos", "anapos@test.com", "password123", TipoSuscripcion.PREMIUM);
+        UsuarioPremium luis = plataforma.registrarUsuarioPremium("Luis Pos", "luispos@test.com", "password123", TipoSuscripcion.PREMIUM);
+        RelojManual reloj = new RelojManual(1704067200000L);
+        ana.setReloj(reloj);
+        luis.setReloj(reloj);
+
+        Path archivo = Files.createTempDirectory("posiciones").resolve("posiciones.bin");
+        PosicionesReproduccion posiciones = plataforma.activarPosiciones(archivo, reloj, 60000);
+
+        // Un latido por segundo durante diez minutos: en disco solo acaba la última posición
+        for (int segundo = 1; segundo <= 600; segundo++) {
+            reloj.avanzarMillis(1000);
+            plataforma.registrarPosicion(ana, largo, segundo);
+        }
+        assertTrue(posiciones.getNumPendientes() <= 1);
+        reloj.avanzarMillis(1000);
+        plataforma.registrarPosicion(ana, tercero, 100);
+        reloj.avanzarMillis(1000);
+        plataforma.registrarPosicion(luis, largo, 50);
+        reloj.avanzarMillis(1000);
+        plataforma.registrarPosicion(ana, corto, 1190); // Más del 95%: terminado
+
+        // La posición es de cada usuario, no del episodio
+        assertEquals(600, plataforma.getPosicionEpisodio(ana, largo));
+        assertEquals(50, plataforma.getPosicionEpisodio(luis, largo));
+        assertTrue(plataforma.isEpisodioEscuchado(ana, corto));
+        assertEquals(0, plataforma.reanudarEpisodio(ana, corto));
+        assertEquals(600, plataforma.reanudarEpisodio(ana, largo));
+
+        // "Seguir escuchando": a medias y de más a menos reciente
+        ArrayList<Podcast> seguir = plataforma.getSeguirEscuchando(ana, 10);
+        assertEquals(List.of(tercero, largo), seguir);
+        plataforma.registrarPosicion(ana, largo, 700);
+        assertEquals(List.of(largo), plataforma.getSeguirEscuchando(ana, 1));
+
+        // Tras un reinicio se recupera todo del archivo
+        posiciones.vaciar();
+        assertEquals(0, posiciones.getNumPendientes());
+        PosicionesReproduccion recargadas = plataforma.activarPosiciones(archivo, reloj, 60000);
+        assertEquals(700, recargadas.getPosicion(ana.getId(), largo.getId()));
+        assertEquals(50, recargadas.getPosicion(luis.getId(), largo.getId()));
+        assertTrue(recargadas.isCompletado(ana.getId(), corto.getId()));
+        assertEquals(List.of(largo, tercero), plataforma.getSeguirEscuchando(ana, 10));
+    }
+
+    // ========== TEST 18: Importación de feeds RSS ==========
+    @Test
+    @Order(18)
+    @DisplayName("8.18 - El importador lee feeds RSS en streaming, publica por lotes y no duplica al reimportar")
+    void testImportarFeedsRss() throws Exception {
+        Path directorio = Files.createTempDirectory("feeds");
+        StringBuilder feed = new StringBuilder();
+        feed.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+            .append("<rss version=\"2.0\" xmlns:itunes=\"http://www.itunes.com/dtds/podcast-1.0.dtd\"")
+            .append(" xmlns:podcast=\"https://podcastindex.org/namespace/1.0\"><channel>")
+            .append("<title>Ciencia Sin Prisa</title><itunes:author>Marta</itunes:author>")
+            .append("<description>Divulgación</description>")
+            .append("<image><title>No es el canal</title></image>")
+            .append("<itunes:category text=\"Science\"><itunes:category text=\"Physics\"/></itunes:category>");
+        for (int i = 5; i >= 1; i--) {
+            feed.append("<item><title>Capítulo ").append(i).append("</title>")
+                .append("<description><![CDATA[<p>Hablamos de <b>física</b></p>]]></description>")
+                .append("<itunes:duration>1:0").append(i).append(":30</itunes:duration>")
+                .append("<itunes:season>2</itunes:season><itunes:episode>").append(i).append("</itunes:episode>")
+                .append("<podcast:person role=\"guest\">Invitada ").append(i).append("</podcast:person>")
+                .append("<podcast:person>Marta</podcast:person></item>");
+        }
+        feed.append("<item><title>Sin duración</title></item></channel></rss>");
+        Files.writeString(directorio.resolve("ciencia.xml"), feed.toString());
+        Files.writeString(directorio.resolve("corto.rss"), "<rss><channel><title>Canal Corto</title>"
+                + "<item><title>Único</title><itunes:duration xmlns:itunes=\"http://www.itunes.com/dtds/podcast-1.0.dtd\">900</itunes:duration></item>"
+                + "</channel></rss>");
+        Files.writeString(directorio.resolve("roto.xml"), "<rss><channel><title>Roto</channel>");
+
+        ImportadorFeeds importador = new ImportadorFeeds(plataforma, 2);
+        ResultadoImportacion resultado = importador.importarDirectorio(directorio, 3);
+
+        assertEquals(6, resultado.getEpisodiosImportados());
+        assertEquals(1, resultado.getEpisodiosOmitidos());
+        assertEquals(1, resultado.getErrores().size());
+        assertTrue(resultado.getErrores().get(0).contains("roto.xml"));
+
+        Creador ciencia = plataforma.buscarOCrearCreador("Ciencia Sin Prisa", "x", "x");
+        assertEquals(5, ciencia.getNumEpisodios());
+        Podcast tercero = ciencia.buscarEpisodio(2, 3);
+        assertEquals("Capítulo 3", tercero.getTitulo());
+        assertEquals(3600 + 3 * 60 + 30, tercero.getDuracionSegundos());
+        assertEquals("Hablamos de física", tercero.getDescripcion());
+        assertEquals(List.of("Invitada 3"), tercero.getInvitados());
+        assertEquals(CategoriaPodcast.CIENCIA, tercero.getCategoria());
+        assertEquals(1, plataforma.buscarOCrearCreador("Canal Corto", "x", "x").buscarEpisodio(1, 1).getNumeroEpisodio());
+
+        // Reimportar el mismo feed no crea episodios repetidos
+        ResultadoImportacion otraVez = importador.importarFeed(directorio.resolve("ciencia.xml"));
+        assertEquals(0, otraVez.getEpisodiosImportados());
+        assertEquals(6, otraVez.getEpisodiosOmitidos());
+        assertEquals(5, ciencia.getNumEpisodios());
+    }
+
+    // ========== TEST 19: Posiciones tras una caída ==========
+    @Test
+    @Order(19)
+    @DisplayName("8.19 - Un registro de posiciones cortado por una caída se recorta y lo siguiente se puede leer")
+    void testPosicionesConRegistroCortado() throws Exception {
+        RelojManual reloj = new RelojManual(1704067200000L);
+        Path archivo = Files.createTempDirectory("cortado").resolve("posiciones.bin");
+        PosicionesReproduccion posiciones = new PosicionesReproduccion(archivo, reloj, 60000);
+        posiciones.registrar("ana", "ep-1", 120, 3600, reloj.ahoraMillis());
+        posiciones.registrar("ana", "ep-2", 300, 3600, reloj.ahoraMillis());
+        posiciones.vaciar();
+        long sano = Files.size(archivo);
+
+        // La caída deja medio registro de posición al final
+        Files.write(archivo, new byte[]{2, 0, 0, 0, 0, 0, 1}, StandardOpenOption.APPEND);
+        PosicionesReproduccion tras = new PosicionesReproduccion(archivo, reloj, 60000);
+        assertEquals(sano, Files.size(archivo));
+        assertEquals(120, tras.getPosicion("ana", "ep-1"));
+        assertEquals(300, tras.getPosicion("ana", "ep-2"));
+
+        // Lo que se añade después del recorte se vuelve a leer entero
+        reloj.avanzarMillis(1000);
+        tras.registrar("luis", "ep-1", 45, 3600, reloj.ahoraMillis());
+        tras.registrar("ana", "ep-1", 150, 3600, reloj.ahoraMillis());
+        tras.vaciar();
+        PosicionesReproduccion otraVez = new PosicionesReproduccion(archivo, reloj, 60000);
+        assertEquals(150, otraVez.getPosicion("ana", "ep-1"));
+        assertEquals(300, otraVez.getPosicion("ana", "ep-2"));
+        assertEquals(45, otraVez.getPosicion("luis", "ep-1"));
+        assertEquals(List.of("ep-1", "ep-2"), otraVez.getContinuarEscuchando("ana", 10));
+
+        // Un latido que llega tarde con una marca anterior no pisa la posición ni reordena la lista
+        otraVez.registrar("ana", "ep-2", 200, 3600, reloj.ahoraMillis() - 5000);
+        otraVez.marcarCompletado("ana", "ep-1", reloj.ahoraMillis() - 5000);
+        assertEquals(300, otraVez.getPosicion("ana", "ep-2"));
+        assertFalse(otraVez.isCompletado("ana", "ep-1"));
+        assertEquals(List.of("ep-1", "ep-2"), otraVez.getContinuarEscuchando("ana", 10));
+        assertEquals(0, otraVez.getNumPendientes());
+
+        // La plataforma baja lo pendiente al cambiar de archivo y al cerrar
+        Creador canal = plataforma.registrarCreador("Canal Caída", "Caida", "Test");
+        Podcast episodio = plataforma.crearPodcast("Caída", 3600, canal, 1, 1, CategoriaPodcast.EDUCACION);
+        UsuarioPremium oyente = plataforma.registrarUsuarioPremium("Caída", "caida@test.com", "password123", TipoSuscripcion.PREMIUM);
+        oyente.setReloj(reloj);
+        Path primero = Files.createTempDirectory("cambio").resolve("primero.bin");
+        plataforma.activarPosiciones(primero, reloj, Long.MAX_VALUE);
+        plataforma.registrarPosicion(oyente, episodio, 600);
+        Path segundo = primero.resolveSibling("segundo.bin");
+        plataforma.activarPosiciones(segundo, reloj, Long.MAX_VALUE);
+        assertEquals(600, new PosicionesReproduccion(primero, reloj, 0).getPosicion(oyente.getId(), episodio.getId()));
+        plataforma.registrarPosicion(oyente, episodio, 900);
+        plataforma.cerrar();
+        assertEquals(900, new PosicionesReproduccion(segundo, reloj, 0).getPosicion(oyente.getId(), episodio.getId()));
+    }
+
+    // ========== TEST 20: Numeración de episodios importados ==========
+    @Test
+    @Order(20)
+    @DisplayName("8.20 - Los episodios sin número siguen al mayor del creador y un número repetido se informa")
+    void testNumeracionImportadaYCanalRenombrado() throws Exception {
+        Creador canal = plataforma.registrarCreador("Canal Numerado", "Numerado", "Test");
+        plataforma.crearPodcast("Manual 1", 1800, canal, 1, 1, CategoriaPodcast.EDUCACION);
+        plataforma.crearPodcast("Manual 2", 1800, canal, 2, 1, CategoriaPodcast.EDUCACION);
+
+        Path archivo = Files.createTempDirectory("numeracion").resolve("numerado.xml");
+        Files.writeString(archivo, "<rss xmlns:itunes=\"http://www.itunes.com/dtds/podcast-1.0.dtd\"><channel>"
+                + "<title>canal numerado</title>"
+                + "<item><title>Sin número</title><itunes:duration>600</itunes:duration></item>"
+                + "<item><title>Otro con el 2</title><itunes:duration>600</itunes:duration><itunes:episode>2</itunes:episode></item>"
+                + "<item><title>Manual 1</title><itunes:duration>600</itunes:duration><itunes:episode>1</itunes:episode></item>"
+                + "</channel></rss>");
+        ImportadorFeeds importador = new ImportadorFeeds(plataforma);
+        ResultadoImportacion resultado = importador.importarFeed(archivo);
+
+        assertEquals(1, resultado.getEpisodiosImportados());
+        assertEquals(2, resultado.getEpisodiosOmitidos());
+        assertEquals(1, resultado.getErrores().size());
+        assertTrue(resultado.getErrores().get(0).contains("Manual 2"));
+        assertEquals("Sin número", canal.buscarEpisodio(1, 3).getTitulo());
+        assertEquals("Manual 2", canal.buscarEpisodio(1, 2).getTitulo());
+
+        // Reimportar conserva el número que se le dio al que no lo traía
+        ResultadoImportacion otraVez = importador.importarFeed(archivo);
+        assertEquals(0, otraVez.getEpisodiosImportados());
+        assertEquals(3, canal.getNumEpisodios());
+
+        // El índice por canal sigue al nombre nuevo
+        canal.setNombreCanal("Canal Renumerado");
+        assertSame(canal, plataforma.buscarOCrearCreador("canal renumerado", "x", "x"));
+        Creador nuevo = plataforma.buscarOCrearCreador("Canal Numerado", "x", "x");
+        assertNotSame(canal, nuevo);
+        assertEquals("Canal Numerado", nuevo.getNombreCanal());
+    }
+
+    // ========== TEST 21: Feeds del mismo canal en paralelo ==========
+    @Test
+    @Order(21)
+    @DisplayName("8.21 - Dos feeds del mismo canal importados en paralelo no se pisan los números")
+    void testFeedsParalelosMismoCanal() throws Exception {
+        Path directorio = Files.createTempDirectory("paralelos");
+        for (String parte : List.of("a", "b", "c")) {
+            StringBuilder feed = new StringBuilder("<rss><channel><title>Canal Paralelo</title>");
+            for (int i = 0; i < 40; i++) {
+                feed.append("<item><title>Parte ").append(parte).append(" ").append(i)
+                        .append("</title><itunes:duration xmlns:itunes=\"http://www.itunes.com/dtds/podcast-1.0.dtd\">600</itunes:duration></item>");
+            }
+            Files.writeString(directorio.resolve(parte + ".xml"), feed.append("</channel></rss>").toString());
+        }
+
+        // Lotes de 3 para que los tres hilos publiquen intercalados
+        ResultadoImportacion resultado = new ImportadorFeeds(plataforma, 3).importarDirectorio(directorio, 3);
+        assertEquals(120, resultado.getEpisodiosImportados());
+        assertEquals(0, resultado.getEpisodiosOmitidos());
+        assertTrue(resultado.getErrores().isEmpty());
+
+        Creador canal = plataforma.buscarOCrearCreador("Canal Paralelo", "x", "x");
+        assertEquals(120, canal.getNumEpisodios());
+        assertEquals(120, canal.getUltimoNumero(1));
+        for (int numero = 1; numero <= 120; numero++) {
+            assertNotNull(canal.buscarEpisodio(1, numero));
+        }
+    }
 }
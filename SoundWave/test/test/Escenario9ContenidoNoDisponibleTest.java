@@ -4,15 +4,20 @@ import enums.TipoSuscripcion;
 import excepciones.contenido.ContenidoNoDisponibleException;
 import excepciones.contenido.LetraNoDisponibleException;
 import excepciones.contenido.TranscripcionNoDisponibleException;
+import excepciones.plataforma.ContenidoNoEncontradoException;
 import modelo.artistas.Album;
 import modelo.artistas.Artista;
 import modelo.artistas.Creador;
 import modelo.contenido.Cancion;
 import modelo.contenido.Podcast;
 import modelo.plataforma.Plataforma;
+import modelo.plataforma.Playlist;
+import modelo.plataforma.PlaylistColaborativa;
 import modelo.usuarios.UsuarioPremium;
+import utilidades.ResultadoTexto;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
 import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -220,4 +225,150 @@ public class Escenario9ContenidoNoDisponibleTest {
             cancionLetraVacia.obtenerLetra();
         });
     }
+
+    // ========== TEST 13: Retirada en cascada ==========
+    @Test
+    @Order(13)
+    @DisplayName("9.13 - Retirar un contenido lo quita de playlists, descargas y likes mediante los índices inversos")
+    void testRetirarContenidoEnCascada() throws Exception {
+        Artista artista = plataforma.registrarArtista("Retirable", "Ret", "Test", true);
+        Cancion retirada = plataforma.crearCancion("Retirada", 150, artista, GeneroMusical.POP);
+        Cancion otra = plataforma.crearCancion("Se queda", 150, artista, GeneroMusical.POP);
+        UsuarioPremium fan = plataforma.registrarUsuarioPremium("Fan", "fan@test.com", "password123", TipoSuscripcion.PREMIUM);
+
+        Playlist mia = fan.crearPlaylist("Mía");
+        mia.agregarContenido(retirada);
+        mia.agregarContenido(otra);
+        Playlist publica = plataforma.crearPlaylistPublica("Pública", user);
+        publica.agregarContenido(retirada);
+        fan.descargar(retirada);
+        fan.darLike(retirada);
+        user.darLike(retirada);
+        PlaylistColaborativa compartida = plataforma.crearPlaylistColaborativa("Compartida", fan);
+        compartida.agregarContenido(fan, retirada);
+        compartida.agregarContenido(fan, otra);
+        PlaylistColaborativa replica = compartida.crearReplica(); // No está en la plataforma
+
+        // El contenido sabe dónde está referenciado
+        assertEquals(2, retirada.getPlaylists().size());
+        assertEquals(1, retirada.getUsuariosDescarga().size());
+        assertEquals(2, retirada.getPlaylistsColaborativas().size());
+        publica.eliminarContenido(retirada);
+        assertEquals(1, retirada.getPlaylists().size());
+        publica.agregarContenido(retirada);
+
+        int afectados = plataforma.retirarContenido(retirada.getId());
+
+        assertEquals(7, afectados);
+        assertFalse(retirada.isDisponible());
+        assertFalse(mia.contieneContenido(retirada.getId()));
+        assertTrue(mia.contieneContenido(otra.getId()));
+        assertTrue(publica.estaVacia());
+        assertFalse(fan.getDescargados().contains(retirada));
+        assertFalse(fan.tieneLike(retirada));
+        assertFalse(user.tieneLike(retirada));
+        assertTrue(retirada.getPlaylists().isEmpty());
+        assertFalse(compartida.contieneContenido(retirada.getId()));
+        assertFalse(replica.contieneContenido(retirada.getId()));
+        assertTrue(compartida.contieneContenido(otra.getId()));
+        assertTrue(retirada.getPlaylistsColaborativas().isEmpty());
+        // Las réplicas ya tienen la baja: fusionarlas no la revive
+        compartida.fusionar(replica);
+        assertEquals(1, compartida.getNumContenidos());
+        assertFalse(plataforma.getCatalogo().contains(retirada));
+        assertEquals(otra, plataforma.buscarContenidoPorId(otra.getId()));
+        assertTrue(plataforma.getCatalogo().contains(otra));
+        assertThrows(ContenidoNoEncontradoException.class, () -> plataforma.buscarContenidoPorId(retirada.getId()));
+    }
+
+    // ========== TEST 14: Búsqueda en letras y transcripciones ==========
+    @Test
+    @Order(14)
+    @DisplayName("9.14 - La búsqueda de texto encuentra frases en letras y transcripciones y sigue los cambios")
+    void testBusquedaEnTextos() throws Exception {
+        Artista artista = plataforma.registrarArtista("Letrista", "Let", "Test", true);
+        Cancion cancion = plataforma.crearCancion("Canción del Mar", 200, artista, GeneroMusical.POP);
+        cancion.setLetra("Bajo la luz de la luna\nnavegamos por el mar en calma");
+        Cancion otra = plataforma.crearCancion("Otra", 180, artista, GeneroMusical.POP);
+        otra.setLetra("La luna no sale hoy, solo queda el mar");
+        Creador creador = plataforma.registrarCreador("Charlas", "Charla", "Test");
+        Podcast podcast = plataforma.crearPodcast("Episodio marino", 1800, creador, 1, 1, CategoriaPodcast.CIENCIA);
+        podcast.setTranscripcion("Hoy hablamos de la Luz de la Luna y de las mareas");
+
+        // La frase respeta el orden y las palabras vacías; los acentos y mayúsculas no importan
+        ArrayList<ResultadoTexto> frase = plataforma.buscarEnTextos("\"luz de la luna\"", 10);
+        assertEquals(2, frase.size());
+        assertTrue(frase.stream().anyMatch(r -> r.getContenido() == cancion));
+        assertTrue(frase.stream().anyMatch(r -> r.getContenido() == podcast));
+        assertTrue(frase.get(0).getFragmento().contains("[luz]"));
+
+        // Sin comillas basta con que aparezcan todas las palabras
+        assertEquals(2, plataforma.buscarEnTextos("MAR luna", 10).size());
+        assertTrue(plataforma.buscarEnTextos("\"luna mar\"", 10).isEmpty());
+        assertEquals(podcast, plataforma.buscarEnTextos("MAREAS", 10).get(0).getContenido());
+
+        // Cambiar la letra reindexa la canción
+        otra.setLetra("Nada que ver");
+        assertEquals(1, plataforma.buscarEnTextos("mar luna", 10).size());
+
+        // Y al retirarla desaparece del índice
+        plataforma.retirarContenido(cancion);
+        assertTrue(plataforma.buscarEnTextos("navegamos", 10).isEmpty());
+        assertFalse(plataforma.getIndiceTexto().estaIndexado(cancion));
+    }
+
+    // ========== TEST 15: Frases con palabras vacías ==========
+    @Test
+    @Order(15)
+    @DisplayName("9.15 - Las palabras vacías de una frase tienen que estar en su sitio")
+    void testFraseConPalabrasVacias() throws Exception {
+        Artista artista = plataforma.registrarArtista("Frases", "Frases", "Test", true);
+        Cancion exacta = plataforma.crearCancion("Exacta", 200, artista, GeneroMusical.POP);
+        exacta.setLetra("Dicen que la vida es bella cuando amanece");
+        Cancion hueco = plataforma.crearCancion("Hueco", 200, artista, GeneroMusical.POP);
+        hueco.setLetra("Una vida loca bella y nada más");
+        Cancion otraVacia = plataforma.crearCancion("Otra vacía", 200, artista, GeneroMusical.POP);
+        otraVacia.setLetra("Mi vida de bella durmiente");
+
+        // El hueco entre "vida" y "bella" tiene que ser justo "es", no otra palabra cualquiera
+        ArrayList<ResultadoTexto> frase = plataforma.buscarEnTextos("\"la vida es bella\"", 10);
+        assertEquals(1, frase.size());
+        assertEquals(exacta, frase.get(0).getContenido());
+        assertTrue(frase.get(0).getFragmento().contains("[vida] es [bella]"));
+
+        // Sueltas, las palabras vacías no filtran ni puntúan
+        assertEquals(3, plataforma.buscarEnTextos("la vida es bella", 10).size());
+        assertTrue(plataforma.buscarEnTextos("\"la es\"", 10).isEmpty());
+
+        // El límite se aplica después de ordenar por puntuación
+        ArrayList<ResultadoTexto> primera = plataforma.buscarEnTextos("vida bella", 1);
+        assertEquals(1, primera.size());
+        assertEquals(plataforma.buscarEnTextos("vida bella", 10).get(0).getContenido(), primera.get(0).getContenido());
+    }
+
+    // ========== TEST 16: La ñ no se confunde con la n ==========
+    @Test
+    @Order(16)
+    @DisplayName("9.16 - Quitar acentos no convierte la ñ en n")
+    void testEnieNoEsEne() throws Exception {
+        Artista artista = plataforma.registrarArtista("Eñes", "Eñes", "Test", true);
+        Cancion conEnie = plataforma.crearCancion("Feliz año", 200, artista, GeneroMusical.POP);
+        conEnie.setLetra("Otro año más bailando esta canción");
+        Cancion sinEnie = plataforma.crearCancion("Ano", 200, artista, GeneroMusical.POP);
+        sinEnie.setLetra("Un ano cualquiera sin acento ninguno");
+
+        ArrayList<ResultadoTexto> anio = plataforma.buscarEnTextos("año", 10);
+        assertEquals(1, anio.size());
+        assertEquals(conEnie, anio.get(0).getContenido());
+        // Mayúsculas y ñ ya compuesta o descompuesta dan lo mismo
+        assertEquals(conEnie, plataforma.buscarEnTextos("AÑO", 10).get(0).getContenido());
+        assertEquals(conEnie, plataforma.buscarEnTextos("an\u0303o", 10).get(0).getContenido());
+
+        ArrayList<ResultadoTexto> ano = plataforma.buscarEnTextos("ano", 10);
+        assertEquals(1, ano.size());
+        assertEquals(sinEnie, ano.get(0).getContenido());
+
+        // El resto de tildes se siguen ignorando
+        assertEquals(conEnie, plataforma.buscarEnTextos("cancion", 10).get(0).getContenido());
+    }
 }